@@ -61,6 +61,7 @@ object Headers {
   val Timeout                      = "Timeout"
   val TimeoutValuePrefix           = "Second-"
   val ETag                         = "ETag"
+  val RetryAfter                   = "Retry-After"
 
   val IfModifiedSince              = "If-Modified-Since"
   val IfMatch                      = "If-Match"
@@ -70,7 +70,8 @@ object SAXStoreBinaryFormat {
       ss
     }
 
-    def writes(out: Output, value: SAXStore): Unit = {
+    def writes(out: Output, saxStore: SAXStore): Unit = {
+      val value = saxStore.withBinaryReferencesAsBase64
       write(out, value.eventBufferPosition)
       for (i <- 0 until value.eventBufferPosition)
         write(out, value.eventBuffer(i))
@@ -0,0 +1,28 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+
+
+// Value which can go up and down, such as a number of running tasks
+final class Gauge extends Metric {
+
+  private val value = new AtomicLong
+
+  def inc(): Long        = value.incrementAndGet()
+  def dec(): Long        = value.decrementAndGet()
+  def set(n: Long): Unit = value.set(n)
+  def get: Long          = value.get
+}
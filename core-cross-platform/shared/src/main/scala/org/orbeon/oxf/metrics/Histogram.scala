@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+
+
+// Distribution of non-negative values, such as durations in microseconds.
+//
+// As with HDR histograms, buckets are log-linear: each power of 2 is divided into 8 buckets of equal width, so the
+// value reported for a bucket is within 1/8 of the recorded values, over the whole range of `Long` values, with a
+// fixed number of buckets. Recording a value doesn't lock.
+final class Histogram extends Metric {
+
+  import Histogram.*
+
+  private val buckets = Array.fill(BucketCount)(new AtomicLong)
+  private val _count  = new AtomicLong
+  private val _sum    = new AtomicLong
+
+  def record(value: Long): Unit = {
+    val nonNegative = value max 0L
+    buckets(bucketIndex(nonNegative)).incrementAndGet()
+    _sum.addAndGet(nonNegative)
+    _count.incrementAndGet()
+  }
+
+  // Record the time taken by `body`, in microseconds
+  def time[T](body: => T): T = {
+    val startTime = System.nanoTime
+    try
+      body
+    finally
+      record((System.nanoTime - startTime) / 1000)
+  }
+
+  def count: Long = _count.get
+  def sum  : Long = _sum.get
+
+  // Counts by bucket, which are consistent with each other but not necessarily with `count` and `sum` while values
+  // are being recorded
+  def bucketCounts: Array[Long] = buckets.map(_.get)
+
+  // Highest value, within the bucket precision, below which `percentile` percent of the recorded values are
+  def valueAtPercentile(percentile: Double): Long = {
+
+    val counts = bucketCounts
+    val total  = counts.sum
+
+    if (total == 0)
+      0L
+    else {
+      val target = math.ceil(percentile / 100 * total).toLong max 1L
+
+      var index      = 0
+      var cumulative = counts(0)
+      while (cumulative < target && index < BucketCount - 1) {
+        index += 1
+        cumulative += counts(index)
+      }
+      highestValue(index)
+    }
+  }
+}
+
+object Histogram {
+
+  private val SubBucketBits  = 3
+  private val SubBucketCount = 1 << SubBucketBits
+
+  // Values below `SubBucketCount` have a bucket each, then each power of 2 up to 2^62 has `SubBucketCount` buckets
+  val BucketCount: Int = (64 - SubBucketBits) * SubBucketCount
+
+  def bucketIndex(value: Long): Int =
+    if (value < SubBucketCount)
+      value.toInt
+    else {
+      val shift = 63 - java.lang.Long.numberOfLeadingZeros(value) - SubBucketBits
+      (shift + 1) * SubBucketCount + ((value >>> shift) & (SubBucketCount - 1)).toInt
+    }
+
+  def lowestValue(index: Int): Long =
+    if (index < SubBucketCount)
+      index.toLong
+    else
+      (SubBucketCount + index % SubBucketCount).toLong << (index / SubBucketCount - 1)
+
+  def highestValue(index: Int): Long =
+    if (index < SubBucketCount)
+      index.toLong
+    else
+      lowestValue(index) + (1L << (index / SubBucketCount - 1)) - 1
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.metrics
+
+import org.orbeon.oxf.util.CoreCrossPlatformSupport
+
+import java.util.concurrent.ConcurrentHashMap
+import scala.annotation.varargs
+import scala.jdk.CollectionConverters.*
+
+
+trait Metric
+
+// Process-wide registry of metrics, identified by name and labels, and exported in the Prometheus text format.
+//
+// Counters, gauges and histograms are always updated, as this is cheap. Only measurements which would add work to hot paths,
+// such as timing each XPath evaluation, depend on `isEnabled`, which also enables the export.
+object Metrics {
+
+  val EnabledProperty = "oxf.metrics.enabled"
+
+  def isEnabled: Boolean =
+    CoreCrossPlatformSupport.properties.getBoolean(EnabledProperty, default = false)
+
+  private case class Key(name: String, labels: List[(String, String)])
+  private case class Registered(help: String, metric: Metric)
+
+  private val registry = new ConcurrentHashMap[Key, Registered]
+
+  @varargs
+  def counter(name: String, help: String, labels: (String, String)*): Counter =
+    register(name, help, labels, new Counter)
+
+  @varargs
+  def gauge(name: String, help: String, labels: (String, String)*): Gauge =
+    register(name, help, labels, new Gauge)
+
+  @varargs
+  def histogram(name: String, help: String, labels: (String, String)*): Histogram =
+    register(name, help, labels, new Histogram)
+
+  // Cumulative counts of histogram values are exported below powers of 2 from 2^3 to 2^34, which is about 4.8 hours
+  // for durations in microseconds
+  private val ExportedBucketIndexes =
+    (3 to 34).map(exponent => Histogram.bucketIndex((1L << exponent) - 1))
+
+  def prometheusText: String = {
+
+    val sb = new java.lang.StringBuilder
+
+    def appendSample(name: String, labels: List[(String, String)], value: Long): Unit = {
+      sb.append(name)
+      if (labels.nonEmpty)
+        sb.append(labels.map { case (n, v) => s"""$n="${escapeLabelValue(v)}"""" }.mkString("{", ",", "}"))
+      sb.append(' ').append(value).append('\n')
+    }
+
+    registry.asScala.toList.groupBy(_._1.name).toList.sortBy(_._1) foreach { case (name, series) =>
+
+      val sortedSeries = series.sortBy(_._1.labels.toString)
+      val help         = sortedSeries.head._2.help
+
+      sortedSeries.head._2.metric match {
+        case _: Counter   => sb.append(s"# HELP $name $help\n# TYPE $name counter\n")
+        case _: Gauge     => sb.append(s"# HELP $name $help\n# TYPE $name gauge\n")
+        case _: Histogram => sb.append(s"# HELP $name $help\n# TYPE $name histogram\n")
+        case _            =>
+      }
+
+      sortedSeries foreach {
+        case (Key(_, labels), Registered(_, counter: Counter)) =>
+          appendSample(name, labels, counter.get)
+        case (Key(_, labels), Registered(_, gauge: Gauge)) =>
+          appendSample(name, labels, gauge.get)
+        case (Key(_, labels), Registered(_, histogram: Histogram)) =>
+          val counts = histogram.bucketCounts
+          var cumulative = 0L
+          var index      = 0
+          ExportedBucketIndexes foreach { bucketIndex =>
+            while (index <= bucketIndex) {
+              cumulative += counts(index)
+              index += 1
+            }
+            appendSample(s"${name}_bucket", labels :+ ("le" -> Histogram.highestValue(bucketIndex).toString), cumulative)
+          }
+          appendSample(s"${name}_bucket", labels :+ ("le" -> "+Inf"), counts.sum)
+          appendSample(s"${name}_sum",    labels, histogram.sum)
+          appendSample(s"${name}_count",  labels, counts.sum)
+        case _ =>
+      }
+    }
+
+    sb.toString
+  }
+
+  private def register[M <: Metric](name: String, help: String, labels: collection.Seq[(String, String)], create: => M): M = {
+    val key = Key(name, labels.toList)
+    val registered =
+      registry.get(key) match {
+        case null     => registry.computeIfAbsent(key, _ => Registered(help, create))
+        case existing => existing
+      }
+    registered.metric.asInstanceOf[M]
+  }
+
+  private def escapeLabelValue(value: String): String =
+    value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+}
@@ -39,6 +39,7 @@ object XPLConstants {
   val ERROR_PROCESSOR_QNAME                  = QName("error",                  OXF_PROCESSORS_NAMESPACE)
   val XINCLUDE_PROCESSOR_QNAME               = QName("xinclude",               OXF_PROCESSORS_NAMESPACE)
   val DEBUG_PROCESSOR_QNAME                  = QName("debug",                  OXF_PROCESSORS_NAMESPACE)
+  val SQL_PROCESSOR_QNAME                    = QName("sql",                    OXF_PROCESSORS_NAMESPACE)
 
   val OPS_TYPES_URI = "http://orbeon.org/oxf/xml/datatypes"
   val OPS_XMLFRAGMENT_QNAME = QName("xmlFragment", Namespace("ops", OPS_TYPES_URI))
@@ -0,0 +1,30 @@
+package org.orbeon.oxf.xml
+
+import org.xml.sax.ContentHandler
+
+import java.io.InputStream
+
+
+// Binary content of an `xs:base64Binary` document, passed as a single event instead of base64 `characters()` events.
+// Receivers which don't implement `BinaryReferenceReceiver` get the base64 `characters()` events instead.
+//
+// The content must remain available until the end of the request, so references must only be produced by outputs
+// which are not cached.
+trait BinaryReference {
+  def length: Long
+  def newInputStream: InputStream
+  def writeBase64Characters(contentHandler: ContentHandler): Unit
+}
+
+trait BinaryReferenceReceiver {
+  def binaryReference(reference: BinaryReference): Unit
+}
+
+object BinaryReference {
+
+  def send(reference: BinaryReference, contentHandler: ContentHandler): Unit =
+    contentHandler match {
+      case receiver: BinaryReferenceReceiver => receiver.binaryReference(reference)
+      case _                                 => reference.writeBase64Characters(contentHandler)
+    }
+}
@@ -6,4 +6,5 @@ package org.orbeon.oxf.xml
 class EmbeddedDocumentXMLReceiver(val xmlReceiver: XMLReceiver) extends SimpleForwardingXMLReceiver(xmlReceiver) {
   override def startDocument(): Unit = ()
   override def endDocument(): Unit = ()
+  override protected def forwardsBinaryReferences: Boolean = true
 }
\ No newline at end of file
@@ -19,7 +19,7 @@ import org.xml.sax.Locator
 import org.xml.sax.SAXException
 import org.xml.sax.ext.LexicalHandler
 
-class ForwardingXMLReceiver extends XMLReceiver {
+class ForwardingXMLReceiver extends XMLReceiver with BinaryReferenceReceiver {
 
   private var xmlReceiver   : XMLReceiver = null
   private var contentHandler: ContentHandler = null
@@ -123,6 +123,22 @@ class ForwardingXMLReceiver extends XMLReceiver {
     if (forwardContent)
       contentHandler.startPrefixMapping(s, s1)
 
+  // Binary references are forwarded as is, unless this receiver processes text, in which case it gets the content as
+  // base64 `characters()` events
+  def binaryReference(reference: BinaryReference): Unit =
+    if (forwardsBinaryReferences)
+      forwardBinaryReference(reference)
+    else
+      reference.writeBase64Characters(this)
+
+  // Subclasses which override `characters()` only to check or log events can return `true`
+  protected def forwardsBinaryReferences: Boolean =
+    getClass eq classOf[ForwardingXMLReceiver]
+
+  protected def forwardBinaryReference(reference: BinaryReference): Unit =
+    if (forwardContent)
+      BinaryReference.send(reference, contentHandler)
+
   // LexicalHandler methods
   @throws[SAXException]
   override def startDTD(name: String, publicId: String, systemId: String): Unit =
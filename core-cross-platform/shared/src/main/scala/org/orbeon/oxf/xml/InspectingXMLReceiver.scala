@@ -98,6 +98,13 @@ class InspectingXMLReceiver(val xmlReceiver: XMLReceiver) extends ForwardingXMLR
     super.characters(chars, start, length)
   }
 
+  override def binaryReference(reference: BinaryReference): Unit = {
+    val error = checkInElement
+    if (error != null)
+      throw new ValidationException(error + ": binary content", XmlLocationData(locator))
+    forwardBinaryReference(reference)
+  }
+
   override def setDocumentLocator(locator: Locator): Unit = {
     this.locator = locator
     super.setDocumentLocator(locator)
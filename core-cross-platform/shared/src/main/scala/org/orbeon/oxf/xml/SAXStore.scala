@@ -43,6 +43,7 @@ private object SAXStore {
   val SkippedEntity        : Byte = 0x09
   val StartPrefixMapping   : Byte = 0x0A
   val Comment              : Byte = 0x0B
+  val BinaryRef            : Byte = 0x0C
 
   val InitialSize          : Int  = 10
 }
@@ -72,6 +73,9 @@ final class SAXStore extends ForwardingXMLReceiver {
 
   private[oxf] var stringBuilder                 = new ju.ArrayList[String]
 
+  // Not serialized, see `BinaryReference`
+  private[oxf] var binaryReferences             : ju.ArrayList[BinaryReference] = null
+
   private[oxf] var hasDocumentLocator           : Boolean = false
   private[oxf] var publicId                     : String = null
 
@@ -101,6 +105,7 @@ final class SAXStore extends ForwardingXMLReceiver {
     attributeCountBuffer = new Array[Int](SAXStore.InitialSize)
 
     stringBuilder.clear()
+    binaryReferences = null
     locator = null
   }
 
@@ -126,6 +131,7 @@ final class SAXStore extends ForwardingXMLReceiver {
     private[oxf] var systemIdBufferPosition       = 0
     private[oxf] var attributeCountBufferPosition = 0
     private[oxf] var stringBuilderPosition        = 0
+    private[oxf] var binaryReferencePosition      = 0
 
     def this(store: SAXStore, id: String) = {
       this()
@@ -137,6 +143,7 @@ final class SAXStore extends ForwardingXMLReceiver {
       this.systemIdBufferPosition       = store.systemIdBufferPosition
       this.attributeCountBufferPosition = store.attributeCountBufferPosition
       this.stringBuilderPosition        = store.stringBuilder.size
+      this.binaryReferencePosition      = if (store.binaryReferences eq null) 0 else store.binaryReferences.size
       rememberMark()
     }
 
@@ -212,6 +219,20 @@ final class SAXStore extends ForwardingXMLReceiver {
 
   def getAttributesCount: Int = attributeCount
 
+  // Binary references can't be serialized, so return a copy with their content as base64 characters. Marks are only
+  // created on documents which don't contain binary content.
+  def withBinaryReferencesAsBase64: SAXStore =
+    if (binaryReferences eq null)
+      this
+    else {
+      require((marks eq null) || marks.isEmpty, "`SAXStore` with both marks and binary references")
+      val copy = new SAXStore
+      replay(new ForwardingXMLReceiver(copy) {
+        override protected def forwardsBinaryReferences: Boolean = false
+      })
+      copy
+    }
+
   def getValidity: AnyRef = jl.Long.valueOf(eventBuffer.hashCode * charBuffer.hashCode * intBuffer.hashCode)
 
   @throws[SAXException]
@@ -225,6 +246,7 @@ final class SAXStore extends ForwardingXMLReceiver {
     var charBufferPos           = mark.charBufferPosition
     var stringBuilderPos        = mark.stringBuilderPosition
     var attributeCountBufferPos = mark.attributeCountBufferPosition
+    var binaryReferencePos      = mark.binaryReferencePosition
     val lineBufferPos           = Array(mark.lineBufferPosition)
     val systemIdBufferPos       = Array(mark.systemIdBufferPosition)
     val attributes              = new AttributesImpl
@@ -350,6 +372,9 @@ final class SAXStore extends ForwardingXMLReceiver {
             intBufferPos += 1
             xmlReceiver.comment(charBuffer, charBufferPos, length)
             charBufferPos += length
+          case SAXStore.BinaryRef =>
+            BinaryReference.send(binaryReferences.get(binaryReferencePos), xmlReceiver)
+            binaryReferencePos += 1
         }
         currentEventPosition += 1
         if (eventHasLocation) {
@@ -503,6 +528,15 @@ final class SAXStore extends ForwardingXMLReceiver {
     super.startPrefixMapping(s, s1)
   }
 
+  override def binaryReference(reference: BinaryReference): Unit = {
+    addToEventBuffer(SAXStore.BinaryRef)
+    addLocation()
+    if (binaryReferences eq null)
+      binaryReferences = new ju.ArrayList[BinaryReference]
+    binaryReferences.add(reference)
+    forwardBinaryReference(reference)
+  }
+
   @throws[SAXException]
   override def comment(ch: Array[Char], start: Int, length: Int): Unit = {
     addToEventBuffer(SAXStore.Comment)
@@ -7,7 +7,7 @@ import org.xml.sax.ext.LexicalHandler
 /**
  * Simple `XMLReceiver` able to forward to another `XMLReceiver` or `ContentHandler`.
  */
-class SimpleForwardingXMLReceiver(out: ContentHandler Either XMLReceiver) extends XMLReceiver {
+class SimpleForwardingXMLReceiver(out: ContentHandler Either XMLReceiver) extends XMLReceiver with BinaryReferenceReceiver {
 
   private var contentHandler: ContentHandler = out.fold(identity, identity)
   private var lexicalHandler: LexicalHandler = out.getOrElse(null)
@@ -23,6 +23,16 @@ class SimpleForwardingXMLReceiver(out: ContentHandler Either XMLReceiver) extend
   override def characters(chars: Array[Char], start: Int, length: Int): Unit =
     contentHandler.characters(chars, start, length)
 
+  // See `ForwardingXMLReceiver`
+  def binaryReference(reference: BinaryReference): Unit =
+    if (forwardsBinaryReferences)
+      BinaryReference.send(reference, contentHandler)
+    else
+      reference.writeBase64Characters(this)
+
+  protected def forwardsBinaryReferences: Boolean =
+    getClass eq classOf[SimpleForwardingXMLReceiver]
+
   override def endDocument(): Unit = {
     contentHandler.endDocument()
     contentHandler = null
@@ -5,7 +5,7 @@ import java.util
 import org.xml.sax.{Attributes, Locator}
 
 
-class TeeXMLReceiver extends XMLReceiver {
+class TeeXMLReceiver extends XMLReceiver with BinaryReferenceReceiver {
 
   // NOTE: Use an` Array`, as `List` and `Iterator` are less efficient (profiling)
   private var xmlReceivers: Array[XMLReceiver] = null
@@ -84,6 +84,12 @@ class TeeXMLReceiver extends XMLReceiver {
       contentHandler.characters(ch, start, length)
     }
 
+  def binaryReference(reference: BinaryReference): Unit =
+    for (i <- xmlReceivers.indices) {
+      val contentHandler = xmlReceivers(i)
+      BinaryReference.send(reference, contentHandler)
+    }
+
   def ignorableWhitespace(ch: Array[Char], start: Int, length: Int): Unit =
     for (i <- xmlReceivers.indices) {
       val contentHandler = xmlReceivers(i)
@@ -13,18 +13,20 @@
  */
 package org.orbeon.oxf.fr.persistence.relational.rest
 
+import org.apache.commons.io.IOUtils.toByteArray
+import org.orbeon.connection.StreamedContent
 import org.orbeon.io.IOUtils.useAndClose
 import org.orbeon.oxf.externalcontext.SafeRequestContext
-import org.orbeon.oxf.fr.AppForm
 import org.orbeon.oxf.fr.Version.Specific
 import org.orbeon.oxf.fr.persistence.db.Connect
 import org.orbeon.oxf.fr.persistence.http.{HttpAssert, HttpCall}
 import org.orbeon.oxf.fr.persistence.relational.Provider
-import org.orbeon.oxf.http.{HttpRanges, StatusCode}
-import org.orbeon.oxf.test.{DocumentTestBase, ResourceManagerSupport, XFormsSupport}
+import org.orbeon.oxf.fr.{AppForm, FormRunnerPersistence, Version}
+import org.orbeon.oxf.http.{Headers, HttpMethod, HttpRanges, StatusCode}
+import org.orbeon.oxf.test.{DocumentTestBase, ResourceManagerSupport, TestHttpClient, XFormsSupport}
 import org.orbeon.oxf.util.CollectionUtils.fromIteratorExt
 import org.orbeon.oxf.util.StaticXPath.{orbeonDomToTinyTree, tinyTreeToOrbeonDom}
-import org.orbeon.oxf.util.{IndentedLogger, LoggerFactory}
+import org.orbeon.oxf.util.{ContentTypes, CoreCrossPlatformSupport, IndentedLogger, LoggerFactory, Connection as HttpConnection}
 import org.orbeon.oxf.xml.dom.IOSupport
 import org.orbeon.saxon.om.DocumentInfo
 import org.orbeon.xforms.XFormsCrossPlatformSupport.readTinyTreeFromUrl
@@ -269,6 +271,36 @@ class FlatViewTest
       ),
     )
 
+    // Call a service directly, and not through the persistence proxy
+    def serviceRequest(
+      url           : String,
+      method        : HttpMethod,
+      headers       : Map[String, String],
+      bodyOpt       : Option[HttpCall.XML]
+    )(implicit
+      safeRequestCtx: SafeRequestContext
+    ): (Int, Array[Byte]) = {
+
+      val headersCapitalized =
+        HttpConnection.buildConnectionHeadersCapitalizedIfNeeded(
+          url              = URI.create(url),
+          hasCredentials   = false,
+          customHeaders    = headers.map { case (name, value) => name -> List(value) },
+          headersToForward = HttpConnection.headersToForwardFromProperty,
+          cookiesToForward = HttpConnection.cookiesToForwardFromProperty,
+          getHeader        = _ => None
+        )
+
+      val content =
+        bodyOpt.map(body => StreamedContent.fromBytes(body.doc.getRootElement.serializeToString().getBytes, Some(ContentTypes.XmlContentType)))
+
+      val (_, response, _, _) = TestHttpClient.connect(url, method, headersCapitalized, content)
+      try
+        (response.statusCode, useAndClose(response.content.stream)(toByteArray))
+      finally
+        response.disconnect()
+    }
+
     // Assumption: we're comparing sequences of same length (i.e. view rows)
     implicit val seqStringOrdering: Ordering[Seq[String]] =
       (x: Seq[String], y: Seq[String]) => x.view.zip(y).map { case (a, b) => a.compareTo(b) }.find(_ != 0).getOrElse(0)
@@ -287,6 +319,16 @@ class FlatViewTest
       }
     }
 
+    it("are created on publish and regenerated by the flat views service") {
+      withTestSafeRequestContext { implicit safeRequestCtx =>
+        Connect.withOrbeonTables("flat views regeneration") { (connection, provider) =>
+          if (Provider.FlatViewSupportedProviders.contains(provider)) {
+            testRegeneration(provider, connection)
+          }
+        }
+      }
+    }
+
     def testForm(
       provider           : Provider,
       connection         : Connection,
@@ -321,37 +363,107 @@ class FlatViewTest
           expectedResult.maxIdentifierLength
         )
 
-        // Parse all views
-        expectedResult.views.filter(_.providers.contains(provider)).foreach { view =>
-          val viewName = view.name(provider)
+        val views = expectedResult.views.filter(_.providers.contains(provider))
+        assertViews(provider, connection, views)
+        views.foreach(view => FlatView.deleteViewIfExists(provider, connection, view.name(provider)))
+      }
+    }
 
-          val query = s"SELECT * FROM $viewName"
+    // Forms are published with views as the persistence proxy does when `create-flat-view` is enabled for the provider,
+    // and the flat views service must only regenerate the views of the forms which already have views
+    def testRegeneration(
+      provider      : Provider,
+      connection    : Connection
+    )(implicit
+      safeRequestCtx: SafeRequestContext
+    ): Unit = {
 
-          // Retrieve view rows
-          val viewRows = useAndClose(connection.createStatement.executeQuery(query)) { resultSet =>
-            Iterator.iterateWhile(resultSet.next(), ViewRow(resultSet, view.columns))
-              .toList
-              .sortBy(row => row.documentId +: row.values)
-          }
+      val formWithViews    = forms(1)
+      val formWithoutViews = forms(0)
 
-          assert(viewRows.size == view.values.size)
+      val views        = formWithViews.expectedResults.head.views.filter(_.providers.contains(provider))
+      val mainViewName = views.head.name(provider)
 
-          // Check view row values
-          viewRows.zip(view.values).foreach { case (viewRow, expectedValues) =>
+      val (providerURL, providerHeaders) =
+        FormRunnerPersistence.getPersistenceURLHeadersFromProvider(provider.entryName)(CoreCrossPlatformSupport.properties)
 
-            // Check presence of metadata columns
-            assert(viewRow.createdOpt.isDefined          == view.createdColumn)
-            assert(viewRow.lastModifiedTimeOpt.isDefined == view.lastModifiedTimeColumn)
-            assert(viewRow.lastModifiedByOpt.isDefined   == view.lastModifiedByColumn)
+      // Publish, creating the views
+      val (publishStatus, _) =
+        serviceRequest(
+          url     = providerURL + "/" + HttpCall.crudURLPrefix(provider, formWithViews.name) + "form/form.xhtml",
+          method  = HttpMethod.PUT,
+          headers = providerHeaders +
+            (Version.OrbeonFormDefinitionVersion -> formWithViews.version.toString) +
+            (Headers.OrbeonCreateFlatView        -> "true"),
+          bodyOpt = Some(xmlBody(formWithViews.definitionFile))
+        )
+      assert(publishStatus == StatusCode.Created)
 
-            // Compare document ID, repetition values, and control values
-            assert(viewRow.documentId +: viewRow.values == expectedValues)
-          }
+      // Publish without views
+      val formWithoutViewsURL = HttpCall.crudURLPrefix(provider, formWithoutViews.name) + "form/form.xhtml"
+      HttpAssert.put(formWithoutViewsURL, Specific(formWithoutViews.version), xmlBody(formWithoutViews.definitionFile), StatusCode.Created)
 
-          FlatView.deleteViewIfExists(provider, connection, viewName)
-        }
+      formWithViews.data.foreach { data =>
+        val dataURL = HttpCall.crudURLPrefix(provider, formWithViews.name) + s"data/${data.doc}/data.xml"
+        HttpAssert.put(dataURL, Specific(formWithViews.version), xmlBody(data.dataFile), StatusCode.Created)
+      }
+
+      assertViews(provider, connection, views)
+
+      // Replace the main view with one which doesn't have the control columns, as if it was created by an older version
+      useAndClose(connection.createStatement()) { statement =>
+        statement.executeUpdate(s"DROP VIEW $mainViewName")
+        statement.executeUpdate(s"CREATE VIEW $mainViewName AS SELECT document_id AS metadata_document_id FROM orbeon_form_data")
       }
+
+      val (regenerateStatus, regenerateBody) =
+        serviceRequest(
+          url     = s"/fr/service/${provider.entryName}/flat-views",
+          method  = HttpMethod.POST,
+          headers = Map.empty,
+          bodyOpt = None
+        )
+      assert(regenerateStatus == StatusCode.Ok)
+
+      // The form published without views isn't included
+      val resultForms = IOSupport.readOrbeonDom(new ByteArrayInputStream(regenerateBody)).getRootElement.elements("form")
+      assert(
+        resultForms.map(form => (form.attributeValue("form"), form.attributeValue("version"), form.attributeValue("status"), form.attributeValue("views"))) ==
+          List((formWithViews.name, formWithViews.version.toString, "replaced", views.size.toString))
+      )
+
+      assertViews(provider, connection, views)
+
+      views.foreach(view => FlatView.deleteViewIfExists(provider, connection, view.name(provider)))
     }
+
+    def assertViews(provider: Provider, connection: Connection, views: Seq[View]): Unit =
+      views.foreach { view =>
+        val viewName = view.name(provider)
+
+        val query = s"SELECT * FROM $viewName"
+
+        // Retrieve view rows
+        val viewRows = useAndClose(connection.createStatement.executeQuery(query)) { resultSet =>
+          Iterator.iterateWhile(resultSet.next(), ViewRow(resultSet, view.columns))
+            .toList
+            .sortBy(row => row.documentId +: row.values)
+        }
+
+        assert(viewRows.size == view.values.size)
+
+        // Check view row values
+        viewRows.zip(view.values).foreach { case (viewRow, expectedValues) =>
+
+          // Check presence of metadata columns
+          assert(viewRow.createdOpt.isDefined          == view.createdColumn)
+          assert(viewRow.lastModifiedTimeOpt.isDefined == view.lastModifiedTimeColumn)
+          assert(viewRow.lastModifiedByOpt.isDefined   == view.lastModifiedByColumn)
+
+          // Compare document ID, repetition values, and control values
+          assert(viewRow.documentId +: viewRow.values == expectedValues)
+        }
+      }
   }
 
   case class ViewRow(
@@ -140,10 +140,30 @@ class DistinctValuesTest
       )
     }
 
+    it("must return values from data saved after values were first returned") {
+      testWithControlValues(
+        formData                   = Seq(FormData("1", "a"), FormData("2", "b")),
+        expectedControlValues      = Seq("a", "b"),
+        laterFormData              = Seq(FormData("3", "c"), FormData("4", "a")),
+        laterExpectedControlValues = Seq("a", "b", "c")
+      )
+    }
+
+    it("must not return values replaced after values were first returned") {
+      testWithControlValues(
+        formData                   = Seq(FormData("1", "a"), FormData("2", "b")),
+        expectedControlValues      = Seq("a", "b"),
+        laterFormData              = Seq(FormData("1", "c")),
+        laterExpectedControlValues = Seq("b", "c")
+      )
+    }
+
     def testWithControlValues(
-      formData              : Seq[FormData],
-      expectedControlValues : Seq[String],
-      expectedMetadataValues: Map[String, Seq[String]] = Map()
+      formData                  : Seq[FormData],
+      expectedControlValues     : Seq[String],
+      expectedMetadataValues    : Map[String, Seq[String]] = Map(),
+      laterFormData             : Seq[FormData]            = Seq(),
+      laterExpectedControlValues: Seq[String]              = Seq()
     ): Unit = withTestSafeRequestContext { implicit safeRequestCtx =>
       Connect.withOrbeonTables("form definition") { (connection, provider) =>
 
@@ -169,7 +189,7 @@ class DistinctValuesTest
 
         val url = HttpCall.distinctValueURL(provider)
 
-        eventually(timeout(Span(10, Seconds)), interval(Span(1, Second))) {
+        def assertDistinctValues(expectedControlValues: Seq[String]): Unit = eventually(timeout(Span(10, Seconds)), interval(Span(1, Second))) {
 
           val httpResponse = HttpCall.post(
             url     = url,
@@ -207,6 +227,14 @@ class DistinctValuesTest
             assert(metadataValues.sorted == expectedMetadataValues(metadata).sorted)
           }
         }
+
+        assertDistinctValues(expectedControlValues)
+
+        // Values already returned must not hide changes to the data
+        if (laterFormData.nonEmpty) {
+          testForm.putFormData(version, laterFormData)
+          assertDistinctValues(laterExpectedControlValues)
+        }
       }
     }
   }
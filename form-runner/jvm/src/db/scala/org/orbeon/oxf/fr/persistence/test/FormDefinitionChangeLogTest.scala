@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.test
+
+import org.junit.Test
+import org.orbeon.io.IOUtils.useAndClose
+import org.orbeon.oxf.fr.AppForm
+import org.orbeon.oxf.fr.FormRunnerParams.AppFormVersion
+import org.orbeon.oxf.fr.persistence.db.Connect
+import org.orbeon.oxf.fr.persistence.relational.FormDefinitionChangeLog
+import org.orbeon.oxf.test.ResourceManagerTestBase
+import org.orbeon.oxf.util.{IndentedLogger, LoggerFactory}
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.sql.Connection
+import java.time.Instant
+import javax.naming.InitialContext
+import javax.sql.DataSource
+import scala.collection.mutable
+
+
+// Test that form definition changes recorded by one node are seen exactly once by other nodes, and eventually purged
+class FormDefinitionChangeLogTest extends ResourceManagerTestBase with AssertionsForJUnit {
+
+  private implicit val Logger: IndentedLogger = new IndentedLogger(LoggerFactory.createLogger(classOf[FormDefinitionChangeLogTest]), true)
+
+  private val AcmeOrder = AppForm("acme", "order")
+  private val AcmeSales = AppForm("acme", "sales")
+
+  private def countChanges(connection: Connection): Int =
+    useAndClose(connection.prepareStatement("SELECT count(*) FROM orbeon_form_definition_change")) { ps =>
+      useAndClose(ps.executeQuery()) { rs =>
+        rs.next()
+        rs.getInt(1)
+      }
+    }
+
+  @Test def changesSeenOnceByOtherNode(): Unit = {
+    Connect.withOrbeonTables("form definition change log") { (connection, _) =>
+
+      // Changes before polling starts are ignored
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 1)
+
+      val seen   = mutable.ListBuffer[AppFormVersion]()
+      val poller = new FormDefinitionChangeLog.Poller(seen += _)
+      val start  = System.currentTimeMillis
+
+      poller.poll(connection, start)
+      assert(seen.isEmpty)
+
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 2)
+      FormDefinitionChangeLog.recordChange(connection, AcmeSales, 1)
+      poller.poll(connection, start + 1000)
+      assert(seen.toList === List(AcmeOrder -> 2, AcmeSales -> 1))
+
+      // Polling again, while the changes are in the poll window or after they left it, doesn't report them again
+      poller.poll(connection, start + 2000)
+      poller.poll(connection, start + 120 * 1000)
+      poller.poll(connection, start + 600 * 1000)
+      assert(seen.size === 2)
+
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 3, Instant.ofEpochMilli(start + 600 * 1000))
+      poller.poll(connection, start + 601 * 1000)
+      assert(seen.toList === List(AcmeOrder -> 2, AcmeSales -> 1, AcmeOrder -> 3))
+    }
+  }
+
+  @Test def changeCommittedLateSeen(): Unit = {
+    Connect.withOrbeonTables("form definition change log") { (connection, _) =>
+
+      val seen   = mutable.ListBuffer[AppFormVersion]()
+      val poller = new FormDefinitionChangeLog.Poller(seen += _)
+      val start  = System.currentTimeMillis
+
+      poller.poll(connection, start)
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 1)
+      poller.poll(connection, start + 1000)
+      assert(seen.toList === List(AcmeOrder -> 1))
+
+      // A change created before the last poll, but only committed after it
+      FormDefinitionChangeLog.recordChange(connection, AcmeSales, 1, Instant.ofEpochMilli(start - 30 * 1000))
+      poller.poll(connection, start + 2000)
+      assert(seen.toList === List(AcmeOrder -> 1, AcmeSales -> 1))
+    }
+  }
+
+  @Test def oldChangesPurgedByPoller(): Unit = {
+    Connect.withOrbeonTables("form definition change log") { (connection, _) =>
+
+      val now = System.currentTimeMillis
+
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 1, Instant.ofEpochMilli(now - 2 * 24 * 60 * 60 * 1000L))
+      FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 2, Instant.ofEpochMilli(now))
+      assert(countChanges(connection) === 2)
+
+      new FormDefinitionChangeLog.Poller(_ => ()).poll(connection, now)
+      assert(countChanges(connection) === 1)
+    }
+  }
+
+  @Test def publishOnOneNodeInvalidatesCacheOfOtherNode(): Unit = {
+    Connect.withOrbeonTables("form definition change log") { (connection, provider) =>
+
+      // The other node polls with its own connections, from the data source
+      val dataSource  = InitialContext.doLookup[DataSource]("java:comp/env/jdbc/" + provider.entryName)
+      val cachedForms = mutable.Set[AppFormVersion](AcmeOrder -> 1, AcmeSales -> 1)
+      val poller      = new FormDefinitionChangeLog.Poller(cachedForms -= _)
+
+      def pollOtherNode(): Unit =
+        useAndClose(dataSource.getConnection)(poller.poll(_))
+
+      pollOtherNode()
+
+      // Publish in a transaction, as done by the persistence layer
+      connection.setAutoCommit(false)
+      try {
+        FormDefinitionChangeLog.recordChange(connection, AcmeOrder, 1)
+
+        // Not committed yet
+        pollOtherNode()
+        assert(cachedForms === Set(AcmeOrder -> 1, AcmeSales -> 1))
+
+        connection.commit()
+      } finally {
+        connection.setAutoCommit(true)
+      }
+
+      pollOtherNode()
+      assert(cachedForms === Set(AcmeSales -> 1))
+    }
+  }
+}
@@ -29,10 +29,11 @@ import org.orbeon.oxf.fr.persistence.http.HttpCall.DefaultFormName
 import org.orbeon.oxf.fr.persistence.http.{HttpAssert, HttpCall}
 import org.orbeon.oxf.fr.persistence.relational.Provider
 import org.orbeon.oxf.fr.persistence.relational.Provider.*
+import org.orbeon.oxf.fr.persistence.relational.rest.LockInfo
 import org.orbeon.oxf.fr.s3.S3
 import org.orbeon.oxf.fr.workflow.definitions20201.Stage
 import org.orbeon.oxf.fr.{AppForm, FormOrData, S3Tag, S3Test}
-import org.orbeon.oxf.http.{Headers, HttpRange, StatusCode}
+import org.orbeon.oxf.http.{Headers, HttpMethod, HttpRange, StatusCode}
 import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.test.{DocumentTestBase, ResourceManagerSupport, XFormsSupport, XMLSupport}
 import org.orbeon.oxf.util.CoreUtils.*
@@ -259,6 +260,82 @@ class RestApiTest
     }
   }
 
+  describe("Batch delete") {
+    it("must delete all the data for the form version, including drafts") {
+      withTestSafeRequestContext { implicit safeRequestCtx =>
+        Connect.withOrbeonTables("batch delete") { (_, provider) =>
+
+          val formURL       = HttpCall.crudURLPrefix(provider) + "form/form.xhtml"
+          val dataURL       = HttpCall.crudURLPrefix(provider) + "data/"
+          val firstDataURL  = HttpCall.crudURLPrefix(provider) + "data/123/data.xml"
+          val firstDraftURL = HttpCall.crudURLPrefix(provider) + "draft/123/data.xml"
+          val secondDataURL = HttpCall.crudURLPrefix(provider) + "data/456/data.xml"
+          val otherDataURL  = HttpCall.crudURLPrefix(provider) + "data/789/data.xml"
+          val form          = buildFormDefinition(provider, permissions = Permissions.Undefined)
+          val data          = HttpCall.XML(<gaga/>.toDocument)
+
+          HttpAssert.put(formURL      , Unspecified, HttpCall.XML(form), StatusCode.Created)
+          HttpAssert.put(formURL      , Next       , HttpCall.XML(form), StatusCode.Created)
+          HttpAssert.put(firstDataURL , Specific(1), data              , StatusCode.Created)
+          HttpAssert.put(firstDraftURL, Specific(1), data              , StatusCode.Created)
+          HttpAssert.put(secondDataURL, Specific(1), data              , StatusCode.Created)
+          HttpAssert.put(otherDataURL , Specific(2), data              , StatusCode.Created)
+
+          HttpAssert.del(dataURL, Specific(1), StatusCode.Ok)
+
+          HttpAssert.get(firstDataURL , Unspecified, HttpAssert.ExpectedCode(StatusCode.Gone))
+          HttpAssert.get(firstDraftURL, Unspecified, HttpAssert.ExpectedCode(StatusCode.NotFound))
+          HttpAssert.get(secondDataURL, Unspecified, HttpAssert.ExpectedCode(StatusCode.Gone))
+          HttpAssert.get(otherDataURL , Unspecified, HttpAssert.ExpectedBody(data, AnyOperation, Some(2)))
+
+          // Nothing left to delete
+          HttpAssert.del(dataURL, Specific(1), StatusCode.Ok)
+        }
+      }
+    }
+
+    it("must skip documents leased by another user") {
+      withTestSafeRequestContext { implicit safeRequestCtx =>
+        Connect.withOrbeonTables("batch delete with lease") { (_, provider) =>
+
+          val formURL       = HttpCall.crudURLPrefix(provider) + "form/form.xhtml"
+          val dataURL       = HttpCall.crudURLPrefix(provider) + "data/"
+          val firstDataURL  = HttpCall.crudURLPrefix(provider) + "data/123/data.xml"
+          val secondDataURL = HttpCall.crudURLPrefix(provider) + "data/456/data.xml"
+          val form          = buildFormDefinition(provider, permissions = Permissions.Undefined)
+          val data          = HttpCall.XML(<gaga/>.toDocument)
+          val lockInfo      = LockInfo(UserAndGroup("hsimpson", Some("simpsons")))
+
+          HttpAssert.put(formURL      , Unspecified, HttpCall.XML(form), StatusCode.Created)
+          HttpAssert.put(firstDataURL , Specific(1), data              , StatusCode.Created)
+          HttpAssert.put(secondDataURL, Specific(1), data              , StatusCode.Created)
+          HttpAssert.lock(secondDataURL, lockInfo, StatusCode.Ok)
+
+          def batchDelete(): dom.Document =
+            HttpCall.request(
+              HttpCall.SolicitedRequest(path = dataURL, method = HttpMethod.DELETE, version = Specific(1)),
+              response => {
+                assert(response.code == StatusCode.Ok)
+                IOSupport.readOrbeonDom(new ByteArrayInputStream(response.body))
+              }
+            )
+
+          val progress = batchDelete()
+          assert(progress.getRootElement.element("deleted").getText == "1")
+          assert(progress.getRootElement.element("skipped").getText == "1")
+
+          HttpAssert.get(firstDataURL , Unspecified, HttpAssert.ExpectedCode(StatusCode.Gone))
+          HttpAssert.get(secondDataURL, Unspecified, HttpAssert.ExpectedBody(data, AnyOperation, Some(1)))
+
+          // Once the lease is released, the batch delete can be resumed
+          HttpAssert.unlock(secondDataURL, lockInfo, StatusCode.Ok)
+          assert(batchDelete().getRootElement.element("deleted").getText == "1")
+          HttpAssert.get(secondDataURL, Unspecified, HttpAssert.ExpectedCode(StatusCode.Gone))
+        }
+      }
+    }
+  }
+
   describe("Permissions") {
     it("must pass basic operations") {
       withTestSafeRequestContext { implicit safeRequestCtx =>
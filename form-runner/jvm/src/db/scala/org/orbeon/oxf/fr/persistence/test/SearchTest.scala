@@ -468,6 +468,66 @@ class SearchTest
       )
     }
 
+    it("returns each document once when sorting by a control with several values") {
+      withTestSafeRequestContext { implicit safeRequestCtx =>
+        Connect.withOrbeonTables("form definition") { (connection, provider) =>
+
+          val testForm = TestForm(provider, controls = Seq(TestForm.Control("control label")))
+          val version  = Specific(1)
+
+          testForm.putFormDefinition(version)
+          testForm.putFormData(version, Seq(
+            FormData("1", "test2"),
+            FormData("2", "test3"),
+            FormData("3", "test4"),
+            FormData("4", "test1")
+          ))
+
+          // Index a second value for the control of document 1, as if the control was repeated, so that document 1
+          // comes both second and last when sorting by that control
+          val addValueSql =
+            s"""INSERT INTO orbeon_i_control_text (data_id, pos, control, val)
+               |SELECT data_id, 2, control, 'test9'
+               |  FROM orbeon_i_control_text
+               | WHERE data_id = (
+               |   SELECT data_id FROM orbeon_i_current
+               |    WHERE app         = '${testForm.appForm.app}'
+               |      AND form        = '${testForm.appForm.form}'
+               |      AND document_id = '1'
+               | )
+             """.stripMargin
+          useAndClose(connection.prepareStatement(addValueSql))(_.executeUpdate())
+
+          val searchRequest =
+            <search>{
+              baseParams.child ++
+                <query path={controlPath} match="substring" sort="asc">test</query>
+            }</search>.toDocument
+
+          eventually(timeout(Span(10, Seconds)), interval(Span(1, Second))) {
+            assertCall(
+              actualRequest = HttpCall.SolicitedRequest(
+                path    = HttpCall.searchURL(provider),
+                version = Unspecified,
+                method  = POST,
+                body    = Some(HttpCall.XML(searchRequest))
+              ),
+              assertResponse = actualResponse => {
+                val root          = IOSupport.readOrbeonDom(new ByteArrayInputStream(actualResponse.body)).getRootElement
+                val documentNames = root.elements("document").map(_.attribute("name").getValue).toList
+
+                assert(documentNames == List("4", "1", "2", "3"))
+
+                // The document contains all the values of the control
+                val document1Detail = root.elements("document").find(_.attribute("name").getValue == "1").get.element("details").element("detail")
+                assert(document1Detail.getText == "test2, test9")
+              }
+            )
+          }
+        }
+      }
+    }
+
     def expectStatusCode(
       path          : String,
       searchRequest : Document,
@@ -24,3 +24,14 @@ ALTER TABLE orbeon_i_control_text ALTER COLUMN id SET GENERATED ALWAYS AS IDENTI
 ALTER TABLE orbeon_i_control_text ADD PRIMARY KEY (id);
 
 ALTER TABLE orbeon_organization ADD PRIMARY KEY (id, pos);
+
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT             NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1 INCREMENT BY 1),
+    created             TIMESTAMP       NOT NULL,
+    app                 VARCHAR(1020)   NOT NULL,
+    form                VARCHAR(1020)   NOT NULL,
+    form_version        INT             NOT NULL,
+    PRIMARY KEY(id)
+);
+
+CREATE INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
@@ -86,6 +86,15 @@ CREATE TABLE orbeon_organization (
     PRIMARY KEY(id, pos)
 );
 
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT             NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1 INCREMENT BY 1),
+    created             TIMESTAMP       NOT NULL,
+    app                 VARCHAR(1020)   NOT NULL,
+    form                VARCHAR(1020)   NOT NULL,
+    form_version        INT             NOT NULL,
+    PRIMARY KEY(id)
+);
+
 CREATE TABLE orbeon_seq (
     val                 INT            NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 1 INCREMENT BY 1)
 );
@@ -129,3 +138,4 @@ CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current
 CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
 CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
 CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
@@ -4,3 +4,13 @@ ALTER TABLE orbeon_form_data_attach ADD COLUMN id INT NOT NULL AUTO_INCREMENT PR
 ALTER TABLE orbeon_i_current ADD COLUMN id INT NOT NULL AUTO_INCREMENT PRIMARY KEY;
 ALTER TABLE orbeon_i_control_text ADD COLUMN id INT NOT NULL AUTO_INCREMENT PRIMARY KEY;
 ALTER TABLE orbeon_organization ADD PRIMARY KEY (id, pos);
+
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT                    PRIMARY KEY AUTO_INCREMENT                       NOT NULL,
+    created             TIMESTAMP(6)                                                            NOT NULL,
+    app                 VARCHAR(255)           CHARACTER SET utf8mb4 COLLATE utf8mb4_bin        NOT NULL,
+    form                VARCHAR(255)           CHARACTER SET utf8mb4 COLLATE utf8mb4_bin        NOT NULL,
+    form_version        INT                                                                     NOT NULL
+)   ENGINE = InnoDB;
+
+CREATE INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
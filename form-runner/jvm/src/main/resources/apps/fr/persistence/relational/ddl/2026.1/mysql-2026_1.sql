@@ -81,6 +81,14 @@ CREATE TABLE orbeon_organization (
     PRIMARY KEY         (id, pos)
 )   ENGINE = InnoDB;
 
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT                    PRIMARY KEY AUTO_INCREMENT                       NOT NULL,
+    created             TIMESTAMP(6)                                                            NOT NULL,
+    app                 VARCHAR(255)           CHARACTER SET utf8mb4 COLLATE utf8mb4_bin        NOT NULL,
+    form                VARCHAR(255)           CHARACTER SET utf8mb4 COLLATE utf8mb4_bin        NOT NULL,
+    form_version        INT                                                                     NOT NULL
+)   ENGINE = InnoDB;
+
 CREATE TABLE orbeon_seq (
     val                 INT                    PRIMARY KEY AUTO_INCREMENT                       NOT NULL
 )   ENGINE = InnoDB;
@@ -122,3 +130,4 @@ CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current
 CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
 CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
 CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
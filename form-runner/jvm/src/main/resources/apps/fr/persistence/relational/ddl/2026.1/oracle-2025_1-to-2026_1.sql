@@ -24,3 +24,14 @@ ALTER TABLE orbeon_i_control_text ADD CONSTRAINT orbeon_i_control_text_pk PRIMAR
 ALTER TABLE orbeon_i_control_text RENAME COLUMN id_new TO id;
 
 ALTER TABLE orbeon_organization ADD CONSTRAINT orbeon_organization_pk PRIMARY KEY (id, pos);
+
+CREATE TABLE orbeon_form_definition_change (
+    id                  NUMBER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    created             TIMESTAMP                               NOT NULL,
+    app                 VARCHAR2(255 CHAR)                      NOT NULL,
+    form                VARCHAR2(255 CHAR)                      NOT NULL,
+    form_version        NUMBER                                  NOT NULL,
+    CONSTRAINT orbeon_form_definition_chg_pk PRIMARY KEY (id)
+);
+
+CREATE INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
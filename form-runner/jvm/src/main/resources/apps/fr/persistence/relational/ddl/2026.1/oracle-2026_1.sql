@@ -85,6 +85,15 @@ CREATE TABLE orbeon_organization (
     CONSTRAINT orbeon_organization_pk PRIMARY KEY (id, pos)
 );
 
+CREATE TABLE orbeon_form_definition_change (
+    id                  NUMBER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    created             TIMESTAMP                               NOT NULL,
+    app                 VARCHAR2(255 CHAR)                      NOT NULL,
+    form                VARCHAR2(255 CHAR)                      NOT NULL,
+    form_version        NUMBER                                  NOT NULL,
+    CONSTRAINT orbeon_form_definition_chg_pk PRIMARY KEY (id)
+);
+
 CREATE TABLE orbeon_i_current (
     id                  NUMBER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     data_id             NUMBER                                  NOT NULL,
@@ -128,6 +137,7 @@ CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current
 CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
 CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
 CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
 
 CREATE OR REPLACE TRIGGER orbeon_form_data_xml
          BEFORE INSERT ON orbeon_form_data
@@ -24,3 +24,13 @@ ALTER TABLE orbeon_i_control_text ALTER COLUMN id SET NOT NULL;
 ALTER TABLE orbeon_i_control_text ADD PRIMARY KEY (id);
 
 ALTER TABLE orbeon_organization ADD PRIMARY KEY (id, pos);
+
+CREATE TABLE orbeon_form_definition_change (
+    id SERIAL           PRIMARY KEY NOT NULL,
+    created             TIMESTAMP    NOT NULL,
+    app                 VARCHAR(255) NOT NULL,
+    form                VARCHAR(255) NOT NULL,
+    form_version        INT          NOT NULL
+);
+
+CREATE INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
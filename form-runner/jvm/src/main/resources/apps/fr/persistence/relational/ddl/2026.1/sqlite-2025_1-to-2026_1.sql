@@ -0,0 +1,126 @@
+/* SQLite can't add a primary key to an existing table, so tables getting an `id` column or a primary key are rebuilt */
+
+ALTER TABLE orbeon_form_definition RENAME TO orbeon_form_definition_2025_1;
+CREATE TABLE orbeon_form_definition (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    created             TIMESTAMP(6)                ,
+    last_modified_time  TIMESTAMP(6)                ,
+    last_modified_by    VARCHAR(255)                ,
+    app                 VARCHAR(255)                ,
+    form                VARCHAR(255)                ,
+    form_version        INT                 NOT NULL,
+    form_metadata       VARCHAR(4000)               ,
+    deleted             CHAR(1)             NOT NULL,
+    xml                 MEDIUMTEXT
+);
+INSERT INTO orbeon_form_definition (created, last_modified_time, last_modified_by, app, form, form_version, form_metadata, deleted, xml)
+     SELECT created, last_modified_time, last_modified_by, app, form, form_version, form_metadata, deleted, xml FROM orbeon_form_definition_2025_1;
+DROP TABLE orbeon_form_definition_2025_1;
+
+ALTER TABLE orbeon_form_definition_attach RENAME TO orbeon_form_definition_attach_2025_1;
+CREATE TABLE orbeon_form_definition_attach (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    created             TIMESTAMP(6)                ,
+    last_modified_time  TIMESTAMP(6)                ,
+    last_modified_by    VARCHAR(255)                ,
+    app                 VARCHAR(255)                ,
+    form                VARCHAR(255)                ,
+    form_version        INT                 NOT NULL,
+    deleted             CHAR(1)             NOT NULL,
+    file_name           VARCHAR(255)                ,
+    file_content        LONGBLOB                    ,
+    hash_algorithm      VARCHAR(255)                ,
+    hash_value          VARCHAR(255)
+);
+INSERT INTO orbeon_form_definition_attach (created, last_modified_time, last_modified_by, app, form, form_version, deleted, file_name, file_content, hash_algorithm, hash_value)
+     SELECT created, last_modified_time, last_modified_by, app, form, form_version, deleted, file_name, file_content, hash_algorithm, hash_value FROM orbeon_form_definition_attach_2025_1;
+DROP TABLE orbeon_form_definition_attach_2025_1;
+
+ALTER TABLE orbeon_form_data_attach RENAME TO orbeon_form_data_attach_2025_1;
+CREATE TABLE orbeon_form_data_attach (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    created             TIMESTAMP(6)                ,
+    last_modified_time  TIMESTAMP(6)                ,
+    last_modified_by    VARCHAR(255)                ,
+    username            VARCHAR(255)                ,
+    groupname           VARCHAR(255)                ,
+    organization_id     INT                         ,
+    app                 VARCHAR(255)                ,
+    form                VARCHAR(255)                ,
+    form_version        INT                 NOT NULL,
+    document_id         VARCHAR(255)                ,
+    draft               CHAR(1)             NOT NULL,
+    deleted             CHAR(1)             NOT NULL,
+    file_name           VARCHAR(255)                ,
+    file_content        LONGBLOB                    ,
+    hash_algorithm      VARCHAR(255)                ,
+    hash_value          VARCHAR(255)
+);
+INSERT INTO orbeon_form_data_attach (created, last_modified_time, last_modified_by, username, groupname, organization_id, app, form, form_version, document_id, draft, deleted, file_name, file_content, hash_algorithm, hash_value)
+     SELECT created, last_modified_time, last_modified_by, username, groupname, organization_id, app, form, form_version, document_id, draft, deleted, file_name, file_content, hash_algorithm, hash_value FROM orbeon_form_data_attach_2025_1;
+DROP TABLE orbeon_form_data_attach_2025_1;
+
+ALTER TABLE orbeon_organization RENAME TO orbeon_organization_2025_1;
+CREATE TABLE orbeon_organization (
+    id                  INTEGER             NOT NULL,
+    depth               INT                 NOT NULL,
+    pos                 INT                 NOT NULL,
+    name                VARCHAR(255)        NOT NULL,
+    PRIMARY KEY         (id, pos)
+);
+INSERT INTO orbeon_organization (id, depth, pos, name)
+     SELECT id, depth, pos, name FROM orbeon_organization_2025_1;
+DROP TABLE orbeon_organization_2025_1;
+
+ALTER TABLE orbeon_i_current RENAME TO orbeon_i_current_2025_1;
+CREATE TABLE orbeon_i_current (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    data_id             INT                 NOT NULL,
+    created             TIMESTAMP(6)        NOT NULL,
+    last_modified_time  TIMESTAMP(6)        NOT NULL,
+    last_modified_by    VARCHAR(255)                ,
+    username            VARCHAR(255)                ,
+    groupname           VARCHAR(255)                ,
+    organization_id     INT                         ,
+    app                 VARCHAR(255)        NOT NULL,
+    form                VARCHAR(255)        NOT NULL,
+    form_version        INT                 NOT NULL,
+    stage               VARCHAR(255)                ,
+    document_id         VARCHAR(255)        NOT NULL,
+    draft               CHAR(1)             NOT NULL,
+    FOREIGN KEY         (data_id)           REFERENCES orbeon_form_data(id)
+);
+INSERT INTO orbeon_i_current (data_id, created, last_modified_time, last_modified_by, username, groupname, organization_id, app, form, form_version, stage, document_id, draft)
+     SELECT data_id, created, last_modified_time, last_modified_by, username, groupname, organization_id, app, form, form_version, stage, document_id, draft FROM orbeon_i_current_2025_1;
+DROP TABLE orbeon_i_current_2025_1;
+
+ALTER TABLE orbeon_i_control_text RENAME TO orbeon_i_control_text_2025_1;
+CREATE TABLE orbeon_i_control_text (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    data_id             INT                 NOT NULL,
+    pos                 INT                 NOT NULL,
+    control             VARCHAR(255)        NOT NULL,
+    val                 MEDIUMTEXT          NOT NULL,
+    FOREIGN KEY         (data_id)           REFERENCES orbeon_form_data(id)
+);
+INSERT INTO orbeon_i_control_text (data_id, pos, control, val)
+     SELECT data_id, pos, control, val FROM orbeon_i_control_text_2025_1;
+DROP TABLE orbeon_i_control_text_2025_1;
+
+CREATE TABLE orbeon_form_definition_change (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    created             TIMESTAMP(6)        NOT NULL,
+    app                 VARCHAR(255)        NOT NULL,
+    form                VARCHAR(255)        NOT NULL,
+    form_version        INT                 NOT NULL
+);
+
+CREATE        INDEX orbeon_form_definition_i1     ON orbeon_form_definition        (app, form, form_version, last_modified_time);
+CREATE        INDEX orbeon_form_definition_att_i1 ON orbeon_form_definition_attach (app, form, file_name);
+CREATE        INDEX orbeon_form_data_attach_i1    ON orbeon_form_data_attach       (app, form, document_id, draft);
+CREATE        INDEX orbeon_form_data_attach_i2    ON orbeon_form_data_attach       (document_id);
+CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current              (data_id, draft);
+CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
+CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
+CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
@@ -81,6 +81,14 @@ CREATE TABLE orbeon_organization (
     PRIMARY KEY         (id, pos)
 );
 
+CREATE TABLE orbeon_form_definition_change (
+    id                  INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT,
+    created             TIMESTAMP(6)        NOT NULL,
+    app                 VARCHAR(255)        NOT NULL,
+    form                VARCHAR(255)        NOT NULL,
+    form_version        INT                 NOT NULL
+);
+
 CREATE TABLE orbeon_seq (
     val                 INTEGER             NOT NULL PRIMARY KEY AUTOINCREMENT
 );
@@ -122,3 +130,4 @@ CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current
 CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
 CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
 CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
@@ -14,3 +14,13 @@ ALTER TABLE orbeon_i_control_text ADD id INT IDENTITY(1, 1) NOT NULL;
 ALTER TABLE orbeon_i_control_text ADD PRIMARY KEY (id);
 
 ALTER TABLE orbeon_organization ADD PRIMARY KEY (id, pos);
+
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT IDENTITY(1, 1) PRIMARY KEY NOT NULL,
+    created             DATETIME2                      NOT NULL,
+    app                 NVARCHAR(255)                  NOT NULL,
+    form                NVARCHAR(255)                  NOT NULL,
+    form_version        INT                            NOT NULL
+);
+
+CREATE INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
@@ -79,6 +79,14 @@ CREATE TABLE orbeon_organization (
     PRIMARY KEY         (id, pos)
 );
 
+CREATE TABLE orbeon_form_definition_change (
+    id                  INT IDENTITY(1, 1) PRIMARY KEY NOT NULL,
+    created             DATETIME2                      NOT NULL,
+    app                 NVARCHAR(255)                  NOT NULL,
+    form                NVARCHAR(255)                  NOT NULL,
+    form_version        INT                            NOT NULL
+);
+
 CREATE TABLE orbeon_seq (
     val                 INT IDENTITY(1, 1) PRIMARY KEY NOT NULL
 );
@@ -124,3 +132,4 @@ CREATE UNIQUE INDEX orbeon_i_current_i1           ON orbeon_i_current
 CREATE        INDEX orbeon_i_current_i2           ON orbeon_i_current              (app, form, draft);
 CREATE        INDEX orbeon_i_current_i3           ON orbeon_i_current              (document_id, draft);
 CREATE        INDEX orbeon_i_control_text_i1      ON orbeon_i_control_text         (data_id);
+CREATE        INDEX orbeon_form_definition_chg_i1 ON orbeon_form_definition_change (created);
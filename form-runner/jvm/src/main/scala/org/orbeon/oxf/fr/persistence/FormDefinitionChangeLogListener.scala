@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence
+
+import org.orbeon.oxf.fr.persistence.relational.{FormDefinitionChangeLog, RelationalUtils}
+import org.orbeon.oxf.properties.{Properties, PropertySet}
+import org.orbeon.oxf.servlet.{JakartaServletContextListener, JavaxServletContextListener, ServletContextEvent, ServletContextListener}
+import org.orbeon.oxf.util.IndentedLogger
+
+
+class JavaxFormDefinitionChangeLogListener   extends JavaxServletContextListener  (new FormDefinitionChangeLogListenerImpl)
+class JakartaFormDefinitionChangeLogListener extends JakartaServletContextListener(new FormDefinitionChangeLogListenerImpl)
+
+// With several nodes, the form definition cache must also be invalidated when another node publishes a form definition
+class FormDefinitionChangeLogListenerImpl extends ServletContextListener {
+
+  override def contextInitialized(servletContextEvent: ServletContextEvent): Unit = {
+    implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
+    implicit val propertySet   : PropertySet    = Properties.instance.getPropertySet
+    FormDefinitionChangeLog.startPollingIfEnabled { case (appForm, version) =>
+      PersistenceMetadataSupport.maybeInvalidateCachesFor(appForm, version)
+    }
+  }
+
+  override def contextDestroyed(servletContextEvent: ServletContextEvent): Unit =
+    FormDefinitionChangeLog.stopPolling()
+}
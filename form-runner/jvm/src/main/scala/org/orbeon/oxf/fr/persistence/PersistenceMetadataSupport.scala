@@ -4,7 +4,7 @@ import cats.Eval
 import org.orbeon.oxf.cache.{CacheApi, CacheSupport}
 import org.orbeon.oxf.fr.*
 import org.orbeon.oxf.fr.FormRunnerPersistence.PersistenceProxyPropertyPrefix
-import org.orbeon.oxf.fr.permission.{Operation, Permission, Permissions, SpecificOperations}
+import org.orbeon.oxf.fr.permission.{Operation, Permission, Permissions, PermissionsXML, SpecificOperations}
 import org.orbeon.oxf.fr.persistence.api.PersistenceApi
 import org.orbeon.oxf.fr.persistence.proxy.FieldEncryption
 import org.orbeon.oxf.fr.persistence.relational.FormStorageDetails
@@ -17,6 +17,7 @@ import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger}
 import org.orbeon.saxon.om.NodeInfo
 import org.orbeon.scaxon.SimplePath.*
 
+import java.io
 import scala.util.{Success, Try}
 
 
@@ -25,9 +26,11 @@ import scala.util.{Success, Try}
 // - controls to encrypt
 // - controls to index
 // - querying the form version
+// - form permissions
 //
 // To increase performance, especially when writing to the persistence layer, we cache the results of these queries with
-// a configurable time-to-live.
+// a configurable time-to-live. The latest published version of a form is cached too, so that reads for the latest
+// version, as done by search and the summary page, can also use the cache.
 //
 object PersistenceMetadataSupport {
 
@@ -43,16 +46,26 @@ object PersistenceMetadataSupport {
   import Private.*
 
   // When publishing a form, we need to invalidate the caches. This doesn't cover cases where form definitions are
-  // updated directly in the database, but it's the most frequent case.
+  // updated directly in the database, but it's the most frequent case. Publishing on other nodes is covered by
+  // `FormDefinitionChangeLog`, if enabled.
   def maybeInvalidateCachesFor(appForm: AppForm, version: Int)(implicit indentedLogger: IndentedLogger): Unit = {
 
-    val cacheKey: CacheKey = (appForm.app, appForm.form, version)
+    val cacheKeys = List[io.Serializable](
+      (appForm.app, appForm.form, version): CacheKey,
+      PermissionsCacheKey(appForm.app, appForm.form, version),
+      LatestVersionCacheKey(appForm.app, appForm.form) // the published version might be a new latest version
+    )
 
-    def log(cache: CacheApi)(removed: Boolean): Unit =
+    def log(cache: CacheApi, cacheKey: io.Serializable)(removed: Boolean): Unit =
       if (removed)
         debug(s"removed form definition from cache `${cache.getName}` for `$cacheKey`")
 
-    formDefinitionCache.foreach(cache => cache.remove(cacheKey).kestrel(log(cache)))
+    for {
+      cache    <- formDefinitionCache
+      cacheKey <- cacheKeys
+    } locally {
+      cache.remove(cacheKey).kestrel(log(cache, cacheKey))
+    }
   }
 
   def readPublishedFormStorageDetails(
@@ -62,10 +75,10 @@ object PersistenceMetadataSupport {
     indentedLogger: IndentedLogger,
     propertySet   : PropertySet
   ): Try[FormStorageDetails] =
-    readMaybeFromCache(appForm, version, formDefinitionCache) {
+    readMaybeFromCache(appForm, version, formDefinitionCache)(versionNumber => (appForm.app, appForm.form, versionNumber): CacheKey) { versionToRead =>
       implicit val coreCrossPlatformSupport: CoreCrossPlatformSupport.type = CoreCrossPlatformSupport
       withDebug("reading published form for storage details") {
-        PersistenceApi.readPublishedFormDefinition(appForm.app, appForm.form, version) map { case ((_, formDefinitionDoc), _) =>
+        PersistenceApi.readPublishedFormDefinition(appForm.app, appForm.form, versionToRead) map { case ((_, formDefinitionDoc), _) =>
           val formIsSingleton = {
             def singletonFromFormDefinition: Option[Boolean] =
               new InDocFormRunnerDocContext(formDefinitionDoc).metadataRootElemOpt
@@ -103,6 +116,23 @@ object PersistenceMetadataSupport {
       .map(_.getStringValue.toInt)
   }
 
+  // Only use this for reading: when publishing, the next version must be computed from the persistence layer
+  def readLatestVersionMaybeFromCache(appForm: AppForm)(implicit indentedLogger: IndentedLogger): Option[Int] =
+    formDefinitionCache match {
+      case None =>
+        readLatestVersion(appForm)
+      case Some(cache) =>
+        val cacheKey = LatestVersionCacheKey(appForm.app, appForm.form)
+        cache.get(cacheKey) match {
+          case Some(cacheElem) =>
+            debug(s"got latest version from cache for `$cacheKey` from `${cache.getName}`")
+            Some(cacheElem.asInstanceOf[Integer].intValue)
+          case None =>
+            // Don't cache the absence of a published version, so that a first publication is picked up immediately
+            readLatestVersion(appForm) |!> (_.foreach(v => cache.put(cacheKey, Integer.valueOf(v))))
+        }
+    }
+
   def isInternalAdminUser(requestParam: String => Option[String]): Boolean =
     requestParam(FormRunner.InternalAdminTokenParam)
       .exists(param =>
@@ -118,18 +148,21 @@ object PersistenceMetadataSupport {
     indentedLogger     : IndentedLogger
   ): Permissions =
     // TODO: Check possible optimization above to avoid retrieving form permissions twice.
-    // TODO: Check if/why we are not using the caching mechanism.
     (
       if (isInternalAdminUser)
         Permissions.Defined(List(Permission(Nil, SpecificOperations(Set(Operation.Read, Operation.Delete)))))
       else
-        FormRunner.permissionsFromElemOrProperties(
-          readFormPermissions(appForm, version),
-          appForm
-        )
+        // Only the permissions from the form definition are cached, as the properties can change independently
+        readPermissionsFromFormDefinition(appForm, version)
+          .getOrElse(FormRunner.permissionsFromElemOrProperties(None, appForm))
     ) |!>
       (formPermissions => debug("CRUD: form permissions", List("permissions" -> formPermissions.toString)))
 
+  private def readPermissionsFromFormDefinition(appForm: AppForm, version: FormDefinitionVersion)(implicit indentedLogger: IndentedLogger): Option[Permissions] =
+    readMaybeFromCache(appForm, version, formDefinitionCache)(PermissionsCacheKey(appForm.app, appForm.form, _)) { versionToRead =>
+      Success(readFormPermissions(appForm, versionToRead).map(permissionsElem => PermissionsXML.parse(Some(permissionsElem))))
+    }.get
+
   private def readFormPermissions(appForm: AppForm, version: FormDefinitionVersion)(implicit indentedLogger: IndentedLogger): Option[NodeInfo] = {
     implicit val coreCrossPlatformSupport: CoreCrossPlatformSupport.type = CoreCrossPlatformSupport
     PersistenceApi.readFormMetadataOpt(appForm, version)
@@ -147,34 +180,45 @@ object PersistenceMetadataSupport {
     indentedLogger : IndentedLogger
   ): FormDefinitionVersion =
     incomingVersion match {
-      case SearchVersion.Unspecified  => PersistenceMetadataSupport.readLatestVersion(appForm).map(FormDefinitionVersion.Specific.apply).getOrElse(FormDefinitionVersion.Latest)
+      case SearchVersion.Unspecified  => PersistenceMetadataSupport.readLatestVersionMaybeFromCache(appForm).map(FormDefinitionVersion.Specific.apply).getOrElse(FormDefinitionVersion.Latest)
       case SearchVersion.All          => FormDefinitionVersion.Latest
       case SearchVersion.Specific(v)  => FormDefinitionVersion.Specific(v)
     }
 
   private object Private {
 
+    case class PermissionsCacheKey  (app: String, form: String, version: Int)
+    case class LatestVersionCacheKey(app: String, form: String)
+
     def readMaybeFromCache[T <: Serializable](
-      appForm       : AppForm,
-      version       : FormDefinitionVersion,
-      cacheOpt      : Option[CacheApi]
+      appForm           : AppForm,
+      version           : FormDefinitionVersion,
+      cacheOpt          : Option[CacheApi]
+    )(
+      cacheKeyForVersion: Int => io.Serializable
     )(
-      read          : => Try[T]
+      read              : FormDefinitionVersion => Try[T]
     )(implicit
-      indentedLogger: IndentedLogger
+      indentedLogger    : IndentedLogger
     ): Try[T] =
       (version, cacheOpt) match {
         case (_, None) =>
           debug(s"cache is disabled, reading directly")
-          read
+          read(version)
         case (FormDefinitionVersion.Latest, Some(cache)) =>
-          // We don't know the version number, so we can't try the cache. We could check the resulting version number
-          // returned from headers and cache the document afterwards. Unclear if it helps.
-          debug(s"version is `Latest`, not using cache `${cache.getName}`")
-          read
+          // We can only try the cache if we already know the latest version number, in which case we read that version
+          // explicitly, so that what we cache under that version's key is that version even if a newer one was published
+          cache.get(LatestVersionCacheKey(appForm.app, appForm.form)) match {
+            case Some(latestVersion) =>
+              debug(s"version is `Latest`, using cached latest version `$latestVersion`")
+              readMaybeFromCache(appForm, FormDefinitionVersion.Specific(latestVersion.asInstanceOf[Integer].intValue), cacheOpt)(cacheKeyForVersion)(read)
+            case None =>
+              debug(s"version is `Latest`, not using cache `${cache.getName}`")
+              read(version)
+          }
         case (FormDefinitionVersion.Specific(versionNumber), Some(cache)) =>
 
-          val cacheKey: CacheKey = (appForm.app, appForm.form, versionNumber)
+          val cacheKey = cacheKeyForVersion(versionNumber)
 
           cache.get(cacheKey) match {
             case Some(cacheElem) =>
@@ -182,7 +226,7 @@ object PersistenceMetadataSupport {
               Success(cacheElem.asInstanceOf[T])
             case None =>
               debug(s"did not get elem from cache for `$cacheKey` from `${cache.getName}`")
-              read |!> (t => cache.put(cacheKey, t))
+              read(version) |!> (t => cache.put(cacheKey, t))
           }
       }
   }
@@ -13,15 +13,19 @@
  */
 package org.orbeon.oxf.fr.persistence.api
 
+import cats.Eval
 import cats.implicits.catsSyntaxOptionId
+import org.orbeon.oxf.cache.{CacheApi, CacheSupport}
 import org.orbeon.oxf.fr.*
 import org.orbeon.oxf.fr.FormRunner.findControlByName
 import org.orbeon.oxf.fr.FormRunnerParams.AppFormVersion
+import org.orbeon.oxf.fr.FormRunnerPersistence.PersistenceProxyPropertyPrefix
 import org.orbeon.oxf.fr.SimpleDataMigration.{FormDiff, diffSimilarXmlData}
 import org.orbeon.oxf.fr.datamigration.MigrationSupport
 import org.orbeon.oxf.fr.importexport.FormDefinitionOps
-import org.orbeon.oxf.http.{HttpStatusCode, StatusCode}
-import org.orbeon.oxf.util.CoreUtils.BooleanOps
+import org.orbeon.oxf.http.{Headers, HttpStatusCode, StatusCode}
+import org.orbeon.oxf.properties.Properties
+import org.orbeon.oxf.util.CoreUtils.{BooleanOps, OptionOps}
 import org.orbeon.oxf.util.StaticXPath.DocumentNodeInfoType
 import org.orbeon.oxf.util.{ContentTypes, CoreCrossPlatformSupportTrait, IndentedLogger, StaticXPath, StringUtils}
 import org.orbeon.oxf.xforms.function.xxforms.XXFormsResourceSupport
@@ -41,7 +45,12 @@ object HistoryDiff {
   val LanguageParam       = "lang"
   val TruncationSizeParam = "truncation-size"
 
-  case class FormDefinition(formDefinition: NodeInfo, metadataRootElem: NodeInfo, resourceRootElem: NodeInfo)
+  case class FormDefinition(
+    formDefinition     : NodeInfo,
+    metadataRootElem   : NodeInfo,
+    resourceRootElem   : NodeInfo,
+    lastModifiedTimeOpt: Option[Instant] = None
+  )
 
   case class HttpStatusCodeWithDescription(code: Int, error: String) extends HttpStatusCode
 
@@ -56,7 +65,7 @@ object HistoryDiff {
       appName  = appFormVersion._1.app,
       formName = appFormVersion._1.form,
       version  = FormDefinitionVersion.Specific(appFormVersion._2)
-    ).flatMap { case ((_, formDefinition), _) =>
+    ).flatMap { case ((headers, formDefinition), _) =>
 
       val ctx               = new InDocFormRunnerDocContext(formDefinition)
       val metadataRootElem  = ctx.metadataRootElem
@@ -70,9 +79,10 @@ object HistoryDiff {
             case Some(resourceRootElem) =>
               Success(
                 FormDefinition(
-                  formDefinition   = formDefinition,
-                  metadataRootElem = metadataRootElem,
-                  resourceRootElem = resourceRootElem
+                  formDefinition      = formDefinition,
+                  metadataRootElem    = metadataRootElem,
+                  resourceRootElem    = resourceRootElem,
+                  lastModifiedTimeOpt = PersistenceApi.headerFromRFC1123OrIso(headers, Headers.OrbeonLastModified, Headers.LastModified)
                 )
               )
 
@@ -95,6 +105,70 @@ object HistoryDiff {
       }
     }
 
+  // Revisions are immutable, so the diffs between two given revisions of a document never change, unless the form
+  // definition used to compute them is republished in place
+  private[api] case class DiffsCacheKey(
+    app                       : String,
+    form                      : String,
+    formVersion               : Int,
+    formDefinitionModifiedTime: Instant,
+    documentId                : String,
+    olderModifiedTime         : Instant,
+    newerModifiedTime         : Instant
+  )
+
+  // Diffs are kept in the first cache, which is bounded and in memory, and, optionally, in a second cache from the
+  // store, which can be configured to be persistent or shared between nodes. A hit in the second cache is promoted to
+  // the first one.
+  private[api] class DiffsCache(caches: List[CacheApi]) {
+
+    def get(key: DiffsCacheKey): Option[Option[Diffs]] =
+      caches match {
+        case Nil                        => None
+        case memoryCache :: otherCaches =>
+          memoryCache.get(key).orElse {
+            otherCaches.iterator.flatMap(_.get(key)).nextOption() |!> (memoryCache.put(key, _))
+          }.map(_.asInstanceOf[Option[Diffs]])
+      }
+
+    def put(key: DiffsCacheKey, diffsOpt: Option[Diffs]): Unit =
+      caches.foreach(_.put(key, diffsOpt))
+  }
+
+  private[api] object DiffsCache {
+
+    private val PropertyPrefix = s"$PersistenceProxyPropertyPrefix.history-diff-cache"
+    val CacheName              = "form-runner.persistence.history-diff"
+    val StoreCacheName         = "form-runner.persistence.history-diff.store"
+
+    private def propertySet = Properties.instance.getPropertySet
+
+    // A cache which is not configured disables caching, instead of failing history requests
+    private def findCache(cacheName: String, store: Boolean): Option[CacheApi] =
+      CacheSupport.findCache(cacheName, store) match {
+        case None =>
+          CacheSupport.Logger.warn(s"no cache found for `$cacheName` (store = $store), not caching revision history diffs there")
+          None
+        case some =>
+          some
+      }
+
+    def apply(enable: Boolean, storeEnable: Boolean, findCache: (String, Boolean) => Option[CacheApi]): DiffsCache =
+      new DiffsCache(
+        enable.flatList(
+          findCache(CacheName, false).toList :::
+          storeEnable.flatList(findCache(StoreCacheName, true).toList)
+        )
+      )
+
+    lazy val instance: DiffsCache =
+      apply(
+        enable      = propertySet.getBoolean(s"$PropertyPrefix.enable",       default = true),
+        storeEnable = propertySet.getBoolean(s"$PropertyPrefix.store.enable", default = false),
+        findCache   = findCache
+      )
+  }
+
   def formDiffs(
     appFormVersion          : AppFormVersion,
     documentId              : String,
@@ -138,14 +212,31 @@ object HistoryDiff {
       if (isFormBuilder) formDefinitionDiffs(olderDataMigrated, newerDataMigrated)
       else               formDataDiffs      (olderDataMigrated, newerDataMigrated, formDefinition.formDefinition)
 
+    // Without the last modified time of the form definition, diffs are not cached, as it could be republished in place
+    def cacheKeyOpt(olderModifiedTime: Instant, newerModifiedTime: Instant): Option[DiffsCacheKey] =
+      formDefinition.lastModifiedTimeOpt.map { formDefinitionModifiedTime =>
+        DiffsCacheKey(
+          app                        = appFormVersion._1.app,
+          form                       = appFormVersion._1.form,
+          formVersion                = appFormVersion._2,
+          formDefinitionModifiedTime = formDefinitionModifiedTime,
+          documentId                 = documentId,
+          olderModifiedTime          = olderModifiedTime,
+          newerModifiedTime          = newerModifiedTime
+        )
+      }
+
+    val diffsCache = DiffsCache.instance
+
     val sortedModifiedTimes = modifiedTimes.sorted
 
     // #7306: compare all consecutive pairs of form data using a sliding window, so we don't load all form data
-    // into memory at the same time
+    // into memory at the same time. Form data is read lazily, so that a revision is read and migrated at most once,
+    // and not at all if the diffs with both of its neighbors are cached.
     @tailrec
     def loop(
       olderModifiedTime: Instant,
-      olderDataMigrated: NodeInfo,
+      olderDataMigrated: Eval[Try[NodeInfo]],
       remaining        : List[Instant],
       acc              : List[((Instant, Instant), Option[Diffs])]
     ): Try[List[((Instant, Instant), Option[Diffs])]] =
@@ -153,20 +244,36 @@ object HistoryDiff {
         case Nil =>
           Success(acc.reverse)
         case newerModifiedTime :: tail =>
-          readMigratedFormData(newerModifiedTime) match {
+
+          val newerDataMigrated = Eval.later(readMigratedFormData(newerModifiedTime))
+          val keyOpt            = cacheKeyOpt(olderModifiedTime, newerModifiedTime)
+
+          val diffsOptTry =
+            keyOpt.flatMap(diffsCache.get) match {
+              case Some(diffsOpt) =>
+                Success(diffsOpt)
+              case None =>
+                for {
+                  older <- olderDataMigrated.value
+                  newer <- newerDataMigrated.value
+                } yield {
+                  val diffsOpt = computeDiffs(older, newer)
+                  keyOpt.foreach(diffsCache.put(_, diffsOpt))
+                  diffsOpt
+                }
+            }
+
+          diffsOptTry match {
             case Failure(t) =>
               Failure(t)
-            case Success(newerDataMigrated) =>
-              val diffsOpt = computeDiffs(olderDataMigrated, newerDataMigrated)
+            case Success(diffsOpt) =>
               loop(newerModifiedTime, newerDataMigrated, tail, ((olderModifiedTime, newerModifiedTime) -> diffsOpt) :: acc)
           }
       }
 
     sortedModifiedTimes match {
       case firstModifiedTime :: rest =>
-        readMigratedFormData(firstModifiedTime)
-          .flatMap(firstDataMigrated => loop(firstModifiedTime, firstDataMigrated, rest, Nil))
-          .map(_.toMap)
+        loop(firstModifiedTime, Eval.later(readMigratedFormData(firstModifiedTime)), rest, Nil).map(_.toMap)
       case Nil =>
         Success(Map.empty)
     }
@@ -1,13 +1,16 @@
 package org.orbeon.oxf.fr.persistence.proxy
 
 import org.orbeon.oxf.externalcontext.ExternalContext.{Request, Response}
-import org.orbeon.oxf.fr.FormRunnerPersistence.DataXml
+import org.orbeon.oxf.fr.FormRunnerPersistence.{DataXml, PersistenceProxyPropertyPrefix, findAttachmentsProvider, findProvider, isInternalProvider, providerPropertyOpt}
 import org.orbeon.oxf.fr.persistence.api.PersistenceApi
 import org.orbeon.oxf.fr.persistence.api.PersistenceApi.SearchPageSize
+import org.orbeon.oxf.fr.persistence.relational.Provider
 import org.orbeon.oxf.fr.persistence.relational.RelationalUtils.PersistenceBase
-import org.orbeon.oxf.fr.{AppForm, FormRunner, SearchVersion, Version}
+import org.orbeon.oxf.fr.{AppForm, FormOrData, FormRunner, SearchVersion, Version}
 import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
+import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.PathUtils.PathOps
+import org.orbeon.oxf.util.StringUtils.*
 import org.orbeon.oxf.util.{CoreCrossPlatformSupport, CoreCrossPlatformSupportTrait, IndentedLogger, JvmUrlEncoderDecoder, PathUtils}
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.scaxon.NodeConversions.elemToDocumentInfo
@@ -17,6 +20,22 @@ object BatchDelete {
 
   private implicit val coreCrossPlatformSupport: CoreCrossPlatformSupportTrait = CoreCrossPlatformSupport
 
+  private val SetBasedProperty = s"$PersistenceProxyPropertyPrefix.batch-delete.set-based"
+
+  // Relational providers delete documents in chunks on their own (see `relational.rest.BatchDelete`), which is much
+  // faster than a `DELETE` per document. Draft attachments stored by a separate attachments provider are only deleted
+  // with a `DELETE` per document, so in that case we keep doing that.
+  def isSetBased(appForm: AppForm)(implicit propertySet: PropertySet): Boolean =
+    propertySet.getBoolean(SetBasedProperty, default = true)  &&
+    findAttachmentsProvider(appForm, FormOrData.Data).isEmpty &&
+    findProvider(appForm, FormOrData.Data).exists { provider =>
+      isInternalProvider(provider) &&
+        providerPropertyOpt(provider, "uri")
+          .flatMap(_.nonBlankStringValue)
+          .flatMap(_.splitTo[List]("/").lastOption)
+          .exists(Provider.withNameOption(_).isDefined)
+    }
+
   def process(
     request       : Request,
     response      : Response,
@@ -32,6 +32,7 @@ import org.orbeon.oxf.fr.persistence.relational.form.FormProxyLogic
 import org.orbeon.oxf.fr.persistence.relational.index.status.Backend
 import org.orbeon.oxf.http.*
 import org.orbeon.oxf.http.Headers.*
+import org.orbeon.oxf.metrics.{Histogram, Metrics}
 import org.orbeon.oxf.pipeline.api.PipelineContext
 import org.orbeon.oxf.processor.generator.RequestGenerator
 import org.orbeon.oxf.properties.PropertySet
@@ -68,10 +69,23 @@ object PersistenceProxyRoute extends NativeRoute {
 
   import PersistenceProxy.*
 
+  // Registered once, instead of being looked up for each request
+  private val RequestHistograms: Map[HttpMethod, Histogram] =
+    SupportedMethods.map { method =>
+      method -> Metrics.histogram(
+        "orbeon_fr_persistence_proxy_request_microseconds",
+        "Time taken by calls to the persistence proxy.",
+        "method" -> method.entryName
+      )
+    }.toMap
+
   def process()(implicit pc: PipelineContext, ec: ExternalContext): Unit = {
     implicit val propertySet   : PropertySet    = CoreCrossPlatformSupport.properties
     implicit val indentedLogger: IndentedLogger = new IndentedLogger(PersistenceProxy.Logger)
-    proxyRequest(ec.getRequest, ec.getResponse)
+    RequestHistograms.get(ec.getRequest.getMethod) match {
+      case Some(histogram) => histogram.time(proxyRequest(ec.getRequest, ec.getResponse))
+      case None            => proxyRequest(ec.getRequest, ec.getResponse)
+    }
   }
 }
 
@@ -187,7 +201,7 @@ private[persistence] object PersistenceProxy extends FormProxyLogic {
     (request.getMethod, request.getRequestPath) match {
       case (_,      FormPath(path, app, form, _))                                 => proxyRequest               (request, response, AppForm(app, form), FormOrData.Form, isDraft = false,                  None          , path)
       case (_,      DataPath(path, app, form, dataOrDraft, documentId, filename)) => proxyRequest               (request, response, AppForm(app, form), FormOrData.Data, isDraft = dataOrDraft == "draft", Some(filename), path, Some(documentId))
-      case (DELETE, DataCollectionPath(path, app, form))                          => BatchDelete.process        (request, response, AppForm(app, form))
+      case (DELETE, DataCollectionPath(path, app, form))                          => proxyBatchDelete           (request, response, AppForm(app, form), path)
       case (POST,   SearchPath(path, app, form))                                  => proxySimpleRequest         (request, response, AppForm(app, form), FormOrData.Data, path)
       case (POST,   ReEncryptAppFormPath(path, app, form))                        => proxySimpleRequest         (request, response, AppForm(app, form), FormOrData.Form, path)
       case (GET,    HistoryPath(path, app, form, _, _))                           => proxySimpleRequest         (request, response, AppForm(app, form), FormOrData.Data, path)
@@ -200,6 +214,20 @@ private[persistence] object PersistenceProxy extends FormProxyLogic {
     }
   }
 
+  private def proxyBatchDelete(
+    request       : Request,
+    response      : Response,
+    appForm       : AppForm,
+    path          : String
+  )(implicit
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): Unit =
+    if (BatchDelete.isSetBased(appForm))
+      proxySimpleRequest(request, response, appForm, FormOrData.Data, path)
+    else
+      BatchDelete.process(request, response, appForm)
+
   // TODO: test
   private def proxySimpleRequest(
     request       : Request,
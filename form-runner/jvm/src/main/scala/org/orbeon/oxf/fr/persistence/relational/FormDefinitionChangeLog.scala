@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational
+
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.fr.FormRunnerParams.AppFormVersion
+import org.orbeon.oxf.fr.FormRunnerPersistence.{PersistenceProxyPropertyPrefix, getProvidersWithProperties, isInternalProvider, providerPropertyOpt}
+import org.orbeon.oxf.fr.{AppForm, FormOrData}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.CoreUtils.*
+import org.orbeon.oxf.util.IndentedLogger
+import org.orbeon.oxf.util.Logging.*
+
+import java.sql.{Connection, Timestamp}
+import java.time.Instant
+import java.util.concurrent.{Executors, ScheduledExecutorService, TimeUnit}
+import scala.util.control.NonFatal
+
+
+// Changes to form definitions (publish and unpublish) are recorded into the `orbeon_form_definition_change` table. Each
+// node polls that table for the databases it uses, and calls back for changes made by any node, so that caches which
+// are not keyed by the content of the form definition can be invalidated across a cluster.
+object FormDefinitionChangeLog {
+
+  private val PropertyPrefix        = s"$PersistenceProxyPropertyPrefix.form-definition-cache.change-log"
+  private val DefaultPollIntervalMs = 10000
+  private val PollWindowMs          = 5 * 60 * 1000L       // covers changes committed late and clock differences between nodes
+  private val RetentionMs           = 24 * 60 * 60 * 1000L // older changes are removed by the pollers
+  private val PurgeIntervalMs       = 60 * 60 * 1000L
+
+  private var executorOpt: Option[ScheduledExecutorService] = None
+
+  def isEnabled(implicit propertySet: PropertySet): Boolean =
+    propertySet.getBoolean(s"$PropertyPrefix.enable", default = false)
+
+  def recordChange(
+    connection    : Connection,
+    appForm       : AppForm,
+    version       : Int,
+    created       : Instant = Instant.now
+  )(implicit
+    indentedLogger: IndentedLogger
+  ): Unit = {
+
+    useAndClose(
+      connection.prepareStatement(
+        """INSERT INTO orbeon_form_definition_change (created, app, form, form_version)
+          |     VALUES (?, ?, ?, ?)""".stripMargin
+      )
+    ) { ps =>
+      ps.setTimestamp(1, Timestamp.from(created))
+      ps.setString   (2, appForm.app)
+      ps.setString   (3, appForm.form)
+      ps.setInt      (4, version)
+      ps.executeUpdate()
+    }
+
+    debug("recorded form definition change", List("app" -> appForm.app, "form" -> appForm.form, "version" -> version.toString))
+  }
+
+  // Keeps track of the changes already seen by this node for one database. Ids are not used as a watermark, as changes
+  // can commit in a different order than their ids. Instead, all the changes created within the poll window are read
+  // each time, and the ones already seen are skipped.
+  class Poller(onChange: AppFormVersion => Unit) {
+
+    private var seenIdsOpt  : Option[Set[Int]] = None
+    private var lastPurgeOpt: Option[Long]     = None
+
+    def poll(connection: Connection, now: Long = System.currentTimeMillis): Unit = synchronized {
+
+      val changes = readChangesCreatedAfter(connection, now - PollWindowMs)
+
+      seenIdsOpt match {
+        case None =>
+          // Caches are populated after polling starts, so only later changes are relevant
+        case Some(seenIds) =>
+          changes.filterNot { case (id, _) => seenIds(id) }.foreach { case (_, appFormVersion) => onChange(appFormVersion) }
+      }
+
+      // Changes older than the window are not read again, so there is no need to remember them
+      seenIdsOpt = Some(changes.map(_._1).toSet)
+
+      if (lastPurgeOpt.forall(now - _ >= PurgeIntervalMs)) {
+        deleteChangesCreatedBefore(connection, now - RetentionMs)
+        lastPurgeOpt = Some(now)
+      }
+    }
+  }
+
+  // Start polling all the databases used for form definitions, if enabled
+  def startPollingIfEnabled(
+    onChange      : AppFormVersion => Unit
+  )(implicit
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): Unit =
+    if (isEnabled) synchronized {
+
+      stopPolling()
+
+      val pollIntervalMs = propertySet.getInteger(s"$PropertyPrefix.poll-interval", DefaultPollIntervalMs)
+
+      val dataSourceNames =
+        getProvidersWithProperties(None, None, Some(FormOrData.Form)).keys
+          .filter(provider => provider != RelationalUtils.ResourceProvider && isInternalProvider(provider))
+          .flatMap(provider => providerPropertyOpt(provider, "datasource").flatMap(_.nonBlankStringValue))
+          .toList
+          .distinct
+
+      val executor =
+        Executors.newSingleThreadScheduledExecutor { runnable =>
+          new Thread(runnable, "orbeon-form-definition-change-log") |!> (_.setDaemon(true))
+        }
+
+      for (dataSourceName <- dataSourceNames) {
+        val poller = new Poller(onChange)
+        executor.scheduleWithFixedDelay(
+          () =>
+            try {
+              RelationalUtils.getDataSourceNoFallback(dataSourceName) match {
+                case Some(dataSource) => useAndClose(dataSource.getConnection)(poller.poll(_))
+                case None             => debug("data source not found for form definition change log", List("data source" -> dataSourceName))
+              }
+            } catch {
+              case NonFatal(t) =>
+                // For example the table doesn't exist yet: keep polling, as the database might be upgraded later
+                info("error polling form definition change log", List("data source" -> dataSourceName, "throwable" -> t.getMessage))
+            },
+          0,
+          pollIntervalMs,
+          TimeUnit.MILLISECONDS
+        )
+      }
+
+      info("polling form definition change log", List("data sources" -> dataSourceNames.mkString(", "), "interval" -> pollIntervalMs.toString))
+
+      executorOpt = Some(executor)
+    }
+
+  def stopPolling(): Unit = synchronized {
+    executorOpt.foreach(_.shutdownNow())
+    executorOpt = None
+  }
+
+  private def readChangesCreatedAfter(connection: Connection, createdAfter: Long): List[(Int, AppFormVersion)] =
+    useAndClose(
+      connection.prepareStatement(
+        """SELECT id, app, form, form_version
+          |  FROM orbeon_form_definition_change
+          | WHERE created > ?
+          | ORDER BY id""".stripMargin
+      )
+    ) { ps =>
+      ps.setTimestamp(1, new Timestamp(createdAfter))
+      useAndClose(ps.executeQuery()) { rs =>
+        Iterator.continually(rs.next()).takeWhile(identity).map { _ =>
+          rs.getInt("id") -> (AppForm(rs.getString("app"), rs.getString("form")), rs.getInt("form_version"))
+        }.toList
+      }
+    }
+
+  private def deleteChangesCreatedBefore(connection: Connection, createdBefore: Long): Unit =
+    useAndClose(connection.prepareStatement("DELETE FROM orbeon_form_definition_change WHERE created < ?")) { ps =>
+      ps.setTimestamp(1, new Timestamp(createdBefore))
+      ps.executeUpdate()
+    }
+}
@@ -105,6 +105,31 @@ object RelationalUtils extends Logging {
       case None             => withConnectionHandleTransaction(getConnection(getDataSource(getDataSourceNameFromHeaders)))(thunk)
     }
 
+  // For work done outside of the request thread, where the data source can't be found from the request headers. Services
+  // called directly, and not through the persistence proxy, don't receive the header, so use the data source of the
+  // provider.
+  def dataSourceFromHeadersOrProvider(
+    provider       : String
+  )(implicit
+    externalContext: ExternalContext,
+    propertySet    : PropertySet,
+    indentedLogger : IndentedLogger
+  ): DataSource =
+    getDataSource(
+      externalContext.getRequest.getFirstHeaderIgnoreCase("orbeon-datasource")
+        .orElse(providerPropertyOpt(provider, "datasource").flatMap(_.nonBlankStringValue))
+        .getOrElse(throw new OXFException(s"No data source configured for provider `$provider`"))
+    )
+
+  def withDataSourceConnection[T](
+    dataSource    : DataSource
+  )(
+    thunk         : Connection => T
+  )(implicit
+    indentedLogger: IndentedLogger
+  ): T =
+    withConnectionHandleTransaction(getConnection(dataSource))(thunk)
+
   private def withConnectionHandleTransaction[T](
     connection    : java.sql.Connection
   )(
@@ -152,7 +177,7 @@ object RelationalUtils extends Logging {
     ec.getRequest.getFirstHeaderIgnoreCase("orbeon-datasource") getOrElse
       (throw new OXFException("Missing `orbeon-datasource` header"))
 
-  private def getDataSourceNoFallback(name: String): Option[DataSource] = {
+  private[relational] def getDataSourceNoFallback(name: String): Option[DataSource] = {
     val prefixesToTry = Seq("java:comp/env/jdbc/", "java:/jdbc/", "java:jboss/datasources/")
 
     // Workaround for WildFly (TODO: investigate why we still need this with 2024.1+ and WildFly 35+)
@@ -37,11 +37,15 @@ object Statement {
   def executeQuery[T](
     connection : Connection,
     sql        : String,
-    parts      : List[StatementPart])(
+    parts      : List[StatementPart],
+    fetchSize  : Option[Int] = None)(
     block      : ResultSet => T
   ): T =
     useAndClose(connection.prepareStatement(sql)) { ps =>
 
+      // Hint for drivers which otherwise read the whole result set in memory (e.g. PostgreSQL)
+      fetchSize.foreach(ps.setFetchSize)
+
       val index = Iterator.from(1)
 
       for {
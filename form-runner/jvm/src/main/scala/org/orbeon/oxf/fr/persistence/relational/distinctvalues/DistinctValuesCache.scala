@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.distinctvalues
+
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.fr.persistence.relational.distinctvalues.adt.Metadata
+import org.orbeon.oxf.fr.persistence.relational.{Provider, WhatToReindex}
+import org.orbeon.oxf.fr.{AppForm, FormDefinitionVersion}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.CollectionUtils.*
+import org.orbeon.oxf.util.IndentedLogger
+import org.orbeon.oxf.util.Logging.*
+
+import java.sql.Connection
+
+
+// Distinct values of indexed controls and of metadata, with the number of index rows having each value, kept in memory
+// per form version. An entry is read from the index the first time it is needed, and is kept until the index is updated
+// for that form version, instead of scanning the index again for each request.
+//
+// Entries are removed once the transaction updating the index is committed. An entry read from the index while the
+// index is being updated might not include the update, so it is only kept if no entry was removed while it was read.
+// Changes made by other nodes are not seen, so entries are read again from the index once they are older than
+// `max-age`.
+object DistinctValuesCache {
+
+  sealed trait Column
+  object Column {
+    case class Control      (path    : String)   extends Column
+    case class MetadataField(metadata: Metadata) extends Column
+  }
+
+  // `version == None` for all versions
+  case class Key(provider: Provider, appForm: AppForm, version: Option[Int], column: Column)
+
+  private case class Entry(counts: Map[Option[String], Int], created: Long)
+
+  private val PropertyPrefix    = "oxf.fr.persistence.distinct-values-cache"
+  private val MaxEntries        = 500
+
+  private val entries = new java.util.LinkedHashMap[Key, Entry](16, 0.75f, true) // access order, for LRU eviction
+
+  // Incremented each time entries are invalidated, guarded by `entries`
+  private var invalidationCount = 0L
+
+  def isEnabled(implicit propertySet: PropertySet): Boolean =
+    propertySet.getBoolean(s"$PropertyPrefix.enable", default = true)
+
+  private def maxAgeMs      (implicit propertySet: PropertySet): Long = propertySet.getInteger(s"$PropertyPrefix.max-age", 300000).toLong
+  private def maxValueCount (implicit propertySet: PropertySet): Int  = propertySet.getInteger(s"$PropertyPrefix.max-values", 1000)
+
+  def specificVersion(version: FormDefinitionVersion): Option[Int] =
+    version match {
+      case FormDefinitionVersion.Specific(v) => Some(v)
+      case FormDefinitionVersion.Latest      => None
+    }
+
+  // Values with a count, read from the index if not in memory or if stale
+  def distinctValues(
+    connection    : Connection,
+    key           : Key
+  )(implicit
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): List[Option[String]] = {
+
+    val now = System.currentTimeMillis
+
+    val (entryOpt, invalidationCountBeforeRead) =
+      entries.synchronized {
+        (Option(entries.get(key)).filter(now - _.created <= maxAgeMs), invalidationCount)
+      }
+
+    val counts =
+      entryOpt match {
+        case Some(entry) =>
+          entry.counts
+        case None =>
+          val counts = readCounts(connection, key)
+          // Large numbers of values are not kept in memory, and are read from the index every time
+          if (counts.size <= maxValueCount)
+            entries.synchronized {
+              if (invalidationCount == invalidationCountBeforeRead) {
+                entries.put(key, Entry(counts, now))
+                if (entries.size > MaxEntries)
+                  entries.remove(entries.keySet.iterator.next())
+              }
+            }
+          debug("read distinct values from index", List("key" -> key.toString, "count" -> counts.size.toString))
+          counts
+      }
+
+    counts.collect { case (value, count) if count > 0 => value }.toList.sortBy(_.getOrElse(""))
+  }
+
+  // Once the transaction updating the index is committed
+  def invalidate(provider: Provider, whatToReindex: WhatToReindex): Unit =
+    entries.synchronized {
+      invalidationCount += 1
+      entries.keySet.removeIf { key =>
+        key.provider == provider && (
+          whatToReindex match {
+            case WhatToReindex.AllData                                   => true
+            case WhatToReindex.DataForForm((appForm, version))           => key.appForm == appForm && key.version.forall(_ == version)
+            case WhatToReindex.DataForDocumentId(_, (appForm, version))  => key.appForm == appForm && key.version.forall(_ == version)
+          }
+        )
+      }
+    }
+
+  private def readCounts(connection: Connection, key: Key): Map[Option[String], Int] = {
+
+    val (valueColumn, tables, columnCondition, pathOpt) =
+      key.column match {
+        case Column.Control(path) =>
+          ("t.val", "orbeon_i_current c, orbeon_i_control_text t", "AND t.data_id = c.data_id AND t.control = ?", Some(path))
+        case Column.MetadataField(metadata) =>
+          (s"c.${metadata.sqlColumn}", "orbeon_i_current c", "", None)
+      }
+
+    val sql =
+      s"""  SELECT $valueColumn val, count(*) value_count
+         |    FROM $tables
+         |   WHERE c.app  = ?
+         |     AND c.form = ?
+         |         ${if (key.version.isDefined) "AND c.form_version = ?" else ""}
+         |         $columnCondition
+         |GROUP BY $valueColumn
+         |""".stripMargin
+
+    useAndClose(connection.prepareStatement(sql)) { ps =>
+      val position = Iterator.from(1)
+      ps.setString(position.next(), key.appForm.app)
+      ps.setString(position.next(), key.appForm.form)
+      key.version.foreach(ps.setInt(position.next(), _))
+      pathOpt.foreach(ps.setString(position.next(), _))
+      useAndClose(ps.executeQuery()) { rs =>
+        Iterator.iterateWhile(
+          cond = rs.next(),
+          elem = Option(rs.getString("val")) -> rs.getInt("value_count")
+        ).toMap
+      }
+    }
+  }
+}
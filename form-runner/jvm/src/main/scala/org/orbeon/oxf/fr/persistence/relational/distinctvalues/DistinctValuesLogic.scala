@@ -19,6 +19,7 @@ import org.orbeon.oxf.fr.persistence.relational.Statement.*
 import org.orbeon.oxf.fr.persistence.relational.distinctvalues.adt.*
 import org.orbeon.oxf.fr.persistence.relational.search.SearchLogic
 import org.orbeon.oxf.fr.persistence.relational.search.adt.SearchPermissions
+import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.CollectionUtils.*
 import org.orbeon.oxf.util.IndentedLogger
 
@@ -28,17 +29,21 @@ import java.sql.Connection
 trait DistinctValuesLogic {
 
   private case class RequestContext(
-    provider   : Provider,
+    request    : DistinctValuesRequest,
     connection : Connection,
     commonParts: List[StatementPart],
-    innerSQL   : String
-  )
+    innerSQL   : String,
+    useCache   : Boolean
+  ) {
+    def provider: Provider = request.provider
+  }
 
   def queryDistinctValues(
     request        : DistinctValuesRequest
   )(implicit
     externalContext: ExternalContext,
-    indentedLogger : IndentedLogger
+    indentedLogger : IndentedLogger,
+    propertySet    : PropertySet
   ): DistinctValues = {
     // Re-use part of the search API logic (permissions, SQL generation)
     SearchLogic.runBodyIfHasSomePermissions(
@@ -48,11 +53,14 @@ trait DistinctValuesLogic {
       noPermissionValue = DistinctValues(),
       connectionOpt     = None
     ) {
-      case (connection: Connection, commonAndPermissionsParts: List[StatementPart], _: SearchPermissions) =>
+      case (connection: Connection, commonAndPermissionsParts: List[StatementPart], permissions: SearchPermissions) =>
 
         val innerSQL = buildQuery(commonAndPermissionsParts)
 
-        implicit val requestContext = RequestContext(request.provider, connection, commonAndPermissionsParts, innerSQL)
+        // Cached values are for all the data, so they can only be used if the user can access all the data
+        val useCache = DistinctValuesCache.isEnabled && permissions.authorizedBasedOnRolePessimistic
+
+        implicit val requestContext = RequestContext(request, connection, commonAndPermissionsParts, innerSQL, useCache)
 
         val controlValues  = request.controlPaths.map(distinctControlValues)
         val metadataValues = request.metadata.map(distinctMetadataValues)
@@ -62,54 +70,75 @@ trait DistinctValuesLogic {
   }
 
   private def distinctControlValues(
-    controlPath: String)(implicit
-    ctx        : RequestContext
-  ): ControlValues = {
-    // We can't use DISTINCT on CLOB columns, so we cast to VARCHAR. A more correct approach would be to
-    // retrieve all values and then make them distinct in Scala. At the moment, the Distinct Values API is used
-    // to display dropdown values in the UI, so the CAST approach should be good enough.
-
-    val sql =
-      s"""SELECT
-         |    ${Provider.distinctVal(ctx.provider, "t.val", "val")}
-         |FROM
-         |    (${ctx.innerSQL}) c
-         |LEFT JOIN
-         |    orbeon_i_control_text t
-         |    ON t.data_id = c.data_id
-         |WHERE
-         |    t.control = ?
-         |""".stripMargin
-
-    val controlPathPart = StatementPart("", List[Setter]((ps, i) => ps.setString(i, controlPath)))
-
-    val distinctValues = executeQuery(ctx.connection, sql, ctx.commonParts :+ controlPathPart) { valuesResultSet =>
-      Iterator.iterateWhile(
-        cond = valuesResultSet.next(),
-        elem = valuesResultSet.getString("val")
-      ).toList
+    controlPath   : String)(implicit
+    ctx           : RequestContext,
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): ControlValues =
+    if (ctx.useCache)
+      ControlValues(controlPath, cachedValues(DistinctValuesCache.Column.Control(controlPath)).flatten)
+    else {
+      // We can't use DISTINCT on CLOB columns, so we cast to VARCHAR. A more correct approach would be to
+      // retrieve all values and then make them distinct in Scala. At the moment, the Distinct Values API is used
+      // to display dropdown values in the UI, so the CAST approach should be good enough.
+
+      val sql =
+        s"""SELECT
+           |    ${Provider.distinctVal(ctx.provider, "t.val", "val")}
+           |FROM
+           |    (${ctx.innerSQL}) c
+           |LEFT JOIN
+           |    orbeon_i_control_text t
+           |    ON t.data_id = c.data_id
+           |WHERE
+           |    t.control = ?
+           |""".stripMargin
+
+      val controlPathPart = StatementPart("", List[Setter]((ps, i) => ps.setString(i, controlPath)))
+
+      val distinctValues = executeQuery(ctx.connection, sql, ctx.commonParts :+ controlPathPart) { valuesResultSet =>
+        Iterator.iterateWhile(
+          cond = valuesResultSet.next(),
+          elem = valuesResultSet.getString("val")
+        ).toList
+      }
+
+      ControlValues(controlPath, distinctValues)
     }
 
-    ControlValues(controlPath, distinctValues)
-  }
-
   private def distinctMetadataValues(
-    metadata: Metadata)(implicit
-    ctx     : RequestContext
-  ): MetadataValues = {
-    val sql =
-      s"""SELECT ${Provider.distinctVal(ctx.provider, metadata.sqlColumn, metadata.sqlColumn)}
-         |FROM   orbeon_i_current
-         |WHERE  data_id IN (${ctx.innerSQL})
-         |""".stripMargin
-
-    val distinctValues = executeQuery(ctx.connection, sql, ctx.commonParts) { valuesResultSet =>
-      Iterator.iterateWhile(
-        cond = valuesResultSet.next(),
-        elem = valuesResultSet.getString(metadata.sqlColumn)
-      ).toList
+    metadata      : Metadata)(implicit
+    ctx           : RequestContext,
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): MetadataValues =
+    if (ctx.useCache)
+      MetadataValues(metadata, cachedValues(DistinctValuesCache.Column.MetadataField(metadata)).map(_.orNull))
+    else {
+      val sql =
+        s"""SELECT ${Provider.distinctVal(ctx.provider, metadata.sqlColumn, metadata.sqlColumn)}
+           |FROM   orbeon_i_current
+           |WHERE  data_id IN (${ctx.innerSQL})
+           |""".stripMargin
+
+      val distinctValues = executeQuery(ctx.connection, sql, ctx.commonParts) { valuesResultSet =>
+        Iterator.iterateWhile(
+          cond = valuesResultSet.next(),
+          elem = valuesResultSet.getString(metadata.sqlColumn)
+        ).toList
+      }
+
+      MetadataValues(metadata, distinctValues)
     }
 
-    MetadataValues(metadata, distinctValues)
-  }
+  private def cachedValues(
+    column        : DistinctValuesCache.Column)(implicit
+    ctx           : RequestContext,
+    propertySet   : PropertySet,
+    indentedLogger: IndentedLogger
+  ): List[Option[String]] =
+    DistinctValuesCache.distinctValues(
+      ctx.connection,
+      DistinctValuesCache.Key(ctx.provider, ctx.request.appForm, DistinctValuesCache.specificVersion(ctx.request.version), column)
+    )
 }
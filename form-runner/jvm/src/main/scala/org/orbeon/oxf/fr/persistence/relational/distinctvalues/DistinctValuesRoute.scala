@@ -20,7 +20,8 @@ import org.orbeon.oxf.fr.persistence.PersistenceMetadataSupport
 import org.orbeon.oxf.fr.persistence.relational.search.SearchLogic
 import org.orbeon.oxf.fr.persistence.relational.{Provider, RelationalUtils}
 import org.orbeon.oxf.pipeline.api.PipelineContext
-import org.orbeon.oxf.util.{IndentedLogger, NetUtils}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger, NetUtils}
 
 
 object DistinctValuesRoute
@@ -36,6 +37,7 @@ object DistinctValuesRoute
   def process()(implicit pc: PipelineContext, ec: ExternalContext): Unit = {
 
     implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
+    implicit val propertySet   : PropertySet    = CoreCrossPlatformSupport.properties
 
     val DistinctValuesPath(provider, app, form) = httpRequest.getRequestPath
 
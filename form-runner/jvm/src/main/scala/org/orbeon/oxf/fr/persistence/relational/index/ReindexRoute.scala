@@ -16,6 +16,7 @@ package org.orbeon.oxf.fr.persistence.relational.index
 import org.orbeon.oxf.controller.NativeRoute
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.fr.persistence.relational.*
+import org.orbeon.oxf.fr.persistence.relational.distinctvalues.DistinctValuesCache
 import org.orbeon.oxf.fr.{AppForm, Version}
 import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
 import org.orbeon.oxf.pipeline.api.PipelineContext
@@ -38,9 +39,9 @@ object ReindexRoute extends NativeRoute {
     implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
     implicit val propertySet   : PropertySet    = CoreCrossPlatformSupport.properties
 
-    ec.getRequest.getRequestPath match {
+    val (provider, whatToReindex) = ec.getRequest.getRequestPath match {
       case ReindexPathRegex(providerToken, null, null) =>
-        Index.reindex(Provider.withName(providerToken), WhatToReindex.AllData, clearOnly = false)
+        (Provider.withName(providerToken), WhatToReindex.AllData)
       case ReindexPathRegex(providerToken, app, form) =>
 
         // Version is required if we pass app/form
@@ -51,7 +52,10 @@ object ReindexRoute extends NativeRoute {
             .map(_.toInt)
             .getOrElse(throw HttpStatusCodeException(StatusCode.BadRequest))
 
-        Index.reindex(Provider.withName(providerToken), WhatToReindex.DataForForm((AppForm(app, form), incomingVersion)), clearOnly = false)
+        (Provider.withName(providerToken), WhatToReindex.DataForForm((AppForm(app, form), incomingVersion)))
     }
+
+    Index.reindex(provider, whatToReindex, clearOnly = false)
+    DistinctValuesCache.invalidate(provider, whatToReindex)
   }
 }
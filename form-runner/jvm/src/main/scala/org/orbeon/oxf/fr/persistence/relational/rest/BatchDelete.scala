@@ -0,0 +1,284 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.rest
+
+import org.orbeon.io.IOUtils.useAndClose
+import org.orbeon.oxf.externalcontext.{Credentials, ExternalContext}
+import org.orbeon.oxf.fr.FormDefinitionVersion
+import org.orbeon.oxf.fr.permission.{Operation, Operations, PermissionsAuthorization}
+import org.orbeon.oxf.fr.persistence.api.PersistenceApi
+import org.orbeon.oxf.fr.persistence.relational.distinctvalues.DistinctValuesCache
+import org.orbeon.oxf.fr.persistence.relational.search.SearchLogic
+import org.orbeon.oxf.fr.persistence.relational.search.adt.{Ascending, Drafts, Metadata, MetadataFilterType, MetadataQuery, SearchRequest}
+import org.orbeon.oxf.fr.persistence.relational.{Provider, RelationalUtils, WhatToReindex}
+import org.orbeon.oxf.http.{Headers, StatusCode}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.CoreUtils.*
+import org.orbeon.oxf.util.Logging.*
+import org.orbeon.oxf.util.StringUtils.*
+import org.orbeon.oxf.util.{ContentTypes, IndentedLogger}
+
+import java.io.{OutputStream, OutputStreamWriter}
+import java.nio.charset.StandardCharsets
+import java.sql.{Connection, PreparedStatement, Timestamp}
+import java.time.Instant
+import scala.annotation.tailrec
+import scala.xml.Elem
+
+
+// Delete all the data the current user can delete for a given form version, as done by a `DELETE` on the data
+// collection (`/crud/[app]/[form]/data/`). Instead of going through the CRUD API for each document, documents are
+// deleted in chunks, with one set of SQL statements per chunk, and each chunk is committed separately.
+//
+// Documents are read in ascending order of last modification time. Documents which can't be deleted, because they are
+// leased by another user or the current user doesn't have the permission to delete them, are skipped and stay in the
+// search results, so the search continues after them. The response tells the caller how many documents were deleted
+// and skipped, and the last modification time reached, which can be passed back with the `last-modified-time`
+// parameter to resume the batch delete from there.
+trait BatchDelete {
+
+  import BatchDelete.*
+
+  def batchDelete(
+    req            : BatchDeleteRequest
+  )(implicit
+    externalContext: ExternalContext,
+    indentedLogger : IndentedLogger,
+    propertySet    : PropertySet
+  ): Unit = {
+
+    import req.*
+
+    val chunkSize   = propertySet.getInteger(ChunkSizeProperty, DefaultChunkSize)
+    val credentials = PermissionsAuthorization.findCurrentCredentialsFromSession
+    val usernameOpt = credentials.map(_.userAndGroup.username)
+    val logParams   = List("app" -> appForm.app, "form" -> appForm.form, "version" -> version.toString)
+
+    def searchRequest(cursor: Cursor): SearchRequest =
+      SearchRequest(
+        provider            = provider,
+        appForm             = appForm,
+        version             = FormDefinitionVersion.Specific(version),
+        credentials         = credentials,
+        isInternalAdminUser = false,
+        pageSize            = chunkSize,
+        pageNumber          = cursor.skippedRows / chunkSize + 1,
+        queries             = List(
+          MetadataQuery(
+            Metadata.LastModified,
+            filterType = cursor.lastModifiedTimeOpt.map(MetadataFilterType.GreaterThanOrEqual.apply),
+            Some(Ascending)
+          )
+        ),
+        drafts              = if (credentials.isDefined) Drafts.IncludeDrafts else Drafts.ExcludeDrafts, // as the search API
+        freeTextSearch      = None,
+        anyOfOperations     = Some(Set(Operation.Delete))
+      )
+
+    @tailrec
+    def deleteChunks(cursor: Cursor, progress: BatchDeleteProgress): BatchDeleteProgress = {
+
+      val chunkOpt =
+        RelationalUtils.withConnection { connection =>
+
+          val (documents, _) = SearchLogic.doSearch(searchRequest(cursor), Some(connection))
+
+          // Rows skipped earlier are at the beginning of the page
+          val rows = documents.drop(cursor.skippedRows % chunkSize)
+
+          rows.lastOption.map { lastRow =>
+
+            val rowsByDocumentId = rows.groupBy(_.metadata.documentId)
+            val leases           = LockSql.readLeases(connection, provider, rowsByDocumentId.keys.toList)
+
+            // Same checks as for a `DELETE` of `data.xml` and a `LOCK` of the document
+            def canDelete(documentId: String): Boolean =
+              rowsByDocumentId(documentId).forall(row => Operations.parseFromString(row.operations).exists(Operations.allows(_, Operation.Delete))) &&
+              leases.get(documentId).forall(lease => lease.timeout <= 0 || usernameOpt.contains(lease.lockInfo.userAndGroup.username))
+
+            val (deletedIds, skippedIds) = rowsByDocumentId.keySet.partition(canDelete)
+
+            if (deletedIds.nonEmpty)
+              deleteDocuments(connection, provider, deletedIds.toList, credentials)
+
+            val lastModifiedTime = lastRow.metadata.lastModifiedTime.toInstant
+            val skippedRows      = rows.filter(row => skippedIds.contains(row.metadata.documentId))
+
+            // All the rows read are at or after the current cursor, so if the last row is at the cursor, so are all
+            // the rows read
+            val nextCursor =
+              if (cursor.lastModifiedTimeOpt.contains(lastModifiedTime))
+                Cursor(Some(lastModifiedTime), cursor.skippedRows + skippedRows.size)
+              else
+                Cursor(Some(lastModifiedTime), skippedRows.count(_.metadata.lastModifiedTime.toInstant == lastModifiedTime))
+
+            (nextCursor, deletedIds.size, skippedIds.size)
+          }
+        }
+
+      chunkOpt match {
+        case None =>
+          progress
+        case Some((nextCursor, deletedInChunk, skippedInChunk)) =>
+          val newProgress =
+            progress.copy(
+              deleted             = progress.deleted + deletedInChunk,
+              skipped             = progress.skipped + skippedInChunk,
+              lastModifiedTimeOpt = nextCursor.lastModifiedTimeOpt
+            )
+          info(
+            s"Batch delete: deleted ${newProgress.deleted}, skipped ${newProgress.skipped}",
+            logParams ::: newProgress.lastModifiedTimeOpt.map(PersistenceApi.LastModifiedTimeParam -> _.toString).toList
+          )
+          deleteChunks(nextCursor, newProgress)
+      }
+    }
+
+    val startLastModifiedTimeOpt =
+      externalContext.getRequest.getFirstParamAsString(PersistenceApi.LastModifiedTimeParam).flatMap(_.trimAllToOpt).map(Instant.parse)
+
+    val progress =
+      try
+        deleteChunks(Cursor(startLastModifiedTimeOpt, skippedRows = 0), BatchDeleteProgress(0, 0, startLastModifiedTimeOpt))
+      finally
+        DistinctValuesCache.invalidate(provider, WhatToReindex.DataForForm((appForm, version)))
+
+    debug(s"Total batch deleted: ${progress.deleted}, skipped: ${progress.skipped}", logParams)
+
+    val httpResponse = externalContext.getResponse
+    httpResponse.setStatus(StatusCode.Ok)
+    httpResponse.setHeader(Headers.ContentType, ContentTypes.XmlContentType)
+    httpResponse.getOutputStream.pipe(useAndClose(_)(os =>
+      BatchDeleteProgress.serialize(progress, os)
+    ))
+  }
+}
+
+private object BatchDelete {
+
+  val ChunkSizeProperty = "oxf.fr.persistence.batch-delete.chunk-size"
+  val DefaultChunkSize  = 500 // keep below 1000, the maximum number of expressions in an Oracle `IN` list
+
+  // Last modification time from which to search, and number of rows at that time which were skipped
+  case class Cursor(
+    lastModifiedTimeOpt: Option[Instant],
+    skippedRows        : Int
+  )
+
+  case class BatchDeleteProgress(
+    deleted            : Int,
+    skipped            : Int,
+    lastModifiedTimeOpt: Option[Instant]
+  )
+
+  object BatchDeleteProgress {
+
+    def elem(progress: BatchDeleteProgress): Elem =
+      <batch-delete>
+        <deleted>{progress.deleted}</deleted>
+        <skipped>{progress.skipped}</skipped>
+        {progress.lastModifiedTimeOpt.toList.map(lastModifiedTime => <last-modified-time>{lastModifiedTime.toString}</last-modified-time>)}
+      </batch-delete>
+
+    def serialize(progress: BatchDeleteProgress, outputStream: OutputStream): Unit = {
+      val writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)
+      useAndClose(writer)(_.write(elem(progress).toString()))
+    }
+  }
+
+  // This does, for each document, what `CreateUpdateDelete.change()` does for a `DELETE` of `data.xml`:
+  //
+  // - delete the drafts, including draft attachments
+  // - delete the document from the index
+  // - add a row marking the document as deleted, keeping the history of the document
+  def deleteDocuments(
+    connection    : Connection,
+    provider      : Provider,
+    documentIds   : List[String],
+    credentials   : Option[Credentials]
+  )(implicit
+    indentedLogger: IndentedLogger
+  ): Unit = {
+
+    val inList = documentIds.map(_ => "?").mkString("(", ", ", ")")
+
+    def setDocumentIds(ps: PreparedStatement, firstIndex: Int): Unit =
+      documentIds.zipWithIndex.foreach { case (documentId, index) =>
+        ps.setString(firstIndex + index, documentId)
+      }
+
+    def executeUpdate(sql: String)(setParams: PreparedStatement => Unit): Int =
+      useAndClose(connection.prepareStatement(sql)) { ps =>
+        setParams(ps)
+        ps.executeUpdate()
+      }
+
+    // See `CreateUpdateDelete.store()`
+    val orderByClause =
+      provider match {
+        case Provider.MySQL => " ORDER BY last_modified_time"
+        case _              => ""
+      }
+
+    withDebug("batch deleting documents", List("count" -> documentIds.size.toString)) {
+
+      // Index for both drafts and non-drafts, as all of them are deleted
+      executeUpdate(
+        s"""|DELETE FROM orbeon_i_control_text
+            | WHERE data_id IN (
+            |           SELECT data_id
+            |             FROM orbeon_i_current
+            |            WHERE document_id IN $inList
+            |       )
+            |""".stripMargin
+      )(setDocumentIds(_, 1))
+
+      executeUpdate(s"DELETE FROM orbeon_i_current WHERE document_id IN $inList$orderByClause")(setDocumentIds(_, 1))
+
+      // Drafts
+      List("orbeon_form_data_attach", "orbeon_form_data").foreach { table =>
+        executeUpdate(s"DELETE FROM $table WHERE document_id IN $inList AND draft = 'Y'$orderByClause")(setDocumentIds(_, 1))
+      }
+
+      // Mark the latest non-draft data as deleted
+      val deleted =
+        executeUpdate(
+          s"""|INSERT INTO orbeon_form_data
+              |            (
+              |                created, last_modified_time, last_modified_by, username, groupname, organization_id,
+              |                app, form, form_version, document_id, deleted, draft
+              |            )
+              |     SELECT d.created, ?, ?, d.username, d.groupname, d.organization_id,
+              |            d.app, d.form, d.form_version, d.document_id, 'Y', 'N'
+              |       FROM orbeon_form_data d
+              |      WHERE d.document_id IN $inList
+              |            AND d.draft = 'N'
+              |            AND d.deleted = 'N'
+              |            AND d.last_modified_time = (
+              |                    SELECT MAX(last_modified_time)
+              |                      FROM orbeon_form_data
+              |                     WHERE document_id = d.document_id
+              |                           AND draft = 'N'
+              |                )
+              |""".stripMargin
+        ) { ps =>
+          ps.setTimestamp(1, new Timestamp(System.currentTimeMillis()))
+          ps.setString   (2, credentials.map(_.userAndGroup.username).orNull)
+          setDocumentIds(ps, 3)
+        }
+
+      debug("marked documents as deleted", List("count" -> deleted.toString))
+    }
+  }
+}
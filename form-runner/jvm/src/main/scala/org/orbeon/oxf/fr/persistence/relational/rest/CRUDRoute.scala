@@ -34,6 +34,7 @@ object CRUDRoute
   extends NativeRoute
   with    Read
   with    CreateUpdateDelete
+  with    BatchDelete
   with    LockUnlock {
 
   private val logger = LoggerFactory.createLogger(CRUDRoute.getClass)
@@ -51,12 +52,13 @@ object CRUDRoute
       val requestPath  = httpRequest.getRequestPath
 
       httpRequest.getMethod match {
-        case HttpMethod.GET | HttpMethod.HEAD => getOrHead(getCrudRequest      (requestPath), httpRequest.getMethod)
-        case HttpMethod.PUT                   => change   (getCrudRequest      (requestPath), delete = false)
-        case HttpMethod.DELETE                => change   (getCrudRequest      (requestPath), delete = true)
-        case HttpMethod.LOCK                  => lock     (getLockUnlockRequest(requestPath))
-        case HttpMethod.UNLOCK                => unlock   (getLockUnlockRequest(requestPath))
-        case _                                => httpResponse.setStatus(StatusCode.MethodNotAllowed)
+        case HttpMethod.GET | HttpMethod.HEAD                                 => getOrHead  (getCrudRequest      (requestPath), httpRequest.getMethod)
+        case HttpMethod.PUT                                                   => change     (getCrudRequest      (requestPath), delete = false)
+        case HttpMethod.DELETE if CrudDataCollectionPath.matches(requestPath) => batchDelete(getBatchDeleteRequest(requestPath))
+        case HttpMethod.DELETE                                                => change     (getCrudRequest      (requestPath), delete = true)
+        case HttpMethod.LOCK                                                  => lock       (getLockUnlockRequest(requestPath))
+        case HttpMethod.UNLOCK                                                => unlock     (getLockUnlockRequest(requestPath))
+        case _                                                                => httpResponse.setStatus(StatusCode.MethodNotAllowed)
       }
     } catch {
       case e: HttpStatusCodeException =>
@@ -67,6 +69,8 @@ object CRUDRoute
   private val CrudFormPath = "/fr/service/([^/]+)/crud/([^/]+)/([^/]+)/form/([^/]+)".r
   private val CrudDataPath = "/fr/service/([^/]+)/crud/([^/]+)/([^/]+)/(data|draft)/([^/]+)/([^/]+)".r
 
+  private val CrudDataCollectionPath = "/fr/service/([^/]+)/crud/([^/]+)/([^/]+)/data/".r
+
   private def headerValueIgnoreCase(name: String)(implicit httpRequest: ExternalContext.Request): Option[String] =
     httpRequest.getFirstHeaderIgnoreCase(name)
 
@@ -82,6 +86,18 @@ object CRUDRoute
         throw HttpStatusCodeException(StatusCode.BadRequest)
     }
 
+  private def getBatchDeleteRequest(requestPath: String)(implicit httpRequest: ExternalContext.Request): BatchDeleteRequest =
+    requestPath match {
+      case CrudDataCollectionPath(provider, app, form) =>
+        BatchDeleteRequest(
+          Provider.withName(provider),
+          AppForm(app, form),
+          headerValueIgnoreCase(Version.OrbeonFormDefinitionVersion).map(_.toInt).getOrElse(throw HttpStatusCodeException(StatusCode.BadRequest))
+        )
+      case _ =>
+        throw HttpStatusCodeException(StatusCode.BadRequest)
+    }
+
   private def getCrudRequest(
     requestPath: String
   )(implicit
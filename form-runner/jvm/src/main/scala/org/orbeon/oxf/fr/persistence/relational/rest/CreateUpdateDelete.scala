@@ -14,6 +14,7 @@
 package org.orbeon.oxf.fr.persistence.relational.rest
 
 import cats.implicits.catsSyntaxOptionId
+import org.apache.commons.io.output.DeferredFileOutputStream
 import org.orbeon.io.IOUtils.*
 import org.orbeon.io.{IOUtils, StringBuilderWriter}
 import org.orbeon.oxf.externalcontext.ExternalContext
@@ -21,6 +22,7 @@ import org.orbeon.oxf.fr.FormRunnerMetadataSupport.*
 import org.orbeon.oxf.fr.FormRunnerParams.AppFormVersion
 import org.orbeon.oxf.fr.Version.*
 import org.orbeon.oxf.fr.persistence.PersistenceMetadataSupport
+import org.orbeon.oxf.fr.persistence.relational.distinctvalues.DistinctValuesCache
 import org.orbeon.oxf.fr.persistence.relational.index.Index
 import org.orbeon.oxf.fr.persistence.relational.rest.SqlSupport.*
 import org.orbeon.oxf.fr.persistence.relational.search.SearchLogic
@@ -32,13 +34,14 @@ import org.orbeon.oxf.pipeline.api.TransformerXMLReceiver
 import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.oxf.util.Logging.*
-import org.orbeon.oxf.util.{DateUtils, IndentedLogger, XPath}
+import org.orbeon.oxf.util.{DateUtils, IndentedLogger, NetUtils, XPath}
 import org.orbeon.oxf.xml.*
 import org.orbeon.saxon.event.SaxonOutputKeys
 import org.orbeon.saxon.om.DocumentInfo
 import org.xml.sax.InputSource
 
-import java.io.{ByteArrayInputStream, ByteArrayOutputStream, InputStream, Writer}
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, Closeable, FilterWriter, InputStream, InputStreamReader, OutputStreamWriter, Reader, Writer}
+import java.nio.charset.StandardCharsets
 import java.sql.{Array as _, *}
 import java.time.Instant
 import javax.xml.transform.OutputKeys
@@ -60,36 +63,122 @@ object RequestReader {
       case Body.Streamed(is)  => is
     }
 
-  def bytes(bodyOpt: Option[Body]): Option[Array[Byte]] =
-    bodyOpt.map {
-      case Body.Cached(bytes) => bytes
-      case Body.Streamed(is)  =>
-        val os = new ByteArrayOutputStream
-        IOUtils.copyStreamAndClose(is, os)
-        os.toByteArray
-    }
-
   // Used by FlatView
   def xmlDocument(bodyOpt: Option[Body]): Option[DocumentInfo] =
     requestInputStream(bodyOpt).map { is =>
       TransformerUtils.readTinyTree(XPath.GlobalConfiguration, is, "", false, false)
     }
 
-  def dataAndMetadataAsString(bodyOpt: Option[Body], provider: Provider, metadata: Boolean)(implicit propertySet: PropertySet): (Option[String], Option[String]) =
-    requestInputStream(bodyOpt).map { is =>
-      val (data, metadataOpt) = dataAndMetadataAsString(provider, is, metadata)
-      (Some(data), metadataOpt)
-    }.getOrElse {
-      (None, None)
+  // Content stored into the database, kept in memory when small, and otherwise spooled to a temporary file, so that
+  // saving a large document or attachment doesn't hold several copies of it in the heap
+  class SpooledContent private[RequestReader] (out: DeferredFileOutputStream, val length: Long) {
+
+    // Streams handed to the JDBC driver, which doesn't close them
+    private var openedStreams: List[Closeable] = Nil
+
+    private def opened[C <: Closeable](closeable: C): C = {
+      openedStreams ::= closeable
+      closeable
     }
 
-  def dataAndMetadataAsString(
+    def isInMemory: Boolean = out.isInMemory
+
+    def string: String = new String(out.getData, StandardCharsets.UTF_8)
+    def bytes : Array[Byte] = out.getData
+
+    def newInputStream: InputStream = opened(out.toInputStream)
+    def newReader     : Reader      = opened(new InputStreamReader(out.toInputStream, StandardCharsets.UTF_8))
+
+    // Close the streams before deleting the file, as an open file can't be deleted on Windows
+    def dispose(): Unit = {
+      openedStreams.foreach(s => runQuietly(s.close()))
+      openedStreams = Nil
+      if (! out.isInMemory)
+        out.getFile.delete()
+    }
+  }
+
+  private val SpoolThresholdBytes = 1024 * 1024
+
+  private def newSpoolingOutputStream: DeferredFileOutputStream =
+    DeferredFileOutputStream.builder
+      .setThreshold(SpoolThresholdBytes)
+      .setPrefix("orbeon-persistence-")
+      .setSuffix(".tmp")
+      .setDirectory(NetUtils.getTemporaryDirectory)
+      .get
+
+  // Number of characters written, as some JDBC drivers require the length of character streams
+  private class CountingWriter(writer: Writer) extends FilterWriter(writer) {
+
+    var count = 0L
+
+    override def write(c: Int): Unit = {
+      super.write(c)
+      count += 1
+    }
+
+    override def write(cbuf: Array[Char], off: Int, len: Int): Unit = {
+      super.write(cbuf, off, len)
+      count += len
+    }
+
+    override def write(str: String, off: Int, len: Int): Unit = {
+      super.write(str, off, len)
+      count += len
+    }
+  }
+
+  // The spooled content is only available within `body`
+  def withBytes[T](bodyOpt: Option[Body])(body: Option[SpooledContent] => T): T = {
+
+    val contentOpt =
+      requestInputStream(bodyOpt).map { is =>
+        val out = newSpoolingOutputStream
+        IOUtils.copyStreamAndClose(is, out)
+        new SpooledContent(out, out.getByteCount)
+      }
+
+    try
+      body(contentOpt)
+    finally
+      contentOpt.foreach(_.dispose())
+  }
+
+  // Parse the XML once, writing the data to be stored and, if needed, extracting the metadata on the same pass. The
+  // spooled data is only available within `body`.
+  def withDataAndMetadata[T](
+    bodyOpt    : Option[Body],
     provider   : Provider,
-    inputStream: InputStream,
     metadata   : Boolean
+  )(
+    body       : (Option[SpooledContent], Option[String]) => T
+  )(implicit
+    propertySet: PropertySet
+  ): T = {
+
+    val dataAndMetadataOpt =
+      requestInputStream(bodyOpt).map { is =>
+        val out         = newSpoolingOutputStream
+        val dataWriter  = new CountingWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))
+        val metadataOpt = useAndClose(dataWriter)(transformDataAndMetadata(provider, is, metadata, _))
+        (new SpooledContent(out, dataWriter.count), metadataOpt)
+      }
+
+    try
+      body(dataAndMetadataOpt.map(_._1), dataAndMetadataOpt.flatMap(_._2))
+    finally
+      dataAndMetadataOpt.foreach(_._1.dispose())
+  }
+
+  private def transformDataAndMetadata(
+    provider   : Provider,
+    inputStream: InputStream,
+    metadata   : Boolean,
+    dataWriter : Writer
   )(implicit
     propertySet: PropertySet
-  ): (String, Option[String]) = {
+  ): Option[String] = {
 
     def newTransformer =
       TransformerUtils.getXMLIdentityTransformer |!>
@@ -124,8 +213,7 @@ object RequestReader {
         newInstanceFilter(newIdentityReceiver(metadataWriter), isMetadataElement, MetadataElementsToKeep))
     }
 
-    val source     = new SAXSource(XMLParsing.newXMLReader(ParserConfiguration.Plain), new InputSource(inputStream))
-    val dataWriter = new StringBuilderWriter()
+    val source = new SAXSource(XMLParsing.newXMLReader(ParserConfiguration.Plain), new InputSource(inputStream))
 
     val resultReceiver = metadataWriterAndReceiver match {
       case Some((_, metadataFilter)) =>
@@ -136,7 +224,7 @@ object RequestReader {
 
     newTransformer.transform(source, new SAXResult(resultReceiver))
 
-    (dataWriter.result, metadataWriterAndReceiver map (_._1.result))
+    metadataWriterAndReceiver map (_._1.result)
   }
 }
 
@@ -282,11 +370,15 @@ trait CreateUpdateDelete {
       }
     }
 
-    def doInsert(): StoreResult = {
+    def doInsert(
+      xmlOpt        : Option[RequestReader.SpooledContent],
+      metadataOpt   : Option[String],
+      fileContentOpt: Option[RequestReader.SpooledContent]
+    ): StoreResult = {
 
       val currentTimestamp = new Timestamp(System.currentTimeMillis())
 
-      val includedCols = insertCols(req, reqBodyOpt, delete, versionToSet, currentTimestamp, currentUserOrganization(connection, req))
+      val includedCols = insertCols(req, xmlOpt, metadataOpt, fileContentOpt, delete, versionToSet, currentTimestamp, currentUserOrganization(connection, req))
       val colNames     = includedCols.map(_.name).mkString(", ")
       val colValues    =
         includedCols
@@ -330,9 +422,18 @@ trait CreateUpdateDelete {
     val deletingDataDraft = delete && req.dataPart.exists(_.isDraft)
     val forceDelete       = delete && req.dataPart.exists(_.forceDelete)
 
-    if (! deletingDataDraft && ! forceDelete)
-      doInsert()
-    else
+    if (! deletingDataDraft && ! forceDelete) {
+      if (delete)
+        doInsert(xmlOpt = None, metadataOpt = None, fileContentOpt = None)
+      else if (req.forAttachment)
+        RequestReader.withBytes(reqBodyOpt) { fileContentOpt =>
+          doInsert(xmlOpt = None, metadataOpt = None, fileContentOpt = fileContentOpt)
+        }
+      else
+        RequestReader.withDataAndMetadata(reqBodyOpt, req.provider, metadata = ! req.forData) { (xmlOpt, metadataOpt) =>
+          doInsert(xmlOpt = xmlOpt, metadataOpt = metadataOpt, fileContentOpt = None)
+        }
+    } else
       StoreResult(idOpt = None, lastModifiedOpt = None)
   }
 
@@ -380,21 +481,21 @@ trait CreateUpdateDelete {
       ! req.forAttachment &&               // https://github.com/orbeon/orbeon-forms/issues/6913
       ! req.dataPart.exists(_.forceDelete) // no need to reindex as we only `DELETE` historical data, which is not indexed
 
+    val whatToReindex = req.dataPart match {
+      case Some(dataPart) =>
+        // Data: update index for this document id
+        WhatToReindex.DataForDocumentId(dataPart.documentId, appFormVersion = (req.appForm, versionToSet))
+      case None =>
+        // Form definition: update index for this form version
+        WhatToReindex.DataForForm((req.appForm, versionToSet))
+    }
+
     def reindex(
       reindexConnectionOpt: Option[ReindexConnection]
     )(implicit
       propertySet         : PropertySet
     ): Unit =
       if (doReindex) {
-        val whatToReindex = req.dataPart match {
-          case Some(dataPart) =>
-            // Data: update index for this document id
-            WhatToReindex.DataForDocumentId(dataPart.documentId, appFormVersion = (req.appForm, versionToSet))
-          case None =>
-            // Form definition: update index for this form version
-            WhatToReindex.DataForForm((req.appForm, versionToSet))
-        }
-
         // If we are deleting a form definition, we should clear the index, but we should not reindex the data after that.
         // https://github.com/orbeon/orbeon-forms/issues/6915
         val clearOnly =
@@ -471,12 +572,20 @@ trait CreateUpdateDelete {
         // Other cases, including for the form definition
         val storeResult =
           RelationalUtils.withConnection { connection =>
-            store(connection, req, reqBodyOpt, delete, versionToSet)
+            val storeResult = store(connection, req, reqBodyOpt, delete, versionToSet)
+            // Let other nodes know, in the same transaction, that their caches for this form definition are stale
+            if (req.forForm && ! req.forAttachment && FormDefinitionChangeLog.isEnabled)
+              FormDefinitionChangeLog.recordChange(connection, req.appForm, versionToSet)
+            storeResult
           }
         reindex(None)
         storeResult
     }
 
+    // Only once the index changes are committed, so that distinct values read again from the index include them
+    if (doReindex)
+      DistinctValuesCache.invalidate(req.provider, whatToReindex)
+
     if (createFlatView)
       doCreateFlatView(req, reqBodyOpt, versionToSet)
 
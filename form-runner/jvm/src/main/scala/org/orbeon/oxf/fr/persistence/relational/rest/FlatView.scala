@@ -23,7 +23,7 @@ import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.saxon.om.{DocumentInfo, NodeInfo}
 import org.orbeon.scaxon.SimplePath.*
 
-import java.sql.Connection
+import java.sql.{Connection, PreparedStatement}
 import scala.annotation.tailrec
 import scala.collection.mutable
 
@@ -43,17 +43,25 @@ private object FlatView {
     ("document_id" :: (if (includeAll) List("created", "last_modified_time", "last_modified_by") else Nil))
       .map(name => Column(s"$tableAlias.$name", if (includeAlias) Some(s"metadata_$name") else None))
 
+  case class ViewDefinition(name: String, createViewQuery: String)
+
+  private def viewExists(provider: Provider, viewExistsPS: PreparedStatement, viewName: String): Boolean = {
+    viewExistsPS.setString(1, Provider.flatViewExistsParam(provider, viewName))
+    useAndClose(viewExistsPS.executeQuery())(_.next())
+  }
+
   def deleteViewIfExists(provider: Provider, connection: Connection, viewName: String): Unit = {
-    val viewExists = {
-      useAndClose(connection.prepareStatement(Provider.flatViewExistsQuery(provider))) { ps =>
-        ps.setString(1, Provider.flatViewExistsParam(provider, viewName))
-        useAndClose(ps.executeQuery())(_.next())
-      }
-    }
-    if (viewExists)
+    val exists = useAndClose(connection.prepareStatement(Provider.flatViewExistsQuery(provider)))(viewExists(provider, _, viewName))
+    if (exists)
       useAndClose(connection.prepareStatement(s"DROP VIEW $viewName"))(_.executeUpdate())
   }
 
+  // Names of the views that exist among the given names, checked with a single prepared statement
+  def existingViews(provider: Provider, connection: Connection, viewNames: List[String]): Set[String] =
+    useAndClose(connection.prepareStatement(Provider.flatViewExistsQuery(provider))) { ps =>
+      viewNames.filter(viewExists(provider, ps, _)).toSet
+    }
+
   // Create a flat relational view. See related issues:
   //
   // - https://github.com/orbeon/orbeon-forms/issues/1069
@@ -80,18 +88,53 @@ private object FlatView {
     prefixesInMainViewColumnNames: Boolean,
     maxIdentifierLength          : Int
   ): Unit =
-    FlatView.views(documentInfo, req.provider, req.appForm, version).foreach { view =>
-      val viewName = view.name(maxIdentifierLength)
-
-      if (Provider.flatViewDelete(req.provider)) {
-        deleteViewIfExists(req.provider, connection, viewName)
-      }
+    replaceViews(
+      req.provider,
+      connection,
+      viewDefinitions(documentInfo, req.provider, req.appForm, version, prefixesInMainViewColumnNames, maxIdentifierLength)
+    )
 
+  // This doesn't need a connection, so that the DDL for many forms can be computed without holding connections
+  def viewDefinitions(
+    documentInfo                 : DocumentInfo,
+    provider                     : Provider,
+    appForm                      : AppForm,
+    version                      : Int,
+    prefixesInMainViewColumnNames: Boolean,
+    maxIdentifierLength          : Int
+  ): List[ViewDefinition] =
+    FlatView.views(documentInfo, provider, appForm, version).toList.map { view =>
+      val viewName        = view.name(maxIdentifierLength)
       val viewSelectQuery = view.sql(prefixesInMainViewColumnNames, maxIdentifierLength)
-      val createViewQuery = Provider.flatViewCreateView(req.provider, viewName, viewSelectQuery)
+      ViewDefinition(viewName, Provider.flatViewCreateView(provider, viewName, viewSelectQuery))
+    }
+
+  // Views don't depend on each other, so all the existing views can be dropped before the new ones are created, and all
+  // the DDL statements are sent to the database as a single batch
+  def replaceViews(provider: Provider, connection: Connection, viewDefinitions: List[ViewDefinition]): Unit = {
 
-      useAndClose(connection.prepareStatement(createViewQuery))(_.executeUpdate())
+    val viewsToDrop =
+      if (Provider.flatViewDelete(provider))
+        existingViews(provider, connection, viewDefinitions.map(_.name))
+      else
+        Set.empty[String]
+
+    useAndClose(connection.createStatement()) { statement =>
+      viewDefinitions.foreach { viewDefinition =>
+        if (viewsToDrop(viewDefinition.name))
+          statement.addBatch(s"DROP VIEW ${viewDefinition.name}")
+      }
+      viewDefinitions.foreach(viewDefinition => statement.addBatch(viewDefinition.createViewQuery))
+      statement.executeBatch()
     }
+  }
+
+  // Name of the view for the root of the form, which is created for all forms
+  def mainViewName(appForm: AppForm, version: Int, maxIdentifierLength: Int): String =
+    TablePrefix + joinParts(
+      List(appForm.app, appForm.form, version.toString).map(xmlToSQLId),
+      maxIdentifierLength - TablePrefix.length
+    )
 
   sealed trait FormNode {
     def nameOpt : Option[String]
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.rest
+
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.externalcontext.ExternalContext
+import org.orbeon.oxf.fr.persistence.relational.{Provider, RelationalUtils}
+import org.orbeon.oxf.fr.{AppForm, FormRunner, Names}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.CollectionUtils.*
+import org.orbeon.oxf.util.CoreUtils.*
+import org.orbeon.oxf.util.IndentedLogger
+import org.orbeon.oxf.util.Logging.*
+import org.orbeon.saxon.om.DocumentInfo
+
+import java.sql.Connection
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.util.control.NonFatal
+import scala.util.{Failure, Success, Try}
+
+
+// Regenerate the flat views of all the published forms which already have flat views, for example after an upgrade
+// which changes how views are generated. Doing this one form at a time, as is done when publishing a form, takes a
+// long time with many forms, so forms are processed in batches, with a bounded number of batches in parallel:
+//
+// - the form definitions of a batch are read with one query
+// - the DDL is computed from the form definitions without holding a connection
+// - the views are replaced using a single connection for the batch, committing after each form, so that an error for
+//   one form doesn't prevent the views of the other forms from being replaced
+private object FlatViewRegeneration {
+
+  case class PublishedForm(id: Int, appForm: AppForm, version: Int)
+
+  sealed trait Result { val form: PublishedForm }
+  object Result {
+    case class Replaced(form: PublishedForm, viewCount: Int) extends Result
+    case class Failed  (form: PublishedForm, message: String) extends Result
+  }
+
+  private val DefaultBatchSize   = 20
+  private val DefaultParallelism = 4
+
+  def regenerateAll(
+    provider       : Provider
+  )(implicit
+    externalContext: ExternalContext,
+    indentedLogger : IndentedLogger,
+    propertySet    : PropertySet
+  ): List[Result] = {
+
+    def providerProperty(property: String, default: Int): Int =
+      FormRunner.providerPropertyAsInteger(provider.entryName, property, default)
+
+    val prefixesInMainViewColumnNames =
+      FormRunner.providerPropertyAsBoolean(provider.entryName, "flat-view.prefixes-in-main-view-column-names", default = true)
+
+    val maxIdentifierLength = providerProperty("flat-view.max-identifier-length",       FlatView.CompatibilityMaxIdentifierLength)
+    val batchSize           = providerProperty("flat-view.regeneration.batch-size",     DefaultBatchSize)  max 1
+    val parallelism         = providerProperty("flat-view.regeneration.parallelism",    DefaultParallelism) max 1
+
+    // Worker threads don't have access to the request
+    val dataSource = RelationalUtils.dataSourceFromHeadersOrProvider(provider.entryName)
+
+    val forms =
+      RelationalUtils.withDataSourceConnection(dataSource) { connection =>
+        val publishedForms = readPublishedForms(connection)
+        val existingViews  =
+          FlatView.existingViews(
+            provider,
+            connection,
+            publishedForms.map(form => FlatView.mainViewName(form.appForm, form.version, maxIdentifierLength))
+          )
+        publishedForms.filter(form => existingViews(FlatView.mainViewName(form.appForm, form.version, maxIdentifierLength)))
+      }
+
+    info(s"Flat views: regenerating views for ${forms.size} forms", List("provider" -> provider.entryName, "parallelism" -> parallelism.toString))
+
+    val processedCount = new AtomicInteger(0)
+
+    def regenerateBatch(batch: List[PublishedForm]): List[Result] = {
+
+      // `IndentedLogger` keeps state, so each thread uses its own
+      implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
+
+      val viewDefinitionsTry: List[(PublishedForm, Try[List[FlatView.ViewDefinition]])] = {
+        val formDefinitionsTry = Try(RelationalUtils.withDataSourceConnection(dataSource)(readFormDefinitions(provider, _, batch.map(_.id))))
+        batch.map { form =>
+          form -> formDefinitionsTry.flatMap { formDefinitions =>
+            Try(
+              FlatView.viewDefinitions(
+                formDefinitions(form.id),
+                provider,
+                form.appForm,
+                form.version,
+                prefixesInMainViewColumnNames,
+                maxIdentifierLength
+              )
+            )
+          }
+        }
+      }
+
+      def reportProgress(result: Result): Result = {
+        val processed = processedCount.incrementAndGet()
+        val params    = List("app" -> result.form.appForm.app, "form" -> result.form.appForm.form, "version" -> result.form.version.toString)
+        result match {
+          case Result.Replaced(_, viewCount) => info (s"Flat views: $processed/${forms.size} replaced $viewCount view(s)", params)
+          case Result.Failed(_, message)     => error(s"Flat views: $processed/${forms.size} failed", ("message" -> message) :: params)
+        }
+        result
+      }
+
+      RelationalUtils.withDataSourceConnection(dataSource) { connection =>
+        viewDefinitionsTry.map {
+          case (form, Success(viewDefinitions)) =>
+            try {
+              FlatView.replaceViews(provider, connection, viewDefinitions)
+              connection.commit()
+              reportProgress(Result.Replaced(form, viewDefinitions.size))
+            } catch {
+              case NonFatal(t) =>
+                connection.rollback()
+                reportProgress(Result.Failed(form, t.getMessage))
+            }
+          case (form, Failure(t)) =>
+            reportProgress(Result.Failed(form, t.getMessage))
+        }
+      }
+    }
+
+    val executor =
+      Executors.newFixedThreadPool(parallelism, runnable =>
+        new Thread(runnable, "orbeon-flat-view-regeneration") |!> (_.setDaemon(true))
+      )
+
+    try {
+      implicit val executionContext: ExecutionContext = ExecutionContext.fromExecutorService(executor)
+      Await.result(Future.traverse(forms.grouped(batchSize).toList)(batch => Future(regenerateBatch(batch))), Duration.Inf).flatten
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  // Latest non-deleted version of each form definition, excluding section template libraries which don't have views
+  private def readPublishedForms(connection: Connection): List[PublishedForm] = {
+    val sql =
+      """SELECT d.id, d.app, d.form, d.form_version
+        |  FROM orbeon_form_definition d,
+        |       (
+        |           SELECT app, form, form_version, max(last_modified_time) last_modified_time
+        |             FROM orbeon_form_definition
+        |         GROUP BY app, form, form_version
+        |       ) l
+        | WHERE d.app                = l.app
+        |   AND d.form               = l.form
+        |   AND d.form_version       = l.form_version
+        |   AND d.last_modified_time = l.last_modified_time
+        |   AND d.deleted            = 'N'
+        |""".stripMargin
+    useAndClose(connection.prepareStatement(sql)) { ps =>
+      useAndClose(ps.executeQuery()) { rs =>
+        Iterator.iterateWhile(
+          cond = rs.next(),
+          elem = PublishedForm(rs.getInt("id"), AppForm(rs.getString("app"), rs.getString("form")), rs.getInt("form_version"))
+        ).filterNot(_.appForm.form == Names.LibraryFormName).toList
+      }
+    }
+  }
+
+  private def readFormDefinitions(provider: Provider, connection: Connection, ids: List[Int]): Map[Int, DocumentInfo] = {
+    val sql =
+      s"""SELECT d.id, ${Provider.xmlColSelect(provider, "d")}
+         |  FROM orbeon_form_definition d
+         | WHERE d.id IN ${ids.map(_ => "?").mkString("(", ", ", ")")}
+         |""".stripMargin
+    useAndClose(connection.prepareStatement(sql)) { ps =>
+      ids.zipWithIndex.foreach { case (id, index) => ps.setInt(index + 1, id) }
+      useAndClose(ps.executeQuery()) { rs =>
+        Iterator.iterateWhile(
+          cond = rs.next(),
+          elem = rs.getInt("id") -> Provider.readXmlColumn(provider, rs)
+        ).toMap
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.rest
+
+import org.orbeon.oxf.controller.XmlNativeRoute
+import org.orbeon.oxf.externalcontext.ExternalContext
+import org.orbeon.oxf.fr.persistence.relational.{Provider, RelationalUtils}
+import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
+import org.orbeon.oxf.pipeline.api.PipelineContext
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger}
+import org.orbeon.scaxon.NodeConversions
+
+
+/**
+ * Route regenerating the flat views of all the published forms which already have flat views.
+ *
+ * - mapped to `/fr/service/[provider]/flat-views` in `fr/page-flow.xml`
+ * - returns the result for each form, as forms with errors don't prevent the views of other forms from being replaced
+ */
+object FlatViewsRoute extends XmlNativeRoute {
+
+  private val FlatViewsPathRegex = """/fr/service/([^/]+)/flat-views""".r
+
+  def process()(implicit pc: PipelineContext, ec: ExternalContext): Unit = {
+
+    implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
+    implicit val propertySet   : PropertySet    = CoreCrossPlatformSupport.properties
+
+    val FlatViewsPathRegex(providerToken) = ec.getRequest.getRequestPath
+
+    val provider = Provider.withName(providerToken)
+
+    if (! Provider.FlatViewSupportedProviders(provider))
+      throw HttpStatusCodeException(StatusCode.BadRequest)
+
+    val results = FlatViewRegeneration.regenerateAll(provider)
+
+    val resultsElem =
+      <flat-views>{
+        results.map {
+          case FlatViewRegeneration.Result.Replaced(form, viewCount) =>
+            <form app={form.appForm.app} form={form.appForm.form} version={form.version.toString} status="replaced" views={viewCount.toString}/>
+          case FlatViewRegeneration.Result.Failed(form, message) =>
+            <form app={form.appForm.app} form={form.appForm.form} version={form.version.toString} status="failed">{message}</form>
+        }
+      }</flat-views>
+
+    NodeConversions.elemToSAX(resultsElem, getResponseXmlReceiverSetContentType)
+  }
+}
@@ -56,6 +56,35 @@ object LockSql {
     }
   }
 
+  def readLeases(
+    connection  : Connection,
+    provider    : Provider,
+    documentIds : List[String]
+  )             : Map[String, Lease] = {
+    val timeoutExpr = Provider.secondsTo(provider, "expiration")
+    val sql =
+      s"""SELECT document_id, username, groupname,
+         |       $timeoutExpr AS timeout
+         |  FROM orbeon_form_data_lease
+         | WHERE document_id IN ${documentIds.map(_ => "?").mkString("(", ", ", ")")}
+       """.stripMargin
+    useAndClose(connection.prepareStatement(sql)) { ps =>
+      documentIds.zipWithIndex.foreach { case (documentId, index) =>
+        ps.setString(index + 1, documentId)
+      }
+      useAndClose(ps.executeQuery()) { resultSet =>
+        Iterator.continually(resultSet.next()).takeWhile(identity).map { _ =>
+          resultSet.getString("document_id") -> Lease(
+            timeout  = resultSet.getInt("timeout"),
+            lockInfo = LockInfo(
+              UserAndGroup.fromStringsOrThrow(resultSet.getString("username"), resultSet.getString("groupname"))
+            )
+          )
+        }.toMap
+      }
+    }
+  }
+
   def updateLease(
     connection   : Connection,
     provider     : Provider,
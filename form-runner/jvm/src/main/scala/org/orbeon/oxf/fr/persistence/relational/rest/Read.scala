@@ -16,18 +16,23 @@ package org.orbeon.oxf.fr.persistence.relational.rest
 import org.apache.commons.io.input.ReaderInputStream
 import org.orbeon.io.CharsetNames
 import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.cache.{CacheApi, CacheSupport}
 import org.orbeon.oxf.externalcontext.{ExternalContext, UserAndGroup}
+import org.orbeon.oxf.fr.FormRunner
 import org.orbeon.oxf.fr.FormRunnerPersistence.{OrbeonFormDefinitionApp, OrbeonFormDefinitionForm, OrbeonHashAlgorithm, OrbeonHashValue}
 import org.orbeon.oxf.fr.Version.*
 import org.orbeon.oxf.fr.permission.PermissionsAuthorization.CheckWithDataUser
 import org.orbeon.oxf.fr.persistence.relational.*
 import org.orbeon.oxf.fr.persistence.relational.Provider.{PostgreSQL, SQLite, binarySize, partialBinary}
+import org.orbeon.oxf.fr.persistence.relational.rest.ReadCache.{CopyingInputStream, ReadCacheKey}
 import org.orbeon.oxf.http.*
+import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.CoreUtils.*
-import org.orbeon.oxf.util.{ContentTypes, DateUtils, IndentedLogger, NetUtils, SecureUtils}
+import org.orbeon.oxf.util.Logging.*
+import org.orbeon.oxf.util.{ContentTypes, DateUtils, IndentedLogger}
 
-import java.io.{ByteArrayInputStream, StringReader}
-import java.sql.Timestamp
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, FilterInputStream, InputStream, StringReader}
+import java.sql.{ResultSet, Timestamp}
 import java.time.Instant
 import scala.annotation.tailrec
 import scala.util.{Failure, Success, Try}
@@ -40,7 +45,8 @@ trait Read {
     method        : HttpMethod
   )(implicit
     externalContext: ExternalContext,
-    indentedLogger : IndentedLogger
+    indentedLogger : IndentedLogger,
+    propertySet    : PropertySet
   ): Unit = {
 
     val hasStage = req.forDataNotAttachment
@@ -61,7 +67,7 @@ trait Read {
                 hasStage                = hasStage,
                 readTotalAttachmentSize = true,
                 bodyContentOpt          = None
-              )
+              )((fromDatabase, _) => fromDatabase)
               .fold(t => throw t, identity) // will throw nested `HttpStatusCodeException` if present
               .totalAttachmentSize
               .getOrElse(throw HttpStatusCodeException(StatusCode.InternalServerError))
@@ -91,7 +97,8 @@ trait Read {
     bodyContentOpt : Option[BodyContent]
   )(implicit
     externalContext: ExternalContext,
-    indentedLogger : IndentedLogger
+    indentedLogger : IndentedLogger,
+    propertySet    : PropertySet
   ): Unit = {
     val partialBinaryMaxLength = Provider.partialBinaryMaxLength(req.provider)
 
@@ -109,78 +116,83 @@ trait Read {
         (bodyContentOpt, None)
     }
 
-    val fromDatabase =
-      this.fromDatabase(
-        req                     = req,
-        hasStage                = hasStage,
-        readTotalAttachmentSize = actualBodyContentOpt match {
-          case Some(PartialAttachment(_, _)) => true
-          case _                             => false
-        },
-        bodyContentOpt          = actualBodyContentOpt
-      )
-      .fold(t => throw t, identity) // will throw nested `HttpStatusCodeException` if present
-
     val httpResponse = externalContext.getResponse
 
-    if (! headersSet) {
-      // Send headers
-      httpResponse.setHeader(OrbeonFormDefinitionApp,     fromDatabase.app)
-      httpResponse.setHeader(OrbeonFormDefinitionForm,    fromDatabase.form)
-      httpResponse.setHeader(OrbeonFormDefinitionVersion, fromDatabase.formVersion.toString)
-
-      fromDatabase.dataUserOpt.foreach { dataUser =>
-        dataUser.userAndGroup.foreach { userAndGroup =>
-          httpResponse.setHeader(Headers.OrbeonUsername, userAndGroup.username)
-          userAndGroup.groupname.foreach(httpResponse.setHeader(Headers.OrbeonGroup, _))
+    // The body is sent while the result set is still open, so it doesn't need to be held in memory
+    this.fromDatabase(
+      req                     = req,
+      hasStage                = hasStage,
+      readTotalAttachmentSize = actualBodyContentOpt match {
+        case Some(PartialAttachment(_, _)) => true
+        case _                             => false
+      },
+      bodyContentOpt          = actualBodyContentOpt
+    ) { (fromDatabase, readBodyOpt) =>
+
+      if (! headersSet) {
+        // Send headers
+        httpResponse.setHeader(OrbeonFormDefinitionApp,     fromDatabase.app)
+        httpResponse.setHeader(OrbeonFormDefinitionForm,    fromDatabase.form)
+        httpResponse.setHeader(OrbeonFormDefinitionVersion, fromDatabase.formVersion.toString)
+
+        fromDatabase.dataUserOpt.foreach { dataUser =>
+          dataUser.userAndGroup.foreach { userAndGroup =>
+            httpResponse.setHeader(Headers.OrbeonUsername, userAndGroup.username)
+            userAndGroup.groupname.foreach(httpResponse.setHeader(Headers.OrbeonGroup, _))
+          }
+          dataUser.organization.foreach { organization =>
+            // TODO: review this if organizations are ever used again in the future (are names sufficient to identify
+            //  an organization? should depths and and positions be returned as well? should a unique ID be used?)
+            organization.levels.foreach(httpResponse.addHeader(Headers.OrbeonOrganization, _))
+          }
         }
-        dataUser.organization.foreach { organization =>
-          // TODO: review this if organizations are ever used again in the future (are names sufficient to identify
-          //  an organization? should depths and and positions be returned as well? should a unique ID be used?)
-          organization.levels.foreach(httpResponse.addHeader(Headers.OrbeonOrganization, _))
+        fromDatabase.lastModifiedByOpt.foreach { lastModifiedBy =>
+          httpResponse.setHeader(Headers.OrbeonLastModifiedByUsername, lastModifiedBy.username)
         }
-      }
-      fromDatabase.lastModifiedByOpt.foreach { lastModifiedBy =>
-        httpResponse.setHeader(Headers.OrbeonLastModifiedByUsername, lastModifiedBy.username)
-      }
-      fromDatabase.stageOpt.foreach(httpResponse.setHeader(StageHeader.HeaderName, _))
-      fromDatabase.hashAlgorithmOpt.foreach(httpResponse.setHeader(OrbeonHashAlgorithm, _))
-      fromDatabase.hashValueOpt.foreach(httpResponse.setHeader(OrbeonHashValue, _))
-      httpResponse.setHeader(Headers.Created,            DateUtils.formatRfc1123DateTimeGmt(fromDatabase.createdDateTime))
-      httpResponse.setHeader(Headers.LastModified,       DateUtils.formatRfc1123DateTimeGmt(fromDatabase.lastModifiedDateTime))
-      // Also provide this with in ISO format with millisecond precision for compatibility with Search and History APIs
-      httpResponse.setHeader(Headers.OrbeonCreated,      DateUtils.formatIsoDateTimeUtc(fromDatabase.createdDateTime))
-      httpResponse.setHeader(Headers.OrbeonLastModified, DateUtils.formatIsoDateTimeUtc(fromDatabase.lastModifiedDateTime))
-      if (req.forDataNotAttachment) {
-        fromDatabase.idOpt.foreach { id =>
-          httpResponse.setHeader(
-            Headers.ETag,
-            ETag.eTag(tableName = SqlSupport.tableName(req), id = id, lastModified = fromDatabase.lastModifiedDateTime)
-          )
+        fromDatabase.stageOpt.foreach(httpResponse.setHeader(StageHeader.HeaderName, _))
+        fromDatabase.hashAlgorithmOpt.foreach(httpResponse.setHeader(OrbeonHashAlgorithm, _))
+        fromDatabase.hashValueOpt.foreach(httpResponse.setHeader(OrbeonHashValue, _))
+        httpResponse.setHeader(Headers.Created,            DateUtils.formatRfc1123DateTimeGmt(fromDatabase.createdDateTime))
+        httpResponse.setHeader(Headers.LastModified,       DateUtils.formatRfc1123DateTimeGmt(fromDatabase.lastModifiedDateTime))
+        // Also provide this with in ISO format with millisecond precision for compatibility with Search and History APIs
+        httpResponse.setHeader(Headers.OrbeonCreated,      DateUtils.formatIsoDateTimeUtc(fromDatabase.createdDateTime))
+        httpResponse.setHeader(Headers.OrbeonLastModified, DateUtils.formatIsoDateTimeUtc(fromDatabase.lastModifiedDateTime))
+        if (req.forDataNotAttachment) {
+          fromDatabase.idOpt.foreach { id =>
+            httpResponse.setHeader(
+              Headers.ETag,
+              ETag.eTag(tableName = SqlSupport.tableName(req), id = id, lastModified = fromDatabase.lastModifiedDateTime)
+            )
+          }
         }
-      }
 
-      httpResponse.setHeader(
-        name  = Headers.ContentType,
-        value = if (req.forAttachment)
-          ContentTypes.OctetStreamContentType else
-          ContentTypes.XmlContentType
-      )
-
-      for {
-        range                <- req.ranges.singleRange
-        totalFileContentSize <- fromDatabase.totalAttachmentSize
-        // Check that the file is stored into the database (and not e.g. in the filesystem)
-        if totalFileContentSize > 0
-      } locally {
-        // Set HTTP range headers and status
-        httpResponse.addHeaders(range.responseHeaders(totalFileContentSize))
-        httpResponse.setStatus(StatusCode.PartialContent)
+        httpResponse.setHeader(
+          name  = Headers.ContentType,
+          value = if (req.forAttachment)
+            ContentTypes.OctetStreamContentType else
+            ContentTypes.XmlContentType
+        )
+
+        for {
+          range                <- req.ranges.singleRange
+          totalFileContentSize <- fromDatabase.totalAttachmentSize
+          // Check that the file is stored into the database (and not e.g. in the filesystem)
+          if totalFileContentSize > 0
+        } locally {
+          // Set HTTP range headers and status
+          httpResponse.addHeaders(range.responseHeaders(totalFileContentSize))
+          httpResponse.setStatus(StatusCode.PartialContent)
+        }
+
+        // With ranges, the length is set above
+        if (req.ranges.singleRange.isEmpty)
+          readBodyOpt.flatMap(_.lengthOpt).foreach(length => httpResponse.setHeader(Headers.ContentLength, length.toString))
       }
-    }
 
-    // Maybe send body
-    fromDatabase.bodyOpt.foreach(httpResponse.getOutputStream.write)
+      // Maybe send body
+      readBodyOpt.foreach(readBody => copyStreamAndClose(readBody.inputStream, httpResponse.getOutputStream, doCloseOut = false))
+    }
+    .fold(t => throw t, identity) // will throw nested `HttpStatusCodeException` if present
 
     nextBodyContentOpt match {
       case None =>
@@ -208,7 +220,6 @@ trait Read {
     stageOpt            : Option[String],
     createdDateTime     : Instant,
     lastModifiedDateTime: Instant,
-    bodyOpt             : Option[Array[Byte]],
     totalAttachmentSize : Option[Int],
     hashAlgorithmOpt    : Option[String],
     hashValueOpt        : Option[String]
@@ -219,15 +230,25 @@ trait Read {
   private case class  PartialAttachment(offset: Long, length: Long) extends BodyContent
   private case object Xml                                           extends BodyContent
 
-  private def fromDatabase(
+  // Body as read from the database, with its length in bytes if known without reading it
+  private case class ReadBody(inputStream: InputStream, lengthOpt: Option[Long])
+
+  private def fromDatabase[T](
     req                    : CrudRequest,
     hasStage               : Boolean,
     readTotalAttachmentSize: Boolean,
     bodyContentOpt         : Option[BodyContent]
+  )(
+    withBody               : (FromDatabase, Option[ReadBody]) => T
   )(implicit
     externalContext        : ExternalContext,
-    indentedLogger         : IndentedLogger
-  ): Either[HttpStatusCodeException, FromDatabase] = RelationalUtils.withConnection { connection =>
+    indentedLogger         : IndentedLogger,
+    propertySet            : PropertySet
+  ): Either[HttpStatusCodeException, T] = RelationalUtils.withConnection { connection =>
+
+    val readCacheMaxSizeOpt =
+      (req.forDataNotAttachment && bodyContentOpt.contains(Xml)).flatOption(ReadCache.maxDocumentSizeOpt(req.provider))
+
     val sql = {
       val table  = SqlSupport.tableName(req)
       val idCols = SqlSupport.idColumns(req)
@@ -347,26 +368,7 @@ trait Read {
             groupname = ""
           )
 
-          val bodyOpt = bodyContentOpt.flatMap { bodyContent =>
-            val bodyInputStream = bodyContent match {
-              case FullAttachment | PartialAttachment(_, _) =>
-                req.provider match {
-                  case PostgreSQL | SQLite  => Option(resultSet.getBytes("file_content")).map(new ByteArrayInputStream(_))
-                  case _                    => Option(resultSet.getBlob("file_content")).map(_.getBinaryStream)
-                }
-
-              case Xml =>
-                val reader = req.provider match {
-                  case PostgreSQL | SQLite => new StringReader(resultSet.getString("xml"))
-                  case _                   => resultSet.getClob("xml").getCharacterStream
-                }
-                Some(ReaderInputStream.builder.setReader(reader).setCharset(CharsetNames.Utf8).get())
-            }
-
-            bodyInputStream.map(useAndClose(_)(NetUtils.inputStreamToByteArray))
-          }
-
-          Right(
+          val fromDatabase =
             FromDatabase(
               idOpt                = req.forDataNotAttachment.option(resultSet.getInt("id")),
               dataUserOpt          = dataUser,
@@ -377,16 +379,118 @@ trait Read {
               stageOpt             = hasStage.option(resultSet.getString("stage")),
               createdDateTime      = resultSet.getTimestamp("created").toInstant,
               lastModifiedDateTime = resultSet.getTimestamp("last_modified_time").toInstant,
-              bodyOpt              = bodyOpt,
               totalAttachmentSize  = readTotalAttachmentSize.option(resultSet.getInt("total_file_content_size")),
               hashAlgorithmOpt     = req.forAttachment.option(resultSet.getString("hash_algorithm")),
               hashValueOpt         = req.forAttachment.option(resultSet.getString("hash_value"))
             )
-          )
+
+          val readBodyOpt = bodyContentOpt.flatMap {
+            case FullAttachment | PartialAttachment(_, _) =>
+              req.provider match {
+                case PostgreSQL | SQLite  => Option(resultSet.getBytes("file_content")).map(bytes => ReadBody(new ByteArrayInputStream(bytes), Some(bytes.length.toLong)))
+                case _                    => Option(resultSet.getBlob("file_content")).map(blob => ReadBody(blob.getBinaryStream, Some(blob.length)))
+              }
+
+            case Xml =>
+              readCacheMaxSizeOpt match {
+                case Some(maxSize) =>
+                  // On a cache hit, the `xml` column selected is left unread
+                  val key = ReadCacheKey(fromDatabase.idOpt.get, fromDatabase.lastModifiedDateTime.toEpochMilli)
+                  ReadCache.instance.get(key) match {
+                    case Some(bytes) =>
+                      debug("CRUD: data read from cache", List("id" -> key.id.toString))
+                      Some(ReadBody(new ByteArrayInputStream(bytes), Some(bytes.length.toLong)))
+                    case None =>
+                      xmlInputStream(req.provider, resultSet).map { is =>
+                        ReadBody(new CopyingInputStream(is, maxSize, ReadCache.instance.put(key, _)), lengthOpt = None)
+                      }
+                  }
+                case None =>
+                  xmlInputStream(req.provider, resultSet).map(ReadBody(_, lengthOpt = None))
+              }
+          }
+
+          try
+            Right(withBody(fromDatabase, readBodyOpt))
+          finally
+            readBodyOpt.foreach(_.inputStream.close())
         } else {
           Left(HttpStatusCodeException(StatusCode.NotFound))
         }
       }
     }
   }
+
+  private def xmlInputStream(provider: Provider, resultSet: ResultSet): Option[InputStream] = {
+    val readerOpt = provider match {
+      case PostgreSQL | SQLite => Option(resultSet.getString("xml")).map(new StringReader(_))
+      case _                   => Option(resultSet.getClob("xml")).map(_.getCharacterStream)
+    }
+    readerOpt.map(ReaderInputStream.builder.setReader(_).setCharset(CharsetNames.Utf8).get())
+  }
+}
+
+// Short-lived cache of recently read small data documents, so that loading the same data repeatedly, as happens when
+// Form Runner pages are loaded, doesn't read and convert the XML again. Rows are never updated, so an id and last
+// modified time always identify the same content.
+private[rest] class ReadCache(cache: CacheApi) {
+
+  import ReadCache.*
+
+  def get(key: ReadCacheKey): Option[Array[Byte]] =
+    cache.get(key).map(_.asInstanceOf[Array[Byte]])
+
+  def put(key: ReadCacheKey, bytes: Array[Byte]): Unit =
+    cache.put(key, bytes)
+}
+
+private[rest] object ReadCache {
+
+  case class ReadCacheKey(id: Int, lastModified: Long)
+
+  val CacheName = "form-runner.persistence.data"
+
+  lazy val instance = new ReadCache(CacheSupport.getOrElseThrow(CacheName, store = false))
+
+  // `None` if the cache is disabled
+  def maxDocumentSizeOpt(provider: Provider)(implicit propertySet: PropertySet): Option[Int] =
+    Some(FormRunner.providerPropertyAsInteger(provider.entryName, "read-cache.max-document-size", default = 64 * 1024)).filter(_ > 0)
+
+  // Keeps a copy of what is read, up to `maxSize` bytes, and passes it to `onFullyRead` once the end is reached
+  class CopyingInputStream(is: InputStream, maxSize: Int, onFullyRead: Array[Byte] => Unit)
+    extends FilterInputStream(is) {
+
+    private var copyOpt: Option[ByteArrayOutputStream] = Some(new ByteArrayOutputStream)
+
+    private def copy(b: Array[Byte], off: Int, len: Int): Unit =
+      copyOpt.foreach { copy =>
+        if (copy.size + len > maxSize)
+          copyOpt = None
+        else
+          copy.write(b, off, len)
+      }
+
+    private def endReached(): Unit = {
+      copyOpt.foreach(copy => onFullyRead(copy.toByteArray))
+      copyOpt = None
+    }
+
+    override def read(): Int = {
+      val c = super.read()
+      if (c == -1)
+        endReached()
+      else
+        copy(Array(c.toByte), 0, 1)
+      c
+    }
+
+    override def read(b: Array[Byte], off: Int, len: Int): Int = {
+      val count = super.read(b, off, len)
+      if (count == -1)
+        endReached()
+      else
+        copy(b, off, count)
+      count
+    }
+  }
 }
@@ -39,6 +39,12 @@ case class LockUnlockRequest(
   dataPart: DataPart
 )
 
+case class BatchDeleteRequest(
+  provider: Provider,
+  appForm : AppForm,
+  version : Int
+)
+
 case class CrudRequest(
   provider        : Provider,
   appForm         : AppForm,
@@ -14,7 +14,6 @@
 package org.orbeon.oxf.fr.persistence.relational.rest
 
 import org.orbeon.oxf.fr.persistence.relational.*
-import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.CoreUtils.*
 
 import java.sql.{PreparedStatement, Timestamp}
@@ -50,6 +49,24 @@ object SqlSupport {
     (ps: PreparedStatement, i: Int) => setter(ps)(i, value)
   }
 
+  // Small content is bound as before, and only content spooled to disk is streamed to the database. The streams are
+  // closed by `SpooledContent.dispose()`, and their length is passed as a `long` so that content above 2 GB is bound.
+  private def characterParam(contentOpt: Option[RequestReader.SpooledContent]): ParamSetterFunc =
+    (ps: PreparedStatement, i: Int) =>
+      contentOpt match {
+        case Some(content) if ! content.isInMemory => ps.setCharacterStream(i, content.newReader, content.length)
+        case Some(content)                         => ps.setString(i, content.string)
+        case None                                  => ps.setString(i, null)
+      }
+
+  private def binaryParam(contentOpt: Option[RequestReader.SpooledContent]): ParamSetterFunc =
+    (ps: PreparedStatement, i: Int) =>
+      contentOpt match {
+        case Some(content) if ! content.isInMemory => ps.setBinaryStream(i, content.newInputStream, content.length)
+        case Some(content)                         => ps.setBytes(i, content.bytes)
+        case None                                  => ps.setBytes(i, null)
+      }
+
   case class Col(
     name                   : String,
     placeholder            : String,
@@ -58,13 +75,13 @@ object SqlSupport {
 
   def insertCols(
     req                    : CrudRequest,
-    reqBodyOpt             : Option[RequestReader.Body],
+    xmlOpt                 : Option[RequestReader.SpooledContent],
+    metadataOpt            : Option[String],
+    fileContentOpt         : Option[RequestReader.SpooledContent],
     delete                 : Boolean,
     versionToSet           : Int,
     currentTimestamp       : Timestamp,
     currentUserOrganization: => Option[OrganizationId]
-  )(implicit
-    propertySet            : PropertySet
   ): List[Col]  = {
 
     val xmlCol = Provider.xmlColUpdate(req.provider)
@@ -78,13 +95,6 @@ object SqlSupport {
       }
     }
 
-    val (xmlOpt, metadataOpt) =
-      if (! delete && ! req.forAttachment) {
-        RequestReader.dataAndMetadataAsString(reqBodyOpt, req.provider, metadata = !req.forData)
-      } else {
-        (None, None)
-      }
-
     List(
       Col(
         name          = "created",
@@ -155,7 +165,7 @@ object SqlSupport {
         Col(
           name          = "file_content",
           placeholder   = "?",
-          paramSetter   = param(_.setBytes, RequestReader.bytes(reqBodyOpt).orNull)
+          paramSetter   = binaryParam(fileContentOpt)
         )
     ) ::: (
       req.forAttachment list
@@ -204,7 +214,7 @@ object SqlSupport {
         Col(
           name          = xmlCol,
           placeholder   = xmlVal,
-          paramSetter   = param(_.setString, xmlOpt.orNull)
+          paramSetter   = characterParam(xmlOpt)
         )
     ) ::: Nil
   }
@@ -39,6 +39,9 @@ import scala.collection.mutable
 
 object SearchLogic {
 
+  // Rows read at once from the database when streaming search results
+  private val ResultSetFetchSize = 1000
+
   // TODO: The methods below are used by the search API, but also by the distinct values API. Should we leave them
   //  here, as they're more closely associated with the search API, or move them elsewhere (e.g. in the parent package),
   //  in which case some classes/methods should be renamed (SearchVersion, SearchPermissions, doSearch, etc.)?
@@ -80,7 +83,7 @@ object SearchLogic {
     request           : R,
     queries           : List[Query],
     freeTextSearch    : Option[String],
-    noPermissionValue : T,
+    noPermissionValue : => T,
     connectionOpt     : Option[Connection]
   )(
     body              : (Connection, List[StatementPart], SearchPermissions) => T
@@ -112,11 +115,26 @@ object SearchLogic {
     externalContext: ExternalContext,
     indentedLogger : IndentedLogger
   ): (List[Document], Int) =
+    doSearchStreaming(request, connectionOpt) { (documents, searchCount) =>
+      (documents.toList, searchCount)
+    }
+
+  // The documents are read from the result set as the iterator is consumed, so the iterator must be consumed within
+  // `body`, which is called while the database connection is open
+  def doSearchStreaming[T](
+    request        : SearchRequest,
+    connectionOpt  : Option[Connection]
+  )(
+    body           : (Iterator[Document], Int) => T
+  )(implicit
+    externalContext: ExternalContext,
+    indentedLogger : IndentedLogger
+  ): T =
     SearchLogic.runBodyIfHasSomePermissions(
       request           = request,
       queries           = request.queries,
       freeTextSearch    = request.freeTextSearch,
-      noPermissionValue = (List[Document](), 0),
+      noPermissionValue = body(Iterator.empty, 0),
       connectionOpt     = connectionOpt
     ) {
       (connection: Connection, commonAndPermissionsParts: List[StatementPart], permissions: SearchPermissions) =>
@@ -248,48 +266,72 @@ object SearchLogic {
         }
         debug(s"search items query\n$sql")
 
-        val allStatementParts            = statementParts ::: orderByStatementPartOpt.toList
-        val rawDocumentMetadataAndValues = executeQuery(connection, sql, allStatementParts) { documentsResultSet =>
-
-          Iterator.iterateWhile(
-            cond = documentsResultSet.next(),
-            elem = (
-                DocumentMetadata(
-                  documentId       = documentsResultSet.getString                 ("document_id"),
-                  draft            = documentsResultSet.getString                 ("draft") == "Y",
-                  createdTime      = documentsResultSet.getTimestamp              ("created"),
-                  lastModifiedTime = documentsResultSet.getTimestamp              ("last_modified_time"),
-                  createdBy        = UserAndGroup.fromStrings(documentsResultSet.getString("username"),         documentsResultSet.getString("groupname")),
-                  lastModifiedBy   = UserAndGroup.fromStrings(documentsResultSet.getString("last_modified_by"), ""),
-                  workflowStage    = Option(documentsResultSet.getString          ("stage")),
-                  organizationId   = RelationalUtils.getIntOpt(documentsResultSet, "organization_id")
-                ),
-                DocumentValue(
-                  control          = documentsResultSet.getString                 ("control"),
-                  pos              = documentsResultSet.getInt                    ("pos"),
-                  value            = documentsResultSet.getString                 ("val")
-                )
+        // Operations only depend on the user who created the document and on its organization
+        val organizationsCache = mutable.Map[Int, Organization]()
+        val operationsCache    = mutable.Map[(Option[UserAndGroup], Option[Int]), String]()
+
+        def operations(metadata: DocumentMetadata): String =
+          operationsCache.getOrElseUpdate(
+            (metadata.createdBy, metadata.organizationId),
+            {
+              def readFromDatabase(id: Int) = OrganizationSupport.read(connection, OrganizationId(id)).get
+              val organization              = metadata.organizationId.map(id => organizationsCache.getOrElseUpdate(id, readFromDatabase(id)))
+              val check                     = CheckWithDataUser(metadata.createdBy, organization)
+              val operations                = PermissionsAuthorization.authorizedOperations(permissions.formPermissions, request.credentials, check)
+              Operations.serialize(operations, normalized = true).mkString(" ")
+            }
+          )
+
+        val allStatementParts = statementParts ::: orderByStatementPartOpt.toList
+        executeQuery(connection, sql, allStatementParts, fetchSize = Some(ResultSetFetchSize)) { documentsResultSet =>
+
+          val rawDocumentMetadataAndValues =
+            Iterator.iterateWhile(
+              cond = documentsResultSet.next(),
+              elem = (
+                  documentsResultSet.getLong                                        ("row_num"),
+                  DocumentMetadata(
+                    documentId       = documentsResultSet.getString                 ("document_id"),
+                    draft            = documentsResultSet.getString                 ("draft") == "Y",
+                    createdTime      = documentsResultSet.getTimestamp              ("created"),
+                    lastModifiedTime = documentsResultSet.getTimestamp              ("last_modified_time"),
+                    createdBy        = UserAndGroup.fromStrings(documentsResultSet.getString("username"),         documentsResultSet.getString("groupname")),
+                    lastModifiedBy   = UserAndGroup.fromStrings(documentsResultSet.getString("last_modified_by"), ""),
+                    workflowStage    = Option(documentsResultSet.getString          ("stage")),
+                    organizationId   = RelationalUtils.getIntOpt(documentsResultSet, "organization_id")
+                  ),
+                  DocumentValue(
+                    control          = documentsResultSet.getString                 ("control"),
+                    pos              = documentsResultSet.getInt                    ("pos"),
+                    value            = documentsResultSet.getString                 ("val")
+                  )
+              )
+            ).buffered
+
+          // Results are ordered by `row_num`, and all the values of a document are on the consecutive rows of its
+          // `row_num`. When sorting by a repeated control, a document has one `row_num` per value of that control, so
+          // it is only returned for its first `row_num`. Such a page can then contain fewer than `pageSize` documents.
+          val seenDocuments = mutable.Set[(String, Boolean)]()
+
+          val documentsWithDuplicates =
+            Iterator.iterateWhile(
+              cond = rawDocumentMetadataAndValues.hasNext,
+              elem = {
+                val (rowNum, metadata, firstValue) = rawDocumentMetadataAndValues.next()
+                val values                         = mutable.ListBuffer(firstValue)
+                while (rawDocumentMetadataAndValues.hasNext && rawDocumentMetadataAndValues.head._1 == rowNum)
+                  values += rawDocumentMetadataAndValues.next()._3
+                (metadata, values.toList)
+              }
             )
-          ).toList
-        }
 
-        // The order of the document metadata in the SQL results is already correct, take it as a reference for the final order
-        val orderedDocumentMetadata          = rawDocumentMetadataAndValues.map(_._1).distinct
-        val documentValuesByDocumentMetadata = rawDocumentMetadataAndValues.groupBy(_._1).view.mapValues(_.map(_._2))
-        val documentMetadataAndValues        = orderedDocumentMetadata.map { documentMetadata =>
-          // Keep document metadata order and group all values together
-          documentMetadata -> documentValuesByDocumentMetadata(documentMetadata)
-        }
+          val documents =
+            documentsWithDuplicates.collect {
+              case (metadata, values) if seenDocuments.add((metadata.documentId, metadata.draft)) =>
+                Document(metadata, operations(metadata), values)
+            }
 
-        // Compute possible operations for each document
-        val organizationsCache = mutable.Map[Int, Organization]()
-        val documents = documentMetadataAndValues.map{ case (metadata, values) =>
-            def readFromDatabase(id: Int) = OrganizationSupport.read(connection, OrganizationId(id)).get
-            val organization              = metadata.organizationId.map(id => organizationsCache.getOrElseUpdate(id, readFromDatabase(id)))
-            val check                     = CheckWithDataUser(metadata.createdBy, organization)
-            val operations                = PermissionsAuthorization.authorizedOperations(permissions.formPermissions, request.credentials, check)
-            Document(metadata, Operations.serialize(operations, normalized = true).mkString(" "), values)
-          }
-        (documents, searchCount)
+          body(documents, searchCount)
+        }
     }
 }
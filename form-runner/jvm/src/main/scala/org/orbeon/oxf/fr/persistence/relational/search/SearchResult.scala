@@ -17,56 +17,68 @@ import org.orbeon.oxf.fr.persistence.relational.search.adt.{ControlQuery, Docume
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.oxf.util.{DateUtils, IndentedLogger}
 import org.orbeon.oxf.xml.XMLReceiver
-import org.orbeon.scaxon.NodeConversions
+import org.orbeon.oxf.xml.XMLReceiverSupport.*
 
 
 object SearchResult {
 
+  // Documents are output as they are read, so that the memory used doesn't depend on the number of documents
   def outputResult(
     request   : SearchRequest,
-    documents : List[Document],
+    documents : Iterator[Document],
     count     : Int,
     receiver  : XMLReceiver
   )(implicit
     indentedLogger: IndentedLogger
   ): Unit = {
 
-    // Produce XML result
-    val documentsElem =
-      <documents search-total={count.toString}>{
-        documents.map(doc =>
-          <document
-            created             ={DateUtils.formatIsoDateTimeUtc(doc.metadata.createdTime.toInstant)}
-            last-modified       ={DateUtils.formatIsoDateTimeUtc(doc.metadata.lastModifiedTime.toInstant)}
-            created-by          ={doc.metadata.createdBy.map(_.username).map(xml.Text(_))}
-            created-by-groupname={doc.metadata.createdBy.flatMap(_.groupname).map(xml.Text(_))}
-            last-modified-by    ={doc.metadata.lastModifiedBy.map(_.username).map(xml.Text(_))}
-            workflow-stage      ={doc.metadata.workflowStage.map(xml.Text(_))}
-            name                ={doc.metadata.documentId}
-            draft               ={doc.metadata.draft.toString}
-            operations          ={doc.operations}>{
+    implicit val xmlReceiver: XMLReceiver = receiver
 
-            <details>{
-              request.queries.collect { case controlQuery: ControlQuery =>
-                  val columnValue = doc.values
-                    // For all the value for the current doc, get the ones for the current column
-                    .filter(_.control == controlQuery.path)
-                    // Sort them in the order in which they appear in the document
-                    .sortBy(_.pos)
-                    // Just get the string value
-                    .map(_.value)
-                    // Return values as comma separated list, to be compatible with 2016.1 and earlier
-                    .mkString(", ")
-                  <detail path={controlQuery.path}>{columnValue}</detail>
-              }
-            }</details>
+    val controlQueries = request.queries.collect { case controlQuery: ControlQuery => controlQuery }
+
+    var documentCount = 0
+
+    withDocument {
+      withElement("documents", atts = List("search-total" -> count.toString)) {
+        documents.foreach { doc =>
 
-          }</document>
-        )
-      }</documents>
+          val atts =
+            List(
+              "created"      -> DateUtils.formatIsoDateTimeUtc(doc.metadata.createdTime.toInstant),
+              "last-modified"-> DateUtils.formatIsoDateTimeUtc(doc.metadata.lastModifiedTime.toInstant)
+            ) :::
+            doc.metadata.createdBy.map(_.username).map("created-by" -> _).toList :::
+            doc.metadata.createdBy.flatMap(_.groupname).map("created-by-groupname" -> _).toList :::
+            doc.metadata.lastModifiedBy.map(_.username).map("last-modified-by" -> _).toList :::
+            doc.metadata.workflowStage.map("workflow-stage" -> _).toList :::
+            List(
+              "name"         -> doc.metadata.documentId,
+              "draft"        -> doc.metadata.draft.toString,
+              "operations"   -> doc.operations
+            )
+
+          withElement("document", atts = atts) {
+            withElement("details") {
+              controlQueries.foreach { controlQuery =>
+                val columnValue = doc.values
+                  // For all the value for the current doc, get the ones for the current column
+                  .filter(_.control == controlQuery.path)
+                  // Sort them in the order in which they appear in the document
+                  .sortBy(_.pos)
+                  // Just get the string value
+                  .map(_.value)
+                  // Return values as comma separated list, to be compatible with 2016.1 and earlier
+                  .mkString(", ")
+                element("detail", atts = List("path" -> controlQuery.path), text = columnValue)
+              }
+            }
+          }
 
-    debug(s"search result: ${documentsElem.toString}")
+          documentCount += 1
+        }
+      }
+    }
 
-    NodeConversions.elemToSAX(documentsElem, receiver)
+    debug("search result", List("search total" -> count.toString, "documents" -> documentCount.toString))
   }
 }
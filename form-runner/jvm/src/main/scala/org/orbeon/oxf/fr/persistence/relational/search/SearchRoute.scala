@@ -17,12 +17,15 @@ import org.orbeon.oxf.controller.XmlNativeRoute
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.fr.AppForm
 import org.orbeon.oxf.fr.persistence.PersistenceMetadataSupport
+import org.orbeon.oxf.fr.persistence.relational.search.adt.Document
 import org.orbeon.oxf.fr.persistence.relational.{Provider, RelationalUtils}
 import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
 import org.orbeon.oxf.pipeline.api.PipelineContext
 import org.orbeon.oxf.properties.PropertySet
 import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger}
 
+import scala.collection.mutable
+
 
 object SearchRoute extends XmlNativeRoute {
 
@@ -30,6 +33,8 @@ object SearchRoute extends XmlNativeRoute {
 
   private val Path = "/fr/service/([^/]+)/search/([^/]+)/([^/]+)".r
 
+  private val BufferedDocumentCount = 100
+
   def process()(implicit pc: PipelineContext, ec: ExternalContext): Unit = {
 
     implicit val indentedLogger: IndentedLogger = RelationalUtils.newIndentedLogger
@@ -54,9 +59,17 @@ object SearchRoute extends XmlNativeRoute {
           formDefinitionVersion
         )
 
-      val (result, count) = SearchLogic.doSearch(request, connectionOpt = None)
+      SearchLogic.doSearchStreaming(request, connectionOpt = None) { (documents, count) =>
+
+        // Read the first documents before writing anything, so that a failure while running the query or reading the
+        // first rows still results in an error status. Once the response has started, a failure leaves the result
+        // without its closing tags, which clients detect as a document that isn't well-formed.
+        val firstDocuments = mutable.ListBuffer[Document]()
+        while (firstDocuments.size < BufferedDocumentCount && documents.hasNext)
+          firstDocuments += documents.next()
 
-      SearchResult.outputResult(request, result, count, getResponseXmlReceiverSetContentType)
+        SearchResult.outputResult(request, firstDocuments.iterator ++ documents, count, getResponseXmlReceiverSetContentType)
+      }
     } catch {
       case e: IllegalArgumentException =>
         throw HttpStatusCodeException(StatusCode.BadRequest, throwable = Some(e))
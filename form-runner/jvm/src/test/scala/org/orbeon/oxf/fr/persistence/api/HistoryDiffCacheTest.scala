@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.api
+
+import org.orbeon.oxf.cache.CacheApi
+import org.orbeon.oxf.fr.persistence.api.HistoryDiff.{DiffsCache, DiffsCacheKey}
+import org.scalatest.funspec.AnyFunSpec
+
+import java.io
+import java.time.Instant
+import scala.collection.mutable
+
+
+class HistoryDiffCacheTest extends AnyFunSpec {
+
+  private class MapCacheApi(name: String) extends CacheApi {
+    val map = mutable.Map[io.Serializable, io.Serializable]()
+
+    def put(k: io.Serializable, v: io.Serializable): Unit         = map.put(k, v)
+    def putIfAbsent(k: io.Serializable, v: io.Serializable): Unit = map.getOrElseUpdate(k, v)
+    def get(k: io.Serializable): Option[io.Serializable]          = map.get(k)
+    def remove(k: io.Serializable): Boolean                       = map.remove(k).isDefined
+    def getName: String                                           = name
+    def getMaxEntriesLocalHeap: Option[Long]                      = None
+    def getLocalHeapSize: Option[Long]                            = None
+  }
+
+  private val Time1 = Instant.parse("2026-01-01T00:00:00Z")
+  private val Time2 = Instant.parse("2026-01-02T00:00:00Z")
+  private val Time3 = Instant.parse("2026-01-03T00:00:00Z")
+
+  private def key(formDefinitionModifiedTime: Instant): DiffsCacheKey =
+    DiffsCacheKey(
+      app                        = "acme",
+      form                       = "order",
+      formVersion                = 1,
+      formDefinitionModifiedTime = formDefinitionModifiedTime,
+      documentId                 = "123",
+      olderModifiedTime          = Time2,
+      newerModifiedTime          = Time3
+    )
+
+  describe("Revision history diffs cache") {
+
+    it("must not cache when caches are not configured") {
+      val diffsCache = DiffsCache(enable = true, storeEnable = true, findCache = (_, _) => None)
+      diffsCache.put(key(Time1), Some(OtherDiffs))
+      assert(diffsCache.get(key(Time1)).isEmpty)
+    }
+
+    it("must not cache when disabled") {
+      val memoryCache = new MapCacheApi(DiffsCache.CacheName)
+      val diffsCache  = DiffsCache(enable = false, storeEnable = true, findCache = (_, _) => Some(memoryCache))
+      diffsCache.put(key(Time1), Some(OtherDiffs))
+      assert(diffsCache.get(key(Time1)).isEmpty)
+      assert(memoryCache.map.isEmpty)
+    }
+
+    it("must miss when the form definition is republished") {
+      val memoryCache = new MapCacheApi(DiffsCache.CacheName)
+      val diffsCache  = DiffsCache(enable = true, storeEnable = false, findCache = (_, _) => Some(memoryCache))
+
+      diffsCache.put(key(Time1), Some(OtherDiffs))
+      diffsCache.put(key(Time2), None)
+
+      assert(diffsCache.get(key(Time1)).contains(Some(OtherDiffs)))
+      assert(diffsCache.get(key(Time2)).contains(None))
+      assert(diffsCache.get(key(Time3)).isEmpty)
+    }
+
+    it("must use a separate store cache and promote its hits") {
+
+      val memoryCache = new MapCacheApi(DiffsCache.CacheName)
+      val storeCache  = new MapCacheApi(DiffsCache.StoreCacheName)
+
+      def newDiffsCache(): DiffsCache =
+        DiffsCache(
+          enable      = true,
+          storeEnable = true,
+          findCache   = {
+            case (DiffsCache.CacheName,      false) => Some(memoryCache)
+            case (DiffsCache.StoreCacheName, true)  => Some(storeCache)
+            case _                                  => None
+          }
+        )
+
+      newDiffsCache().put(key(Time1), Some(OtherDiffs))
+      assert(memoryCache.map.contains(key(Time1)))
+      assert(storeCache.map.contains(key(Time1)))
+
+      // As after a restart
+      memoryCache.map.clear()
+      assert(newDiffsCache().get(key(Time1)).contains(Some(OtherDiffs)))
+      assert(memoryCache.map.contains(key(Time1)))
+    }
+  }
+}
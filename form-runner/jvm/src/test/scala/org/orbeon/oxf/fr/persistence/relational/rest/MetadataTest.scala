@@ -31,7 +31,10 @@ class MetadataTest extends ResourceManagerTestBase with AssertionsForJUnit with
 
     val is = ResourceManagerWrapper.instance.getContentAsStream("/org/orbeon/oxf/fr/form-with-metadata.xhtml")
 
-    val (_, metadataOpt) = RequestReader.dataAndMetadataAsString(Provider.MySQL, is, metadata = true)
+    val metadataOpt =
+      RequestReader.withDataAndMetadata(Some(RequestReader.Body.Streamed(is)), Provider.MySQL, metadata = true) { (_, metadataOpt) =>
+        metadataOpt
+      }
 
     val expected =
       <metadata>
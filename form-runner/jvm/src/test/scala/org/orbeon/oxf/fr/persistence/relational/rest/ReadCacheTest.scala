@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.rest
+
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.cache.CacheApi
+import org.orbeon.oxf.fr.persistence.relational.rest.ReadCache.{CopyingInputStream, ReadCacheKey}
+import org.orbeon.oxf.util.NetUtils
+import org.scalatest.funspec.AnyFunSpec
+
+import java.io
+import java.io.ByteArrayInputStream
+import java.nio.charset.StandardCharsets
+import scala.collection.mutable
+
+
+class ReadCacheTest extends AnyFunSpec {
+
+  private class MapCacheApi extends CacheApi {
+    val map = mutable.Map[io.Serializable, io.Serializable]()
+
+    def put(k: io.Serializable, v: io.Serializable): Unit         = map.put(k, v)
+    def putIfAbsent(k: io.Serializable, v: io.Serializable): Unit = map.getOrElseUpdate(k, v)
+    def get(k: io.Serializable): Option[io.Serializable]          = map.get(k)
+    def remove(k: io.Serializable): Boolean                       = map.remove(k).isDefined
+    def getName: String                                           = ReadCache.CacheName
+    def getMaxEntriesLocalHeap: Option[Long]                      = None
+    def getLocalHeapSize: Option[Long]                            = None
+  }
+
+  private val Key   = ReadCacheKey(id = 42, lastModified = 1000L)
+  private val Bytes = (1 to 100).map(i => s"<value>$i</value>").mkString("<form>", "", "</form>").getBytes(StandardCharsets.UTF_8)
+
+  // Stream of the XML as read from the database on a cache miss
+  private def copyingInputStream(readCache: ReadCache, maxSize: Int): CopyingInputStream =
+    new CopyingInputStream(new ByteArrayInputStream(Bytes), maxSize, readCache.put(Key, _))
+
+  describe("Data read cache") {
+
+    it("must cache data read to the end, and return it on the next read") {
+      val readCache = new ReadCache(new MapCacheApi)
+      assert(readCache.get(Key).isEmpty)
+
+      val read = useAndClose(copyingInputStream(readCache, maxSize = 64 * 1024))(NetUtils.inputStreamToByteArray)
+      assert(read sameElements Bytes)
+
+      assert(readCache.get(Key).exists(_ sameElements Bytes))
+      assert(readCache.get(Key.copy(lastModified = 2000L)).isEmpty)
+    }
+
+    it("must cache data read one byte at a time") {
+      val readCache = new ReadCache(new MapCacheApi)
+      useAndClose(copyingInputStream(readCache, maxSize = 64 * 1024)) { is =>
+        while (is.read() != -1) {}
+      }
+      assert(readCache.get(Key).exists(_ sameElements Bytes))
+    }
+
+    it("must not cache data which is only partially read") {
+      val readCache = new ReadCache(new MapCacheApi)
+      useAndClose(copyingInputStream(readCache, maxSize = 64 * 1024)) { is =>
+        is.read(new Array[Byte](Bytes.length / 2))
+      }
+      assert(readCache.get(Key).isEmpty)
+    }
+
+    it("must not cache data larger than the maximum size") {
+      val cache     = new MapCacheApi
+      val readCache = new ReadCache(cache)
+      val read      = useAndClose(copyingInputStream(readCache, maxSize = Bytes.length - 1))(NetUtils.inputStreamToByteArray)
+      assert(read sameElements Bytes)
+      assert(readCache.get(Key).isEmpty)
+      assert(cache.map.isEmpty)
+    }
+  }
+}
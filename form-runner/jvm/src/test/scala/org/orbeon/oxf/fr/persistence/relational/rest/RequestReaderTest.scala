@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.fr.persistence.relational.rest
+
+import org.junit.Test
+import org.orbeon.io.IOUtils
+import org.orbeon.oxf.fr.persistence.relational.Provider
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.test.ResourceManagerTestBase
+import org.orbeon.oxf.util.CoreCrossPlatformSupport
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.io.ByteArrayInputStream
+import java.nio.charset.StandardCharsets
+
+
+class RequestReaderTest extends ResourceManagerTestBase with AssertionsForJUnit {
+
+  private implicit val propertySet: PropertySet = CoreCrossPlatformSupport.properties
+
+  private def dataXml(valueCount: Int): String =
+    (1 to valueCount).map(i => s"<value>élément $i</value>").mkString("<form>", "", "</form>")
+
+  // Read back the spooled data, which is the input serialized without XML declaration
+  private def spooled(xml: String): (Boolean, Long, String) = {
+
+    val body = RequestReader.Body.Streamed(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))
+
+    RequestReader.withDataAndMetadata(Some(body), Provider.MySQL, metadata = false) { (xmlOpt, metadataOpt) =>
+      assert(metadataOpt.isEmpty)
+      val content = xmlOpt.get
+      (content.isInMemory, content.length, IOUtils.readStreamAsStringAndClose(content.newReader))
+    }
+  }
+
+  @Test def smallDataKeptInMemory(): Unit = {
+    val expected = dataXml(10)
+    val (isInMemory, length, actual) = spooled(expected)
+    assert(isInMemory)
+    assert(actual === expected)
+    assert(length === expected.length)
+  }
+
+  @Test def largeDataSpooledWithSameContent(): Unit = {
+    val expected = dataXml(100 * 1000)
+    val (isInMemory, length, actual) = spooled(expected)
+    assert(! isInMemory)
+    assert(actual === expected)
+    assert(length === expected.length)
+  }
+
+  @Test def streamsClosedOnDispose(): Unit = {
+
+    val body = RequestReader.Body.Streamed(new ByteArrayInputStream(dataXml(100 * 1000).getBytes(StandardCharsets.UTF_8)))
+
+    // Streams are left open, as done by JDBC drivers
+    val (reader, inputStream) =
+      RequestReader.withBytes(Some(body)) { contentOpt =>
+        val content = contentOpt.get
+        assert(! content.isInMemory)
+        (content.newReader, content.newInputStream)
+      }
+
+    assertThrows[java.io.IOException](reader.read())
+    assertThrows[java.io.IOException](inputStream.read())
+  }
+}
@@ -33,6 +33,7 @@ class JavaxServletContainerInitializer extends javax.servlet.ServletContainerIni
   override val orbeonXFormsFilterClass: Class[? <: JavaxOrJakartaFilter]   = classOf[JavaxOrbeonXFormsFilter]
 
   import org.orbeon.oxf.cache.JavaxShutdownListener
+  import org.orbeon.oxf.fr.persistence.JavaxFormDefinitionChangeLogListener
   import org.orbeon.oxf.webapp.{JavaxOrbeonServletContextListener, JavaxOrbeonSessionListener}
   import org.orbeon.oxf.xforms.{JavaxReplicationServletContextListener, JavaxXFormsServletContextListener}
 
@@ -41,6 +42,7 @@ class JavaxServletContainerInitializer extends javax.servlet.ServletContainerIni
   override val xFormsServletContextListenerClass: Class[? <: HttpSessionListener]         = classOf[JavaxXFormsServletContextListener]
   override val orbeonSessionListenerClass: Class[? <: HttpSessionListener]                = classOf[JavaxOrbeonSessionListener]
   override val shutdownListenerClass: Class[? <: ServletContextListener]                  = classOf[JavaxShutdownListener]
+  override val formDefinitionChangeLogListenerClass: Class[? <: ServletContextListener]   = classOf[JavaxFormDefinitionChangeLogListener]
 
   override def onStartup(c: ju.Set[Class[?]], ctx: javax.servlet.ServletContext): Unit = startup(c, ServletContext(ctx))
 }
@@ -57,6 +59,7 @@ class JakartaServletContainerInitializer extends jakarta.servlet.ServletContaine
   override val orbeonXFormsFilterClass: Class[? <: JavaxOrJakartaFilter]   = classOf[JakartaOrbeonXFormsFilter]
 
   import org.orbeon.oxf.cache.JakartaShutdownListener
+  import org.orbeon.oxf.fr.persistence.JakartaFormDefinitionChangeLogListener
   import org.orbeon.oxf.webapp.{JakartaOrbeonServletContextListener, JakartaOrbeonSessionListener}
   import org.orbeon.oxf.xforms.{JakartaReplicationServletContextListener, JakartaXFormsServletContextListener}
 
@@ -65,6 +68,7 @@ class JakartaServletContainerInitializer extends jakarta.servlet.ServletContaine
   override val xFormsServletContextListenerClass: Class[? <: HttpSessionListener]         = classOf[JakartaXFormsServletContextListener]
   override val orbeonSessionListenerClass: Class[? <: HttpSessionListener]                = classOf[JakartaOrbeonSessionListener]
   override val shutdownListenerClass: Class[? <: ServletContextListener]                  = classOf[JakartaShutdownListener]
+  override val formDefinitionChangeLogListenerClass: Class[? <: ServletContextListener]   = classOf[JakartaFormDefinitionChangeLogListener]
 
   override def onStartup(c: ju.Set[Class[?]], ctx: jakarta.servlet.ServletContext): Unit = startup(c, ServletContext(ctx))
 }
@@ -85,6 +89,7 @@ trait CommonContainerInitializer {
   def xFormsServletContextListenerClass: Class[? <: HttpSessionListener]
   def orbeonSessionListenerClass: Class[? <: HttpSessionListener]
   def shutdownListenerClass: Class[? <: ServletContextListener]
+  def formDefinitionChangeLogListenerClass: Class[? <: ServletContextListener]
 
   private type ServletOrFilterRegistration = {
     def setInitParameter(name: String, value: String): Boolean
@@ -182,6 +187,8 @@ trait CommonContainerInitializer {
       registerListener(ctx, "xforms-servlet-context-listener",      xFormsServletContextListenerClass)
       // General-purpose session listener
       registerListener(ctx, "orbeon-session-listener",              orbeonSessionListenerClass)
+      // Form definition cache invalidation across nodes
+      registerListener(ctx, "form-definition-change-log-listener",  formDefinitionChangeLogListenerClass)
     }
   }
 
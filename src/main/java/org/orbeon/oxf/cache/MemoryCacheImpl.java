@@ -15,6 +15,8 @@ package org.orbeon.oxf.cache;
 
 import org.apache.commons.collections4.Transformer;
 import org.apache.commons.collections4.iterators.TransformIterator;
+import org.orbeon.oxf.metrics.Counter;
+import org.orbeon.oxf.metrics.Metrics;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,8 +37,17 @@ public class MemoryCacheImpl implements Cache {
     private CacheLinkedList linkedList = new CacheLinkedList();
     private int currentSize;
 
+    // Only named caches report their evictions
+    private final Counter evictions;
+
     public MemoryCacheImpl(int maxSize) {
         this.maxSize = maxSize;
+        this.evictions = null;
+    }
+
+    public MemoryCacheImpl(String name, int maxSize) {
+        this.maxSize = maxSize;
+        this.evictions = Metrics.counter("orbeon_cache_evictions_total", "Entries evicted from object caches.", new scala.Tuple2<>("cache", name));
     }
 
     public synchronized void add(CacheKey key, Object validity, Object cacheable) {
@@ -123,6 +134,8 @@ public class MemoryCacheImpl implements Cache {
 
             // Notify object
             if (isEvict) {
+                if (evictions != null)
+                    evictions.inc();
                 notifyEvicted(entry.cacheable);
             } else if (isRemove) {
                 notifyRemoved(entry.cacheable);
@@ -0,0 +1,147 @@
+/**
+ *  Copyright (C) 2026 Orbeon, Inc.
+ *
+ *  This program is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version
+ *  2.1 of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+ *
+ *  The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor;
+
+import org.orbeon.oxf.common.OXFException;
+import org.orbeon.oxf.util.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of JDBC connections for one datasource which is not obtained through JNDI. Containers provide pooling
+ * for JNDI datasources, but datasources configured inline or the SQLite fallback would otherwise open a new connection
+ * for each pipeline execution.
+ *
+ * At most maxSize connections are open at any time. Connections are returned to the pool once the pipeline context
+ * using them is destroyed, after the transaction is committed or rolled back.
+ */
+class ConnectionPool {
+
+    private static final org.slf4j.Logger logger = LoggerFactory.createLoggerJava(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    public interface ConnectionFactory {
+        Connection newConnection() throws SQLException;
+    }
+
+    private final String name;
+    private final long waitTimeoutMs;
+
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    public ConnectionPool(String name, int maxSize, long waitTimeoutMs) {
+        this.name = name;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.permits = new Semaphore(Math.max(maxSize, 1), true);
+    }
+
+    /**
+     * Get an idle connection, or open a new one with the factory if there is none. Block if maxSize connections are
+     * already in use. The factory is passed by the caller so that new connections use its current credentials.
+     */
+    public Connection acquire(ConnectionFactory factory) {
+        try {
+            if (! permits.tryAcquire(waitTimeoutMs, TimeUnit.MILLISECONDS))
+                throw new OXFException("Timeout waiting for a JDBC connection for datasource: " + name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OXFException(e);
+        }
+
+        try {
+            Connection connection;
+            while ((connection = pollIdle()) != null) {
+                if (isUsable(connection))
+                    return connection;
+                closeQuietly(connection);
+            }
+            return factory.newConnection();
+        } catch (Throwable t) {
+            permits.release();
+            if (t instanceof OXFException)
+                throw (OXFException) t;
+            else
+                throw new OXFException("Cannot get JDBC connection for datasource: " + name, t);
+        }
+    }
+
+    /**
+     * Return a connection obtained with acquire(). The connection is closed if it must not be reused.
+     */
+    public void release(Connection connection, boolean reusable) {
+        try {
+            boolean pooled = false;
+            if (reusable) {
+                synchronized (idle) {
+                    if (! closed) {
+                        idle.push(connection);
+                        pooled = true;
+                    }
+                }
+            }
+            if (! pooled)
+                closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close the idle connections. Connections in use are closed instead of being returned to the pool.
+     */
+    public void close() {
+        synchronized (idle) {
+            closed = true;
+            Connection connection;
+            while ((connection = idle.poll()) != null)
+                closeQuietly(connection);
+        }
+    }
+
+    public int idleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    private Connection pollIdle() {
+        synchronized (idle) {
+            return idle.poll();
+        }
+    }
+
+    private static boolean isUsable(Connection connection) {
+        try {
+            return ! connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing JDBC connection for datasource: " + name, e);
+        }
+    }
+}
@@ -15,7 +15,11 @@ package org.orbeon.oxf.processor;
 
 import org.orbeon.oxf.common.OXFException;
 import org.orbeon.oxf.externalcontext.ExternalContext;
+import org.orbeon.oxf.externalcontext.WebAppContext;
+import org.orbeon.oxf.externalcontext.WebAppListener;
 import org.orbeon.oxf.pipeline.api.PipelineContext;
+import org.orbeon.oxf.properties.Properties;
+import org.orbeon.oxf.properties.PropertySet;
 import org.orbeon.oxf.util.LoggerFactory;
 import org.orbeon.oxf.util.NetUtils;
 import org.sqlite.SQLiteDataSource;
@@ -28,11 +32,14 @@ import javax.sql.DataSource;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represent a database context for processors using SQL connections.
@@ -44,6 +51,19 @@ public class DatabaseContext {
 
     private static final String SQLITE_WAR_PATH = "WEB-INF/orbeon-demo.sqlite";
 
+    // Properties of the oxf:sql processor
+    private static final String POOL_MAX_SIZE_PROPERTY = "connection-pool.max-size";
+    private static final String POOL_WAIT_TIMEOUT_PROPERTY = "connection-pool.wait-timeout";
+    private static final String STATEMENT_CACHE_SIZE_PROPERTY = "statement-cache.max-size";
+
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private static final int DEFAULT_POOL_WAIT_TIMEOUT = 30000;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+
+    // Pools for connections not obtained through JNDI, by JNDI name or by Datasource, including its password
+    private static final Map<Object, ConnectionPool> connectionPools = new ConcurrentHashMap<>();
+    private static final String CONNECTION_POOLS_ATTRIBUTE = "oxf.sql.connection-pools";
+
     private static Boolean fileExists(final String nonNullPath, final String warningIfNotExists) {
         if (! new File(nonNullPath).exists()) {
             logger.warn(warningIfNotExists);
@@ -103,13 +123,19 @@ public class DatabaseContext {
                         // NOP: we'll try the next prefix
                     }
                 }
+                final Connection newConnection;
+                final ConnectionPool pool;
                 if (ds == null) {
-
-                    ds = fallbackDataSource(NetUtils.getExternalContext(), jndiName);
+                    // Unlike JNDI datasources, the fallback datasource is not pooled by the container
+                    final DataSource fallbackDs = fallbackDataSource(NetUtils.getExternalContext(), jndiName);
+                    pool = getConnectionPool(jndiName, jndiName);
+                    newConnection = pool.acquire(fallbackDs::getConnection);
+                } else {
+                    pool = null;
+                    newConnection = ds.getConnection();
                 }
 
-                Connection newConnection = ds.getConnection();
-                setConnectionProperties(newConnection, pipelineContext, jndiName);
+                setConnectionProperties(newConnection, pipelineContext, jndiName, pool);
                 getContext(pipelineContext).connections.put(jndiName, newConnection);
 
                 connection = newConnection;
@@ -131,61 +157,188 @@ public class DatabaseContext {
      * @param datasource       Datasource object
      * @return                 Connection object
      */
-    public static Connection getConnection(PipelineContext pipelineContext, Datasource datasource) {
+    public static Connection getConnection(PipelineContext pipelineContext, final Datasource datasource) {
         // Try to obtain connection from context
-        Connection connection = (Connection) getContext(pipelineContext).connections.get(datasource.toString());
+        // The pipeline context is only used by one thread at a time, and the pool is thread-safe
+        // Connections are keyed by Datasource, so that datasources which only differ by password don't share them
+        Connection connection = (Connection) getContext(pipelineContext).connections.get(datasource);
         if (connection == null) {
-            synchronized (DatabaseContext.class) {
-                connection = (Connection) getContext(pipelineContext).connections.get(datasource.toString());
-                if (connection == null) {
-                    // Create connection
-                    try {
-                        Class.forName(datasource.getDriverClassName());
-                    } catch (ClassNotFoundException e) {
-                        throw new OXFException("Cannot load JDBC driver for class: " + datasource.getDriverClassName());
-                    }
-                    Connection newConnection;
-                    try {
-                        newConnection = DriverManager.getConnection(datasource.getUri(), datasource.getUsername(), datasource.getPassword());
-                    } catch (SQLException e) {
-                        throw new OXFException("Cannot get connection from JDBC DriverManager for datasource: " + datasource, e);
-                    }
-
-                    // Set connection properties
-                    try {
-                        setConnectionProperties(newConnection, pipelineContext, datasource.toString());
-                    } catch (Exception e) {
-                         throw new OXFException(e);
-                    }
-                    // Save connection into context
-                    getContext(pipelineContext).connections.put(datasource.toString(), newConnection);
+            // Load driver
+            try {
+                Class.forName(datasource.getDriverClassName());
+            } catch (ClassNotFoundException e) {
+                throw new OXFException("Cannot load JDBC driver for class: " + datasource.getDriverClassName());
+            }
 
-                    connection = newConnection;
+            // Get connection from pool
+            final ConnectionPool pool = getConnectionPool(datasource, datasource.toString());
+            final Connection newConnection = pool.acquire(new ConnectionPool.ConnectionFactory() {
+                public Connection newConnection() throws SQLException {
+                    return DriverManager.getConnection(datasource.getUri(), datasource.getUsername(), datasource.getPassword());
                 }
+            });
+
+            // Set connection properties
+            try {
+                setConnectionProperties(newConnection, pipelineContext, datasource.toString(), pool);
+            } catch (Exception e) {
+                pool.release(newConnection, false);
+                throw new OXFException(e);
             }
+            // Save connection into context
+            getContext(pipelineContext).connections.put(datasource, newConnection);
+
+            connection = newConnection;
         }
 
         return connection;
     }
 
-    private static void setConnectionProperties(final Connection connection, PipelineContext pipelineContext, final String datasourceName) throws SQLException {
+    /**
+     * Get a prepared statement for the given SQL, reusing a statement previously released with releaseStatement() on
+     * the same connection during this pipeline execution if possible.
+     *
+     * The returned statement must be released with releaseStatement() instead of being closed.
+     */
+    public static PreparedStatement prepareStatement(PipelineContext pipelineContext, Connection connection, String sql) throws SQLException {
+        final Context context = getContext(pipelineContext);
+        StatementCache cache = context.statementCaches.get(connection);
+        if (cache == null) {
+            cache = new StatementCache(getSQLPropertySet().getInteger(STATEMENT_CACHE_SIZE_PROPERTY, DEFAULT_STATEMENT_CACHE_SIZE));
+            context.statementCaches.put(connection, cache);
+        }
+
+        PreparedStatement stmt = cache.idle.remove(sql);
+        if (stmt == null) {
+            stmt = connection.prepareStatement(sql);
+            cache.sql.put(stmt, sql);
+            context.statementOwners.put(stmt, cache);
+        }
+        return stmt;
+    }
+
+    /**
+     * Release a statement obtained with prepareStatement(), so it can be reused. Statements which don't come from
+     * prepareStatement() are closed. The caller is responsible for closing any result set of the statement.
+     */
+    public static void releaseStatement(PipelineContext pipelineContext, PreparedStatement stmt) throws SQLException {
+        final Context context = getContext(pipelineContext);
+        final StatementCache cache = context.statementOwners.get(stmt);
+        if (cache == null) {
+            stmt.close();
+        } else {
+            final String sql = cache.sql.get(stmt);
+            if (cache.idle.containsKey(sql) || cache.idle.size() >= cache.maxSize) {
+                // Keep a single idle statement for a given SQL
+                if (cache.idle.get(sql) != stmt) {
+                    cache.sql.remove(stmt);
+                    context.statementOwners.remove(stmt);
+                    stmt.close();
+                }
+            } else {
+                stmt.clearParameters();
+                cache.idle.put(sql, stmt);
+            }
+        }
+    }
+
+    private static void closeStatements(Context context, Connection connection) throws SQLException {
+        final StatementCache cache = context.statementCaches.remove(connection);
+        if (cache != null) {
+            for (final PreparedStatement stmt : cache.sql.keySet()) {
+                context.statementOwners.remove(stmt);
+                if (! stmt.isClosed())
+                    stmt.close();
+            }
+        }
+    }
+
+    private static PropertySet getSQLPropertySet() {
+        return Properties.instance().getPropertySet(XPLConstants.SQL_PROCESSOR_QNAME());
+    }
+
+    private static ConnectionPool getConnectionPool(Object key, final String name) {
+        closeConnectionPoolsOnWebAppDestroyed();
+        return connectionPools.computeIfAbsent(key, k -> {
+            final PropertySet propertySet = getSQLPropertySet();
+            return new ConnectionPool(
+                name,
+                propertySet.getInteger(POOL_MAX_SIZE_PROPERTY, DEFAULT_POOL_MAX_SIZE),
+                propertySet.getInteger(POOL_WAIT_TIMEOUT_PROPERTY, DEFAULT_POOL_WAIT_TIMEOUT)
+            );
+        });
+    }
+
+    /**
+     * Close the pools when the web app is destroyed, once per web app.
+     */
+    private static void closeConnectionPoolsOnWebAppDestroyed() {
+        final ExternalContext externalContext = NetUtils.getExternalContext();
+        if (externalContext != null) {
+            final WebAppContext webAppContext = externalContext.getWebAppContext();
+            synchronized (webAppContext) {
+                if (webAppContext.getAttributesMap().get(CONNECTION_POOLS_ATTRIBUTE) == null) {
+                    webAppContext.getAttributesMap().put(CONNECTION_POOLS_ATTRIBUTE, Boolean.TRUE);
+                    webAppContext.addListener(new WebAppListener() {
+                        public void webAppDestroyed() {
+                            closeConnectionPools();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the pools of datasources not obtained through JNDI, and close their idle connections. Connections in use
+     * are closed when they are released.
+     */
+    public static void closeConnectionPools() {
+        for (final Object key : connectionPools.keySet()) {
+            final ConnectionPool pool = connectionPools.remove(key);
+            if (pool != null)
+                pool.close();
+        }
+    }
+
+    /**
+     * Remove the pool of a datasource not obtained through JNDI, and close its idle connections.
+     */
+    static void closeConnectionPool(Datasource datasource) {
+        final ConnectionPool pool = connectionPools.remove(datasource);
+        if (pool != null)
+            pool.close();
+    }
+
+    private static void setConnectionProperties(final Connection connection, final PipelineContext pipelineContext, final String datasourceName, final ConnectionPool poolOrNull) throws SQLException {
         // Set connection properties
         connection.setAutoCommit(false);
-        // Commit or rollback when context is destroyed
+        // Commit or rollback when context is destroyed, then close the connection or return it to the pool
         pipelineContext.addContextListener(new PipelineContext.ContextListenerAdapter() {
             public void contextDestroyed(boolean success) {
+                boolean reusable = false;
                 try {
+                    closeStatements(getContext(pipelineContext), connection);
                     if (success) {
                         logger.info("Committing JDBC connection for datasource: " + datasourceName + ".");
                         connection.commit();
-                        connection.close();
                     } else {
                         logger.info("Rolling back JDBC connection for datasource: " + datasourceName + ".");
                         connection.rollback();
-                        connection.close();
                     }
+                    reusable = true;
                 } catch (SQLException e) {
                     throw new OXFException(e);
+                } finally {
+                    if (poolOrNull != null) {
+                        poolOrNull.release(connection, reusable);
+                    } else {
+                        try {
+                            connection.close();
+                        } catch (SQLException e) {
+                            logger.warn("Error closing JDBC connection for datasource: " + datasourceName + ".", e);
+                        }
+                    }
                 }
             }
         });
@@ -203,5 +356,20 @@ public class DatabaseContext {
     private static class Context {
         // Map datasource to connections
         public Map connections = new HashMap();
+        // Prepared statements by connection, and the cache each statement belongs to
+        public Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+        public Map<PreparedStatement, StatementCache> statementOwners = new IdentityHashMap<>();
+    }
+
+    private static class StatementCache {
+        public final int maxSize;
+        // Statements not currently in use, by SQL
+        public final Map<String, PreparedStatement> idle = new HashMap<>();
+        // SQL of all the statements created for the connection
+        public final Map<PreparedStatement, String> sql = new IdentityHashMap<>();
+
+        public StatementCache(int maxSize) {
+            this.maxSize = maxSize;
+        }
     }
 }
@@ -17,6 +17,8 @@ import org.orbeon.dom.Document;
 import org.orbeon.oxf.pipeline.api.PipelineContext;
 import org.orbeon.oxf.xml.XPathUtils;
 
+import java.util.Objects;
+
 /**
  * Datasource represents a simple datasource configuration.
  *
@@ -108,6 +110,29 @@ public class Datasource {
         });
     }
 
+    /**
+     * Datasources are equal if all their properties, including the password, are equal. This is used to key pooled
+     * connections, which must not be shared with a datasource using other credentials.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (! (other instanceof Datasource))
+            return false;
+        final Datasource that = (Datasource) other;
+        return Objects.equals(driverClassName, that.driverClassName)
+            && Objects.equals(uri, that.uri)
+            && Objects.equals(username, that.username)
+            && Objects.equals(password, that.password);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(driverClassName, uri, username, password);
+    }
+
+    // Don't include the password, as this is used in log messages
     public String toString() {
         return "[" + driverClassName + "|" + uri + "|" + username + "]";
     }
@@ -16,6 +16,7 @@ package org.orbeon.oxf.processor;
 import org.orbeon.oxf.cache.OutputCacheKey;
 import org.orbeon.oxf.pipeline.api.PipelineContext;
 import org.orbeon.oxf.util.LoggerFactory;
+import org.orbeon.oxf.xml.BinaryReference;
 import org.orbeon.oxf.xml.ForwardingXMLReceiver;
 import org.orbeon.oxf.xml.XMLReceiver;
 import org.orbeon.oxf.xml.XMLReceiverAdapter;
@@ -71,6 +72,12 @@ public class SAXLoggerProcessor extends ProcessorImpl {
             super.characters(chars, start, length);
         }
 
+        @Override
+        public void binaryReference(BinaryReference reference) {
+            log("binaryReference(" + reference.length() + " bytes)");
+            forwardBinaryReference(reference);
+        }
+
         @Override
         public void endDocument() throws SAXException {
             log("endDocument()");
@@ -540,6 +540,16 @@ public class SQLProcessor extends ProcessorImpl {
             saxStore.replay(this);
         }
 
+        /**
+         * Send the body of a repeating element to the given receiver, without interpreting it.
+         */
+        protected void replayBody(XMLReceiver xmlReceiver) {
+            if (!repeating)
+                throw new IllegalStateException("replayBody() can only be called when repeating is true.");
+
+            saxStore.replay(xmlReceiver);
+        }
+
         public boolean isRepeating() {
             return repeating;
         }
@@ -13,6 +13,7 @@
  */
 package org.orbeon.oxf.processor.sql;
 
+import org.orbeon.datatypes.LocationData;
 import org.orbeon.dom.Node;
 import org.orbeon.oxf.common.OXFException;
 import org.orbeon.oxf.common.ValidationException;
@@ -33,6 +34,8 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
 
 /**
@@ -60,6 +63,17 @@ public class SQLProcessorInterpreterContext extends DatabaseContext {
     private List<SQLFunctionLibrary.SQLFunctionContext> functionContextStack = new ArrayList<SQLFunctionLibrary.SQLFunctionContext>();
     public static final String SQL_PROCESSOR_CONTEXT = "sql-processor-context"; // used by SQLProcessor and related
 
+    private static final int DEFAULT_BATCH_SIZE = 1;
+    private static final int DEFAULT_FETCH_SIZE = 100;
+
+    // Updates deferred while iterating with sql:for-each, by enclosing sql:for-each
+    private Deque<Boolean> forEachBatching = new ArrayDeque<Boolean>();
+    private Connection pendingBatchConnection;
+    private PreparedStatement pendingBatchStatement;
+    private String pendingBatchString;
+    private LocationData pendingBatchLocationData;
+    private int pendingBatchCount;
+
     public SQLProcessorInterpreterContext(PropertySet propertySet) {
         this.propertySet = propertySet;
     }
@@ -308,6 +322,121 @@ public class SQLProcessorInterpreterContext extends DatabaseContext {
         }
     }
 
+    /**
+     * Get a prepared statement for the current connection, reusing a cached statement for the same SQL if possible.
+     * The statement must be released with releaseStatement().
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareStatement(pipelineContext, getConnection(), sql);
+    }
+
+    public void releaseStatement(PreparedStatement stmt) throws SQLException {
+        releaseStatement(pipelineContext, stmt);
+    }
+
+    /**
+     * Number of updates sent to the database at once when batching. Batching is disabled if this is 1 or less, which
+     * is the default.
+     */
+    public int getBatchSize() {
+        return propertySet.getInteger("batch-size", DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Number of rows fetched at once for queries, or 0 to use the default of the driver.
+     */
+    public int getFetchSize() {
+        return propertySet.getInteger("fetch-size", DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Start a sql:for-each. Its updates can be batched only if nothing in its body reads their results, update count or
+     * generated keys.
+     */
+    public void startForEach(boolean batchUpdates) {
+        forEachBatching.push(batchUpdates);
+    }
+
+    public void endForEach() {
+        flushBatch();
+        forEachBatching.pop();
+    }
+
+    /**
+     * Whether updates are deferred and batched, which is the case when they are repeated by a sql:for-each which allows
+     * it, and batching is enabled.
+     */
+    public boolean isBatchingUpdates() {
+        return ! forEachBatching.isEmpty() && forEachBatching.peek() && getBatchSize() > 1;
+    }
+
+    /**
+     * Get the statement for a deferred update. This is the statement of the pending batch if it is for the same SQL
+     * and connection. Otherwise, the pending batch is executed first.
+     */
+    public PreparedStatement getBatchStatement(String sql, LocationData locationData) throws SQLException {
+        final Connection connection = getConnection();
+        if (pendingBatchStatement != null && (pendingBatchConnection != connection || ! pendingBatchString.equals(sql)))
+            flushBatch();
+        if (pendingBatchStatement == null) {
+            pendingBatchStatement = prepareStatement(pipelineContext, connection, sql);
+            pendingBatchConnection = connection;
+            pendingBatchString = sql;
+            pendingBatchLocationData = locationData;
+        }
+        return pendingBatchStatement;
+    }
+
+    /**
+     * Add the parameters set on the statement returned by getBatchStatement() to the pending batch.
+     */
+    public void addBatch() throws SQLException {
+        pendingBatchStatement.addBatch();
+        pendingBatchCount++;
+        if (pendingBatchCount >= getBatchSize())
+            flushBatch();
+    }
+
+    /**
+     * Execute the pending batch, if any. This must be done before any other statement is executed, so that it sees
+     * the result of the deferred updates. Errors are reported at the location of the deferred update.
+     */
+    public void flushBatch() {
+        if (pendingBatchStatement != null) {
+            final PreparedStatement stmt = pendingBatchStatement;
+            final String sql = pendingBatchString;
+            final LocationData locationData = pendingBatchLocationData;
+            pendingBatchStatement = null;
+            pendingBatchConnection = null;
+            pendingBatchString = null;
+            pendingBatchLocationData = null;
+            pendingBatchCount = 0;
+            try {
+                try {
+                    final int updateCount = executeBatch(stmt);
+                    if (SQLProcessor.logger.isDebugEnabled())
+                        SQLProcessor.logger.debug("Executed batch, update count = " + updateCount);
+                } finally {
+                    releaseStatement(stmt);
+                }
+            } catch (SQLException e) {
+                SQLProcessor.logger.error("PreparedStatement:\n" + sql);
+                throw new ValidationException(e, locationData);
+            }
+        }
+    }
+
+    /**
+     * Execute the batch of a statement, and return the total number of updated rows, when known.
+     */
+    public static int executeBatch(PreparedStatement stmt) throws SQLException {
+        int updateCount = 0;
+        for (final int count : stmt.executeBatch())
+            if (count != Statement.SUCCESS_NO_INFO)
+                updateCount += count;
+        return updateCount;
+    }
+
     public Node getInput() {
         return input;
     }
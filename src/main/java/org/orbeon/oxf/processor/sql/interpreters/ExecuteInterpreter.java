@@ -21,6 +21,7 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -48,7 +49,11 @@ public class ExecuteInterpreter extends SQLProcessor.InterpreterContentHandler {
         final PreparedStatement stmt = interpreterContext.getStatement(0);
         if (stmt != null) { // the statement may not exist or already have been closed
             try {
-                stmt.close();
+                // The statement may be reused, so close its result set if still open
+                final ResultSet resultSet = interpreterContext.getResultSet(0);
+                if (resultSet != null && ! resultSet.isClosed() && resultSet.getStatement() == stmt)
+                    resultSet.close();
+                interpreterContext.releaseStatement(stmt);
             } catch (SQLException e) {
                 throw new ValidationException(e, XmlLocationData.apply(getDocumentLocator()));
             }
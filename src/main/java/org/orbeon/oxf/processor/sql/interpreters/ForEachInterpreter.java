@@ -17,14 +17,22 @@ import org.orbeon.dom.Node;
 import org.orbeon.oxf.processor.sql.SQLFunctionLibrary;
 import org.orbeon.oxf.processor.sql.SQLProcessor;
 import org.orbeon.oxf.processor.sql.SQLProcessorInterpreterContext;
+import org.orbeon.oxf.xml.XMLReceiverAdapter;
 import org.orbeon.oxf.xml.XPathUtils;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 public class ForEachInterpreter extends SQLProcessor.InterpreterContentHandler {
 
+    // Elements which read the result, update count or generated keys of a statement
+    private static final Set<String> RESULT_ELEMENTS =
+        new HashSet<String>(Arrays.asList("results", "result-set", "row-results", "row-iterator", "no-results"));
+
     public ForEachInterpreter(SQLProcessorInterpreterContext interpreterContext) {
         // Repeating interpreter
         super(interpreterContext, true);
@@ -52,6 +60,9 @@ public class ForEachInterpreter extends SQLProcessor.InterpreterContentHandler {
                 interpreterContext.getFunctionContextOrNull()
             );
 
+        // Updates in the body are batched until the end of the iteration, unless their results are read
+        interpreterContext.startForEach(interpreterContext.getBatchSize() > 1 && ! bodyReadsResults());
+
         for (; it.hasNext(); currentPosition++) {
             final Node currentNode  = it.next();
 
@@ -73,6 +84,20 @@ public class ForEachInterpreter extends SQLProcessor.InterpreterContentHandler {
                 interpreterContext.popFunctionContext();
             }
         }
+
+        interpreterContext.endForEach();
+    }
+
+    private boolean bodyReadsResults() {
+        final boolean[] found = { false };
+        replayBody(new XMLReceiverAdapter() {
+            @Override
+            public void startElement(String uri, String localname, String qName, Attributes attributes) {
+                if (SQLProcessor.SQL_NAMESPACE_URI.equals(uri) && RESULT_ELEMENTS.contains(localname))
+                    found[0] = true;
+            }
+        });
+        return found[0];
     }
 
     public void end(String uri, String localname, String qName) throws SAXException {}
@@ -168,15 +168,31 @@ public class QueryInterpreter extends SQLProcessor.InterpreterContentHandler {
         // Validate query
         if (query == null)
             throw new ValidationException("Missing query", XmlLocationData.apply(getDocumentLocator()));
+
+        // Updates repeated by an enclosing sql:for-each are deferred and sent to the database in batches, if enabled
+        final boolean deferredBatch = type == UPDATE && !hasReplaceOrSeparator && nodeIterator == null && getInterpreterContext().isBatchingUpdates();
+
+        // Other statements must see the result of deferred updates
+        if (!deferredBatch)
+            getInterpreterContext().flushBatch();
+
         // Execute query
         try {
+            // Updates repeated with the select attribute are sent in batches as well, if enabled
+            final int batchSize = getInterpreterContext().getBatchSize();
+            final boolean selectBatch = type == UPDATE && !hasReplaceOrSeparator && nodeIterator != null && batchSize > 1;
+            int batchCount = 0;
+            int batchUpdateCount = 0;
+
             // Create a single PreparedStatement if the query is not modified at each iteration
             PreparedStatement stmt = null;
             if (!hasReplaceOrSeparator) {
                 final String queryString = query.toString();
-                if (type != CALL) {
+                if (deferredBatch) {
+                    stmt = getInterpreterContext().getBatchStatement(queryString, XmlLocationData.apply(getDocumentLocator()));
+                } else if (type != CALL) {
                     // TODO: see how we can support this: Statement.RETURN_GENERATED_KEYS
-                    stmt = getInterpreterContext().getConnection().prepareStatement(queryString);
+                    stmt = getInterpreterContext().prepareStatement(queryString);
                 } else
                     stmt = getInterpreterContext().getConnection().prepareCall(queryString);
                 getInterpreterContext().setStatementString(queryString);
@@ -301,7 +317,7 @@ public class QueryInterpreter extends SQLProcessor.InterpreterContentHandler {
                         // We create a new PreparedStatement for each iteration
                         String replacedQueryString = replacedQuery.toString();
                         if (stmt != null) {
-                            stmt.close();
+                            getInterpreterContext().releaseStatement(stmt);
                         }
                         stmt = getInterpreterContext().getConnection().prepareStatement(replacedQueryString);
                         getInterpreterContext().setStatement(stmt);
@@ -583,16 +599,36 @@ public class QueryInterpreter extends SQLProcessor.InterpreterContentHandler {
                     if (SQLProcessor.logger.isDebugEnabled())
                         SQLProcessor.logger.debug("Executing query/call, " +
                                 "statement = " + getInterpreterContext().getStatementSHA());
+                    final int fetchSize = getInterpreterContext().getFetchSize();
+                    if (type == QUERY && fetchSize > 0)
+                        stmt.setFetchSize(fetchSize);
                     final boolean hasResultSet = stmt.execute();
                     ResultSetInterpreter.setResultSetInfo(getInterpreterContext(), stmt, hasResultSet);
                 } else if (type == UPDATE) {
-                    // We know there is only a possible update count
-                    final int updateCount = stmt.executeUpdate();
-                    getInterpreterContext().setUpdateCount(updateCount);//FIXME: should add?
-                    if (updateCount > 0)
-                    	ResultSetInterpreter.setGeneratedKeysResultSetInfo(getInterpreterContext(), stmt);
+                    if (deferredBatch) {
+                        // The statement is executed later, and belongs to the pending batch
+                        getInterpreterContext().addBatch();
+                        getInterpreterContext().setStatement(null);
+                    } else if (selectBatch) {
+                        stmt.addBatch();
+                        if (++batchCount % batchSize == 0)
+                            batchUpdateCount += SQLProcessorInterpreterContext.executeBatch(stmt);
+                    } else {
+                        // We know there is only a possible update count
+                        final int updateCount = stmt.executeUpdate();
+                        getInterpreterContext().setUpdateCount(updateCount);//FIXME: should add?
+                        if (updateCount > 0)
+                            ResultSetInterpreter.setGeneratedKeysResultSetInfo(getInterpreterContext(), stmt);
+                    }
                 }
             }
+            if (selectBatch) {
+                if (batchCount % batchSize != 0)
+                    batchUpdateCount += SQLProcessorInterpreterContext.executeBatch(stmt);
+                getInterpreterContext().setUpdateCount(batchUpdateCount);
+                if (batchUpdateCount > 0)
+                    ResultSetInterpreter.setGeneratedKeysResultSetInfo(getInterpreterContext(), stmt);
+            }
         } catch (Exception e) {
             // FIXME: should store exception so that it can be retrieved
             // Actually, we'll need a global exception mechanism for pipelines, so this may end up being done
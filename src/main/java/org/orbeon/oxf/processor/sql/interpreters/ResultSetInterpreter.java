@@ -143,7 +143,7 @@ public class ResultSetInterpreter extends SQLProcessor.InterpreterContentHandler
     }
 
     public static void closeStatement(SQLProcessorInterpreterContext interpreterContext, PreparedStatement stmt) throws SQLException {
-        stmt.close();
+        interpreterContext.releaseStatement(stmt);
         interpreterContext.setStatement(null);
         interpreterContext.setResultSet(null);
         interpreterContext.setEmptyResultSet(true);
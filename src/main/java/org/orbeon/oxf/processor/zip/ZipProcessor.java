@@ -18,6 +18,7 @@ import org.apache.commons.fileupload.disk.DiskFileItem;
 import org.orbeon.oxf.common.OXFException;
 import org.orbeon.oxf.pipeline.api.PipelineContext;
 import org.orbeon.oxf.processor.BinaryTextSupport;
+import org.orbeon.oxf.processor.FileBinaryReference;
 import org.orbeon.oxf.processor.ProcessorImpl;
 import org.orbeon.oxf.processor.ProcessorInputOutputInfo;
 import org.orbeon.oxf.processor.ProcessorOutput;
@@ -128,13 +129,9 @@ public class ZipProcessor extends ProcessorImpl {
                         zipOutputStream.close();
                     }
 
-                    // Generate an Orbeon binary document with the content of the zip file
-                    FileInputStream zipInputStream = new FileInputStream(temporaryZipFile);
-                    try {
-                        BinaryTextSupport.readBinary(zipInputStream, xmlReceiver, "multipart/x-gzip", null, statusCode, fileName, null);
-                    } finally {
-                        zipInputStream.close();
-                    }
+                    // Generate an Orbeon binary document with the content of the zip file. The temporary file is kept
+                    // until the end of the request, and this output is not cached, so it can be passed by reference.
+                    BinaryTextSupport.readBinaryReference(new FileBinaryReference(temporaryZipFile), xmlReceiver, "multipart/x-gzip", null, statusCode, fileName, null);
                 } catch (FileNotFoundException e) {
                     throw new OXFException(e);
                 } catch (IOException e) {
@@ -28,7 +28,7 @@ object ObjectCache {
   private val namedObjectCaches = new ju.concurrent.ConcurrentHashMap[String, Cache]
 
   locally {
-    namedObjectCaches.put(DefaultCacheName, new MemoryCacheImpl(DefaultSize))
+    namedObjectCaches.put(DefaultCacheName, new MemoryCacheImpl(DefaultCacheName, DefaultSize))
   }
 
   // Get the instance of the main object cache
@@ -43,7 +43,7 @@ object ObjectCache {
         val propertyName = s"$CachePropertyNamePrefix.$cacheName.$CachePropertyNameSizeSuffix"
         val size         = Properties.instance.getPropertySetOrThrow.getInteger(propertyName, defaultSize)
 
-        new MemoryCacheImpl(size)
+        new MemoryCacheImpl(cacheName, size)
       }
     )
 }
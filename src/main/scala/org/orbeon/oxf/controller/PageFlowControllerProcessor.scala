@@ -217,13 +217,7 @@ class PageFlowControllerProcessor extends ProcessorImpl {
     }
 
     def findRoute(path: String, method: Option[HttpMethod]): Option[(Route, MatchResult)] =
-      pageFlow.routes.iterator map { route =>
-        route -> MatchResult(route.routeElement.pattern, path)
-      } collectFirst {
-        case rm @ (_: FileRoute,              MatchResult(true, _))               => rm
-        case rm @ (route: PageOrServiceRoute, MatchResult(true, _))
-          if method.isEmpty || method.exists(route.routeElement.supportedMethods) => rm
-      }
+      pageFlow.routeIndex.find(path, method)
 
     def withConnectionInterruption[T](thunk: => T)(implicit logger: IndentedLogger): Option[T] =
       try
@@ -731,7 +725,16 @@ object PageFlowControllerProcessor {
     pathMatchers      : Seq[PathMatcher],
     file              : Option[String],
     interceptor       : Option[PageFlowInterceptor]
-  )
+  ) {
+    val routeIndex = new RouteIndex[Route](routes, _.routeElement.pattern, routeSupportsMethod)
+  }
+
+  // File routes don't filter on the method
+  def routeSupportsMethod(route: Route, method: HttpMethod): Boolean =
+    route match {
+      case _    : FileRoute          => true
+      case route: PageOrServiceRoute => route.routeElement.supportedMethods(method)
+    }
 
   def att(e: Element, name: String): Option[String] = e.attributeValueOpt(name)
   def idAtt(e: Element) = att(e, "id")
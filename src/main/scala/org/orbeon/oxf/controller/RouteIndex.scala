@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.controller
+
+import org.orbeon.oxf.http.HttpMethod
+import org.orbeon.oxf.processor.RegexpMatcher.MatchResult
+
+import java.util as ju
+import java.util.regex.Pattern
+import scala.collection.mutable
+
+
+// Find the first route, in declaration order, whose pattern matches a path and which supports a method, as a linear
+// scan of the routes does, but without evaluating the pattern of every route.
+//
+// Each route is placed in a trie of path segments, at the node of the literal segments which start all the paths its
+// pattern can match, or at the root if there are none, for example with `/([^/]+)/service/.+`. Only the patterns of
+// the routes found along the path are evaluated. The most recently found results are also kept by path and method.
+class RouteIndex[R](
+  routes        : Seq[R],
+  pattern       : R => Pattern,
+  supportsMethod: (R, HttpMethod) => Boolean,
+  maxCachedPaths: Int = RouteIndex.DefaultMaxCachedPaths
+) {
+
+  import RouteIndex.*
+
+  private val indexedRoutes = routes.toIndexedSeq
+  private val root          = new Node
+
+  locally {
+    for ((route, index) <- indexedRoutes.zipWithIndex)
+      literalSegments(pattern(route)).foldLeft(root)(_.child(_)).routeIndexes += index
+  }
+
+  private val recentResults =
+    new ju.LinkedHashMap[(String, Option[HttpMethod]), Option[(R, MatchResult)]](16, 0.75f, true) {
+      override def removeEldestEntry(eldest: ju.Map.Entry[(String, Option[HttpMethod]), Option[(R, MatchResult)]]): Boolean =
+        size > maxCachedPaths
+    }
+
+  def find(path: String, method: Option[HttpMethod]): Option[(R, MatchResult)] = {
+    val key = (path, method)
+    recentResults.synchronized(Option(recentResults.get(key))) match {
+      case Some(result) =>
+        result
+      case None =>
+        val result = findInCandidates(path, method)
+        recentResults.synchronized(recentResults.put(key, result))
+        result
+    }
+  }
+
+  private def findInCandidates(path: String, method: Option[HttpMethod]): Option[(R, MatchResult)] =
+    candidateIndexes(path).iterator map indexedRoutes map { route =>
+      route -> MatchResult(pattern(route), path)
+    } collectFirst {
+      case rm @ (route, MatchResult(true, _)) if method.forall(supportsMethod(route, _)) => rm
+    }
+
+  // Indexes of the routes found along the path, in declaration order
+  private def candidateIndexes(path: String): mutable.ArrayBuffer[Int] = {
+
+    val indexes  = mutable.ArrayBuffer[Int]() ++= root.routeIndexes
+    val segments = path.split("/", -1)
+
+    var node = root
+    var i    = 0
+    while ((node ne null) && i < segments.length) {
+      node = node.children.getOrElse(segments(i), null)
+      if (node ne null)
+        indexes ++= node.routeIndexes
+      i += 1
+    }
+
+    indexes.sortInPlace()
+  }
+}
+
+object RouteIndex {
+
+  val DefaultMaxCachedPaths = 256
+
+  // Linear scan, as done before routes were indexed
+  def findLinear[R](
+    routes        : Seq[R],
+    pattern       : R => Pattern,
+    supportsMethod: (R, HttpMethod) => Boolean
+  )(
+    path          : String,
+    method        : Option[HttpMethod]
+  ): Option[(R, MatchResult)] =
+    routes.iterator map { route =>
+      route -> MatchResult(pattern(route), path)
+    } collectFirst {
+      case rm @ (route, MatchResult(true, _)) if method.forall(supportsMethod(route, _)) => rm
+    }
+
+  private class Node {
+    val children     = mutable.HashMap[String, Node]()
+    val routeIndexes = mutable.ArrayBuffer[Int]()
+
+    def child(segment: String): Node = children.getOrElseUpdate(segment, new Node)
+  }
+
+  // Literal path segments which start all the paths matched by the pattern, for example `""`, `"fr"` and `"service"`
+  // for `/fr/service/.+`
+  def literalSegments(pattern: Pattern): List[String] = {
+    val regex = pattern.pattern
+    if (pattern.flags != 0 || regex.contains("\\Q") || hasTopLevelAlternation(regex))
+      Nil
+    else {
+      val prefix    = literalPrefix(regex)
+      val lastSlash = prefix.lastIndexOf('/')
+      if (lastSlash < 0)
+        Nil
+      else
+        prefix.substring(0, lastSlash).split("/", -1).toList
+    }
+  }
+
+  private val MetaCharacters = "\\[](){}.*+?^$|"
+  private val Quantifiers    = "?*+{"
+
+  // Characters which start all the strings matched by the regular expression
+  private def literalPrefix(regex: String): String = {
+
+    val sb = new java.lang.StringBuilder
+
+    var i    = if (regex.startsWith("^")) 1 else 0
+    var done = false
+    while (! done && i < regex.length) {
+
+      val c = regex(i)
+
+      val (literalOpt, length) =
+        if (c == '\\' && i + 1 < regex.length && ! regex(i + 1).isLetterOrDigit)
+          (Some(regex(i + 1)), 2)
+        else if (MetaCharacters.indexOf(c) < 0)
+          (Some(c), 1)
+        else
+          (None, 0)
+
+      literalOpt match {
+        case Some(_) if i + length < regex.length && Quantifiers.indexOf(regex(i + length)) >= 0 =>
+          // The character is optional or repeated
+          done = true
+        case Some(literal) =>
+          sb.append(literal)
+          i += length
+        case None =>
+          done = true
+      }
+    }
+
+    sb.toString
+  }
+
+  // Whether the regular expression has an alternative outside of groups, in which case it has no literal prefix
+  private def hasTopLevelAlternation(regex: String): Boolean = {
+
+    var groupDepth = 0
+    var classDepth = 0
+    var found      = false
+    var i          = 0
+    while (! found && i < regex.length) {
+      regex(i) match {
+        case '\\'                                    => i += 1
+        case '['                                     => classDepth += 1
+        case ']' if classDepth > 0                   => classDepth -= 1
+        case '(' if classDepth == 0                  => groupDepth += 1
+        case ')' if classDepth == 0                  => groupDepth -= 1
+        case '|' if classDepth == 0 && groupDepth == 0 => found = true
+        case _                                       =>
+      }
+      i += 1
+    }
+    found
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.metrics
+
+import org.orbeon.io.CharsetNames
+import org.orbeon.oxf.controller.NativeRoute
+import org.orbeon.oxf.externalcontext.ExternalContext
+import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
+import org.orbeon.oxf.pipeline.api.PipelineContext
+
+
+// Export metrics in the Prometheus text format, only if enabled. The route is not public, so the page flow only runs it
+// for requests authorized with the service token or by the configured `authorizer`.
+object MetricsRoute extends NativeRoute {
+
+  val ContentType = "text/plain; version=0.0.4; charset=utf-8"
+
+  def process()(implicit pc: PipelineContext, ec: ExternalContext): Unit = {
+
+    if (! Metrics.isEnabled)
+      throw HttpStatusCodeException(StatusCode.NotFound)
+
+    val response = ec.getResponse
+    response.setContentType(ContentType)
+    val os = response.getOutputStream
+    os.write(Metrics.prometheusText.getBytes(CharsetNames.Utf8))
+    os.flush()
+  }
+}
@@ -13,10 +13,11 @@
   */
 package org.orbeon.oxf.processor
 
-import java.io.{BufferedInputStream, InputStream, InputStreamReader}
+import java.io.{BufferedInputStream, File, FileInputStream, InputStream, InputStreamReader}
 import java.lang as jl
 
 import org.orbeon.dom.*
+import org.orbeon.io.IOUtils.useAndClose
 import org.orbeon.oxf.common.Defaults
 import org.orbeon.oxf.http.Headers
 import org.orbeon.oxf.util.DateUtils
@@ -85,6 +86,26 @@ object BinaryTextSupport {
     outputEndDocument(output, BinaryDocumentElementName)
   }
 
+  /**
+    * Generate a "standard" Orbeon binary document, passing the content as a single binary reference to receivers
+    * which support it, and as base64 characters to other receivers.
+    *
+    * Parameters are the same as for `readBinary()`.
+    */
+  def readBinaryReference(
+    reference    : BinaryReference,
+    output       : ContentHandler,
+    contentType  : String,
+    lastModified : jl.Long,
+    statusCode   : Int,
+    fileName     : String,
+    headers      : List[(String, String)]
+  ): Unit = {
+    outputStartDocument(output, contentType, lastModified, statusCode, fileName, XMLConstants.XS_BASE64BINARY_QNAME, BinaryDocumentElementName, headers)
+    BinaryReference.send(reference, output)
+    outputEndDocument(output, BinaryDocumentElementName)
+  }
+
   private val HeadersToFilter = Set(
     Headers.ContentTypeLower,
     Headers.LastModifiedLower,
@@ -143,4 +164,15 @@ object BinaryTextSupport {
     output.endPrefixMapping(XMLConstants.XSI_PREFIX)
     output.endDocument()
   }
-}
\ No newline at end of file
+}
+
+// Reference to a temporary file which remains available until the end of the request
+class FileBinaryReference(file: File) extends BinaryReference {
+
+  def length: Long = file.length
+
+  def newInputStream: InputStream = new BufferedInputStream(new FileInputStream(file))
+
+  def writeBase64Characters(contentHandler: ContentHandler): Unit =
+    useAndClose(newInputStream)(SAXUtils.inputStreamToBase64Characters(_, contentHandler))
+}
@@ -20,12 +20,12 @@ import com.openhtmltopdf.util.{LogMessageId, XRLog}
 import org.orbeon.connection.ConnectionResult
 import org.orbeon.io.IOUtils
 import org.orbeon.oxf.externalcontext.{ExternalContext, SafeRequestContext, UrlRewriteMode}
-import org.orbeon.oxf.http.{Headers, HttpMethod}
+import org.orbeon.oxf.http.{Headers, HttpMethod, StatusCode}
 import org.orbeon.oxf.pipeline.api.PipelineContext
 import org.orbeon.oxf.util.ImageSupport.{compressJpegImage, findImageOrientation, findTransformation, transformImage}
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.oxf.util.TryUtils.*
-import org.orbeon.oxf.util.{Connection, ImageMetadata, IndentedLogger, ResourceResolver, URLRewriterUtils}
+import org.orbeon.oxf.util.{Connection, DateUtils, ImageMetadata, IndentedLogger, ResourceResolver, URLRewriterUtils}
 
 import java.io.*
 import java.net.URI
@@ -135,9 +135,27 @@ class OrbeonPdfBoxUserAgent(
     resource
   }
 
+  // Called for stylesheets. The same stylesheets are used by every render, so their content is kept by
+  // `PdfResourceCache` and only transferred again if modified.
   override protected def openReader(uri: String): Reader = {
     debug(s"openReader($uri)")
-    new InputStreamReader(openStream(uri), StandardCharsets.UTF_8)
+
+    val resolvedURI = resolveURI(uri)
+    val cachedOpt   = PdfResourceCache.findStylesheet(resolvedURI)
+    val cxr         = connect(resolvedURI, cachedOpt.map(_.lastModified))
+
+    cachedOpt match {
+      case Some(cached) if cxr.statusCode == StatusCode.NotModified =>
+        cxr.close()
+        new StringReader(cached.text)
+      case _ =>
+        val text =
+          ConnectionResult.withSuccessConnection(cxr, closeOnSuccess = true) { is =>
+            IOUtils.readStreamAsStringAndClose(new InputStreamReader(is, StandardCharsets.UTF_8))
+          }
+        cxr.lastModified.foreach(lastModified => PdfResourceCache.putStylesheet(resolvedURI, PdfResourceCache.Stylesheet(lastModified, text)))
+        new StringReader(text)
+    }
   }
 }
 
@@ -180,7 +198,14 @@ trait URIResolver extends NaiveUserAgent {
 
     debug(s"openStream($uri)")
 
-    val resolvedURI = resolveURI(uri)
+    val cxr = connect(resolveURI(uri), ifModifiedSinceOpt = None)
+
+    ConnectionResult.tryWithSuccessConnection(cxr, closeOnSuccess = false)(identity) doEitherWay {
+      pipelineContext.addContextListener((_: Boolean) => cxr.close())
+    } get
+  }
+
+  protected def connect(resolvedURI: String, ifModifiedSinceOpt: Option[Long]): ConnectionResult = {
 
     // TODO: Use xf:submission code instead
     // Tell callee we are loading that we are a servlet environment, as in effect we act like
@@ -194,26 +219,22 @@ trait URIResolver extends NaiveUserAgent {
       Connection.buildConnectionHeadersCapitalizedIfNeeded(
         url              = url,
         hasCredentials   = false,
-        customHeaders    = Map(Headers.OrbeonClient -> List("servlet")),
+        customHeaders    = Map(Headers.OrbeonClient -> List("servlet")) ++
+                             ifModifiedSinceOpt.map(lastModified => Headers.IfModifiedSince -> List(DateUtils.formatRfc1123DateTimeGmt(lastModified))),
         headersToForward = Connection.headersToForwardFromProperty,
         cookiesToForward = Connection.cookiesToForwardFromProperty,
         getHeader        = name => requestOpt flatMap (r => Connection.getHeaderFromRequest(r)(name))
       )
 
-    val cxr =
-      Connection.connectNow(
-        method           = HttpMethod.GET,
-        url              = url,
-        credentials      = None,
-        content          = None,
-        headers          = headers,
-        loadState        = true,
-        saveState        = true,
-        logBody          = false
-      )
-
-    ConnectionResult.tryWithSuccessConnection(cxr, closeOnSuccess = false)(identity) doEitherWay {
-      pipelineContext.addContextListener((_: Boolean) => cxr.close())
-    } get
+    Connection.connectNow(
+      method           = HttpMethod.GET,
+      url              = url,
+      credentials      = None,
+      content          = None,
+      headers          = headers,
+      loadState        = true,
+      saveState        = true,
+      logBody          = false
+    )
   }
 }
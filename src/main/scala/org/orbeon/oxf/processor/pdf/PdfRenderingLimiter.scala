@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor.pdf
+
+import org.orbeon.oxf.externalcontext.ExternalContext
+import org.orbeon.oxf.http.{Headers, HttpStatusCodeException, StatusCode}
+import org.orbeon.oxf.metrics.{Counter, Metrics}
+import org.orbeon.oxf.properties.PropertySet
+import org.orbeon.oxf.util.IndentedLogger
+import org.orbeon.oxf.util.Logging.*
+
+import java.util.concurrent.{Semaphore, TimeUnit}
+
+
+// Limit the number of PDF renders running at the same time, as each render uses a lot of CPU and memory, and a burst
+// of renders, for example from `pdf` actions, could otherwise use all the threads of the container.
+//
+// Renders run on the thread of the request, as they depend on the pipeline and external contexts. Renders above the
+// concurrency limit wait in a queue. A render is rejected with a 503 and `Retry-After`, without waiting, when the queue
+// is full, and after waiting when the queue timeout is reached.
+private[pdf] object PdfRenderingLimiter {
+
+  val PropertyPrefix = "oxf.fr.pdf.rendering."
+
+  case class Config(concurrency: Int, maxQueueDepth: Int, queueTimeoutMs: Long, retryAfterSeconds: Int)
+
+  object Config {
+    def apply(propertySet: PropertySet): Config =
+      Config(
+        concurrency       = propertySet.getInteger(PropertyPrefix + "concurrency",     Runtime.getRuntime.availableProcessors) max 1,
+        maxQueueDepth     = propertySet.getInteger(PropertyPrefix + "max-queue-depth", 50) max 0,
+        queueTimeoutMs    = propertySet.getInteger(PropertyPrefix + "queue-timeout",   60000).toLong,
+        retryAfterSeconds = propertySet.getInteger(PropertyPrefix + "retry-after",     10)
+      )
+  }
+
+  case class Stats(active: Int, queueDepth: Int, completed: Long, rejected: Long, totalRenderTimeMs: Long)
+
+  private val ActiveRenders   = Metrics.gauge("orbeon_pdf_rendering_active", "PDF renders running.")
+  private val QueueDepth      = Metrics.gauge("orbeon_pdf_rendering_queue_depth", "PDF renders waiting to run.")
+  private val RejectedName    = "orbeon_pdf_rendering_rejected_total"
+  private val RejectedHelp    = "PDF renders rejected because the queue was full or its timeout was reached."
+  private val RejectedFull    = Metrics.counter(RejectedName, RejectedHelp, "reason" -> "queue-full")
+  private val RejectedTimeout = Metrics.counter(RejectedName, RejectedHelp, "reason" -> "queue-timeout")
+  private val RenderTime      = Metrics.histogram("orbeon_pdf_rendering_microseconds", "Time taken by PDF renders.")
+
+  def stats: Stats =
+    Stats(
+      active            = ActiveRenders.get.toInt,
+      queueDepth        = QueueDepth.get.toInt,
+      completed         = RenderTime.count,
+      rejected          = RejectedFull.get + RejectedTimeout.get,
+      totalRenderTimeMs = RenderTime.sum / 1000
+    )
+
+  // `reducePermits()` is protected
+  private class ResizableSemaphore extends Semaphore(0, true) {
+    def reduce(n: Int): Unit = reducePermits(n)
+  }
+
+  private val semaphore = new ResizableSemaphore
+
+  @volatile private var concurrency = 0 // changed while holding the lock of `semaphore`
+
+  def withRenderingPermit[T](
+    config         : Config
+  )(
+    body           : => T
+  )(implicit
+    externalContext: ExternalContext,
+    indentedLogger : IndentedLogger
+  ): T = {
+
+    updateConcurrency(config.concurrency)
+
+    def reject(counter: Counter, reason: String): Nothing = {
+      counter.inc()
+      info(s"rejecting PDF render: $reason", List("queue depth" -> QueueDepth.get.toString, "active" -> ActiveRenders.get.toString))
+      Option(externalContext).flatMap(ec => Option(ec.getResponse)).foreach(_.setHeader(Headers.RetryAfter, config.retryAfterSeconds.toString))
+      throw HttpStatusCodeException(StatusCode.ServiceUnavailable)
+    }
+
+    // Unlike `tryAcquire()`, this doesn't take a permit ahead of the renders already waiting in the queue
+    if (! semaphore.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+      if (QueueDepth.inc() > config.maxQueueDepth) {
+        QueueDepth.dec()
+        reject(RejectedFull, "queue full")
+      }
+      val acquired =
+        try
+          semaphore.tryAcquire(config.queueTimeoutMs, TimeUnit.MILLISECONDS)
+        catch {
+          case e: InterruptedException =>
+            Thread.currentThread.interrupt()
+            throw e
+        } finally {
+          QueueDepth.dec()
+        }
+      if (! acquired)
+        reject(RejectedTimeout, "queue timeout")
+    }
+
+    ActiveRenders.inc()
+    val startTime = System.nanoTime
+    try {
+      body
+    } finally {
+      val renderTimeMicros = (System.nanoTime - startTime) / 1000
+      ActiveRenders.dec()
+      RenderTime.record(renderTimeMicros)
+      semaphore.release()
+      debug("PDF render done", List("time ms" -> (renderTimeMicros / 1000).toString, "queue depth" -> QueueDepth.get.toString, "active" -> ActiveRenders.get.toString))
+    }
+  }
+
+  // When the concurrency is lowered, the number of permits can become negative, so that renders in progress don't
+  // make room for new renders until the number of renders is below the new concurrency
+  private def updateConcurrency(newConcurrency: Int): Unit =
+    if (newConcurrency != concurrency)
+      semaphore.synchronized {
+        if (newConcurrency > concurrency)
+          semaphore.release(newConcurrency - concurrency)
+        else if (newConcurrency < concurrency)
+          semaphore.reduce(concurrency - newConcurrency)
+        concurrency = newConcurrency
+      }
+}
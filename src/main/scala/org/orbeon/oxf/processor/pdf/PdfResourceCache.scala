@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor.pdf
+
+import com.openhtmltopdf.extend.{FSCacheEx, FSCacheValue}
+import org.orbeon.io.IOUtils.useAndClose
+import org.orbeon.oxf.resources.ResourceManagerWrapper
+
+import java.io.{File, FileInputStream, InputStream}
+import java.util.concurrent.{Callable, ConcurrentHashMap}
+
+
+// Resources used by every PDF render, kept in memory across renders, which can run concurrently:
+//
+// - the content of the configured fonts, so that font files are not read again for each render
+// - the font metrics computed by the renderer, which otherwise parses each font file again for each render
+// - the content of stylesheets, keyed by URL, and revalidated with `If-Modified-Since`
+//
+// The font caches are cleared when the font configuration changes, whether because properties changed or because a
+// font file was modified.
+private[pdf] object PdfResourceCache {
+
+  sealed trait FontSource { val path: String }
+  object FontSource {
+    case class FilePath(path: String) extends FontSource
+    case class Resource(path: String) extends FontSource
+  }
+
+  case class FontConfiguration(source: FontSource, family: Option[String], lastModified: Long)
+
+  case class Stylesheet(lastModified: Long, text: String)
+
+  private val MaxStylesheets = 100
+
+  @volatile private var currentFontConfigurations: List[FontConfiguration] = Nil
+
+  private val fontContents = new ConcurrentHashMap[FontSource, Array[Byte]]
+  private val stylesheets  = new ConcurrentHashMap[String, Stylesheet]
+
+  // Passed to the renderer with `useCacheStore()`
+  object FontMetrics extends FSCacheEx[String, FSCacheValue] {
+
+    private val values = new ConcurrentHashMap[String, FSCacheValue]
+
+    def put(key: String, value: FSCacheValue): Unit                          = values.put(key, value)
+    def get(key: String): FSCacheValue                                        = values.get(key)
+    def get(key: String, loader: Callable[? <: FSCacheValue]): FSCacheValue =
+      values.computeIfAbsent(key, _ => loader.call())
+
+    def size: Int     = values.size
+    def clear(): Unit = values.clear()
+  }
+
+  def fontConfiguration(source: FontSource, family: Option[String]): FontConfiguration =
+    FontConfiguration(source, family, lastModified(source))
+
+  // Called before each render with the fonts to use
+  def updateFontConfigurations(configurations: List[FontConfiguration]): Unit =
+    synchronized {
+      if (configurations != currentFontConfigurations) {
+        fontContents.clear()
+        FontMetrics.clear()
+        currentFontConfigurations = configurations
+      }
+    }
+
+  def fontContent(source: FontSource): Array[Byte] =
+    fontContents.computeIfAbsent(source, _ => useAndClose(openFont(source))(_.readAllBytes()))
+
+  def findStylesheet(url: String): Option[Stylesheet] =
+    Option(stylesheets.get(url))
+
+  def putStylesheet(url: String, stylesheet: Stylesheet): Unit = {
+    // Stylesheets URLs are few in practice, but a bound avoids unlimited growth with dynamic URLs
+    if (stylesheets.size >= MaxStylesheets)
+      stylesheets.clear()
+    stylesheets.put(url, stylesheet)
+  }
+
+  private def lastModified(source: FontSource): Long =
+    source match {
+      case FontSource.FilePath(path) => new File(path).lastModified
+      case FontSource.Resource(path) => ResourceManagerWrapper.instance.lastModified(path, true)
+    }
+
+  private def openFont(source: FontSource): InputStream =
+    source match {
+      case FontSource.FilePath(path) => new FileInputStream(path)
+      case FontSource.Resource(path) => ResourceManagerWrapper.instance.getContentAsStream(path)
+    }
+}
@@ -23,7 +23,6 @@ import org.orbeon.oxf.processor.serializer.HttpSerializerBase
 import org.orbeon.oxf.processor.serializer.legacy.HttpBinarySerializer
 import org.orbeon.oxf.processor.{ProcessorImpl, ProcessorInput, ProcessorInputOutputInfo}
 import org.orbeon.oxf.properties.{Properties, PropertySet}
-import org.orbeon.oxf.resources.ResourceManagerWrapper
 import org.orbeon.oxf.util.*
 import org.orbeon.oxf.util.StringUtils.*
 import org.orbeon.oxf.xml.{ForwardingXMLReceiver, TransformerUtils, XMLParsing, XMLReceiver}
@@ -31,7 +30,7 @@ import org.w3c.dom.Document
 import org.xml.sax.Attributes
 import org.xml.sax.helpers.AttributesImpl
 
-import java.io.{FileInputStream, OutputStream}
+import java.io.{ByteArrayInputStream, OutputStream}
 import java.text.Normalizer
 import javax.xml.transform.dom.DOMResult
 import scala.util.Try
@@ -56,20 +55,31 @@ private object XHTMLToPDFProcessor {
   var DefaultContentType  = ContentTypes.PdfContentType
   val DefaultDotsPerPixel = 14 // default is 20, and makes things larger
 
-  private def embedFontsConfiguredInProperties(pdfRendererBuilder: CustomPdfRendererBuilder, propertySet: PropertySet): Unit =
+  private def fontConfigurationsFromProperties(propertySet: PropertySet): List[PdfResourceCache.FontConfiguration] =
     for {
       propName <- propertySet.propertiesStartsWith(PdfFontPathProperty) ++ propertySet.propertiesStartsWith(PdfFontResourceProperty)
-      path     <- propertySet.getNonBlankString(propName)
+      path     <- propertySet.getNonBlankString(propName).toList
       _ :: _ :: _ :: _ :: pathOrResource :: name :: Nil = propName.splitTo[List](".")
-    } locally {
+      source   <- pathOrResource match {
+                    case "path"     => List(PdfResourceCache.FontSource.FilePath(path))
+                    case "resource" => List(PdfResourceCache.FontSource.Resource(path))
+                    case _          => Nil
+                  }
+    } yield
+      PdfResourceCache.fontConfiguration(source, propertySet.getNonBlankString(s"$PdfFontFamilyPropertyPrefix$name"))
+
+  private val DefaultFontSource = PdfResourceCache.FontSource.Resource(DefaultFontPath)
+
+  // Font files are read once and then kept in memory, see `PdfResourceCache`
+  private def embedFontsConfiguredInProperties(
+    pdfRendererBuilder : CustomPdfRendererBuilder,
+    fontConfigurations : List[PdfResourceCache.FontConfiguration]
+  ): Unit =
+    fontConfigurations foreach { fontConfiguration =>
       try {
         pdfRendererBuilder.useFont(
-          () => pathOrResource match {
-            case "path"     => new FileInputStream(path)
-            case "resource" => ResourceManagerWrapper.instance.getContentAsStream(path)
-            case _          => throw new IllegalStateException
-          },
-          propertySet.getNonBlankString(s"$PdfFontFamilyPropertyPrefix$name").orNull,
+          () => new ByteArrayInputStream(PdfResourceCache.fontContent(fontConfiguration.source)),
+          fontConfiguration.family.orNull,
           400,
           FontStyle.NORMAL,
           true, // `subset`
@@ -77,13 +87,13 @@ private object XHTMLToPDFProcessor {
         )
       } catch {
         case NonFatal(t) =>
-          logger.warn(t)(s"Failed to load font with property `$propName` of value `$path`")
+          logger.warn(t)(s"Failed to load font `${fontConfiguration.source.path}`")
       }
     }
 
   private def embedDefaultFont(pdfRendererBuilder: CustomPdfRendererBuilder): Unit =
     pdfRendererBuilder.useFont(
-      () => ResourceManagerWrapper.instance.getContentAsStream(DefaultFontPath),
+      () => new ByteArrayInputStream(PdfResourceCache.fontContent(DefaultFontSource)),
       DefaultFontFamily,
       DefaultFontWeight,
       FontStyle.NORMAL,
@@ -120,6 +130,23 @@ class XHTMLToPDFProcessor extends HttpBinarySerializer {
     implicit val externalContext: ExternalContext = CoreCrossPlatformSupport.externalContext
     implicit val indentedLogger : IndentedLogger  = new IndentedLogger(XHTMLToPDFProcessor.logger)
 
+    val propertySet = Properties.instance.getPropertySet
+
+    PdfRenderingLimiter.withRenderingPermit(PdfRenderingLimiter.Config(propertySet)) {
+      renderPdf(pipelineContext, input, outputStream, propertySet)
+    }
+  }
+
+  private def renderPdf(
+    pipelineContext : PipelineContext,
+    input           : ProcessorInput,
+    outputStream    : OutputStream,
+    propertySet     : PropertySet
+  )(implicit
+    externalContext : ExternalContext,
+    indentedLogger  : IndentedLogger
+  ): Unit = {
+
     val pdfRendererBuilder = new CustomPdfRendererBuilder
     // 2026-05-13: We tried to enable the forwarding of `java.util.logging` to SLF4J, but it did not work. So we keep
     // the logging disabled for now, otherwise the logging ends up in the standard output.
@@ -127,8 +154,6 @@ class XHTMLToPDFProcessor extends HttpBinarySerializer {
 
     pdfRendererBuilder.useDefaultPageSize(8.5f, 11f, PageSizeUnits.INCHES)
 
-    val propertySet = Properties.instance.getPropertySet
-
     pdfRendererBuilder.usePdfUaAccessibility(propertySet.getBoolean("oxf.fr.pdf.accessibility", default = false))
 
     pdfRendererBuilder.usePdfAConformance(
@@ -146,7 +171,13 @@ class XHTMLToPDFProcessor extends HttpBinarySerializer {
       }
     )
 
-    embedFontsConfiguredInProperties(pdfRendererBuilder, propertySet)
+    val fontConfigurations = fontConfigurationsFromProperties(propertySet)
+    PdfResourceCache.updateFontConfigurations(
+      PdfResourceCache.fontConfiguration(DefaultFontSource, Some(DefaultFontFamily)) :: fontConfigurations
+    )
+    pdfRendererBuilder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, PdfResourceCache.FontMetrics)
+
+    embedFontsConfiguredInProperties(pdfRendererBuilder, fontConfigurations)
     embedDefaultFont(pdfRendererBuilder)
 
     IOUtils.useAndClose(outputStream) { os =>
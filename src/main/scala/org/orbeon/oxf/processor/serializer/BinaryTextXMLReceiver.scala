@@ -14,6 +14,7 @@
 package org.orbeon.oxf.processor.serializer
 
 import org.orbeon.dom.{Namespace, QName}
+import org.orbeon.io.IOUtils
 import org.orbeon.oxf.common.OXFException
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.externalcontext.ExternalContext.Response
@@ -24,7 +25,7 @@ import org.orbeon.oxf.util.StringUtils.*
 import org.orbeon.oxf.util.{Base64XMLReceiver, ContentTypes, DateUtils, TextXMLReceiver}
 import org.orbeon.oxf.xml.SaxonUtils.parseQName
 import org.orbeon.oxf.xml.XMLConstants.*
-import org.orbeon.oxf.xml.{XMLReceiver, XMLReceiverAdapter}
+import org.orbeon.oxf.xml.{BinaryReference, BinaryReferenceReceiver, XMLReceiver, XMLReceiverAdapter}
 import org.xml.sax.Attributes
 
 import java.io.*
@@ -45,7 +46,7 @@ class BinaryTextXMLReceiver(
   ignoreDocumentEncoding    : Boolean,
   headersToForward          : List[String]
 
-) extends XMLReceiverAdapter {
+) extends XMLReceiverAdapter with BinaryReferenceReceiver {
 
   require(! forceContentType || requestedContentType.get.nonAllBlank)
   require(! forceEncoding    || requestedEncoding.get.nonAllBlank)
@@ -201,6 +202,13 @@ class BinaryTextXMLReceiver(
   override def characters(ch: Array[Char], start: Int, length: Int): Unit =
     outputReceiver.characters(ch, start, length)
 
+  // Copy binary content as is, instead of encoding and decoding it again
+  def binaryReference(reference: BinaryReference): Unit =
+    outputReceiver match {
+      case _: Base64XMLReceiver => IOUtils.copyStreamAndClose(reference.newInputStream, outputStream, doCloseOut = false)
+      case _                    => reference.writeBase64Characters(this)
+    }
+
   override def endDocument(): Unit = {
     if (writer ne null)
       writer.flush()
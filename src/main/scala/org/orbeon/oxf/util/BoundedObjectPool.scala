@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.util
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import scala.util.control.NonFatal
+
+
+// Pool of objects which are expensive to create and not thread-safe, such as `Cipher` and `Deflater`.
+//
+// Borrowing and returning don't lock. Up to `maxIdle` idle objects are kept with hard references, so they are not
+// discarded under memory pressure. When more objects are in use at the same time, new objects are created, and
+// destroyed when returned.
+class BoundedObjectPool[T <: AnyRef](
+  maxIdle: Int,
+  create : () => T,
+  reset  : T => Unit = (_: T) => (),
+  destroy: T => Unit = (_: T) => ()
+) {
+
+  private val idle      = new ConcurrentLinkedQueue[T]
+  private val idleCount = new AtomicInteger(0)
+
+  def borrow(): T =
+    idle.poll() match {
+      case null => create()
+      case o    => idleCount.decrementAndGet(); o
+    }
+
+  def release(o: T): Unit = {
+
+    val reusable =
+      try {
+        reset(o)
+        true
+      } catch {
+        case NonFatal(_) => false
+      }
+
+    if (reusable && idleCount.incrementAndGet() <= maxIdle)
+      idle.offer(o)
+    else {
+      if (reusable)
+        idleCount.decrementAndGet()
+      destroy(o)
+    }
+  }
+
+  def withObject[U](body: T => U): U = {
+    val o = borrow()
+    try
+      body(o)
+    finally
+      release(o)
+  }
+
+  def numIdle: Int = idleCount.get
+}
+
+object BoundedObjectPool {
+  val DefaultMaxIdle: Int = Runtime.getRuntime.availableProcessors * 4
+}
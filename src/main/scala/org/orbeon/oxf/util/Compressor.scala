@@ -13,7 +13,6 @@
  */
 package org.orbeon.oxf.util
 
-import org.apache.commons.pool.BasePoolableObjectFactory
 import org.orbeon.io.IOUtils
 
 import java.io.{ByteArrayInputStream, ByteArrayOutputStream, OutputStream}
@@ -25,23 +24,38 @@ object Compressor {
   private val Logger = LoggerFactory.createLogger(getClass)
 
   // Use a Deflater pool as creating deflaters is expensive
-  private val deflaterPool = new SoftReferenceObjectPool(new DeflaterPoolableObjectFactory)
+  private val deflaterPool =
+    new BoundedObjectPool[Deflater](
+      maxIdle = BoundedObjectPool.DefaultMaxIdle,
+      create  = () => {
+        Logger.debug("creating new Deflater")
+        // Use BEST_SPEED as profiler shows that DEFAULT_COMPRESSION is slower
+        new Deflater(Deflater.BEST_SPEED, true)
+      },
+      reset   = _.reset(),
+      destroy = _.end() // release native memory right away
+    )
 
   private val BUFFER_SIZE = 1024 * 8
   private val TRAILER_SIZE = 8
 
   def compressBytes(bytesToEncode: Array[Byte], level: Int): Array[Byte] = {
-    val deflater = deflaterPool.borrowObject
+    val os = new ByteArrayOutputStream
+    IOUtils.useAndClose(compressingOutputStream(os, level))(_.write(bytesToEncode))
+    os.toByteArray
+  }
+
+  // Return a stream which writes gzip-compressed bytes to `out`, and closes `out` when closed
+  // The stream must be closed so that its `Deflater` returns to the pool.
+  def compressingOutputStream(out: OutputStream, level: Int = Deflater.BEST_SPEED): OutputStream = {
+    val deflater = deflaterPool.borrow()
     try {
       deflater.setLevel(level)
-      val os = new ByteArrayOutputStream
-      val gzipOS = new DeflaterGZIPOutputStream(deflater, os, BUFFER_SIZE)
-      gzipOS.write(bytesToEncode)
-      gzipOS.close()
-
-      os.toByteArray
-    } finally {
-      deflaterPool.returnObject(deflater)
+      new DeflaterGZIPOutputStream(deflater, out, BUFFER_SIZE)
+    } catch {
+      case NonFatal(t) =>
+        deflaterPool.release(deflater)
+        throw t
     }
   }
 
@@ -97,23 +111,6 @@ object Compressor {
     os.toByteArray
   }
 
-  private class DeflaterPoolableObjectFactory extends BasePoolableObjectFactory[Deflater] {
-
-    def makeObject: Deflater = {
-      Logger.debug("creating new Deflater")
-      // Use BEST_SPEED as profiler shows that DEFAULT_COMPRESSION is slower
-      new Deflater(Deflater.BEST_SPEED, true)
-    }
-
-    override def passivateObject(o: Deflater): Unit =
-      try
-        o.reset()
-      catch {
-        case NonFatal(t) =>
-          Logger.error(t)("exception while passivating `Deflater`")
-      }
-  }
-
   // GZIPOutputStream which uses a custom Deflater
   private class DeflaterGZIPOutputStream(deflater: Deflater, out: OutputStream, size: Int) extends GZIPOutputStream(out, size) {
 
@@ -123,11 +120,16 @@ object Compressor {
     private var closed = false
 
     // Override because default implementation calls def.close()
+    // Return the `Deflater` to the pool, as it is no longer used.
     override def close(): Unit =
       if (!closed) {
-        finish()
-        out.close()
         closed = true
+        try {
+          finish()
+          out.close()
+        } finally {
+          deflaterPool.release(deflater)
+        }
       }
 
 		// Override because IBM implementation calls def.end()
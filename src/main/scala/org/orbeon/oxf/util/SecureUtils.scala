@@ -14,16 +14,17 @@
 package org.orbeon.oxf.util
 
 import com.google.crypto.tink.subtle.{AesGcmJce, Base64 as TinkBase64}
-import org.apache.commons.pool.BasePoolableObjectFactory
 import org.log4s.Logger
 import org.orbeon.io.CharsetNames
 import org.orbeon.oxf.common.ConfigurationException
 import org.orbeon.oxf.properties.Properties
 import org.orbeon.oxf.util.CoreUtils.BooleanOps
 
+import java.io.OutputStream
 import java.security.{MessageDigest, SecureRandom, Security}
 import javax.crypto.spec.{IvParameterSpec, PBEKeySpec, SecretKeySpec}
-import javax.crypto.{Cipher, Mac, SecretKey, SecretKeyFactory}
+import javax.crypto.{Cipher, CipherOutputStream, Mac, SecretKey, SecretKeyFactory}
+import scala.util.control.NonFatal
 
 
 object SecureUtils extends SecureUtilsTrait {
@@ -193,18 +194,17 @@ object SecureUtils extends SecureUtilsTrait {
 
   // Cipher is not thread-safe, see:
   // https://stackoverflow.com/questions/6957406/is-cipher-thread-safe
-  private val pool = new SoftReferenceObjectPool(new BasePoolableObjectFactory[Cipher] {
-    def makeObject(): Cipher = preferredProviderOpt match {
+  // Each use of a cipher starts with `init()`, so there is nothing to reset when it is returned
+  private val pool = new BoundedObjectPool[Cipher](
+    maxIdle = BoundedObjectPool.DefaultMaxIdle,
+    create  = () => preferredProviderOpt match {
       case Some(preferred) => Cipher.getInstance(EncryptionCipherTransformation, preferred)
       case None            => Cipher.getInstance(EncryptionCipherTransformation)
     }
-  })
+  )
 
-  private def withCipher[T](body: Cipher => T) = {
-    val cipher = pool.borrowObject()
-    try body(cipher)
-    finally pool.returnObject(cipher)
-  }
+  private def withCipher[T](body: Cipher => T) =
+    pool.withObject(body)
 
   def checkPasswordForKeyUsage(keyUsage: KeyUsage): Boolean =
     try {
@@ -235,6 +235,34 @@ object SecureUtils extends SecureUtilsTrait {
       }
     }
 
+  // Return a stream which writes to `out` the IV followed by the encrypted bytes, that is the same bytes which `encrypt`
+  // encodes to Base64, and closes `out` when closed
+  // The stream must be closed so that its cipher returns to the pool.
+  def encryptingOutputStream(keyUsage: KeyUsage, out: OutputStream): OutputStream = {
+    val cipher = pool.borrow()
+    try {
+      cipher.init(Cipher.ENCRYPT_MODE, getOrComputeSecretKey(keyUsage))
+      out.write(cipher.getParameters.getParameterSpec(classOf[IvParameterSpec]).getIV)
+      new CipherOutputStream(out, cipher) {
+
+        private var closed = false
+
+        override def close(): Unit =
+          if (! closed) {
+            closed = true
+            try
+              super.close()
+            finally
+              pool.release(cipher)
+          }
+      }
+    } catch {
+      case NonFatal(t) =>
+        pool.release(cipher)
+        throw t
+    }
+  }
+
   // Decrypt a Base64-encoded string into a byte array
   def decrypt(keyUsage: KeyUsage, text: String): Array[Byte] = decryptIV(keyUsage, text, None)
 
@@ -14,10 +14,12 @@
 package org.orbeon.oxf.xml
 
 import org.orbeon.dom.Document
+import org.orbeon.io.IOUtils.useAndClose
 import org.orbeon.oxf.common.OXFException
-import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.oxf.util.{Compressor, SecureUtils}
 
+import java.io.OutputStream
+
 
 object EncodeDecode {
 
@@ -56,20 +58,35 @@ object EncodeDecode {
     compress     : Boolean,
     encrypt      : Boolean,
     keyUsage     : SecureUtils.KeyUsage
+  ): String =
+    encodeToString(compress, encrypt, keyUsage)(_.write(bytesToEncode))
+
+  // Encode the bytes written by `write` as `encodeBytes` does, but as a stream: bytes go through compression, then
+  // encryption, then Base64 encoding, without intermediate byte arrays.
+  def encodeToString(
+    compress     : Boolean,
+    encrypt      : Boolean,
+    keyUsage     : SecureUtils.KeyUsage
+  )(
+    write        : OutputStream => Unit
   ): String = {
 
-    // Compress if needed
-    val gzipByteArrayOpt =
-      compress option
-        Compressor.compressBytes(bytesToEncode)
-
-    // Encrypt/encode
-    (encrypt, gzipByteArrayOpt) match {
-      case (true,  None)                => "X1" + SecureUtils.encrypt(keyUsage, bytesToEncode)
-      case (true,  Some(gzipByteArray)) => "X2" + SecureUtils.encrypt(keyUsage, gzipByteArray)
-      case (false, None)                => "X3" + org.orbeon.oxf.util.Base64.encode(bytesToEncode, useLineBreaks = false)
-      case (false, Some(gzipByteArray)) => "X4" + org.orbeon.oxf.util.Base64.encode(gzipByteArray, useLineBreaks = false)
-    }
+    val prefix =
+      (encrypt, compress) match {
+        case (true,  false) => "X1"
+        case (true,  true)  => "X2"
+        case (false, false) => "X3"
+        case (false, true)  => "X4"
+      }
+
+    val sb = new java.lang.StringBuilder(prefix)
+
+    val base64OS  = java.util.Base64.getEncoder.wrap(new StringBuilderOutputStream(sb))
+    val encryptOS = if (encrypt)  SecureUtils.encryptingOutputStream(keyUsage, base64OS) else base64OS
+    val os        = if (compress) Compressor.compressingOutputStream(encryptOS)           else encryptOS
+
+    useAndClose(os)(write)
+    sb.toString
   }
 
   def decodeBytes(
@@ -95,4 +112,19 @@ object EncodeDecode {
     // Decompress if needed
     rawOrCompressedBytes.fold(identity, Compressor.uncompressBytes)
   }
-}
\ No newline at end of file
+
+  // Base64 output is ASCII, so each byte is a character
+  private class StringBuilderOutputStream(sb: java.lang.StringBuilder) extends OutputStream {
+
+    def write(b: Int): Unit =
+      sb.append((b & 0xff).toChar)
+
+    override def write(b: Array[Byte], off: Int, len: Int): Unit = {
+      var i = off
+      while (i < off + len) {
+        sb.append((b(i) & 0xff).toChar)
+        i += 1
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.controller
+
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.controller.PageFlowControllerProcessor.*
+import org.orbeon.oxf.http.HttpMethod
+import org.orbeon.oxf.xml.dom.Extensions.*
+import org.orbeon.oxf.xml.dom.IOSupport
+import org.scalatest.funspec.AnyFunSpecLike
+
+import java.io.{File, FileInputStream}
+import java.util.regex.Pattern
+
+
+class RouteIndexTest extends AnyFunSpecLike {
+
+  // Relative to the root of the build
+  private val PageFlowFiles = List(
+    "src/main/resources/page-flow.xml",
+    "src/test/resources/apps/unit-tests/page-flow.xml",
+    "form-runner/jvm/src/main/resources/apps/fr/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/home/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/xforms-bookcast/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/xforms-compiler/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/xforms-espresso/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/xforms-flickr-resize/page-flow.xml",
+    "orbeon-war/jvm/src/main/webapp/WEB-INF/resources/apps/xforms-hello/page-flow.xml"
+  )
+
+  private val Methods = List(None, Some(HttpMethod.GET), Some(HttpMethod.POST), Some(HttpMethod.PUT))
+
+  // Same as the PFC, with the default properties
+  private def readRouteElements(file: File): List[RouteElement] = {
+
+    val configRoot     = useAndClose(new FileInputStream(file))(IOSupport.readOrbeonDom).getRootElement
+    val defaultMatcher = configRoot.resolveAttValueQName(MatcherProperty, unprefixedIsNoNamespace = true) getOrElse DefaultMatcher
+
+    configRoot.elements.toList collect {
+      case e if e.getName == "files" =>
+        FileElement(e, defaultMatcher, defaultVersioned = false)
+      case e if e.getName == "page" || e.getName == "service" =>
+        PageOrServiceElement(e, defaultMatcher, PagePublicMethods, Set.empty)
+    }
+  }
+
+  private def supportsMethod(routeElement: RouteElement, method: HttpMethod): Boolean =
+    routeElement match {
+      case _: FileElement          => true
+      case e: PageOrServiceElement => e.supportedMethods(method)
+    }
+
+  // Paths around the literal part of each route, and a few paths which no route matches
+  private def samplePaths(routeElements: List[RouteElement]): List[String] = {
+
+    val prefixes =
+      routeElements map { e =>
+        val segments = RouteIndex.literalSegments(e.pattern)
+        if (segments.isEmpty) "/" else segments.mkString("", "/", "/")
+      }
+
+    val suffixes = List(
+      "", "x", "a/b", "orbeon/bookshelf/new", "orbeon/bookshelf/edit/123", "orbeon/bookshelf/summary",
+      "style.css", "images/logo.png", "service/persistence/crud/a/b/data/1/data.xml", "api/search/a/b",
+      "embed/a/b/new", "fr/orbeon/builder/new", "new", "edit/123", "view/123", "pdf/123/abc.pdf",
+      "summary", "home/", "test/", ".."
+    )
+
+    val knownPaths = List(
+      "", "/", "//", "/fr", "/fr/", "/fr/x", "/fr/service/custom/orbeon/builder/toolbox", "/fr/service/i18n/fr-resources/orbeon/bookshelf",
+      "/fr/orbeon/bookshelf/new", "/fr/orbeon/builder/new", "/fr/admin", "/fr/forms", "/xforms-server", "/xforms-server/dynamic/abc",
+      "/ops/javascript/orbeon.js", "/apps/fr/style/form-runner-base.css", "/home/", "/xforms-hello/", "/favicon.ico", "/metrics",
+      "/FR/orbeon/bookshelf/new"
+    )
+
+    (for (prefix <- prefixes.distinct; suffix <- suffixes) yield prefix + suffix) ++ knownPaths
+  }
+
+  describe("Indexed route dispatch") {
+
+    it("must find the literal path segments of patterns") {
+      assert(RouteIndex.literalSegments(Pattern.compile("/fr/service/.+")) == List("", "fr", "service"))
+      assert(RouteIndex.literalSegments(Pattern.compile("/fr/")) == List("", "fr"))
+      assert(RouteIndex.literalSegments(Pattern.compile("/fr")) == List(""))
+      assert(RouteIndex.literalSegments(Pattern.compile("/fr/?")) == List(""))
+      assert(RouteIndex.literalSegments(Pattern.compile("/a\\.b/c")) == List("", "a.b"))
+      assert(RouteIndex.literalSegments(Pattern.compile("/([^/]+)/service/.+")) == List(""))
+      assert(RouteIndex.literalSegments(Pattern.compile("/a/b|/c/d")) == Nil)
+      assert(RouteIndex.literalSegments(Pattern.compile("/a/(b|c)/d")) == List("", "a"))
+      assert(RouteIndex.literalSegments(Pattern.compile("/a/b", Pattern.CASE_INSENSITIVE)) == Nil)
+      assert(RouteIndex.literalSegments(Pattern.compile("\\Q/a/\\E.*")) == Nil)
+      assert(RouteIndex.literalSegments(Pattern.compile(".*\\.css")) == Nil)
+    }
+
+    for (path <- PageFlowFiles)
+      it(s"must find the same routes as a linear scan for `$path`") {
+
+        val file = new File(path)
+        assert(file.exists, s"missing `$path`")
+
+        val routeElements = readRouteElements(file)
+        assert(routeElements.nonEmpty)
+
+        val index      = new RouteIndex[RouteElement](routeElements, _.pattern, supportsMethod)
+        val findLinear = RouteIndex.findLinear[RouteElement](routeElements, _.pattern, supportsMethod) _
+
+        // Twice, so that the second time results come from the recently found paths
+        for (_ <- 1 to 2; path <- samplePaths(routeElements); method <- Methods) {
+
+          val indexed = index.find(path, method)
+          val linear  = findLinear(path, method)
+
+          assert(indexed.map(r => routeElements.indexWhere(_ eq r._1)) == linear.map(r => routeElements.indexWhere(_ eq r._1)), s"path: `$path`, method: $method")
+          assert(indexed.map(_._2) == linear.map(_._2), s"path: `$path`, method: $method")
+        }
+      }
+  }
+}
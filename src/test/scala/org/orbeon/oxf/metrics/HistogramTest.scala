@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.metrics
+
+import org.junit.Test
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.util.concurrent.{CountDownLatch, Executors, TimeUnit}
+
+
+class HistogramTest extends AssertionsForJUnit {
+
+  @Test def bucketBoundaries(): Unit = {
+
+    val values = (0L to 10000L) ++ List(1L << 20, (1L << 20) + 1, 123456789L, Long.MaxValue / 3, Long.MaxValue)
+
+    for (value <- values) {
+      val index = Histogram.bucketIndex(value)
+      assert(index >= 0 && index < Histogram.BucketCount)
+      assert(Histogram.lowestValue(index) <= value)
+      assert(Histogram.highestValue(index) >= value)
+      // Relative error of at most 1/8
+      assert((Histogram.highestValue(index) - Histogram.lowestValue(index)) <= Histogram.lowestValue(index) / 8)
+    }
+
+    assert(Histogram.bucketIndex(Long.MaxValue) == Histogram.BucketCount - 1)
+  }
+
+  @Test def concurrentUpdates(): Unit = {
+
+    val ThreadCount     = 8
+    val ValuesPerThread = 100 * 1000
+
+    val histogram = new Histogram
+    val executor  = Executors.newFixedThreadPool(ThreadCount)
+    val start     = new CountDownLatch(1)
+
+    try {
+      for (_ <- 1 to ThreadCount)
+        executor.submit((() => {
+          start.await()
+          for (value <- 1 to ValuesPerThread)
+            histogram.record(value)
+        }): Runnable)
+
+      start.countDown()
+    } finally {
+      executor.shutdown()
+      assert(executor.awaitTermination(60, TimeUnit.SECONDS))
+    }
+
+    val expectedCount = ThreadCount.toLong * ValuesPerThread
+    assert(histogram.count == expectedCount)
+    assert(histogram.bucketCounts.sum == expectedCount)
+    assert(histogram.sum == ThreadCount * (ValuesPerThread.toLong * (ValuesPerThread + 1) / 2))
+
+    // Each bucket has exactly the values in its range, once per thread
+    for ((count, index) <- histogram.bucketCounts.zipWithIndex) {
+      val inRange = ((Histogram.highestValue(index) min ValuesPerThread) - (Histogram.lowestValue(index) max 1) + 1) max 0
+      assert(count == inRange * ThreadCount)
+    }
+
+    for (percentile <- List(50.0, 90.0, 99.0, 100.0)) {
+      val exact    = math.ceil(percentile / 100 * ValuesPerThread).toLong
+      val reported = histogram.valueAtPercentile(percentile)
+      assert(reported >= exact)
+      assert(reported <= exact + exact / 8)
+    }
+  }
+
+  @Test def prometheusExport(): Unit = {
+
+    val histogram = Metrics.histogram("orbeon_test_histogram_microseconds", "Test histogram.", "kind" -> "test")
+    val counter   = Metrics.counter("orbeon_test_total", "Test counter.")
+    val gauge     = Metrics.gauge("orbeon_test_running", "Test gauge.")
+
+    List(5L, 100L, 100000L) foreach histogram.record
+    counter.add(3)
+    gauge.inc()
+    gauge.inc()
+    gauge.dec()
+
+    val lines = Metrics.prometheusText.linesIterator.toSet
+
+    assert(lines("# TYPE orbeon_test_histogram_microseconds histogram"))
+    assert(lines("""orbeon_test_histogram_microseconds_bucket{kind="test",le="7"} 1"""))
+    assert(lines("""orbeon_test_histogram_microseconds_bucket{kind="test",le="127"} 2"""))
+    assert(lines("""orbeon_test_histogram_microseconds_bucket{kind="test",le="+Inf"} 3"""))
+    assert(lines("""orbeon_test_histogram_microseconds_sum{kind="test"} 100105"""))
+    assert(lines("""orbeon_test_histogram_microseconds_count{kind="test"} 3"""))
+    assert(lines("# TYPE orbeon_test_total counter"))
+    assert(lines("orbeon_test_total 3"))
+    assert(lines("# TYPE orbeon_test_running gauge"))
+    assert(lines("orbeon_test_running 1"))
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor
+
+import org.junit.Test
+import org.orbeon.io.IOUtils.*
+import org.orbeon.oxf.processor.generator.DOMGenerator
+import org.orbeon.oxf.processor.pipeline.TeeProcessor
+import org.orbeon.oxf.processor.serializer.BinaryTextXMLReceiver
+import org.orbeon.oxf.processor.zip.{UnzipProcessor, ZipProcessor}
+import org.orbeon.oxf.test.{PipelineSupport, ResourceManagerTestBase}
+import org.orbeon.oxf.util.{ByteEncoding, PipelineUtils, SecureUtils}
+import org.orbeon.oxf.xml.dom.Converter.*
+import org.orbeon.oxf.xml.*
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.io.{ByteArrayOutputStream, File, FileInputStream, FileOutputStream}
+import java.net.URI
+import java.nio.file.Files
+import scala.util.Random
+
+
+class BinaryReferenceTest extends ResourceManagerTestBase with AssertionsForJUnit {
+
+  private val ContentLength = 5 * 1024 * 1024
+
+  private def withBinaryFile[T](length: Int)(body: (File, String) => T): T = {
+    val file = Files.createTempFile("orbeon-binary-reference", ".bin").toFile
+    try {
+      // Random content, so that it doesn't compress
+      val random = new Random(42)
+      val chunk  = new Array[Byte](1024 * 1024)
+      useAndClose(new FileOutputStream(file)) { os =>
+        var remaining = length
+        while (remaining > 0) {
+          random.nextBytes(chunk)
+          os.write(chunk, 0, chunk.length min remaining)
+          remaining -= chunk.length
+        }
+      }
+      body(file, digest(file))
+    } finally {
+      file.delete()
+    }
+  }
+
+  private def digest(file: File): String =
+    useAndClose(new FileInputStream(file))(SecureUtils.digestStream(_, "SHA-256"))
+
+  private def digest(bytes: Array[Byte]): String =
+    SecureUtils.digestBytes(bytes, "SHA-256", ByteEncoding.Hex)
+
+  private def readBinaryDocument(file: File, receiver: XMLReceiver): Unit =
+    BinaryTextSupport.readBinaryReference(new FileBinaryReference(file), receiver, "application/zip", null, -1, null, null)
+
+  private def serialize(saxStore: SAXStore): Array[Byte] = {
+    val os = new ByteArrayOutputStream
+    saxStore.replay(new BinaryTextXMLReceiver(os))
+    os.toByteArray
+  }
+
+  @Test def referenceKeptBySAXStore(): Unit =
+    withBinaryFile(ContentLength) { (file, expectedDigest) =>
+
+      val saxStore = new SAXStore
+      readBinaryDocument(file, saxStore)
+
+      // The content is not stored as base64 characters
+      assert(saxStore.charBufferPosition < 1024)
+      assert(digest(serialize(saxStore)) == expectedDigest)
+    }
+
+  @Test def referenceKeptByForwardingReceivers(): Unit =
+    withBinaryFile(ContentLength) { (file, expectedDigest) =>
+
+      // Receivers which only forward or check events
+      val saxStore = new SAXStore
+      readBinaryDocument(file, new ForwardingXMLReceiver(new InspectingXMLReceiver(new EmbeddedDocumentXMLReceiver(new SimpleForwardingXMLReceiver(saxStore)))))
+
+      assert(saxStore.charBufferPosition < 1024)
+      assert(digest(serialize(saxStore)) == expectedDigest)
+    }
+
+  @Test def base64ForReceiversProcessingText(): Unit =
+    withBinaryFile(ContentLength) { (file, expectedDigest) =>
+
+      var charactersCount = 0L
+
+      val os = new ByteArrayOutputStream
+      readBinaryDocument(file, new ForwardingXMLReceiver(new BinaryTextXMLReceiver(os)) {
+        override def characters(chars: Array[Char], start: Int, length: Int): Unit = {
+          charactersCount += length
+          super.characters(chars, start, length)
+        }
+      })
+
+      assert(charactersCount >= ContentLength * 4L / 3)
+      assert(digest(os.toByteArray) == expectedDigest)
+    }
+
+  @Test def base64WhenSerializingSAXStore(): Unit =
+    withBinaryFile(ContentLength) { (file, expectedDigest) =>
+
+      val saxStore = new SAXStore
+      readBinaryDocument(file, saxStore)
+
+      val deserialized = SAXStoreBinaryFormat.deserialize(SAXStoreBinaryFormat.serialize(saxStore))
+      assert(deserialized.charBufferPosition >= ContentLength * 4 / 3)
+
+      // The temporary file is no longer needed
+      file.delete()
+      assert(digest(serialize(deserialized)) == expectedDigest)
+    }
+
+  // Zip a file, then unzip it, through a tee as a pipeline does when the output of the zip processor has several
+  // readers. Without references, the tee would hold the base64 content of the zip file in memory.
+  @Test def zipUnzipPipeline(): Unit =
+    withBinaryFile(ContentLength) { (file, expectedDigest) =>
+      PipelineSupport.withPipelineContextAndTestExternalContext() { (pipelineContext, _) =>
+
+        val filesDocument =
+          <files filename="content.zip">
+            <file name="content.bin">{file.toURI.toString}</file>
+          </files>.toDocument
+
+        val generator = PipelineUtils.createDOMGenerator(filesDocument, "files", DOMGenerator.ZeroValidity, DOMGenerator.DefaultContext)
+        val zip       = new ZipProcessor
+        val tee       = new TeeProcessor(null)
+        val unzip     = new UnzipProcessor
+        val result    = new DOMSerializer
+
+        PipelineUtils.connect(generator, ProcessorImpl.OUTPUT_DATA, zip,    ProcessorImpl.INPUT_DATA)
+        PipelineUtils.connect(zip,       ProcessorImpl.OUTPUT_DATA, tee,    ProcessorImpl.INPUT_DATA)
+        PipelineUtils.connect(tee,       ProcessorImpl.OUTPUT_DATA, unzip,  ProcessorImpl.INPUT_DATA)
+        PipelineUtils.connect(unzip,     ProcessorImpl.OUTPUT_DATA, result, ProcessorImpl.INPUT_DATA)
+
+        // Second reader of the tee, which replays what the tee stored while the first reader read its input
+        val teeCopy       = new SAXStore
+        val teeCopyOutput = tee.createOutput(ProcessorImpl.OUTPUT_DATA)
+
+        tee.reset(pipelineContext)
+        val unzippedFiles = result.runGetDocument(pipelineContext).getRootElement.elements("file")
+        teeCopyOutput.read(pipelineContext, teeCopy)
+
+        // Neither the tee nor the second reader store the content of the zip file as base64 characters
+        assert(teeCopy.charBufferPosition < 1024)
+
+        assert(unzippedFiles.size == 1)
+        val unzippedFile = unzippedFiles.head
+        assert(unzippedFile.attributeValue("name") == "content.bin")
+        assert(unzippedFile.attributeValue("size") == ContentLength.toString)
+        assert(digest(new File(new URI(unzippedFile.getText.trim))) == expectedDigest)
+      }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor
+
+import org.junit.Test
+import org.orbeon.dom.Document
+import org.orbeon.oxf.common.OXFException
+import org.orbeon.oxf.pipeline.api.PipelineContext
+import org.orbeon.oxf.processor.generator.DOMGenerator
+import org.orbeon.oxf.processor.sql.SQLProcessor
+import org.orbeon.oxf.properties.{Properties, PropertySet, PropertyStore}
+import org.orbeon.oxf.test.ResourceManagerTestBase
+import org.orbeon.oxf.util.{PipelineUtils, SecureUtils}
+import org.orbeon.oxf.xml.dom.Converter.*
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.nio.file.Files
+import scala.xml.Elem
+
+
+class DatabaseContextTest extends ResourceManagerTestBase with AssertionsForJUnit {
+
+  private def withSQLiteDatasource[T](body: Datasource => T): T = {
+    val file = Files.createTempFile("orbeon-database-context", ".sqlite").toFile
+    try {
+      val datasource = new Datasource("org.sqlite.JDBC", "jdbc:sqlite:" + file.getAbsolutePath, null, null)
+      try
+        body(datasource)
+      finally
+        DatabaseContext.closeConnectionPool(datasource)
+    } finally {
+      file.delete()
+    }
+  }
+
+  private def defaultSQLPropertySet: PropertySet =
+    Properties.instance.getPropertySet(XPLConstants.SQL_PROCESSOR_QNAME)
+
+  private def sqlPropertySet(batchSize: Int): PropertySet =
+    PropertyStore.parse(
+      <properties xmlns:xs="http://www.w3.org/2001/XMLSchema">
+        <property as="xs:integer" name="batch-size" value={batchSize.toString}/>
+      </properties>.toDocument,
+      ""
+    ).globalPropertySet
+
+  private def withPipelineContext[T](body: PipelineContext => T): T = {
+    val pipelineContext = new PipelineContext("DatabaseContextTest")
+    var success = false
+    try {
+      val result = body(pipelineContext)
+      success = true
+      result
+    } finally {
+      pipelineContext.destroy(success)
+    }
+  }
+
+  // Run `oxf:sql` with the given configuration and data, in its own pipeline execution and transaction
+  private def runSQLProcessor(datasource: Datasource, propertySet: PropertySet, config: Elem, data: Elem): Document =
+    withPipelineContext { pipelineContext =>
+
+      // Generators are cached by id, so use a new id for each document
+      def generator(elem: Elem) =
+        PipelineUtils.createDOMGenerator(elem.toDocument, SecureUtils.randomHexId, DOMGenerator.ZeroValidity, DOMGenerator.DefaultContext)
+
+      val datasourceGenerator =
+        generator(
+          <datasource>
+            <driver-class-name>{datasource.getDriverClassName}</driver-class-name>
+            <uri>{datasource.getUri}</uri>
+          </datasource>
+        )
+
+      val sql = new SQLProcessor {
+        override protected def getPropertySet: PropertySet = propertySet
+      }
+      val result = new DOMSerializer
+
+      PipelineUtils.connect(generator(config),  ProcessorImpl.OUTPUT_DATA, sql,    ProcessorImpl.INPUT_CONFIG)
+      PipelineUtils.connect(datasourceGenerator, ProcessorImpl.OUTPUT_DATA, sql,    "datasource")
+      PipelineUtils.connect(generator(data),    ProcessorImpl.OUTPUT_DATA, sql,    ProcessorImpl.INPUT_DATA)
+      PipelineUtils.connect(sql,                ProcessorImpl.OUTPUT_DATA, result, ProcessorImpl.INPUT_DATA)
+
+      result.runGetDocument(pipelineContext)
+    }
+
+  private def createTable(datasource: Datasource): Unit =
+    runSQLProcessor(
+      datasource,
+      defaultSQLPropertySet,
+      <sql:config xmlns:sql="http://orbeon.org/oxf/xml/sql">
+        <result>
+          <sql:connection>
+            <sql:execute>
+              <sql:update>CREATE TABLE t (id INTEGER PRIMARY KEY, value VARCHAR(255))</sql:update>
+            </sql:execute>
+          </sql:connection>
+        </result>
+      </sql:config>,
+      <rows/>
+    )
+
+  private def insertRows(datasource: Datasource, propertySet: PropertySet, ids: Seq[Int]): Unit =
+    runSQLProcessor(
+      datasource,
+      propertySet,
+      <sql:config xmlns:sql="http://orbeon.org/oxf/xml/sql">
+        <result>
+          <sql:connection>
+            <sql:for-each select="/rows/row">
+              <sql:execute>
+                <sql:update>INSERT INTO t (id, value) VALUES (<sql:param type="xs:int" select="@id"/>, <sql:param type="xs:string" select="."/>)</sql:update>
+              </sql:execute>
+            </sql:for-each>
+          </sql:connection>
+        </result>
+      </sql:config>,
+      <rows>{ids.map(id => <row id={id.toString}>{s"value $id"}</row>)}</rows>
+    )
+
+  private def rowCount(datasource: Datasource): Int =
+    runSQLProcessor(
+      datasource,
+      defaultSQLPropertySet,
+      <sql:config xmlns:sql="http://orbeon.org/oxf/xml/sql">
+        <result>
+          <sql:connection>
+            <sql:execute>
+              <sql:query>SELECT count(*) AS c FROM t</sql:query>
+              <sql:result-set>
+                <sql:row-iterator>
+                  <count><sql:get-column-value type="xs:int" column="c"/></count>
+                </sql:row-iterator>
+              </sql:result-set>
+            </sql:execute>
+          </sql:connection>
+        </result>
+      </sql:config>,
+      <rows/>
+    ).getRootElement.element("count").getText.trim.toInt
+
+  @Test def connectionReusedAcrossPipelineContexts(): Unit =
+    withSQLiteDatasource { datasource =>
+      val first  = withPipelineContext(DatabaseContext.getConnection(_, datasource))
+      val second = withPipelineContext(DatabaseContext.getConnection(_, datasource))
+      assert(first eq second)
+      assert(! second.isClosed)
+    }
+
+  @Test def connectionNotSharedWithOtherPassword(): Unit =
+    withSQLiteDatasource { datasource =>
+
+      val otherPassword = new Datasource(datasource.getDriverClassName, datasource.getUri, datasource.getUsername, "other")
+      try {
+        val first  = withPipelineContext(DatabaseContext.getConnection(_, datasource))
+        val second = withPipelineContext(DatabaseContext.getConnection(_, otherPassword))
+        assert(first ne second)
+
+        // Within a single pipeline execution as well
+        withPipelineContext { pipelineContext =>
+          assert(DatabaseContext.getConnection(pipelineContext, datasource) ne DatabaseContext.getConnection(pipelineContext, otherPassword))
+        }
+      } finally {
+        DatabaseContext.closeConnectionPool(otherPassword)
+      }
+    }
+
+  @Test def idleConnectionsClosedWithPools(): Unit =
+    withSQLiteDatasource { datasource =>
+      val connection = withPipelineContext(DatabaseContext.getConnection(_, datasource))
+      DatabaseContext.closeConnectionPools()
+      assert(connection.isClosed)
+      assert(withPipelineContext(DatabaseContext.getConnection(_, datasource)) ne connection)
+    }
+
+  @Test def statementReusedOnceReleased(): Unit =
+    withSQLiteDatasource { datasource =>
+      withPipelineContext { pipelineContext =>
+        val connection = DatabaseContext.getConnection(pipelineContext, datasource)
+        val sql        = "SELECT 1"
+
+        val first = DatabaseContext.prepareStatement(pipelineContext, connection, sql)
+        // A statement in use is not shared
+        val other = DatabaseContext.prepareStatement(pipelineContext, connection, sql)
+        assert(first ne other)
+        DatabaseContext.releaseStatement(pipelineContext, other)
+
+        DatabaseContext.releaseStatement(pipelineContext, first)
+        assert(DatabaseContext.prepareStatement(pipelineContext, connection, sql) eq other)
+      }
+    }
+
+  @Test def forEachUpdatesWithDefaultProperties(): Unit =
+    withSQLiteDatasource { datasource =>
+      createTable(datasource)
+      insertRows(datasource, defaultSQLPropertySet, 1 to 1000)
+      assert(rowCount(datasource) == 1000)
+    }
+
+  @Test def forEachUpdatesBatched(): Unit =
+    withSQLiteDatasource { datasource =>
+
+      // Not a multiple of the batch size, so that the last batch is only sent at the end of the `sql:for-each`
+      val RowCount = 10 * 1000 + 42
+
+      createTable(datasource)
+      insertRows(datasource, sqlPropertySet(batchSize = 100), 1 to RowCount)
+      assert(rowCount(datasource) == RowCount)
+    }
+
+  @Test def forEachResultsReadAfterUpdates(): Unit =
+    withSQLiteDatasource { datasource =>
+
+      createTable(datasource)
+
+      // The body reads results, so the updates are not deferred and each query sees the row inserted before it
+      val result =
+        runSQLProcessor(
+          datasource,
+          sqlPropertySet(batchSize = 100),
+          <sql:config xmlns:sql="http://orbeon.org/oxf/xml/sql">
+            <result>
+              <sql:connection>
+                <sql:for-each select="/rows/row">
+                  <sql:execute>
+                    <sql:update>INSERT INTO t (id, value) VALUES (<sql:param type="xs:int" select="@id"/>, <sql:param type="xs:string" select="."/>)</sql:update>
+                  </sql:execute>
+                  <sql:execute>
+                    <sql:query>SELECT count(*) AS c FROM t</sql:query>
+                    <sql:result-set>
+                      <sql:row-iterator>
+                        <count><sql:get-column-value type="xs:int" column="c"/></count>
+                      </sql:row-iterator>
+                    </sql:result-set>
+                  </sql:execute>
+                </sql:for-each>
+              </sql:connection>
+            </result>
+          </sql:config>,
+          <rows>{(1 to 5).map(id => <row id={id.toString}>{s"value $id"}</row>)}</rows>
+        )
+
+      assert(result.getRootElement.elements("count").map(_.getText.trim.toInt) == (1 to 5))
+    }
+
+  @Test def failedBatchRolledBack(): Unit =
+    withSQLiteDatasource { datasource =>
+
+      createTable(datasource)
+
+      // The duplicate id only fails once its batch is sent
+      intercept[OXFException] {
+        insertRows(datasource, sqlPropertySet(batchSize = 100), List(1, 2, 3, 1, 4))
+      }
+      assert(rowCount(datasource) == 0)
+
+      // The connection returned to the pool after the rollback is still usable
+      insertRows(datasource, sqlPropertySet(batchSize = 100), List(1, 2, 3))
+      assert(rowCount(datasource) == 3)
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor.pdf
+
+import org.junit.Test
+import org.orbeon.oxf.externalcontext.ExternalContext
+import org.orbeon.oxf.http.{HttpStatusCodeException, StatusCode}
+import org.orbeon.oxf.metrics.Metrics
+import org.orbeon.oxf.util.{IndentedLogger, LoggerFactory}
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+
+class PdfRenderingLimiterTest extends AssertionsForJUnit {
+
+  private implicit val externalContext: ExternalContext = null
+  private implicit val indentedLogger : IndentedLogger  =
+    new IndentedLogger(LoggerFactory.createLogger(classOf[PdfRenderingLimiterTest]), true)
+
+  // Run a render which doesn't complete until `release` is counted down
+  private def withBlockedRender[T](config: PdfRenderingLimiter.Config)(body: => T): T = {
+
+    val started = new CountDownLatch(1)
+    val release = new CountDownLatch(1)
+
+    val thread = new Thread(() =>
+      PdfRenderingLimiter.withRenderingPermit(config) {
+        started.countDown()
+        release.await()
+      }
+    )
+    thread.start()
+    assert(started.await(10, TimeUnit.SECONDS))
+
+    try
+      body
+    finally {
+      release.countDown()
+      thread.join()
+    }
+  }
+
+  private def assertServiceUnavailable(config: PdfRenderingLimiter.Config): Unit = {
+    val e = intercept[HttpStatusCodeException](PdfRenderingLimiter.withRenderingPermit(config)(()))
+    assert(e.code == StatusCode.ServiceUnavailable)
+  }
+
+  @Test def rejectedWhenQueueFull(): Unit = {
+    val config = PdfRenderingLimiter.Config(concurrency = 1, maxQueueDepth = 0, queueTimeoutMs = 60000, retryAfterSeconds = 1)
+    withBlockedRender(config) {
+      assertServiceUnavailable(config)
+    }
+    // Once the render is done, the next one runs
+    assert(PdfRenderingLimiter.withRenderingPermit(config)(42) == 42)
+    assert(Metrics.prometheusText.linesIterator.exists(_.startsWith("""orbeon_pdf_rendering_rejected_total{reason="queue-full"} """)))
+  }
+
+  @Test def rejectedAfterQueueTimeout(): Unit = {
+    val config = PdfRenderingLimiter.Config(concurrency = 1, maxQueueDepth = 10, queueTimeoutMs = 100, retryAfterSeconds = 1)
+    withBlockedRender(config) {
+      assertServiceUnavailable(config)
+      assert(PdfRenderingLimiter.stats.queueDepth == 0)
+    }
+  }
+
+  @Test def lowerConcurrencyNotExceeded(): Unit = {
+    val config2 = PdfRenderingLimiter.Config(concurrency = 2, maxQueueDepth = 0, queueTimeoutMs = 60000, retryAfterSeconds = 1)
+    val config1 = config2.copy(concurrency = 1)
+    withBlockedRender(config2) {
+      withBlockedRender(config2) {
+        assertServiceUnavailable(config1)
+      }
+      // One render is still running, which is the new concurrency
+      assertServiceUnavailable(config1)
+      assert(PdfRenderingLimiter.stats.active == 1)
+    }
+    assert(PdfRenderingLimiter.withRenderingPermit(config1)(42) == 42)
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.processor.pdf
+
+import org.junit.Test
+import org.orbeon.oxf.processor.pdf.PdfResourceCache.FontSource
+import org.orbeon.oxf.test.ResourceManagerTestBase
+import org.scalatestplus.junit.AssertionsForJUnit
+
+import java.io.File
+import java.nio.file.Files
+
+
+class PdfResourceCacheTest extends ResourceManagerTestBase with AssertionsForJUnit {
+
+  private def withFontFile[T](body: File => T): T = {
+    val file = Files.createTempFile("orbeon-pdf-font", ".ttf").toFile
+    try {
+      Files.write(file.toPath, Array[Byte](1, 2, 3))
+      body(file)
+    } finally {
+      file.delete()
+    }
+  }
+
+  @Test def fontContentReadOnce(): Unit =
+    withFontFile { file =>
+      val source = FontSource.FilePath(file.getAbsolutePath)
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Test"))))
+
+      val content = PdfResourceCache.fontContent(source)
+      assert(content sameElements Array[Byte](1, 2, 3))
+
+      // Same configuration for the next render
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Test"))))
+      assert(PdfResourceCache.fontContent(source) eq content)
+    }
+
+  @Test def fontCachesClearedWhenFontModified(): Unit =
+    withFontFile { file =>
+      val source = FontSource.FilePath(file.getAbsolutePath)
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Test"))))
+      PdfResourceCache.fontContent(source)
+
+      Files.write(file.toPath, Array[Byte](4, 5))
+      file.setLastModified(file.lastModified + 10000)
+
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Test"))))
+      assert(PdfResourceCache.FontMetrics.size == 0)
+      assert(PdfResourceCache.fontContent(source) sameElements Array[Byte](4, 5))
+    }
+
+  @Test def fontCachesClearedWhenFamilyChanges(): Unit =
+    withFontFile { file =>
+      val source = FontSource.FilePath(file.getAbsolutePath)
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Test"))))
+      val content = PdfResourceCache.fontContent(source)
+
+      PdfResourceCache.updateFontConfigurations(List(PdfResourceCache.fontConfiguration(source, Some("Other"))))
+      assert(PdfResourceCache.fontContent(source) ne content)
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.xml
+
+import org.orbeon.oxf.test.ResourceManagerSupport
+import org.orbeon.oxf.util.{Base64, Compressor, SecureUtils}
+import org.scalatest.funspec.AnyFunSpecLike
+
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+import scala.jdk.CollectionConverters.*
+import scala.util.Random
+
+
+class EncodeDecodeTest
+  extends ResourceManagerSupport
+     with AnyFunSpecLike {
+
+  private val Sizes    = List(0, 1, 2, 3, 16, 100, 1000, 10000, 100000)
+  private val KeyUsage = SecureUtils.KeyUsage.General
+
+  // Compressible content, like serialized state
+  private def someBytes(size: Int): Array[Byte] =
+    Array.tabulate(size)(i => if (i % 7 == 0) Random.nextInt().toByte else (i % 13).toByte)
+
+  private def roundTrip(bytes: Array[Byte], compress: Boolean, encrypt: Boolean): Array[Byte] =
+    EncodeDecode.decodeBytes(EncodeDecode.encodeBytes(bytes, compress, encrypt, KeyUsage), forceEncryption = false, KeyUsage)
+
+  describe("Streaming encoding") {
+
+    for {
+      compress <- List(false, true)
+      encrypt  <- List(false, true)
+    } locally {
+      it(s"must round-trip with compress = $compress and encrypt = $encrypt") {
+        for (size <- Sizes) {
+          val bytes = someBytes(size)
+          assert(roundTrip(bytes, compress, encrypt) sameElements bytes)
+        }
+      }
+    }
+
+    it("must produce the same encoding as non-streaming Base64 and compression") {
+      for (size <- Sizes) {
+        val bytes = someBytes(size)
+        assert(EncodeDecode.encodeBytes(bytes, compress = false, encrypt = false, KeyUsage) == "X3" + Base64.encode(bytes, useLineBreaks = false))
+        assert(Compressor.uncompressBytes(Base64.decode(EncodeDecode.encodeBytes(bytes, compress = true, encrypt = false, KeyUsage).substring(2))) sameElements bytes)
+        assert(SecureUtils.decrypt(KeyUsage, EncodeDecode.encodeBytes(bytes, compress = false, encrypt = true, KeyUsage).substring(2)) sameElements bytes)
+      }
+    }
+
+    it("must round-trip with 64 threads") {
+
+      val ThreadCount   = 64
+      val RunsPerThread = 50
+
+      val executor = Executors.newFixedThreadPool(ThreadCount)
+      try {
+        val tasks =
+          (1 to ThreadCount).map { _ =>
+            (() => {
+              (1 to RunsPerThread).forall { run =>
+                val bytes = someBytes(Sizes(run % Sizes.size))
+                roundTrip(bytes, compress = true, encrypt = true) sameElements bytes
+              }
+            }): Callable[Boolean]
+          }
+
+        val results = executor.invokeAll(tasks.asJava).asScala.map(_.get)
+        assert(results.forall(identity))
+      } finally {
+        executor.shutdown()
+        executor.awaitTermination(60, TimeUnit.SECONDS)
+      }
+    }
+  }
+}
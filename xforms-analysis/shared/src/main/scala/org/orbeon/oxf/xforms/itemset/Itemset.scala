@@ -18,6 +18,21 @@ import org.orbeon.saxon.om
 
 class Itemset(val multiple: Boolean, val hasCopy: Boolean) extends ItemContainer {
 
+  // The JSON representation without selection information only depends on the items and on the parameters, so we keep
+  // the last one computed. The itemset can be static or shared by repeat iterations, so this can be accessed
+  // concurrently, but at worst the value is computed more than once.
+  @volatile private var lastJson: (Boolean, Boolean, String) = null
+
+  def cachedJson(encode: Boolean, excludeWhitespaceTextNodes: Boolean)(compute: => String): String =
+    lastJson match {
+      case (`encode`, `excludeWhitespaceTextNodes`, json) =>
+        json
+      case _ =>
+        val json = compute
+        lastJson = (encode, excludeWhitespaceTextNodes, json)
+        json
+    }
+
   def iterateSelectedItems(
     dataValue                  : Item.Value[om.NodeInfo],
     compareAtt                 : om.NodeInfo => Boolean,
@@ -30,5 +30,6 @@ object XFormsGlobalProperties {
   def uploadXFormsAccessTimeout : Long    = propertySet.getInteger(PropertyPrefix + "upload.delay-before-xforms-timeout", default = 45000).toLong
   def getRetryDelayIncrement    : Int     = propertySet.getInteger(PropertyPrefix + "retry.delay-increment",              default = 5000)
   def getRetryMaxDelay          : Int     = propertySet.getInteger(PropertyPrefix + "retry.max-delay",                    default = 30000)
+  def getSubmissionMaxConcurrent: Int     = propertySet.getInteger(PropertyPrefix + "submission-max-concurrent-global",   default = 64)
   def isKeepLocation            : Boolean = propertySet.getString (PropertyPrefix + "location-mode", "none") != "none"
 }
\ No newline at end of file
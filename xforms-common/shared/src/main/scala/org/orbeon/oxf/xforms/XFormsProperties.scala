@@ -103,6 +103,7 @@ object XFormsProperties {
   val ShowErrorDialogProperty                         = "show-error-dialog"
 
   val AsyncSubmissionPollDelay                        = "submission-poll-delay"
+  val AsyncSubmissionMaxConcurrent                    = "submission-max-concurrent"
 
   val UseAriaProperty                                 = "use-aria"
 
@@ -214,6 +215,7 @@ object XFormsProperties {
       PropertyDefinition(ShowRecoverableErrorsProperty,                   10,                          propagateToClient = false),
       PropertyDefinition(EncryptItemValuesProperty,                       true,                        propagateToClient = false),
       PropertyDefinition(AsyncSubmissionPollDelay,                        10 * 1000,                   propagateToClient = false),
+      PropertyDefinition(AsyncSubmissionMaxConcurrent,                    0,                           propagateToClient = false),
       PropertyDefinition(AjaxUpdateFullThreshold,                         20,                          propagateToClient = false),
       PropertyDefinition(NoUpdates,                                       false,                       propagateToClient = false),
       PropertyDefinition(Xforms11SwitchProperty,                          false,                       propagateToClient = false),
@@ -35,7 +35,6 @@ import scala.jdk.CollectionConverters.*
 //
 // - make more use of string table
 //   - `dependentModels`, `dependentInstances`
-//   - `expressionOrConstant`: are all the values in the string table?
 // - `ElementAnalysis`: only output element attributes that are needed
 //   - for example don't output `id`
 //   - check all usages of attributes in static controls and callers of `.element`
@@ -45,6 +44,9 @@ import scala.jdk.CollectionConverters.*
 //
 object XFormsStaticStateSerializer {
 
+  // Version 2: attribute values, text, ids and expressions can be references to the string table
+  val FormatVersion = 2
+
   // NOTE: `deriveEncoder` doesn't work because of `private` case class constructor.
   implicit val encodeQName: Encoder[dom.QName] = (a: dom.QName) => {
 
@@ -87,15 +89,18 @@ object XFormsStaticStateSerializer {
           }
         }
 
-    val (
-      collectedStringsInOrder      : Iterable[String],
-      collectedStringsWithPositions: Map[String, Int]
-    ) = {
+    // Strings which repeat, such as attribute values, ids and expressions, are output once in this table and
+    // referred to by position. The strings of the templates are added first, and other strings as they are
+    // encoded, so the table must be output last.
+    val collectedStringsWithPositions = mutable.LinkedHashMap[String, Int]()
 
-      val distinct = mutable.LinkedHashSet[String]()
+    def stringRef(s: String): Int =
+      collectedStringsWithPositions.getOrElseUpdate(s, collectedStringsWithPositions.size)
+
+    locally {
 
       def processSAXStore(s: SAXStore): Unit =
-        s.stringBuilder.iterator.asScala foreach (distinct +=)
+        s.stringBuilder.iterator.asScala foreach stringRef
 
       processSAXStore(template)
 
@@ -107,8 +112,6 @@ object XFormsStaticStateSerializer {
         case e: ComponentControl => e.bindingOpt foreach (b => processSAXStore(b.templateTree))
         case _ =>
       }
-
-      (distinct, distinct.zipWithIndex.toMap)
     }
 
     implicit val encodeSAXStore: Encoder[SAXStore] = (a: SAXStore) => {
@@ -143,7 +146,7 @@ object XFormsStaticStateSerializer {
       b += "attributeCountBufferPosition" -> Json.fromInt(a.attributeCountBufferPosition)
       b += "attributeCountBuffer"         -> a.attributeCountBuffer.slice(0, a.attributeCountBufferPosition).asJson
       b += "attributeCount"               -> Json.fromInt(a.attributeCount)
-      b += "stringBuilder"                -> a.stringBuilder.asScala.map(collectedStringsWithPositions).asJson
+      b += "stringBuilder"                -> a.stringBuilder.asScala.map(stringRef).asJson
       if (a.hasDocumentLocator)
         b += "hasDocumentLocator"           -> Json.fromBoolean(a.hasDocumentLocator)
       //    write(out, if (a.publicId == null) "" else a.publicId)
@@ -369,7 +372,7 @@ object XFormsStaticStateSerializer {
 
     def appendElemAndAtts(a: dom.Element, b: ListBuffer[(String, Json)]) = {
       b += "name" -> Json.fromInt(collectedQNamesWithPositions(a.getQName))
-      val atts = (a.attributeIterator map (a => (collectedQNamesWithPositions(a.getQName), a.getValue))).toList
+      val atts = (a.attributeIterator map (a => (collectedQNamesWithPositions(a.getQName), stringRef(a.getValue)))).toList
       if (atts.nonEmpty)
         b += "atts" -> atts.asJson
     }
@@ -383,7 +386,7 @@ object XFormsStaticStateSerializer {
       val children =
         a.content collect {
           case n: dom.Element => n.asJson // recurse
-          case n: dom.Text    => Json.fromString(n.getStringValue)
+          case n: dom.Text    => Json.fromInt(stringRef(n.getStringValue))
         }
 
       if (children.nonEmpty)
@@ -424,8 +427,10 @@ object XFormsStaticStateSerializer {
       "children" -> a.children.asJson
     )
 
-    implicit val eitherEncoder: Encoder[Either[String, String]] =
-      Encoder.encodeEither("left", "right")
+    implicit val eitherEncoder: Encoder[Either[String, String]] = {
+      case Left(value)  => Json.obj("left"  -> Json.fromInt(stringRef(value)))
+      case Right(value) => Json.obj("right" -> Json.fromInt(stringRef(value)))
+    }
 
     def maybeWithSpecificElementAnalysisFields(a: ElementAnalysis, b: ListBuffer[(String, Json)]): Unit =
       a match {
@@ -503,7 +508,7 @@ object XFormsStaticStateSerializer {
             b += "name"       -> a.name.asJson
             if (a.level != ValidationLevel.ErrorLevel)
               b += "level"      -> a.level.asJson
-            b += "expression" -> Json.fromString(a.compiledExpression.string)
+            b += "expression" -> Json.fromInt(stringRef(a.compiledExpression.string))
             if (a.analysis.figuredOutDependencies)
               b += "analysis" -> a.analysis.some.asJson
 
@@ -680,13 +685,13 @@ object XFormsStaticStateSerializer {
       // Don't serialize the index and just recreate in order when deserializing
       b += "element"           -> encodeLocalElementOnly(a.element)
       // Reconstitute `staticId` from the `prefixedId` when deserializing
-      b += "prefixedId"        -> Json.fromString(a.prefixedId)
+      b += "prefixedId"        -> Json.fromInt(stringRef(a.prefixedId))
       b += "nsRef"             -> Json.fromInt(collectedNamespacesWithPositions(a.namespaceMapping.mapping))
       b += "scopeRef"          -> Json.fromInt(collectedScopesWithPositions(a.scope))
       // Assume that in many case they are the same
       if (a.containerScope != a.scope)
         b += "containerScopeRef" -> Json.fromInt(collectedScopesWithPositions(a.containerScope))
-      b += "modelRef"          -> (a.model map (_.prefixedId) map Json.fromString).asJson
+      b += "modelRef"          -> (a.model map (_.prefixedId) map stringRef).asJson
       if (a.lang != LangRef.Undefined)
         b += "langRef"           -> a.lang.asJson
 
@@ -730,17 +735,26 @@ object XFormsStaticStateSerializer {
         "namespaces" -> Json.fromInt(collectedNamespacesWithPositions(a.namespaces))
       )
 
-    implicit val encodeXFormsStaticState: Encoder[XFormsStaticState] = (a: XFormsStaticState) => Json.obj(
-      "strings"              -> collectedStringsInOrder.asJson,
-      "namespaces"           -> collectedNamespacesInOrder.asJson,
-      "qnames"               -> collectedQNamesInOrder.asJson,
-      "nonDefaultProperties" -> a.nonDefaultProperties.asJson,
-      "properties"           -> CoreCrossPlatformSupport.properties.propertyParams.asJson,
-      "commonBindings"       -> collectedCommonBindingsInOrder.asJson,
-      "scopes"               -> collectedScopesInOrder.asJson,
-      "topLevelPart"         -> a.topLevelPart.asJson,
-      "template"             -> template.asJson
-    )
+    implicit val encodeXFormsStaticState: Encoder[XFormsStaticState] = (a: XFormsStaticState) => {
+
+      // Encode everything else first, as this adds to the string table
+      val fields = List(
+        "namespaces"           -> collectedNamespacesInOrder.asJson,
+        "qnames"               -> collectedQNamesInOrder.asJson,
+        "nonDefaultProperties" -> a.nonDefaultProperties.asJson,
+        "properties"           -> CoreCrossPlatformSupport.properties.propertyParams.asJson,
+        "commonBindings"       -> collectedCommonBindingsInOrder.asJson,
+        "scopes"               -> collectedScopesInOrder.asJson,
+        "topLevelPart"         -> a.topLevelPart.asJson,
+        "template"             -> template.asJson
+      )
+
+      Json.fromFields(
+        ("version" -> Json.fromInt(FormatVersion)) ::
+        ("strings" -> collectedStringsWithPositions.keys.asJson) ::
+        fields
+      )
+    }
 
     staticState.asJson.noSpaces
   }
@@ -17,6 +17,7 @@ import org.orbeon.dom.QName
 import org.orbeon.oxf.xforms.analysis.model.Types.StringQNames
 import org.orbeon.oxf.xforms.xbl.BindingDescriptor.EmptySet
 
+import java.util as ju
 import scala.collection.mutable
 
 
@@ -68,12 +69,13 @@ object BindingIndex {
   def distinctBindings[T <: AnyRef](index: BindingIndex[T]): List[T] = {
 
     val builder = mutable.ListBuffer[T]()
+    val seen    = ju.Collections.newSetFromMap(new ju.IdentityHashMap[T, java.lang.Boolean])
 
     val allIterator = index.iterateDescriptors2
 
     allIterator foreach {
       case (_, binding) =>
-        if (! (builder exists (_ eq binding)))
+        if (seen.add(binding))
           builder += binding
     }
 
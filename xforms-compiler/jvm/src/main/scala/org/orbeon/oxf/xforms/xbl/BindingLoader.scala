@@ -364,42 +364,43 @@ trait BindingLoader extends Logging {
     indentedLogger: IndentedLogger
   ): BindingIndex[IndexableBinding] = {
 
+    // All the bindings of a path are loaded together, so check each path once against its oldest binding
+    val oldestLastModifiedByPath =
+      BindingIndex.distinctBindings(index)
+        .collect { case binding if binding.path.exists(paths) => binding.path.get -> binding.lastModified }
+        .groupMapReduce(_._1)(_._2)(_ min _)
+
     var currentIndex = index
 
-    for {
-      path    <- paths
-      binding <- BindingIndex.distinctBindingsForPath(currentIndex, path)
-    } locally {
-      currentIndex = updateBindingIfOutOfDate(currentIndex, path, binding.lastModified)
-    }
+    for ((path, lastModified) <- oldestLastModifiedByPath)
+      currentIndex = updateBindingIfOutOfDate(currentIndex, path, lastModified)
 
     currentIndex
   }
 
+  // Mappings for the last `PropertySet` seen, which is replaced as a whole when properties are reloaded
+  @volatile private var urlMappingsForPropertySet: Option[(PropertySet, Map[String, String])] = None
+
   // E.g. `http://orbeon.org/oxf/xml/form-runner -> orbeon`
-  // NOTE: The caching is not optimal, as we need, to cache, to iterate all properties with propertiesStartsWith!
-  // Would need a way to cache against PropertySet.
   private def readURLMappingsCacheAgainstProperty: Map[String, String] = {
 
     val propertySet = getPropertySet
 
-    val mappingProperties = propertySet.propertiesStartsWith(XBLMappingPropertyPrefix, matchWildcards = false)
-
-    def evaluate(property: Property) = (
-      for {
-        propertyName <- mappingProperties
-        uri          = propertySet.getNonBlankString(propertyName) getOrElse ""
-        prefix       = propertyName.substring(XBLMappingPropertyPrefix.length)
-      } yield
-        uri -> prefix
-    ) toMap
-
-    // Associate result with the property so it won't be computed until properties are reloaded
-    mappingProperties.headOption match {
-      case Some(firstPropertyName) =>
-        propertySet.getPropertyOrThrow(firstPropertyName).associatedValue(evaluate)
-      case None =>
-        Map()
+    urlMappingsForPropertySet match {
+      case Some((cachedPropertySet, mappings)) if cachedPropertySet eq propertySet =>
+        mappings
+      case _ =>
+        val mappings = (
+          for {
+            propertyName <- propertySet.propertiesStartsWith(XBLMappingPropertyPrefix, matchWildcards = false)
+            uri          = propertySet.getNonBlankString(propertyName) getOrElse ""
+            prefix       = propertyName.substring(XBLMappingPropertyPrefix.length)
+          } yield
+            uri -> prefix
+        ) toMap
+
+        urlMappingsForPropertySet = Some(propertySet -> mappings)
+        mappings
     }
   }
 
@@ -1,5 +1,6 @@
 package org.orbeon.oxf.xforms
 
+import io.circe.parser.*
 import org.orbeon.oxf.processor.ProcessorUtils
 import org.orbeon.oxf.test.{PipelineSupport, ResourceManagerSupport}
 import org.orbeon.oxf.util.IndentedLogger
@@ -11,23 +12,44 @@ class XFormsStaticStateSerializerTest
   extends ResourceManagerSupport
      with AnyFunSpecLike {
 
+  private def serialize(documentURL: String): String =
+    PipelineSupport.withPipelineContextAndTestExternalContext() { (_, _) =>
+
+      implicit val indentedLogger: IndentedLogger = Loggers.newIndentedLogger("compiler")
+
+      val (template, staticState) = PartAnalysisBuilder.createFromDocument(ProcessorUtils.createDocumentFromURL(documentURL, null))
+
+      XFormsStaticStateSerializer.serialize(template, staticState)
+    }
+
   describe("State serialization") {
 
     it("must serialize without errors") {
 
       val DocumentURL = "oxf:/apps/xforms-compiler/forms/multiple-fields.xhtml"
 
-      PipelineSupport.withPipelineContextAndTestExternalContext() { (_, _) =>
+      parse(serialize(DocumentURL))
+        .getOrElse(throw new IllegalArgumentException("Invalid JSON"))
+    }
 
-        implicit val indentedLogger: IndentedLogger = Loggers.newIndentedLogger("compiler")
+    for (form <- List("hello", "date", "multiple-fields"))
+      it(s"must output each string once and refer to it for `$form`") {
 
-        val (template, staticState) = PartAnalysisBuilder.createFromDocument(ProcessorUtils.createDocumentFromURL(DocumentURL, null))
+        val json = parse(serialize(s"oxf:/apps/xforms-compiler/forms/$form.xhtml"))
+          .getOrElse(throw new IllegalArgumentException("Invalid JSON"))
 
-        import io.circe.parser.*
+        val c       = json.hcursor
+        val strings = c.get[List[String]]("strings").getOrElse(throw new IllegalArgumentException)
 
-        parse(XFormsStaticStateSerializer.serialize(template, staticState))
-          .getOrElse(throw new IllegalArgumentException("Invalid JSON"))
+        assert(c.get[Int]("version").contains(XFormsStaticStateSerializer.FormatVersion))
+        assert(strings.distinct.size == strings.size)
+
+        val topLevelControls = c.downField("topLevelPart").downField("topLevelControls").values.toList.flatten
+        assert(topLevelControls.nonEmpty)
+        topLevelControls foreach { control =>
+          val prefixedIdRef = control.hcursor.get[Int]("prefixedId").getOrElse(throw new IllegalArgumentException)
+          assert(prefixedIdRef >= 0 && prefixedIdRef < strings.size)
+        }
       }
-    }
   }
 }
@@ -4,7 +4,7 @@ import cats.syntax.option.*
 import io.circe.generic.auto.*
 import io.circe.generic.semiauto.*
 import io.circe.parser.decode
-import io.circe.{Decoder, DecodingFailure, HCursor, KeyDecoder}
+import io.circe.{Decoder, DecodingFailure, HCursor, Json, KeyDecoder}
 import org.orbeon.datatypes.MaximumSize
 import org.orbeon.dom
 import org.orbeon.oxf.http.BasicCredentials
@@ -49,6 +49,34 @@ object XFormsStaticStateDeserializer {
   implicit final val decodeInt: Decoder[Int] = (c: HCursor) =>
     c.value.asNumber.map(_.toDouble.toInt).toRight(DecodingFailure("Custom Int", c.history))
 
+  // Highest version of the format produced by `XFormsStaticStateSerializer` which we can read. Version 1 has no
+  // `version` property.
+  val FormatVersion = 2
+
+  val decodeFormatVersion: Decoder[Int] = (c: HCursor) =>
+    for {
+      version <- c.getOrElse[Int]("version")(1)
+      _       <- Either.cond(version <= FormatVersion, (), DecodingFailure(s"Unsupported format version: $version", c.history))
+    } yield
+      version
+
+  // Starting with version 2, a string can be a reference to the string table
+  def stringOrRefDecoder(strings: => IndexedSeq[String]): Decoder[String] = (c: HCursor) =>
+    c.value.asString match {
+      case Some(s) => Right(s)
+      case None    => decodeInt(c).map(strings)
+    }
+
+  // Expressions and constants
+  def stringOrRefEitherDecoder(strings: => IndexedSeq[String]): Decoder[Either[String, String]] = {
+    val decodeStringOrRef = stringOrRefDecoder(strings)
+    (c: HCursor) =>
+      if (c.value.asObject.exists(_.contains("left")))
+        c.get[String]("left")(decodeStringOrRef).map(Left.apply)
+      else
+        c.get[String]("right")(decodeStringOrRef).map(Right.apply)
+  }
+
   def deserialize(
     jsonString         : String,
     resourceResolverOpt: Option[ResourceResolver],
@@ -71,6 +99,11 @@ object XFormsStaticStateDeserializer {
 
     var controlStack: List[ElementAnalysis] = Nil
 
+    val decodeStringOrRef: Decoder[String] = stringOrRefDecoder(collectedStrings)
+
+    def stringOrRef(json: Json): String =
+      decodeStringOrRef.decodeJson(json).fold(throw _, identity)
+
     object Index {
 
       val controlAnalysisMap = mutable.LinkedHashMap[String, ElementAnalysis]()
@@ -297,13 +330,14 @@ object XFormsStaticStateDeserializer {
     implicit lazy val decodeElement: Decoder[dom.Element] = (c: HCursor) =>
       for {
         nameIndex   <- c.get[Int]("name")
-        attsIndexes <- c.getOrElse[List[(Int, String)]]("atts")(Nil)
+        attsIndexes <- c.getOrElse[List[(Int, Json)]]("atts")(Nil)
         children <- {
 
           val childIt =
             if (c.value.asObject.exists(_.contains("children")))
               c.downField("children").values.iterator.flatten map {
                 case s if s.isString => s.asString.map(dom.Text.apply).toRight(throw new IllegalArgumentException)
+                case s if s.isNumber => Right(dom.Text(stringOrRef(s)))
                 case s if s.isObject => decodeElement.decodeJson(s)
                 case s               => throw new IllegalArgumentException
               }
@@ -314,7 +348,7 @@ object XFormsStaticStateDeserializer {
         }
       } yield {
         val r = dom.Element(collectedQNames(nameIndex))
-        attsIndexes foreach { case (index, value) => r.addAttribute(collectedQNames(index), value) }
+        attsIndexes foreach { case (index, value) => r.addAttribute(collectedQNames(index), stringOrRef(value)) }
         children foreach r.add
         r
       }
@@ -329,6 +363,9 @@ object XFormsStaticStateDeserializer {
       else
         c.get[B]("right").map(Right.apply)
 
+    implicit val stringEitherDecoder: Decoder[Either[String, String]] =
+      stringOrRefEitherDecoder(collectedStrings)
+
     //decodeValueNode.asInstanceOf[Decoder[Item.ValueNode]]
     implicit val decodeValueNode: Decoder[Item.ValueNode] = (c: HCursor) =>
       for {
@@ -408,11 +445,11 @@ object XFormsStaticStateDeserializer {
     implicit lazy val decodeElementAnalysis: Decoder[ElementAnalysis] = (c: HCursor) =>
       for {
         element             <- c.get[dom.Element]("element")
-        prefixedId          <- c.get[String]("prefixedId")
+        prefixedId          <- c.get[String]("prefixedId")(decodeStringOrRef)
         namespaceMapping    <- c.get[Int]("nsRef").map(nsRef => NamespaceMapping(collectedNamespaces(nsRef)))
         scopeIndex          <- c.get[Int]("scopeRef")
         containerScopeIndex <- c.getOrElse[Int]("containerScopeRef")(scopeIndex)
-        modelOptRef         <- c.get[Option[String]]("modelRef")
+        modelOptRef         <- c.get[Option[String]]("modelRef")(Decoder.decodeOption(decodeStringOrRef))
         bindingAnalysis     <- c.getOrElse[Option[XPathAnalysis]]("bindingAnalysis")(None)
         valueAnalysis       <- c.getOrElse[Option[XPathAnalysis]]("valueAnalysis")(None)
       } yield {
@@ -636,7 +673,7 @@ object XFormsStaticStateDeserializer {
                   id         <- c.get[String]("id")
                   name       <- c.get[MipName.XPath]("name")
                   level      <- c.getOrElse[ValidationLevel]("level")(ValidationLevel.ErrorLevel)
-                  expression <- c.get[String]("expression")
+                  expression <- c.get[String]("expression")(decodeStringOrRef)
                   analysis   <- c.getOrElse[Option[XPathAnalysis]]("analysis")(None)
                 } yield
                   StaticBind.XPathMIP(id, name, level, expression, namespaceMapping, null, functionLibrary) |!>
@@ -1005,6 +1042,7 @@ object XFormsStaticStateDeserializer {
 
     implicit val decodeXFormsStaticState: Decoder[XFormsStaticState] = (c: HCursor) =>
       for {
+        _                   <- decodeFormatVersion(c)
         strings             <- c.get[IndexedSeq[String]]("strings")
         _ = {
           collectedStrings = strings
@@ -23,7 +23,7 @@ class XFormsModelSchemaValidator(schemaURI: String) {
   ): String = null // TODO
 
   // For now, we don't support XML Schema validation on the JavaScript platform
-  def this(modelElement: dom.Element, indentedLogger: IndentedLogger) = this(null)
+  def this(modelElement: dom.Element, modelPrefixedId: String, indentedLogger: IndentedLogger) = this(null)
   def loadSchemas(containingDocument: XFormsContainingDocument): Unit = ()
   def validateInstance(instance: XFormsInstance): Boolean = throw new UnsupportedOperationException
   def hasSchema: Boolean = false
@@ -7,9 +7,12 @@ import org.orbeon.oxf.xforms.XFormsContainingDocument
 import scala.concurrent.duration.Duration
 
 
-class AsynchronousSubmissionManager
+class AsynchronousSubmissionManager(protected val maxConcurrentSubmissions: Int)
   extends AsynchronousSubmissionManagerTrait {
 
+  // Completions are processed upon the next poll event
+  protected def completionQueued(): Unit = ()
+
   // This can be called for `xxf:join-submissions` (not supported on JS right now), or for regular submission that must
   // wait the completion of the request. This is checked before sending the response to the client, either upon initial
   // load or upon client requests.
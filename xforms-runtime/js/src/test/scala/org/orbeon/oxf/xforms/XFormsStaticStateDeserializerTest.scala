@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.xforms
+
+import io.circe.parser.parse
+import io.circe.{Decoder, HCursor, Json}
+import org.scalatest.funspec.AnyFunSpec
+
+
+class XFormsStaticStateDeserializerTest extends AnyFunSpec {
+
+  import XFormsStaticStateDeserializer.*
+
+  // Expressions and constants as in the part of a payload produced by `XFormsStaticStateSerializer`
+  private def decodeExpressions(payload: String): (Int, List[Either[String, String]]) = {
+
+    val decodePayload: Decoder[(Int, List[Either[String, String]])] = (c: HCursor) =>
+      for {
+        version     <- decodeFormatVersion(c)
+        strings     <- c.get[IndexedSeq[String]]("strings")
+        expressions <- c.get[List[Either[String, String]]]("expressions")(Decoder.decodeList(stringOrRefEitherDecoder(strings)))
+      } yield
+        (version, expressions)
+
+    parse(payload).flatMap(decodePayload.decodeJson).fold(throw _, identity)
+  }
+
+  private val Expressions = List(Left("concat('a', 'b')"), Right("42"), Left("instance()"), Left("concat('a', 'b')"))
+
+  describe("Static state format") {
+
+    it("must read version 2 references to the string table") {
+
+      // Encode as `XFormsStaticStateSerializer` does, with each string once in the table
+      val strings = Expressions.map(_.merge).distinct
+      val payload =
+        Json.obj(
+          "version"     -> Json.fromInt(FormatVersion),
+          "strings"     -> Json.fromValues(strings.map(Json.fromString)),
+          "expressions" -> Json.fromValues(
+            Expressions.map {
+              case Left(value)  => Json.obj("left"  -> Json.fromInt(strings.indexOf(value)))
+              case Right(value) => Json.obj("right" -> Json.fromInt(strings.indexOf(value)))
+            }
+          )
+        ).noSpaces
+
+      assert(decodeExpressions(payload) == (2, Expressions))
+    }
+
+    it("must read version 2 inline strings") {
+      val payload = """{"version":2,"strings":["instance()"],"expressions":[{"left":0},{"right":"42"}]}"""
+      assert(decodeExpressions(payload) == (2, List(Left("instance()"), Right("42"))))
+    }
+
+    it("must read version 1 payloads") {
+      // No `version` property, and expressions are inline, even if the string table is not empty
+      val payload = """{"strings":["text"],"expressions":[{"left":"concat('a', 'b')"},{"right":"42"},{"left":"instance()"},{"left":"concat('a', 'b')"}]}"""
+      assert(decodeExpressions(payload) == (1, Expressions))
+    }
+
+    it("must reject newer versions") {
+      val payload = s"""{"version":${FormatVersion + 1},"strings":[],"expressions":[]}"""
+      assertThrows[Exception](decodeExpressions(payload))
+    }
+  }
+}
@@ -48,6 +48,7 @@ import org.orbeon.oxf.util.*;
 import org.orbeon.oxf.xforms.XFormsContainingDocument;
 import org.orbeon.oxf.xforms.msv.IDConstraintChecker;
 import org.orbeon.oxf.xforms.schema.MSVGrammarReaderController;
+import org.orbeon.oxf.xforms.schema.InlineSchemaKey;
 import org.orbeon.oxf.xforms.schema.SchemaDependencies;
 import org.orbeon.oxf.xforms.schema.SchemaInfo;
 import org.orbeon.oxf.xforms.schema.SchemaKey;
@@ -84,6 +85,7 @@ public class XFormsModelSchemaValidator {
     public static final org.slf4j.Logger logger = LoggerFactory.createLoggerJava(XFormsModelSchemaValidator.class);
 
     private Element modelElement;
+    private String modelPrefixedId;
     private IndentedLogger indentedLogger;
 
     private Grammar schemaGrammar;
@@ -93,8 +95,9 @@ public class XFormsModelSchemaValidator {
     // REDocumentDeclaration is not reentrant, but the validator is used by a single thread
     private REDocumentDeclaration documentDeclaration;
 
-    public XFormsModelSchemaValidator(Element modelElement, IndentedLogger indentedLogger) {
+    public XFormsModelSchemaValidator(Element modelElement, String modelPrefixedId, IndentedLogger indentedLogger) {
         this.modelElement = modelElement;
+        this.modelPrefixedId = modelPrefixedId;
         this.indentedLogger = indentedLogger;
 
         // Check for external schemas
@@ -562,7 +565,7 @@ public class XFormsModelSchemaValidator {
 
         // Check for inline schema
         if (schemaElements != null && schemaElements.size() > 0) {
-            schemaGrammar = loadInlineGrammar(containingDocument, schemaElements.get(0)); // TODO: specify baseURI
+            schemaGrammar = loadCacheInlineGrammar(containingDocument, schemaElements.get(0)); // TODO: specify baseURI
         }
     }
 
@@ -604,12 +607,47 @@ public class XFormsModelSchemaValidator {
         }
     }
 
+    /**
+     * Load and cache a Grammar for an inline schema.
+     *
+     * The static state digest identifies the form version, so the compiled grammar can be shared by all documents
+     * using that static state. Dependencies (imports and includes) are checked like for schemas loaded by URI.
+     */
+    private Grammar loadCacheInlineGrammar(final XFormsContainingDocument containingDocument, final Element schemaElement) {
+
+        final Cache cache = ObjectCache.instance();
+        final InlineSchemaKey schemaKey = new InlineSchemaKey(containingDocument.staticState().digest(), inlineSchemaId(schemaElement));
+
+        final SchemaInfo schemaInfo;
+        {
+            // The static state digest changes when the schema content changes, so the validity is constant
+            final Object cached = cache.findValid(schemaKey, ConstantValidity);
+            schemaInfo = cached == null ? null : (SchemaInfo) cached;
+        }
+
+        if (schemaInfo == null || ! schemaInfo.dependencies().areIncludesUnchanged()) {
+            final SchemaDependencies dependencies = new SchemaDependencies();
+            final Grammar grammar = loadInlineGrammar(containingDocument, schemaElement, dependencies);
+
+            cache.add(schemaKey, ConstantValidity, new SchemaInfo(grammar, dependencies));
+            return grammar;
+        } else {
+            indentedLogger.logDebug("schema", "using cached inline schema grammar", "model", modelPrefixedId);
+            return schemaInfo.grammar();
+        }
+    }
+
+    private static final Long ConstantValidity = 0L;
+
+    private String inlineSchemaId(final Element schemaElement) {
+        final String schemaId = schemaElement.attributeValue("id");
+        return modelPrefixedId + '#' + (schemaId != null ? schemaId : Integer.toString(schemaElements.indexOf(schemaElement)));
+    }
+
     /**
      * Load an inline schema.
      */
-    private Grammar loadInlineGrammar(final XFormsContainingDocument containingDocument, final Element schemaElement) {
-        final SchemaDependencies dependencies = new SchemaDependencies();
-        // TODO: Use SchemaDependencies to cache dependencies if any
+    private Grammar loadInlineGrammar(final XFormsContainingDocument containingDocument, final Element schemaElement, final SchemaDependencies dependencies) {
         final MSVGrammarReaderController controller = new MSVGrammarReaderController(containingDocument, dependencies, Option.<String>apply(null));
         final SAXParserFactory saxParserFactory = XMLParsing.getSAXParserFactory(ParserConfiguration.Plain());
         final XMLSchemaReader reader = new XMLSchemaReader(controller, saxParserFactory);
@@ -33,6 +33,7 @@ import scala.util.control.NonFatal
 
 case class SchemaInfo(grammar: Grammar, dependencies: SchemaDependencies)
 case class SchemaKey(urlString: String) extends CacheKey
+case class InlineSchemaKey(staticStateDigest: String, schemaId: String) extends CacheKey
 
 class MSVGrammarReaderController(
     containingDocument: XFormsContainingDocument,
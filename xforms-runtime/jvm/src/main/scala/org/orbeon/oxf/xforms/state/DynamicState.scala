@@ -15,7 +15,8 @@ package org.orbeon.oxf.xforms.state
 
 import org.orbeon.dom
 import org.orbeon.dom.{Document, Element}
-import org.orbeon.oxf.util.{PathMatcher, SecureUtils}
+import org.orbeon.oxf.util.CoreUtils.*
+import org.orbeon.oxf.util.{Compressor, PathMatcher, SecureUtils}
 import org.orbeon.oxf.xforms.*
 import org.orbeon.oxf.xforms.control.{Controls, XFormsComponentControl, XFormsControl}
 import org.orbeon.oxf.xforms.model.XFormsInstance
@@ -57,7 +58,7 @@ case class DynamicState(
   // Decode individual bits
   def decodePathMatchers     : List[PathMatcher]           = fromByteSeq[List[PathMatcher]](pathMatchers)
   def decodePendingUploads   : Set[String]                 = fromByteSeq[Set[String]](pendingUploads)
-  def decodeLastAjaxResponse : Option[SAXStore]            = fromByteSeq[Option[SAXStore]](lastAjaxResponse)
+  def decodeLastAjaxResponse : Option[SAXStore]            = DynamicState.decodeCompressedAjaxResponse(lastAjaxResponse)
   def decodeInstances        : List[InstanceState]         = fromByteSeq[List[InstanceState]](instances)
   def decodeControls         : List[ControlState]          = fromByteSeq[List[ControlState]](controls)
   def decodeDelayedEvents    : immutable.Seq[DelayedEvent] = fromByteSeq[List[DelayedEvent]](delayedEvents)
@@ -218,7 +219,7 @@ object DynamicState {
       pathMatchers       = toByteSeq(document.getVersionedPathMatchers),
       focusedControl     = document.controls.getFocusedControl map (_.effectiveId),
       pendingUploads     = toByteSeq(document.getPendingUploads),
-      lastAjaxResponse   = toByteSeq(document.lastAjaxResponse),
+      lastAjaxResponse   = encodeCompressedAjaxResponse(document.lastAjaxResponse),
       instances          = toByteSeq(Controls.iterateInstancesToSerialize(findStartContainer(startOpt.toLeft(document)), XFormsInstance.mustSerialize).toList),
       controls           = toByteSeq(Controls.iterateControlsToSerialize(startOpt).toList),
       initializationData = document.getInitializationData,
@@ -232,6 +233,26 @@ object DynamicState {
     fromByteArray[DynamicState](bytes)
   }
 
+  // Marks the compressed format of the last Ajax response. State stored before that format has a serialized
+  // `Option[SAXStore]` instead, which starts with 0 or 1.
+  private[state] val CompressedAjaxResponseMarker: Byte = 2
+
+  // The last Ajax response is only kept for retries, which are rare, and it can be large, as it can contain full
+  // updates of repeats, so keep it compressed. An empty sequence means there is no response, typically because the
+  // client has acknowledged it.
+  private[state] def encodeCompressedAjaxResponse(responseOpt: Option[SAXStore]): Seq[Byte] =
+    responseOpt match {
+      case Some(response) => (CompressedAjaxResponseMarker +: Compressor.compressBytes(toByteArray(response))).toSeq
+      case None           => Nil
+    }
+
+  private[state] def decodeCompressedAjaxResponse(bytes: Seq[Byte]): Option[SAXStore] =
+    bytes.headOption match {
+      case None                               => None
+      case Some(CompressedAjaxResponseMarker) => Some(fromByteArray[SAXStore](Compressor.uncompressBytes(bytes.tail.toArray)))
+      case Some(_)                            => fromByteSeq[Option[SAXStore]](bytes)
+    }
+
   private def findStartContainer(controlOrDoc: XFormsControl Either XFormsContainingDocument): Option[XBLContainer] =
     controlOrDoc match {
       case Left(control: XFormsComponentControl) => control.nestedContainerOpt
@@ -16,6 +16,7 @@ package org.orbeon.oxf.xforms.state
 import org.orbeon.oxf.common.Version
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.logging.LifecycleLogger
+import org.orbeon.oxf.metrics.{Counter, Metrics}
 import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger, NetUtils}
@@ -138,14 +139,17 @@ object XFormsStateManager
 
       XFormsDocumentCache.take(parameters.uuid) match {
         case Some(cachedDocument) if newerSequenceNumberInStore(cachedDocument)  =>
+          DocumentCacheMisses.inc()
           debug("Document cache enabled. Document from cache has out of date sequence number. Retrieving state from store.")
           XFormsDocumentCache.remove(parameters.uuid)
           createDocumentFromStore(parameters, isInitialState = false, disableUpdates = disableUpdates)
         case some @ Some(_) =>
           // Found in cache
+          DocumentCacheHits.inc()
           debug("Document cache enabled. Returning document from cache.")
           some
         case None =>
+          DocumentCacheMisses.inc()
           debug("Document cache enabled. Document not found in cache. Retrieving state from store.")
           createDocumentFromStore(parameters, isInitialState = false, disableUpdates = disableUpdates)
       }
@@ -257,6 +261,12 @@ object XFormsStateManager
 
     private val XFormsStateManagerUuidKeyPrefix = "oxf.xforms.state.manager.uuid-key."
 
+    private val DocumentCacheLookupsName = "orbeon_xforms_document_cache_lookups_total"
+    private val DocumentCacheLookupsHelp = "Lookups of documents in the XForms document cache."
+
+    val DocumentCacheHits  : Counter = Metrics.counter(DocumentCacheLookupsName, DocumentCacheLookupsHelp, "result" -> "hit")
+    val DocumentCacheMisses: Counter = Metrics.counter(DocumentCacheLookupsName, DocumentCacheLookupsHelp, "result" -> "miss")
+
     def addDocumentToSession(uuid: String): Unit =
       getSession(ForceSessionCreation) foreach
         (_.setAttribute(getUUIDSessionKey(uuid), SessionDocument(uuid), ExternalContext.SessionScope.Application))
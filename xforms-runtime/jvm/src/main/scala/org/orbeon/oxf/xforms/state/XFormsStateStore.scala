@@ -15,6 +15,7 @@ package org.orbeon.oxf.xforms.state
 
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.logging.LifecycleLogger
+import org.orbeon.oxf.metrics.{Counter, Metrics}
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.oxf.util.{CoreCrossPlatformSupport, IndentedLogger, SecureUtils}
 import org.orbeon.oxf.xforms.*
@@ -96,12 +97,15 @@ object XFormsStateStore {
           // Gather values from cache for both keys and return state only if both are non-null
           LazyList(parts(0), dynamicStateKey) flatMap XFormsStores.stateStore.get filter (_ != null) match {
             case LazyList(staticState: String, dynamicState: DynamicState) =>
+              StateStoreHits.inc()
               Some(XFormsState(Some(parts(0)), Some(staticState), Some(dynamicState)))
             case _ =>
+              StateStoreMisses.inc()
               None
           }
 
         case _ =>
+          StateStoreMisses.inc()
           None
       }
     }
@@ -118,6 +122,13 @@ object XFormsStateStore {
   def getCurrentSize : Option[Long] = XFormsStores.stateStore.getLocalHeapSize
 
   private object Private {
+
+    private val StateStoreLookupsName = "orbeon_xforms_state_store_lookups_total"
+    private val StateStoreLookupsHelp = "Lookups of document states in the XForms state store."
+
+    val StateStoreHits  : Counter = Metrics.counter(StateStoreLookupsName, StateStoreLookupsHelp, "result" -> "hit")
+    val StateStoreMisses: Counter = Metrics.counter(StateStoreLookupsName, StateStoreLookupsHelp, "result" -> "miss")
+
     def createDynamicStateKey(documentUUID: String, isInitialState: Boolean) =
       documentUUID + (if (isInitialState) "-I" else "-C") // key is different for initial vs. subsequent state
   }
@@ -1,18 +1,42 @@
 package org.orbeon.oxf.xforms.submission
 
-import org.orbeon.oxf.util.CoreCrossPlatformSupport.executionContext
 import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.oxf.util.IndentedLogger
 import org.orbeon.oxf.util.Logging.*
 import org.orbeon.oxf.xforms.XFormsContainingDocument
 
 import scala.concurrent.duration.Duration
-import scala.concurrent.{Await, Future, TimeoutException}
 
 
-class AsynchronousSubmissionManager
+class AsynchronousSubmissionManager(protected val maxConcurrentSubmissions: Int)
   extends AsynchronousSubmissionManagerTrait {
 
+  private val completionLock = new Object
+
+  protected def completionQueued(): Unit =
+    completionLock.synchronized {
+      completionLock.notifyAll()
+    }
+
+  // Wait until at least one completion is queued, or until the expiration time. Return `false` if the expiration time
+  // was reached without a queued completion.
+  private def awaitQueuedCompletion(expirationTimeOpt: Option[Long]): Boolean =
+    completionLock.synchronized {
+      var timedOut = false
+      while (! hasQueuedCompletions && ! timedOut)
+        expirationTimeOpt match {
+          case Some(expirationTime) =>
+            val remaining = expirationTime - System.currentTimeMillis()
+            if (remaining > 0)
+              completionLock.wait(remaining)
+            else
+              timedOut = true
+          case None =>
+            completionLock.wait()
+        }
+      ! timedOut
+    }
+
   protected def awaitPending(
     containingDocument       : XFormsContainingDocument,
     skipDeferredEventHandling: Boolean,
@@ -35,50 +59,32 @@ class AsynchronousSubmissionManager
 
     while (batch.nonEmpty) {
 
-      debug(s"awaitPending: processing batch of ${batch.size} pending asynchronous submissions, expirationTime = $expirationTimeOpt")
-
-      val currentTime = System.currentTimeMillis()
-
-      if (expirationTimeOpt.exists(currentTime > _)) {
-        debug(s"awaitPending: timeout reached before awaiting pending asynchronous submissions, ${batch.size} pending submissions")
-        return
-      }
+      debug(s"awaitPending: awaiting ${batch.size} pending asynchronous submissions, expirationTime = $expirationTimeOpt")
 
-      val maxDuration =
-        expirationTimeOpt
-          .map(expirationTime =>  Duration(expirationTime - currentTime, "ms"))
-          .getOrElse(Duration.Inf)
-
-      debug(s"awaitPending: awaiting ${batch.size} pending asynchronous submissions for a maximum of $maxDuration")
       try {
-        Await.ready(Future.firstCompletedOf(batch.map(_._1.future)), maxDuration)
-      } catch {
-        case _: TimeoutException =>
+        if (! awaitQueuedCompletion(expirationTimeOpt)) {
           debug(s"awaitPending: timeout reached while awaiting pending asynchronous submissions, ${batch.size} pending submissions")
           return
+        }
+      } catch {
         case _: InterruptedException =>
-          // TODO: anything to do here?
           debug(s"awaitPending: interrupted while awaiting pending asynchronous submissions")
-        case t: Throwable =>
-          debug(s"awaitPending: error while awaiting pending asynchronous submissions: $t")
+          Thread.currentThread.interrupt()
+          return
       }
 
-      // `Future`s in the batch that are completed at this instant are already in the completion queue, since we
-      // carefully sequence operations to add the `Future` to the completion queue before completing it. It is
-      // therefore save to remove them from the batch just before calling `processCompletedAsynchronousSubmissions()`.
-      // In the meanwhile, there can be other async operations that have completed, and that add themselves to the
-      // queue before we process them or not, but we will find them in the next iteration. Note that it is ok to call
-      // `processCompletedAsynchronousSubmissions()` if the completion queue is empty, since it will just return
-      // immediately.
-      batch = batch.filterNot(_._1.future.isCompleted)
-      debug(s"awaitPending: filtering out completed asynchronous submissions from batch, ${batch.size} remaining")
-
-      // There must be at least one completed `Future` to process, since the `Future` adds itself to the completion
-      // queue before completing.
-      containingDocument.maybeWithOutermostActionHandler(! skipDeferredEventHandling) {
-        debug(s"awaitPending: processing completed asynchronous submissions")
-        processCompletedAsynchronousSubmissions(containingDocument)
-      }
+      // Each submission adds itself to the completion queue when it completes, and we are notified. We process the
+      // queue, which can also contain completions of submissions which are not in the batch, and remove the processed
+      // submissions from the batch. Submissions of the batch are never processed elsewhere in the meanwhile, as
+      // processing only happens synchronously in this thread.
+      val processedSequences =
+        containingDocument.maybeWithOutermostActionHandler(! skipDeferredEventHandling) {
+          debug(s"awaitPending: processing completed asynchronous submissions")
+          processCompletedAsynchronousSubmissionsGetSequences(containingDocument)
+        }
+
+      batch = batch.filterNot(p => processedSequences(p._1.sequence))
+      debug(s"awaitPending: filtering out processed asynchronous submissions from batch, ${batch.size} remaining")
 
       // Calling `processCompletedAsynchronousSubmissions()` might have caused additions to the pending list, so we
       // update our list. Those adds can only happen synchronously in this thread, so we can just prepend them to the
@@ -6,6 +6,7 @@ import org.orbeon.dom.{Document, Element}
 import org.orbeon.oxf.controller.{PageFlowControllerProcessor, XmlNativeRoute}
 import org.orbeon.oxf.externalcontext.ExternalContext
 import org.orbeon.oxf.http.SessionExpiredException
+import org.orbeon.oxf.metrics.Metrics
 import org.orbeon.oxf.pipeline.api.PipelineContext
 import org.orbeon.oxf.servlet.OrbeonXFormsFilterImpl
 import org.orbeon.oxf.util.IndentedLogger
@@ -77,17 +78,19 @@ object XFormsServerRoute extends XmlNativeRoute {
         .put(OrbeonXFormsFilterImpl.RendererDeploymentAttributeName, containingDocument.getDeploymentType.entryName)
     }
 
-    XFormsServer.processEvents(
-      logRequestResponse      = logRequestResponse,
-      requestParameters       = parameters,
-      requestParametersForAll = extractParameters(requestDocument, isInitialState = true),
-      extractedEvents         = extractedEvents,
-      xmlReceiverOpt          = xmlReceiverOpt,
-      responseForReplaceAll   = PipelineResponse.getResponse(xmlReceiverOpt, externalContext),
-      beforeProcessRequest    = beforeProcessRequest,
-      extractWireEvents       = s => extractWireEvents(EncodeDecode.decodeXML(s, forceEncryption = true).getRootElement),
-      trustEvents             = false
-    )
+    ResponseTime.time {
+      XFormsServer.processEvents(
+        logRequestResponse      = logRequestResponse,
+        requestParameters       = parameters,
+        requestParametersForAll = extractParameters(requestDocument, isInitialState = true),
+        extractedEvents         = extractedEvents,
+        xmlReceiverOpt          = xmlReceiverOpt,
+        responseForReplaceAll   = PipelineResponse.getResponse(xmlReceiverOpt, externalContext),
+        beforeProcessRequest    = beforeProcessRequest,
+        extractWireEvents       = s => extractWireEvents(EncodeDecode.decodeXML(s, forceEncryption = true).getRootElement),
+        trustEvents             = false
+      )
+    }
   }
 
   def extractWireEvents(actionElement: Element): List[WireAjaxEvent] =
@@ -138,6 +141,8 @@ object XFormsServerRoute extends XmlNativeRoute {
 
     val XmlIndentation = 2
 
+    val ResponseTime = Metrics.histogram("orbeon_xforms_server_response_microseconds", "Time taken by the XForms server to process Ajax requests.")
+
     // Only a few events specify custom properties that can be set by the client
     val AllStandardProperties =
       XXFormsDndEvent.StandardProperties         ++
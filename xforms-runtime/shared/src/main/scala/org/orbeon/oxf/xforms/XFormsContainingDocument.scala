@@ -303,12 +303,15 @@ class XFormsContainingDocument(
   def rememberLastAjaxResponse(response: SAXStore): Unit =
     _lastAjaxResponse = response.some
 
+  def clearLastAjaxResponse(): Unit =
+    _lastAjaxResponse = None
+
   def findAsynchronousSubmissionManager: Option[AsynchronousSubmissionManager] =
     asynchronousSubmissionManager
 
   def getAsynchronousSubmissionManager: AsynchronousSubmissionManager =
     asynchronousSubmissionManager.getOrElse {
-      val newAsynchronousSubmissionManager = new AsynchronousSubmissionManager
+      val newAsynchronousSubmissionManager = new AsynchronousSubmissionManager(getSubmissionMaxConcurrent)
       asynchronousSubmissionManager = Some(newAsynchronousSubmissionManager)
       newAsynchronousSubmissionManager
     }
@@ -545,6 +545,7 @@ trait ContainingDocumentProperties {
 
   def getShowMaxRecoverableErrors           = staticIntProperty(ShowRecoverableErrorsProperty)
   def getSubmissionPollDelay                = staticIntProperty(AsyncSubmissionPollDelay)
+  def getSubmissionMaxConcurrent            = staticIntProperty(AsyncSubmissionMaxConcurrent)
   def getAjaxFullUpdateThreshold            = staticIntProperty(AjaxUpdateFullThreshold)
 
   def isLocalSubmissionForward =
@@ -911,8 +912,11 @@ trait ContainingDocumentCacheable extends Cacheable {
   // WARNING: This could have been called while another threads owns this document lock, but the cache now obtains
   // the lock on the document first and will not evict us if we have the lock. This means that this will be called
   // only if no thread is dealing with this document.
-  def evicted(): Unit =
+  def evicted(): Unit = {
+    // Results of asynchronous submissions can no longer be processed once the document is evicted
+    findAsynchronousSubmissionManager foreach (_.cancelAll())
     XFormsStateManager.onEvictedFromCache(self)
+  }
 }
 
 // 2023-03-16: Currently there is no serialization of these attributes. They were introduced for
@@ -15,6 +15,7 @@ package org.orbeon.oxf.xforms.analysis
 
 import org.orbeon.oxf.xforms.analysis.controls.{LHHA, SelectionControlTrait}
 import org.orbeon.oxf.xforms.analysis.model.{MipName, Model, StaticBind}
+import org.orbeon.oxf.xforms.itemset.Itemset
 import org.orbeon.oxf.xforms.model.{XFormsInstance, XFormsModel}
 import org.orbeon.properties.api
 import org.orbeon.saxon.om
@@ -44,6 +45,7 @@ class DumbXPathDependencies extends XPathDependencies {
   def requireValueUpdate   (control: ElementAnalysis, controlIndexes: Array[Int]) = true
   def requireLHHAUpdate    (control: ElementAnalysis, lhha: LHHA, controlIndexes: Array[Int]) = true
   def requireItemsetUpdate (control: SelectionControlTrait, controlIndexes: Array[Int]) = true
+  def sharedItemset        (control: SelectionControlTrait, controlIndexes: Array[Int])(evaluate: => Itemset) = evaluate
   def requireModelMIPUpdate(model: XFormsModel, bind: StaticBind, mip: MipName, level: ValidationLevel) = true
   def hasAnyCalculationBind(model: Model, instancePrefixedId: String) = true
   def hasAnyValidationBind (model: Model, instancePrefixedId: String) = true
@@ -21,6 +21,7 @@ import org.orbeon.oxf.util.StaticXPath.VirtualNodeType
 import org.orbeon.oxf.xforms.*
 import org.orbeon.oxf.xforms.analysis.controls.*
 import org.orbeon.oxf.xforms.analysis.model.{MipName, Model, StaticBind}
+import org.orbeon.oxf.xforms.itemset.Itemset
 import org.orbeon.oxf.xforms.model.{XFormsInstance, XFormsModel}
 import org.orbeon.oxf.xml.SaxonUtils
 import org.orbeon.properties.api
@@ -47,6 +48,14 @@ class PathMapXPathDependencies(
   private var lastPropertiesETag: api.ETag = ""
   private var evaluateAllUntilRefreshDone: Boolean = false
 
+  // Itemsets shared between repeat iterations are only valid until the next change to instances or properties, so
+  // any such change invalidates all the shared itemsets at once.
+  private val sharedItemsets = new m.HashMap[RepeatCacheKey, Itemset]
+
+  private def invalidateSharedItemsets(): Unit =
+    if (sharedItemsets.nonEmpty)
+      sharedItemsets.clear()
+
   // Represent the state of changes to a model
   private class ModelState(val modelKey: ModelOrInstanceKey, val model: XFormsModel) {
 
@@ -317,6 +326,7 @@ class PathMapXPathDependencies(
     var itemsetUnknownDependencies = 0
     var itemsetMissCount           = 0
     var itemsetHitCount            = 0
+    var itemsetSharedCount         = 0
   }
 
   import RefreshState.*
@@ -331,6 +341,8 @@ class PathMapXPathDependencies(
 
     val dependentStaticModels = model.staticModel.dependentModels
 
+    invalidateSharedItemsets()
+
     val markedPaths = getOrCreateModelState(model).markValueChanged(nodeInfo, buildPaths = dependentStaticModels.nonEmpty)
 
     // In most cases, there shouldn't be any dependent models. But if there is, before marking dependent models, we
@@ -355,6 +367,7 @@ class PathMapXPathDependencies(
   // Returns the list of dependent models that should be recalculated as a result of the value change
   def markStructuralChange(model: XFormsModel, instanceOpt: Option[XFormsInstance]): Iterable[XFormsModel] = {
 
+    invalidateSharedItemsets()
     getOrCreateModelState(model).markStructuralChange()
 
     // LATER: We should not need to mark dependent instances as needed a rebuild, but just a recalculate/revalidate.
@@ -382,6 +395,7 @@ class PathMapXPathDependencies(
     // Remove all references to concrete models and instances
     val modelKey = ModelOrInstanceKey(model)
     modelStates -= modelKey
+    invalidateSharedItemsets()
     structuralChangeModelKeys -= modelKey
 
     for (instance <- model.instancesIterator)
@@ -441,10 +455,12 @@ class PathMapXPathDependencies(
     itemsetUnknownDependencies = 0
     itemsetMissCount = 0
     itemsetHitCount = 0
+    itemsetSharedCount = 0
 
     if (eTag != lastPropertiesETag) {
       evaluateAllUntilRefreshDone = true
       lastPropertiesETag = eTag
+      invalidateSharedItemsets()
     }
   }
 
@@ -469,7 +485,8 @@ class PathMapXPathDependencies(
           "Itemset optimized"            -> itemsetOptimizedCount.toString,
           "Itemset unknown dependencies" -> itemsetUnknownDependencies.toString,
           "Itemset intersections"        -> itemsetHitCount.toString,
-          "Itemset disjoints"            -> itemsetMissCount.toString
+          "Itemset disjoints"            -> itemsetMissCount.toString,
+          "Itemset shared"               -> itemsetSharedCount.toString
         )
       )
   }
@@ -725,6 +742,43 @@ class PathMapXPathDependencies(
     }
   }
 
+  def sharedItemset(control: SelectionControlTrait, controlIndexes: Array[Int])(evaluate: => Itemset): Itemset =
+    buildRepeatResultCacheKey(control, control.itemsetAnalysis.toList, controlIndexes) match {
+      case Some(key) if isItemsetIndependentFromIterations(control) =>
+        sharedItemsets.get(key) match {
+          case Some(itemset) =>
+            itemsetSharedCount += 1
+            itemset
+          case None =>
+            evaluate |!> (itemset => sharedItemsets += key -> itemset)
+        }
+      case _ =>
+        evaluate
+    }
+
+  // The itemset of a control within a repeat can be shared between iterations only if it doesn't depend on anything
+  // specific to an iteration. We know this statically if the itemset doesn't touch any path within the iterations of
+  // an ancestor repeat. Dependencies on models, and therefore on their repeat iterations, are handled by the cache
+  // key.
+  private def isItemsetIndependentFromIterations(control: SelectionControlTrait): Boolean =
+    control.itemsetAnalysis exists { itemsetAnalysis =>
+
+      def isSameOrDescendantPath(path: String, ancestorPath: String) =
+        path == ancestorPath || path.startsWith(ancestorPath + '/')
+
+      itemsetAnalysis.figuredOutDependencies &&
+        control.ancestorRepeatsAcrossParts.forall { repeat =>
+          repeat.bindingAnalysis exists { repeatAnalysis =>
+            repeatAnalysis.figuredOutDependencies &&
+              ! itemsetAnalysis.allInstancePaths.exists { itemsetPath =>
+                repeatAnalysis.returnablePaths.map.get(itemsetPath.instancePrefixedId) exists { repeatPaths =>
+                  repeatPaths.exists(repeatPath => isSameOrDescendantPath(itemsetPath.path, repeatPath.path))
+                }
+              }
+          }
+        }
+    }
+
   def hasAnyCalculationBind(model: Model, instancePrefixedId: String): Boolean =
     ! model.figuredAllBindRefAnalysis || model.computedBindExpressionsInstances.contains(instancePrefixedId)
 
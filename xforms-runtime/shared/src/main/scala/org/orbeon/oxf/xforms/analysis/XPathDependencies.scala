@@ -15,6 +15,7 @@ package org.orbeon.oxf.xforms.analysis
 
 import org.orbeon.oxf.xforms.analysis.controls.{LHHA, SelectionControlTrait}
 import org.orbeon.oxf.xforms.analysis.model.{MipName, Model, StaticBind}
+import org.orbeon.oxf.xforms.itemset.Itemset
 import org.orbeon.oxf.xforms.model.{XFormsInstance, XFormsModel}
 import org.orbeon.properties.api
 import org.orbeon.saxon.om
@@ -52,6 +53,9 @@ trait XPathDependencies {
   def requireLHHAUpdate    (control: ElementAnalysis,       lhha: LHHA, controlIndexes: Array[Int]): Boolean
   def requireItemsetUpdate (control: SelectionControlTrait,             controlIndexes: Array[Int]): Boolean
 
+  // Return an itemset possibly shared with other repeat iterations of the same control, or evaluate it
+  def sharedItemset        (control: SelectionControlTrait,             controlIndexes: Array[Int])(evaluate: => Itemset): Itemset
+
   def requireModelMIPUpdate(model: XFormsModel, bind: StaticBind, mip: MipName, level: ValidationLevel): Boolean
 
   def hasAnyCalculationBind(model: Model, instancePrefixedId: String): Boolean
@@ -13,6 +13,8 @@
  */
 package org.orbeon.oxf.xforms.analytics
 
+import org.orbeon.oxf.metrics.{Histogram, Metrics}
+import org.orbeon.oxf.util.LoggerFactory
 import org.orbeon.oxf.xforms.XFormsGlobalProperties
 
 import scala.collection.mutable
@@ -43,7 +45,8 @@ trait RequestStats {
   def getReporter: (String, Long) => Unit = addXPathStat
 }
 
-class RequestStatsImpl extends RequestStats {
+// Only record XPath evaluation times, into the process-wide metrics
+class MetricsRequestStats extends RequestStats {
 
   var refreshes             = 0
 
@@ -57,6 +60,35 @@ class RequestStatsImpl extends RequestStats {
   var xpathCompiled         = 0
   var xpathEvaluated        = 0
 
+  def afterInitialResponse(): Unit = ()
+  def afterUpdateResponse(): Unit = ()
+
+  def addXPathStat(expr: String, time: Long): Unit = {
+    xpathEvaluated += 1
+    MetricsRequestStats.XPathEvaluationTime.record(time)
+  }
+
+  def withXPath[T](expr: => String)(body: => T): T = {
+    val startTime = System.nanoTime
+
+    val result = body
+
+    val totalTimeMicroSeconds = (System.nanoTime - startTime) / 1000 // never smaller on OS X
+    if (totalTimeMicroSeconds > 0)
+      addXPathStat(expr, totalTimeMicroSeconds)
+
+    result
+  }
+}
+
+object MetricsRequestStats {
+  val XPathEvaluationTime: Histogram =
+    Metrics.histogram("orbeon_xforms_xpath_evaluation_microseconds", "Time taken by XPath evaluations in forms.")
+}
+
+// Also keep statistics by XPath expression, and log them after each response
+class RequestStatsImpl extends MetricsRequestStats {
+
   private class XPathStats(val expr: String) {
     private var _count = 0
     private var _totalTime = 0L
@@ -76,8 +108,8 @@ class RequestStatsImpl extends RequestStats {
 
   private val xpathStats = mutable.Map[String, XPathStats]()
 
-  def addXPathStat(expr: String, time: Long): Unit = {
-    xpathEvaluated += 1
+  override def addXPathStat(expr: String, time: Long): Unit = {
+    super.addXPathStat(expr, time)
     xpathStats.getOrElseUpdate(expr, new XPathStats(expr)).addStat(time)
   }
 
@@ -86,38 +118,30 @@ class RequestStatsImpl extends RequestStats {
 
   private def distinctXPath = xpathStats.size
 
-  def afterInitialResponse(): Unit =
+  override def afterInitialResponse(): Unit =
     afterUpdateResponse()
 
-  def afterUpdateResponse(): Unit = {
-    println("afterUpdateResponse statistics:")
-    println(s"  refreshes:             $refreshes")
-    println(s"  controlsCreated:       $controlsCreated")
-    println(s"  bindingsUpdated:       $bindingsUpdated")
-    println(s"  bindingsRefreshed:     $bindingsRefreshed")
-    println(s"  eventsDispatched:      $eventsDispatched")
-    println(s"  eventsWithoutHandlers: $eventsWithoutHandlers")
-    println(s"  xpathEvaluated:        $xpathEvaluated")
-    println(s"  distinct XPath:        $distinctXPath")
-    println(s"  total time in XPath:   ${xpathStats.values.map(_.totalTime).sum}")
-    println("  top XPath by mean time: ")
-    for ((topXPath, i) <- topXPath(10, _.meanTime).zipWithIndex)
-      println(s"    ${i + 1}: ${topXPath.toString}")
-    println("  top XPath by total time: ")
-    for ((topXPath, i) <- topXPath(10, _.totalTime).zipWithIndex)
-      println(s"    ${i + 1}: ${topXPath.toString}")
-  }
-
-  def withXPath[T](expr: => String)(body: => T): T = {
-    val startTime = System.nanoTime
-
-    val result = body
-
-    val totalTimeMicroSeconds = (System.nanoTime - startTime) / 1000 // never smaller on OS X
-    if (totalTimeMicroSeconds > 0)
-      addXPathStat(expr, totalTimeMicroSeconds)
-
-    result
+  override def afterUpdateResponse(): Unit = {
+
+    val lines =
+      List(
+        "afterUpdateResponse statistics:",
+        s"  refreshes:             $refreshes",
+        s"  controlsCreated:       $controlsCreated",
+        s"  bindingsUpdated:       $bindingsUpdated",
+        s"  bindingsRefreshed:     $bindingsRefreshed",
+        s"  eventsDispatched:      $eventsDispatched",
+        s"  eventsWithoutHandlers: $eventsWithoutHandlers",
+        s"  xpathEvaluated:        $xpathEvaluated",
+        s"  distinct XPath:        $distinctXPath",
+        s"  total time in XPath:   ${xpathStats.values.map(_.totalTime).sum}",
+        "  top XPath by mean time: "
+      ) :::
+      (topXPath(10, _.meanTime).zipWithIndex map  { case (topXPath, i) => s"    ${i + 1}: ${topXPath.toString}" }).toList :::
+      List("  top XPath by total time: ") :::
+      (topXPath(10, _.totalTime).zipWithIndex map { case (topXPath, i) => s"    ${i + 1}: ${topXPath.toString}" }).toList
+
+    RequestStatsImpl.Logger.info(lines.mkString("\n"))
   }
 }
 
@@ -142,9 +166,14 @@ object NOPRequestStats extends RequestStats {
 }
 
 object RequestStatsImpl {
+
+  private val Logger = LoggerFactory.createLogger(classOf[RequestStats])
+
   def apply(): RequestStats =
     if (XFormsGlobalProperties.isRequestStats)
       new RequestStatsImpl
+    else if (Metrics.isEnabled)
+      new MetricsRequestStats
     else
       NOPRequestStats
 }
\ No newline at end of file
@@ -26,5 +26,8 @@ class MutableItemsetProperty(private val control: XFormsSelect1Control) extends
   protected def requireUpdate                                : Boolean = control.containingDocument.xpathDependencies.requireItemsetUpdate(control.staticControl, XFormsId.getEffectiveIdSuffixParts(control.effectiveId))
   protected def notifyCompute()                              : Unit = control.containingDocument.xpathDependencies.notifyComputeItemset()
   protected def notifyOptimized()                            : Unit = control.containingDocument.xpathDependencies.notifyOptimizeItemset()
-  protected def evaluateValue(collector: ErrorEventCollector)(implicit indentedLogger: IndentedLogger): Itemset = ItemsetSupport.evaluateItemset(control, collector)
+  protected def evaluateValue(collector: ErrorEventCollector)(implicit indentedLogger: IndentedLogger): Itemset =
+    control.containingDocument.xpathDependencies.sharedItemset(control.staticControl, XFormsId.getEffectiveIdSuffixParts(control.effectiveId)) {
+      ItemsetSupport.evaluateItemset(control, collector)
+    }
 }
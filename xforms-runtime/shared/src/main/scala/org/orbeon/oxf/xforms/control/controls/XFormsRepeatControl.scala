@@ -34,6 +34,7 @@ import org.orbeon.oxf.xforms.xbl.XBLContainer
 import org.orbeon.oxf.xforms.{BindingContext, ControlTree, XFormsContainingDocument}
 import org.orbeon.oxf.xml.SaxonUtils
 import org.orbeon.saxon.om
+import org.orbeon.saxon.value.StringValue
 import org.orbeon.xforms.Constants.{RepeatIndexSeparatorString, RepeatSeparatorString}
 import shapeless.syntax.typeable.*
 
@@ -512,14 +513,6 @@ class XFormsRepeatControl(
         Dispatch.dispatchEvent(new XXFormsIndexChangedEvent(this, localRefreshInfo.oldRepeatIndex, getIndex), collector)
     }
 
-  private def findItemIndexes(items1: collection.Seq[om.Item], items2: collection.Seq[om.Item]) = {
-
-    def indexOfItem(otherItem: om.Item) =
-      items2 indexWhere (SaxonUtils.compareItems(_, otherItem))
-
-    items1 map indexOfItem toArray
-  }
-
   // Serialize index
   override def serializeLocal: ju.Map[String, String] =
     ju.Collections.singletonMap("index", Integer.toString(getIndex))
@@ -579,6 +572,38 @@ object XFormsRepeatControl {
     oldRepeatIndex              : Int
   )
 
+  // For each item of `items1`, return the index of the first equal item in `items2`, or -1 if there is none.
+  // The items of `items2` are indexed first, so that this is linear instead of quadratic in the number of items,
+  // which matters for inserts, deletes and moves in large repeats.
+  def findItemIndexes(items1: collection.Seq[om.Item], items2: collection.Seq[om.Item]): Array[Int] = {
+
+    val firstIndexByItem = new m.HashMap[ItemKey, Int]
+
+    for ((item, index) <- items2.iterator.zipWithIndex)
+      firstIndexByItem.getOrElseUpdate(new ItemKey(item), index)
+
+    items1.iterator.map(item => firstIndexByItem.getOrElse(new ItemKey(item), -1)).toArray
+  }
+
+  // Equality follows `SaxonUtils.compareItems()`. Nodes have a hash code consistent with node identity. Atomic values
+  // other than strings can be equal across types (e.g. `1` and `1.0`), so they all share the same hash code.
+  private class ItemKey(val item: om.Item) {
+
+    override def hashCode: Int =
+      item match {
+        case null                => 0
+        case node: om.NodeInfo   => node.hashCode
+        case string: StringValue => string.getStringValue.hashCode
+        case _                   => 1
+      }
+
+    override def equals(other: Any): Boolean =
+      other match {
+        case otherKey: ItemKey => SaxonUtils.compareItems(item, otherKey.item)
+        case _                 => false
+      }
+  }
+
   // Find the initial repeat indexes for the given doc
   def initialIndexes(doc: XFormsContainingDocument): m.LinkedHashMap[String, Int] =
     findIndexes(
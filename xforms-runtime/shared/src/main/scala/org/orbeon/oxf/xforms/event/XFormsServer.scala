@@ -92,6 +92,11 @@ object XFormsServer {
             // We are good: process request and produce new sequence number
             try {
 
+              // The client acknowledges the last Ajax response by sending the next sequence number, so it is no
+              // longer needed for retries
+              if (! ignoreSequenceNumber)
+                containingDocument.clearLastAjaxResponse()
+
               beforeProcessRequest(containingDocument)
 
               // NOTE: As of 2010-12, background uploads in script mode are handled in xforms-server.xpl. In
@@ -434,12 +434,27 @@ object ItemsetSupport {
     item.externalValue(encode).escapeJavaScript
 
   // Return the list of items as a JSON tree with hierarchical information
+  // Without selection information, the result is cached with the itemset.
   def asJSON(
     itemset                    : Itemset,
     controlValue               : Option[(Item.Value[om.NodeInfo], om.NodeInfo => Boolean)],
     encode                     : Boolean,
     excludeWhitespaceTextNodes : Boolean,
     locationData               : LocationData
+  ): String =
+    if (controlValue.isEmpty)
+      itemset.cachedJson(encode, excludeWhitespaceTextNodes) {
+        computeJSON(itemset, controlValue, encode, excludeWhitespaceTextNodes, locationData)
+      }
+    else
+      computeJSON(itemset, controlValue, encode, excludeWhitespaceTextNodes, locationData)
+
+  private def computeJSON(
+    itemset                    : Itemset,
+    controlValue               : Option[(Item.Value[om.NodeInfo], om.NodeInfo => Boolean)],
+    encode                     : Boolean,
+    excludeWhitespaceTextNodes : Boolean,
+    locationData               : LocationData
   ): String = {
 
     val sb = new StringBuilder
@@ -1,10 +1,12 @@
 package org.orbeon.oxf.xforms.submission
 
-import cats.effect.IO
+import cats.effect.std.Semaphore
+import cats.effect.{IO, SyncIO}
 import org.orbeon.oxf.util.CoreCrossPlatformSupport.{executionContext, runtime}
+import org.orbeon.oxf.util.CoreUtils.*
 import org.orbeon.oxf.util.IndentedLogger
 import org.orbeon.oxf.util.Logging.{debug, debugResults, error, withDebug}
-import org.orbeon.oxf.xforms.XFormsContainingDocument
+import org.orbeon.oxf.xforms.{XFormsContainingDocument, XFormsGlobalProperties}
 import org.orbeon.xforms.EventNames
 
 import java.util.concurrent.ConcurrentLinkedQueue
@@ -21,6 +23,13 @@ import scala.util.control.NonFatal
 // eventually be garbage-collected. This is not ideal, but it's the best we can do for now.
 trait AsynchronousSubmissionManagerTrait {
 
+  import AsynchronousSubmissionManagerTrait.*
+
+  // Maximum number of asynchronous submissions of this document running at the same time, or no maximum if `0` or less
+  protected def maxConcurrentSubmissions: Int
+
+  private lazy val documentPermitsOpt = (maxConcurrentSubmissions > 0).option(newPermits(maxConcurrentSubmissions))
+
   private var totalSubmittedCount = 0
   private var pendingCount        = 0
 
@@ -33,10 +42,14 @@ trait AsynchronousSubmissionManagerTrait {
 
   private val completionQueue = new ConcurrentLinkedQueue[CompletedCompletion]
 
+  // Set by `cancelAll()`, after which completions are no longer queued, as nothing processes them
+  @volatile private var cancelled = false
+
   protected case class PendingCompletion(
     sequence    : Int,
     description : String,
-    future      : Future[Any]
+    future      : Future[Any],
+    cancel      : () => Future[Unit]
   )
 
   private case class CompletedCompletion(
@@ -59,7 +72,12 @@ trait AsynchronousSubmissionManagerTrait {
       properties        = Nil    // poll event doesn't need properties
     )
 
-  def hasPendingAsynchronousSubmissions: Boolean = pendingCount > 0
+  def hasPendingAsynchronousSubmissions: Boolean = ! cancelled && pendingCount > 0
+
+  protected def hasQueuedCompletions: Boolean = ! completionQueue.isEmpty
+
+  // Called, from any thread, after a completion is added to the completion queue
+  protected def completionQueued(): Unit
 
   def addAsynchronousCompletion[T, U](
     description          : String,
@@ -96,24 +114,31 @@ trait AsynchronousSubmissionManagerTrait {
         localRequestWithWaitRunningCount.decrementAndGet()
 
       runningCount.decrementAndGet()
-      completionQueue.add(
-        CompletedCompletion(
-          sequence,
-          description,
-          result,
-          continuation.asInstanceOf[(XFormsContainingDocument, Try[Any]) => Either[Try[Any], Future[Any]]],
-          p.asInstanceOf[Promise[Any]]
+      if (! cancelled) {
+        completionQueue.add(
+          CompletedCompletion(
+            sequence,
+            description,
+            result,
+            continuation.asInstanceOf[(XFormsContainingDocument, Try[Any]) => Either[Try[Any], Future[Any]]],
+            p.asInstanceOf[Promise[Any]]
+          )
         )
-      )
+        completionQueued()
+      }
 
       result
     }
 
+    // This actually schedules the computation, which waits for permits first
+    val (future, cancel) = withPermits(documentPermitsOpt, computation).unsafeToFutureCancelable()
+
     val newPendingCompletion =
       PendingCompletion(
         totalSubmittedCount,
         description,
-        computation.unsafeToFuture().transform(preProcessFutureCompletion(totalSubmittedCount)) // this actually schedules the computation
+        future.transform(preProcessFutureCompletion(totalSubmittedCount)),
+        cancel
       )
 
     pendingList ::= newPendingCompletion
@@ -125,19 +150,26 @@ trait AsynchronousSubmissionManagerTrait {
     p.future
   }
 
-  def processCompletedAsynchronousSubmissions(containingDocument: XFormsContainingDocument): Unit = {
+  def processCompletedAsynchronousSubmissions(containingDocument: XFormsContainingDocument): Unit =
+    processCompletedAsynchronousSubmissionsGetSequences(containingDocument)
+
+  // Return the sequence numbers of the processed submissions
+  protected def processCompletedAsynchronousSubmissionsGetSequences(containingDocument: XFormsContainingDocument): Set[Int] = {
 
     implicit val logger: IndentedLogger = containingDocument.getIndentedLogger(XFormsModelSubmission.LoggingCategory)
 
     withDebug("processing completed asynchronous submissions") {
       var processedCount = 0
       var failedCount = 0
+      var processedSequences = Set.empty[Int]
 
       Iterator.continually(completionQueue.poll()).takeWhile(_ ne null).foreach {
         case CompletedCompletion(sequence, description, resultTry, continuation, callerPromise) =>
 
           pendingCount -= 1
           pendingList = pendingList.filterNot(_.sequence == sequence)
+          requestWithWaitPendingList = requestWithWaitPendingList.filterNot(_._1.sequence == sequence)
+          processedSequences += sequence
 
           debug(s"processing asynchronous result `$description`")
           try {
@@ -171,9 +203,23 @@ trait AsynchronousSubmissionManagerTrait {
           "running in request waiting" -> requestWithWaitRunningCount.toString,
         )
       )
+
+      processedSequences
     }
   }
 
+  // Cancel the submissions which have not completed, for example because the document is evicted from the cache and
+  // their results can no longer be processed. Submissions which have not started yet don't start. Completions already
+  // queued are dropped, and cancelled submissions don't queue any, so no submission remains pending.
+  def cancelAll(): Unit = {
+    cancelled = true
+    pendingList foreach (_.cancel())
+    pendingList = Nil
+    requestWithWaitPendingList = Nil
+    completionQueue.clear()
+    pendingCount = 0
+  }
+
   /**
     * Await all pending asynchronous submissions if any. If processing of a particular submission causes new
     * asynchronous submissions to be started, also wait for the completion of those.
@@ -235,3 +281,23 @@ trait AsynchronousSubmissionManagerTrait {
     hasRequestPending : Boolean
   ): Unit
 }
+
+object AsynchronousSubmissionManagerTrait {
+
+  // Maximum number of asynchronous submissions running at the same time, for all documents
+  private lazy val globalPermits = newPermits(XFormsGlobalProperties.getSubmissionMaxConcurrent)
+
+  def newPermits(maxConcurrent: Int): Semaphore[IO] =
+    Semaphore.in[SyncIO, IO]((maxConcurrent max 1).toLong).unsafeRunSync()
+
+  // Run the computation once it has obtained a permit from the document, if it has a maximum, then from all documents.
+  // Permits are granted in order, and a document with a maximum waits for at most that many global permits, so it
+  // doesn't prevent other documents from running their submissions. Waiting doesn't use a thread.
+  def withPermits[T](documentPermitsOpt: Option[Semaphore[IO]], computation: IO[T]): IO[T] =
+    withPermits(documentPermitsOpt, globalPermits, computation)
+
+  def withPermits[T](documentPermitsOpt: Option[Semaphore[IO]], globalPermits: Semaphore[IO], computation: IO[T]): IO[T] = {
+    val withGlobalPermit = globalPermits.permit.surround(computation)
+    documentPermitsOpt.fold(withGlobalPermit)(_.permit.surround(withGlobalPermit))
+  }
+}
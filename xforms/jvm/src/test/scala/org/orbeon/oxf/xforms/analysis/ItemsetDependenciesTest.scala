@@ -16,6 +16,9 @@ package org.orbeon.oxf.xforms.analysis
 
 import org.orbeon.oxf.common.Version
 import org.orbeon.oxf.test.{DocumentTestBase, ResourceManagerSupport}
+import org.orbeon.oxf.xforms.control.controls.XFormsSelect1Control
+import org.orbeon.oxf.xforms.event.EventCollector
+import org.orbeon.oxf.xforms.itemset.Itemset
 import org.orbeon.oxf.xml.dom.Converter.*
 import org.scalatest.funspec.AnyFunSpecLike
 
@@ -218,4 +221,88 @@ class ItemsetDependenciesTest
       }
     }
   }
-}
\ No newline at end of file
+
+  describe("Itemsets shared between repeat iterations") {
+
+    val TestDoc =
+      <xh:html xmlns:xh="http://www.w3.org/1999/xhtml"
+           xmlns:xf="http://www.w3.org/2002/xforms"
+           xmlns:xxf="http://orbeon.org/oxf/xml/xforms">
+
+        <xh:head>
+          <xf:model id="model" xxf:xpath-analysis="true" xxf:encrypt-item-values="false">
+            <xf:instance id="instance">
+              <instance xmlns="">
+                <row>
+                  <value/>
+                  <option>a1</option>
+                </row>
+                <row>
+                  <value/>
+                  <option>a2</option>
+                </row>
+              </instance>
+            </xf:instance>
+            <xf:instance id="codes">
+              <codes xmlns="">
+                <code>c1</code>
+                <code>c2</code>
+              </codes>
+            </xf:instance>
+          </xf:model>
+        </xh:head>
+        <xh:body>
+          <xf:repeat id="repeat" ref="row">
+            <xf:select1 id="shared-select1" ref="value">
+              <xf:itemset ref="instance('codes')/code">
+                <xf:label ref="."/>
+                <xf:value ref="."/>
+              </xf:itemset>
+            </xf:select1>
+            <xf:select1 id="iteration-select1" ref="value">
+              <xf:itemset ref="../option">
+                <xf:label ref="."/>
+                <xf:value ref="."/>
+              </xf:itemset>
+            </xf:select1>
+          </xf:repeat>
+          <xf:input id="code-input" ref="instance('codes')/code[1]"/>
+        </xh:body>
+      </xh:html>.toDocument
+
+    it("must share the itemset only if it doesn't depend on the iteration") {
+      assume(Version.isPE)
+      withTestExternalContext { _ =>
+        withActionAndDoc(setupDocument(TestDoc)) {
+
+          def itemsetObject(controlEffectiveId: String): Itemset =
+            getObject(controlEffectiveId).asInstanceOf[XFormsSelect1Control].getItemset(EventCollector.Throw)
+
+          val SharedItemset = """[{"label":"c1","value":"c1"},{"label":"c2","value":"c2"}]"""
+
+          assert(getItemset("shared-select1⊙1") == SharedItemset)
+          assert(getItemset("shared-select1⊙2") == SharedItemset)
+          assert(getItemset("iteration-select1⊙1") == """[{"label":"a1","value":"a1"}]""")
+          assert(getItemset("iteration-select1⊙2") == """[{"label":"a2","value":"a2"}]""")
+
+          // The iterations use the same itemset only when it doesn't depend on the iteration
+          val sharedItemset = itemsetObject("shared-select1⊙1")
+          assert(itemsetObject("shared-select1⊙2") eq sharedItemset)
+          assert(itemsetObject("iteration-select1⊙2") ne itemsetObject("iteration-select1⊙1"))
+
+          setControlValue("code-input", "c3")
+
+          val UpdatedSharedItemset = """[{"label":"c3","value":"c3"},{"label":"c2","value":"c2"}]"""
+
+          assert(getItemset("shared-select1⊙1") == UpdatedSharedItemset)
+          assert(getItemset("shared-select1⊙2") == UpdatedSharedItemset)
+
+          // The itemset is evaluated again once, and still shared
+          val updatedSharedItemset = itemsetObject("shared-select1⊙1")
+          assert(updatedSharedItemset ne sharedItemset)
+          assert(itemsetObject("shared-select1⊙2") eq updatedSharedItemset)
+        }
+      }
+    }
+  }
+}
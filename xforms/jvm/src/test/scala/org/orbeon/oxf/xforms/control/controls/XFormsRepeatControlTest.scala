@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.xforms.control.controls
+
+import org.orbeon.oxf.xml.SaxonUtils
+import org.orbeon.saxon.om
+import org.orbeon.saxon.value.{Int64Value, StringValue}
+import org.orbeon.scaxon.NodeConversions.elemToDocumentInfo
+import org.orbeon.scaxon.SimplePath.*
+import org.scalatest.funspec.AnyFunSpec
+
+import scala.util.Random
+
+
+class XFormsRepeatControlTest extends AnyFunSpec {
+
+  describe("Finding item indexes") {
+
+    // Reference implementation with a linear search for each item
+    def findItemIndexesLinear(items1: collection.Seq[om.Item], items2: collection.Seq[om.Item]): Array[Int] =
+      items1.map(item => items2.indexWhere(SaxonUtils.compareItems(_, item))).toArray
+
+    val doc   = elemToDocumentInfo(<rows>{1 to 100 map (i => <row>{i}</row>)}</rows>)
+    val nodes = doc.rootElement.child(*).toIndexedSeq
+
+    def assertSameIndexes(items1: collection.Seq[om.Item], items2: collection.Seq[om.Item]): Unit = {
+      assert(XFormsRepeatControl.findItemIndexes(items1, items2).toList == findItemIndexesLinear(items1, items2).toList)
+      assert(XFormsRepeatControl.findItemIndexes(items2, items1).toList == findItemIndexesLinear(items2, items1).toList)
+    }
+
+    it("must match the linear search for nodes after inserts, deletes and moves") {
+      val random = new Random(42)
+      for (_ <- 1 to 20) {
+        val oldNodes = random.shuffle(nodes).take(random.nextInt(nodes.size))
+        val newNodes = random.shuffle(oldNodes.drop(random.nextInt(oldNodes.size + 1)) ++ nodes.take(random.nextInt(10)))
+        assertSameIndexes(oldNodes, newNodes)
+      }
+    }
+
+    it("must match the linear search for atomic values, including duplicates") {
+      val strings  = List("a", "b", "a", "c") map (new StringValue(_))
+      val integers = List(1L, 2L, 2L, 3L)      map (new Int64Value(_))
+      assertSameIndexes(strings, strings.reverse)
+      assertSameIndexes(integers, integers.tail)
+      assertSameIndexes(strings ++ integers, integers ++ strings)
+    }
+
+    it("must handle empty sequences") {
+      assertSameIndexes(Nil, nodes)
+      assertSameIndexes(Nil, Nil)
+    }
+  }
+}
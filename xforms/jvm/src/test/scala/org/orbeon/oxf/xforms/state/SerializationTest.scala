@@ -21,6 +21,7 @@ import org.orbeon.oxf.xforms.state.XFormsOperations.*
 import org.orbeon.oxf.xforms.state.XFormsProtocols.*
 import org.orbeon.oxf.xforms.{XFormsContainingDocumentBuilder, XFormsStaticStateImpl}
 import org.orbeon.oxf.xml.SAXStoreBinaryFormat.*
+import org.orbeon.oxf.xml.SBinaryDefaultFormats.*
 import org.orbeon.oxf.xml.*
 import org.orbeon.oxf.xml.dom.Converter.*
 import org.scalatestplus.junit.AssertionsForJUnit
@@ -68,6 +69,26 @@ class SerializationTest extends DocumentTestBase with AssertionsForJUnit {
     assertXMLDocumentsIgnoreNamespacesInScope(simpleDoc, deserializedDoc)
   }
 
+  @Test def lastAjaxResponse(): Unit = {
+
+    val saxStore = TransformerUtils.orbeonDomToSAXStore(simpleDoc, false)
+
+    def assertDecodes(bytes: Seq[Byte]): Unit =
+      assertXMLDocumentsIgnoreNamespacesInScope(
+        simpleDoc,
+        TransformerUtils.saxStoreToOrbeonDomDocument(DynamicState.decodeCompressedAjaxResponse(bytes).get)
+      )
+
+    // Current compressed format
+    assertDecodes(DynamicState.encodeCompressedAjaxResponse(Some(saxStore)))
+    assert(DynamicState.encodeCompressedAjaxResponse(None).isEmpty)
+    assert(DynamicState.decodeCompressedAjaxResponse(Nil).isEmpty)
+
+    // Format of state stored by earlier versions
+    assertDecodes(toByteSeq(Some(saxStore): Option[SAXStore]))
+    assert(DynamicState.decodeCompressedAjaxResponse(toByteSeq(None: Option[SAXStore])).isEmpty)
+  }
+
   @Test def saxStoreWithMarks(): Unit = {
 
     // Transform to SAXStore while collecting marks
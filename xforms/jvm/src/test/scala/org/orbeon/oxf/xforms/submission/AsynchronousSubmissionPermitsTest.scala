@@ -0,0 +1,354 @@
+/**
+ * Copyright (C) 2026 Orbeon, Inc.
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version
+ * 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * The full text of the license is available at http://www.gnu.org/copyleft/lesser.html
+ */
+package org.orbeon.oxf.xforms.submission
+
+import cats.effect.IO
+import cats.effect.unsafe.implicits.global
+import cats.syntax.all.*
+import com.sun.net.httpserver.{HttpExchange, HttpServer}
+import org.orbeon.dom
+import org.orbeon.io.IOUtils.useAndClose
+import org.orbeon.oxf.test.{DocumentTestBase, ResourceManagerSupport}
+import org.orbeon.oxf.xforms.submission.AsynchronousSubmissionManagerTrait.{newPermits, withPermits}
+import org.orbeon.oxf.xml.dom.Converter.*
+import org.scalatest.funspec.AnyFunSpecLike
+
+import java.net.http.{HttpClient, HttpRequest, HttpResponse}
+import java.net.{InetSocketAddress, URI}
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger}
+import java.util.concurrent.{ConcurrentLinkedQueue, CountDownLatch, Executors, TimeUnit}
+import scala.collection.mutable
+import scala.concurrent.duration.*
+import scala.concurrent.{Await, Future}
+import scala.jdk.CollectionConverters.*
+import scala.util.{Success, Try}
+
+
+class AsynchronousSubmissionPermitsTest
+  extends DocumentTestBase
+     with ResourceManagerSupport
+     with AnyFunSpecLike {
+
+  private def emptyDocument: dom.Document =
+    <xh:html
+      xmlns:xf="http://www.w3.org/2002/xforms"
+      xmlns:xh="http://www.w3.org/1999/xhtml">
+      <xh:head>
+        <xf:model id="model">
+          <xf:instance id="instance">
+            <value/>
+          </xf:instance>
+        </xf:model>
+      </xh:head>
+      <xh:body/>
+    </xh:html>.toDocument
+
+  private def awaitCondition(condition: => Boolean): Unit = {
+    val deadline = 10.seconds.fromNow
+    while (! condition && deadline.hasTimeLeft())
+      Thread.sleep(1)
+    assert(condition)
+  }
+
+  // Continuation which records the result, and makes it the result of the submission
+  private def recordingContinuation[T](processed: mutable.ListBuffer[T]): (Any, Try[T]) => Either[Try[T], Future[T]] =
+    (_, result) => {
+      processed ++= result.toOption
+      Left(result)
+    }
+
+  describe("Asynchronous submission manager") {
+
+    it("must await all submissions, within the maximum for the document") {
+      withXFormsDocument(emptyDocument) { xfcd =>
+
+        val MaxPerDocument = 2
+
+        val manager    = new AsynchronousSubmissionManager(MaxPerDocument)
+        val running    = new AtomicInteger(0)
+        val maxRunning = new AtomicInteger(0)
+        val processed  = mutable.ListBuffer[Int]()
+
+        val futures =
+          (1 to 10).map { i =>
+            manager.addAsynchronousCompletion[Int, Int](
+              description           = s"submission $i",
+              computation           = IO.blocking {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), _ max _)
+                try {
+                  Thread.sleep(2)
+                  i
+                } finally {
+                  running.decrementAndGet()
+                }
+              },
+              continuation          = recordingContinuation(processed),
+              awaitInCurrentRequest = None
+            )
+          }
+
+        manager.awaitAllAsynchronousSubmissions(xfcd)
+
+        assert(processed.sorted == (1 to 10))
+        assert(futures.map(_.value) == (1 to 10).map(i => Some(Success(i))))
+        assert(maxRunning.get <= MaxPerDocument)
+        assert(! manager.hasPendingAsynchronousSubmissions)
+      }
+    }
+
+    it("must not limit the submissions of a document by default") {
+      withXFormsDocument(emptyDocument) { xfcd =>
+
+        val SubmissionCount = 20
+
+        // Each submission only completes once all of them have started
+        val manager   = new AsynchronousSubmissionManager(0)
+        val started   = new CountDownLatch(SubmissionCount)
+        val processed = mutable.ListBuffer[Boolean]()
+
+        (1 to SubmissionCount) foreach { i =>
+          manager.addAsynchronousCompletion[Boolean, Boolean](
+            description           = s"submission $i",
+            computation           = IO.blocking {
+              started.countDown()
+              started.await(10, TimeUnit.SECONDS)
+            },
+            continuation          = recordingContinuation(processed),
+            awaitInCurrentRequest = None
+          )
+        }
+
+        manager.awaitAllAsynchronousSubmissions(xfcd)
+
+        assert(processed == List.fill(SubmissionCount)(true))
+      }
+    }
+
+    it("must await submissions started by continuations") {
+      withXFormsDocument(emptyDocument) { xfcd =>
+
+        val manager   = new AsynchronousSubmissionManager(0)
+        val processed = mutable.ListBuffer[Int]()
+
+        val outer =
+          manager.addAsynchronousCompletion[Int, Int](
+            description           = "outer",
+            computation           = IO(1),
+            continuation          = (_, result) => {
+              processed ++= result.toOption
+              Right(
+                manager.addAsynchronousCompletion[Int, Int](
+                  description           = "inner",
+                  computation           = IO(2),
+                  continuation          = recordingContinuation(processed),
+                  awaitInCurrentRequest = None
+                )
+              )
+            },
+            awaitInCurrentRequest = None
+          )
+
+        manager.awaitAllAsynchronousSubmissions(xfcd)
+
+        assert(processed == List(1, 2))
+        assert(Await.result(outer, 10.seconds) == 2)
+        assert(! manager.hasPendingAsynchronousSubmissions)
+      }
+    }
+
+    it("must only await submissions for the current request which are marked as such") {
+      withXFormsDocument(emptyDocument) { xfcd =>
+
+        val manager   = new AsynchronousSubmissionManager(0)
+        val processed = mutable.ListBuffer[Int]()
+
+        try {
+          val awaited =
+            manager.addAsynchronousCompletion[Int, Int](
+              description           = "awaited",
+              computation           = IO.sleep(10.millis).as(1),
+              continuation          = recordingContinuation(processed),
+              awaitInCurrentRequest = Some(Duration.Inf)
+            )
+
+          val notAwaited =
+            manager.addAsynchronousCompletion[Int, Int](
+              description           = "not awaited",
+              computation           = IO.never[Int],
+              continuation          = recordingContinuation(processed),
+              awaitInCurrentRequest = None
+            )
+
+          manager.awaitAsynchronousSubmissionsForCurrentRequestMaybeSubmitPollEvent(xfcd, skipDeferredEventHandling = true)
+
+          assert(awaited.value.contains(Success(1)))
+          assert(! notAwaited.isCompleted)
+          assert(processed == List(1))
+          assert(manager.hasPendingAsynchronousSubmissions)
+        } finally {
+          manager.cancelAll()
+        }
+      }
+    }
+
+    it("must cancel running submissions and not start waiting ones") {
+      withXFormsDocument(emptyDocument) { xfcd =>
+
+        val manager   = new AsynchronousSubmissionManager(1)
+        val started   = new AtomicInteger(0)
+        val cancelled = new AtomicBoolean(false)
+        val processed = mutable.ListBuffer[Int]()
+
+        manager.addAsynchronousCompletion[Int, Int](
+          description           = "running",
+          computation           = IO(started.incrementAndGet()) *> IO.never[Int].onCancel(IO(cancelled.set(true))),
+          continuation          = recordingContinuation(processed),
+          awaitInCurrentRequest = None
+        )
+
+        awaitCondition(started.get == 1)
+
+        // Waits for the permit of the document
+        manager.addAsynchronousCompletion[Int, Int](
+          description           = "waiting",
+          computation           = IO(started.incrementAndGet()),
+          continuation          = recordingContinuation(processed),
+          awaitInCurrentRequest = None
+        )
+
+        assert(manager.hasPendingAsynchronousSubmissions)
+
+        manager.cancelAll()
+
+        assert(! manager.hasPendingAsynchronousSubmissions)
+        awaitCondition(cancelled.get)
+
+        // Nothing remains to await or to process
+        manager.awaitAllAsynchronousSubmissions(xfcd)
+        manager.processCompletedAsynchronousSubmissions(xfcd)
+
+        assert(started.get == 1)
+        assert(processed.isEmpty)
+      }
+    }
+  }
+
+  describe("Asynchronous submission permits") {
+
+    it("must bound concurrency per document and globally, and not starve documents") {
+
+      val DocumentCount      = 10
+      val BusyDocumentCount  = 550
+      val OtherDocumentCount = 50
+      val MaxPerDocument     = 4
+      val MaxGlobal          = 16
+
+      val globalPermits   = newPermits(MaxGlobal)
+      val documentPermits = Vector.fill(DocumentCount)(newPermits(MaxPerDocument))
+
+      val runningGlobal      = new AtomicInteger(0)
+      val maxRunningGlobal   = new AtomicInteger(0)
+      val runningByDocument  = Vector.fill(DocumentCount)(new AtomicInteger(0))
+      val maxRunningDocument = new AtomicInteger(0)
+      val startOrder         = new ConcurrentLinkedQueue[Int]
+
+      // Stub of a remote service, which takes a little time to respond, and records the requests it is processing
+      val serverExecutor = Executors.newFixedThreadPool(MaxGlobal * 2)
+      val server         = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+      server.setExecutor(serverExecutor)
+      server.createContext("/", (exchange: HttpExchange) => {
+        val document = exchange.getRequestURI.getPath.split('/').last.toInt
+        startOrder.add(document)
+        maxRunningGlobal.accumulateAndGet(runningGlobal.incrementAndGet(), _ max _)
+        maxRunningDocument.accumulateAndGet(runningByDocument(document).incrementAndGet(), _ max _)
+        try {
+          Thread.sleep(1)
+        } finally {
+          runningByDocument(document).decrementAndGet()
+          runningGlobal.decrementAndGet()
+        }
+        val body = document.toString.getBytes(StandardCharsets.UTF_8)
+        exchange.sendResponseHeaders(200, body.length)
+        useAndClose(exchange.getResponseBody)(_.write(body))
+      })
+      server.start()
+
+      val client = HttpClient.newHttpClient()
+
+      def submission(document: Int): IO[Int] =
+        IO.fromCompletableFuture(
+          IO(
+            client.sendAsync(
+              HttpRequest.newBuilder(URI.create(s"http://127.0.0.1:${server.getAddress.getPort}/document/$document")).build(),
+              HttpResponse.BodyHandlers.ofString()
+            )
+          )
+        ).map(_.body.toInt)
+
+      // The first document starts all its submissions before the other documents
+      val documents =
+        List.fill(BusyDocumentCount)(0) ::: (1 until DocumentCount).toList.flatMap(List.fill(OtherDocumentCount)(_))
+
+      val results =
+        try
+          documents
+            .parTraverse(document => withPermits(Some(documentPermits(document)), globalPermits, submission(document)))
+            .timeout(60.seconds)
+            .unsafeRunSync()
+        finally {
+          server.stop(0)
+          serverExecutor.shutdown()
+        }
+
+      assert(results == documents)
+      assert(maxRunningGlobal.get <= MaxGlobal)
+      assert(maxRunningDocument.get <= MaxPerDocument)
+      assert(runningGlobal.get == 0)
+
+      // Each other document starts running before the first document has run a fraction of its submissions
+      val starts = startOrder.asScala.toVector
+      assert(starts.size == documents.size)
+      val firstDocumentStartsBefore = (1 until DocumentCount) map { document =>
+        starts.take(starts.indexOf(document)).count(_ == 0)
+      }
+      assert(firstDocumentStartsBefore.forall(_ < BusyDocumentCount / 5), firstDocumentStartsBefore)
+    }
+
+    it("must not start a cancelled submission waiting for a permit") {
+
+      val documentPermits = Some(newPermits(1))
+      val globalPermits   = newPermits(1)
+      val started         = new AtomicInteger(0)
+
+      val (_, cancelFirst) =
+        withPermits(documentPermits, globalPermits, IO(started.incrementAndGet()) *> IO.never[Unit]).unsafeToFutureCancelable()
+
+      awaitCondition(started.get == 1)
+
+      val (second, cancelSecond) =
+        withPermits(documentPermits, globalPermits, IO(started.incrementAndGet())).unsafeToFutureCancelable()
+
+      Await.result(cancelSecond(), 10.seconds)
+      Await.result(cancelFirst(), 10.seconds)
+      Await.ready(second, 10.seconds)
+
+      assert(second.value.exists(_.isFailure))
+      assert(started.get == 1)
+
+      // Permits are released upon cancellation
+      assert(withPermits(documentPermits, globalPermits, IO(started.incrementAndGet())).unsafeRunSync() == 2)
+    }
+  }
+}
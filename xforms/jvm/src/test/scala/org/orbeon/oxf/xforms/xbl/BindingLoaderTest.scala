@@ -30,14 +30,14 @@ class BindingLoaderTest
      with ResourceManagerSupport
      with AnyFunSpecLike {
 
-  def newPropertySet = {
+  def newPropertySet(library: String = "fr:foo fr:bar") = {
     val properties =
       <properties xmlns:xs="http://www.w3.org/2001/XMLSchema" xmlns:fr="http://orbeon.org/oxf/xml/form-runner">
         <property as="xs:string"  name="oxf.xforms.xbl.mapping.orbeon">
           http://orbeon.org/oxf/xml/form-runner
         </property>
         <property as="xs:string"  name="oxf.xforms.xbl.library">
-          fr:foo fr:bar
+          {library}
         </property>
         <property as="xs:string"  name="oxf.xforms.resources.baseline">
           fr:bar fr:baz
@@ -54,9 +54,9 @@ class BindingLoaderTest
     PropertyStore.parse(properties, "").globalPropertySet
   }
 
-  class TestBindingLoader extends BindingLoader {
+  class TestBindingLoader(library: String = "fr:foo fr:bar") extends BindingLoader {
 
-    var propertySet = newPropertySet
+    var propertySet = newPropertySet(library)
 
     val FooXBL =
       <xbl:xbl xmlns:xbl="http://www.w3.org/ns/xbl" xmlns:fr="http://orbeon.org/oxf/xml/form-runner">
@@ -102,17 +102,30 @@ class BindingLoaderTest
         </xbl:binding>
       </xbl:xbl>.toDocument
 
+    val MultiXBL: Document =
+      <xbl:xbl xmlns:xbl="http://www.w3.org/ns/xbl" xmlns:fr="http://orbeon.org/oxf/xml/form-runner">
+        <xbl:binding id="fr-multi" element="fr|multi">
+          <xbl:template/>
+        </xbl:binding>
+        <xbl:binding id="fr-multi-other" element="fr|multi-other">
+          <xbl:template/>
+        </xbl:binding>
+      </xbl:xbl>.toDocument
+
     val Docs = Map(
-      "/xbl/orbeon/foo/foo.xbl"   -> FooXBL,
-      "/xbl/orbeon/bar/bar.xbl"   -> BarXBL,
-      "/xbl/orbeon/baz/baz.xbl"   -> BazXBL,
-      "/xbl/orbeon/gaga/gaga.xbl" -> GagaXBL
+      "/xbl/orbeon/foo/foo.xbl"     -> FooXBL,
+      "/xbl/orbeon/bar/bar.xbl"     -> BarXBL,
+      "/xbl/orbeon/baz/baz.xbl"     -> BazXBL,
+      "/xbl/orbeon/gaga/gaga.xbl"   -> GagaXBL,
+      "/xbl/orbeon/multi/multi.xbl" -> MultiXBL
     )
 
     def getPropertySet = propertySet
 
-    def lastModifiedByPath(path: String)(implicit indentedLogger: IndentedLogger) =
+    def lastModifiedByPath(path: String)(implicit indentedLogger: IndentedLogger) = {
+      lastModifiedChecked += path
       lastModified
+    }
 
     def existsByPath(path: String)(implicit indentedLogger: IndentedLogger) =
       Docs.contains(path)
@@ -124,6 +137,7 @@ class BindingLoaderTest
 
     var lastModified = 123L
     val contentRead = mutable.Set[String]()
+    val lastModifiedChecked = mutable.Buffer[String]()
   }
 
 
@@ -188,7 +202,7 @@ class BindingLoaderTest
     }
 
     it("property reload forces library reload") {
-      Loader.propertySet = newPropertySet
+      Loader.propertySet = newPropertySet()
       Loader.contentRead.clear()
       val (newIndex, _, _) =
         Loader.getUpToDateLibraryAndBaseline(currentIndexOpt, checkUpToDate = true)
@@ -294,4 +308,40 @@ class BindingLoaderTest
       assert(newBinding.isEmpty)
     }
   }
+
+  describe("Library revalidation") {
+
+    implicit val indentedLogger: IndentedLogger = XFormsStateManager.newIndentedLogger
+
+    val Loader    = new TestBindingLoader(library = "fr:multi")
+    val MultiPath = Loader.bindingPathByName("orbeon", "multi")
+
+    it("checks the last modification date of a file with several bindings once") {
+
+      val (index, _, _) =
+        Loader.getUpToDateLibraryAndBaseline(None, checkUpToDate = true)
+
+      assert(2 == BindingIndex.distinctBindingsForPath(index, MultiPath).size)
+
+      // Up to date
+      Loader.lastModifiedChecked.clear()
+      val (sameIndex, _, _) =
+        Loader.getUpToDateLibraryAndBaseline(Some(index), checkUpToDate = true)
+
+      assert(sameIndex eq index)
+      assert(1 == Loader.lastModifiedChecked.count(_ == MultiPath))
+
+      // Out of date: checked once, then read once
+      Loader.lastModified += 1
+      Loader.lastModifiedChecked.clear()
+      Loader.contentRead.clear()
+      val (newIndex, _, _) =
+        Loader.getUpToDateLibraryAndBaseline(Some(index), checkUpToDate = true)
+
+      assert(! (newIndex eq index))
+      assert(2 == Loader.lastModifiedChecked.count(_ == MultiPath))
+      assert(Loader.contentRead(MultiPath))
+      assert(2 == BindingIndex.distinctBindingsForPath(newIndex, MultiPath).size)
+    }
+  }
 }